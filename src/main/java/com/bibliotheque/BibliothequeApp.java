@@ -1,9 +1,18 @@
 package com.bibliotheque;
 
+import com.bibliotheque.charge.ConfigurationCharge;
+import com.bibliotheque.charge.TestDeCharge;
 import com.bibliotheque.modele.Adherent;
 import com.bibliotheque.modele.Emprunt;
 import com.bibliotheque.modele.Livre;
+import com.bibliotheque.profilage.AnalyseEnregistrement;
+import com.bibliotheque.serveur.ServeurBibliotheque;
 import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.ServiceSuiveur;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 
  // Application principale de démonstration du système de gestion de bibliothèque
@@ -11,6 +20,27 @@ import com.bibliotheque.service.BibliothequeService;
 public class BibliothequeApp {
 
     public static void main(String[] args) {
+        // Mode test de charge : --charge livres=... threads=... (voir ConfigurationCharge)
+        if (args.length > 0 && "--charge".equals(args[0])) {
+            lancerTestDeCharge(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Mode serveur HTTP/JSON : --serveur port=8080 concurrence=10000 journal=replication.log
+        if (args.length > 0 && "--serveur".equals(args[0])) {
+            lancerServeur(Arrays.copyOfRange(args, 1, args.length), false);
+            return;
+        }
+        // Réplica en lecture seule : --suiveur journal=replication.log port=8081
+        if (args.length > 0 && "--suiveur".equals(args[0])) {
+            lancerServeur(Arrays.copyOfRange(args, 1, args.length), true);
+            return;
+        }
+        // Résumé d'un enregistrement JFR : --analyse bibliotheque.jfr top=20
+        if (args.length > 0 && "--analyse".equals(args[0])) {
+            analyserEnregistrement(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
         System.out.println("=== Système de Gestion de Bibliothèque ===\n");
 
         // Créer le service
@@ -93,5 +123,80 @@ public class BibliothequeApp {
 
         System.out.println("\n=== Fin de la démonstration ===");
     }
-}
 
+    private static void lancerTestDeCharge(String[] arguments) {
+        try {
+            new TestDeCharge(ConfigurationCharge.lire(arguments)).executer(System.out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("✗ Test de charge interrompu");
+        }
+    }
+
+    private static void lancerServeur(String[] arguments, boolean replica) {
+        int port = ServeurBibliotheque.PORT_PAR_DEFAUT;
+        int concurrence = ServeurBibliotheque.MAX_REQUETES_EN_COURS_PAR_DEFAUT;
+        Path journal = null;
+        for (String argument : arguments) {
+            if (argument.startsWith("port=")) {
+                port = Integer.parseInt(argument.substring("port=".length()));
+            } else if (argument.startsWith("concurrence=")) {
+                concurrence = Integer.parseInt(argument.substring("concurrence=".length()));
+            } else if (argument.startsWith("journal=")) {
+                journal = Path.of(argument.substring("journal=".length()));
+            } else {
+                throw new IllegalArgumentException("Paramètre inconnu: " + argument);
+            }
+        }
+        if (replica && journal == null) {
+            throw new IllegalArgumentException("Le réplica doit connaître le journal à suivre (journal=...)");
+        }
+
+        try {
+            ServeurBibliotheque serveur;
+            if (replica) {
+                serveur = new ServeurBibliotheque(new ServiceSuiveur(journal), port, concurrence);
+            } else {
+                BibliothequeService service = new BibliothequeService();
+                if (journal != null) {
+                    service.activerJournal(journal);
+                }
+                serveur = new ServeurBibliotheque(service, port, concurrence);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(serveur::close));
+            serveur.demarrer();
+            System.out.println("✓ " + (replica ? "Réplica" : "Serveur") + " démarré sur http://localhost:"
+                    + serveur.getPort() + " (" + concurrence + " requêtes simultanées au plus)"
+                    + (journal != null ? ", journal " + journal : ""));
+            Thread.currentThread().join();
+        } catch (IOException e) {
+            System.out.println("✗ Impossible de démarrer le serveur: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void analyserEnregistrement(String[] arguments) {
+        Path fichier = null;
+        int nombre = 10;
+        for (String argument : arguments) {
+            if (argument.startsWith("top=")) {
+                nombre = Integer.parseInt(argument.substring("top=".length()));
+            } else if (fichier == null) {
+                fichier = Path.of(argument);
+            } else {
+                throw new IllegalArgumentException("Paramètre inconnu: " + argument);
+            }
+        }
+        if (fichier == null) {
+            throw new IllegalArgumentException("Enregistrement JFR à analyser manquant");
+        }
+
+        try {
+            System.out.println("Enregistrement " + fichier);
+            AnalyseEnregistrement.lire(fichier).imprimer(System.out, nombre);
+        } catch (IOException e) {
+            System.out.println("✗ Impossible de lire l'enregistrement: " + e.getMessage());
+        }
+    }
+}
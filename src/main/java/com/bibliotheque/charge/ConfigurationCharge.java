@@ -0,0 +1,183 @@
+package com.bibliotheque.charge;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Paramètres d'un test de charge, lus depuis des arguments « cle=valeur ».
+ *
+ * Exemple : livres=2000000 adherents=300000 threads=32 duree=60 cible=pipeline
+ *           mix=emprunt:40,retour:35,prolongation:5,recherche:20
+ */
+public class ConfigurationCharge {
+
+    /**
+     * Opérations simulées
+     */
+    public enum Operation {
+        EMPRUNT,
+        RETOUR,
+        PROLONGATION,
+        RECHERCHE
+    }
+
+    private int nombreLivres = 1_000_000;
+    private int nombreAdherents = 200_000;
+    private int nombreAuteurs = 50_000;
+    private double exposantZipf = 1.0;
+    private int threads = Runtime.getRuntime().availableProcessors() * 4;
+    private int dureeSecondes = 30;
+    private int echauffementSecondes = 5;
+    private int joursParSeconde = 0;
+    private String cible = "verrou";
+    private long graine = 42;
+    private final Map<Operation, Integer> mix;
+
+    public ConfigurationCharge() {
+        this.mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.EMPRUNT, 40);
+        mix.put(Operation.RETOUR, 35);
+        mix.put(Operation.PROLONGATION, 5);
+        mix.put(Operation.RECHERCHE, 20);
+    }
+
+    public static ConfigurationCharge lire(String[] arguments) {
+        ConfigurationCharge configuration = new ConfigurationCharge();
+        for (String argument : arguments) {
+            int egal = argument.indexOf('=');
+            if (egal <= 0) {
+                throw new IllegalArgumentException("Argument invalide (attendu cle=valeur): " + argument);
+            }
+            configuration.definir(argument.substring(0, egal), argument.substring(egal + 1));
+        }
+        return configuration;
+    }
+
+    private void definir(String cle, String valeur) {
+        switch (cle) {
+            case "livres":
+                nombreLivres = entierPositif(cle, valeur);
+                break;
+            case "adherents":
+                nombreAdherents = entierPositif(cle, valeur);
+                break;
+            case "auteurs":
+                nombreAuteurs = entierPositif(cle, valeur);
+                break;
+            case "zipf":
+                exposantZipf = Double.parseDouble(valeur);
+                break;
+            case "threads":
+                threads = entierPositif(cle, valeur);
+                break;
+            case "duree":
+                dureeSecondes = entierPositif(cle, valeur);
+                break;
+            case "echauffement":
+                echauffementSecondes = Integer.parseInt(valeur);
+                break;
+            case "accelerer":
+                joursParSeconde = Integer.parseInt(valeur);
+                break;
+            case "cible":
+                cible = valeur;
+                break;
+            case "graine":
+                graine = Long.parseLong(valeur);
+                break;
+            case "mix":
+                lireMix(valeur);
+                break;
+            default:
+                throw new IllegalArgumentException("Paramètre inconnu: " + cle);
+        }
+    }
+
+    private void lireMix(String valeur) {
+        mix.replaceAll((operation, poids) -> 0);
+        for (String element : valeur.split(",")) {
+            String[] parties = element.split(":");
+            if (parties.length != 2) {
+                throw new IllegalArgumentException("Mix invalide: " + element);
+            }
+            mix.put(Operation.valueOf(parties[0].trim().toUpperCase()), Integer.parseInt(parties[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Le mix doit contenir au moins une opération");
+        }
+    }
+
+    private static int entierPositif(String cle, String valeur) {
+        int entier = Integer.parseInt(valeur);
+        if (entier <= 0) {
+            throw new IllegalArgumentException("Le paramètre " + cle + " doit être positif");
+        }
+        return entier;
+    }
+
+    /**
+     * Tire une opération selon les poids du mix
+     * @param tirage Un entier entre 0 et la somme des poids (exclue)
+     */
+    public Operation operation(int tirage) {
+        int cumul = 0;
+        for (Map.Entry<Operation, Integer> entree : mix.entrySet()) {
+            cumul += entree.getValue();
+            if (tirage < cumul) {
+                return entree.getKey();
+            }
+        }
+        throw new IllegalArgumentException("Tirage hors du mix: " + tirage);
+    }
+
+    public int getPoidsTotal() {
+        return mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public int getNombreLivres() {
+        return nombreLivres;
+    }
+
+    public int getNombreAdherents() {
+        return nombreAdherents;
+    }
+
+    public int getNombreAuteurs() {
+        return nombreAuteurs;
+    }
+
+    public double getExposantZipf() {
+        return exposantZipf;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getDureeSecondes() {
+        return dureeSecondes;
+    }
+
+    public int getEchauffementSecondes() {
+        return echauffementSecondes;
+    }
+
+    public int getJoursParSeconde() {
+        return joursParSeconde;
+    }
+
+    public String getCible() {
+        return cible;
+    }
+
+    public long getGraine() {
+        return graine;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Configuration{livres=%d, adhérents=%d, auteurs=%d, zipf=%.2f, threads=%d, "
+                        + "durée=%ds, cible=%s, mix=%s}",
+                nombreLivres, nombreAdherents, nombreAuteurs, exposantZipf, threads, dureeSecondes, cible, mix);
+    }
+}
@@ -0,0 +1,47 @@
+package com.bibliotheque.charge;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Tirage de rangs selon une loi de Zipf : le rang r est tiré avec une probabilité proportionnelle
+ * à 1 / r^s. Quelques titres concentrent ainsi l'essentiel des emprunts, comme en période de rentrée.
+ *
+ * La fonction de répartition est précalculée (un double par rang) ; un tirage est une
+ * recherche dichotomique, sans allocation. Thread-safe.
+ */
+public class DistributionZipf {
+
+    private final double[] repartition;
+
+    public DistributionZipf(int nombreRangs, double exposant) {
+        if (nombreRangs <= 0) {
+            throw new IllegalArgumentException("Le nombre de rangs doit être positif");
+        }
+        if (exposant < 0) {
+            throw new IllegalArgumentException("L'exposant ne peut pas être négatif");
+        }
+        this.repartition = new double[nombreRangs];
+        double cumul = 0;
+        for (int rang = 0; rang < nombreRangs; rang++) {
+            cumul += 1.0 / Math.pow(rang + 1, exposant);
+            repartition[rang] = cumul;
+        }
+        for (int rang = 0; rang < nombreRangs; rang++) {
+            repartition[rang] /= cumul;
+        }
+    }
+
+    /**
+     * @return Un rang entre 0 (le plus populaire) et nombreRangs - 1
+     */
+    public int tirer(Random aleatoire) {
+        int position = Arrays.binarySearch(repartition, aleatoire.nextDouble());
+        int rang = position >= 0 ? position : -position - 1;
+        return Math.min(rang, repartition.length - 1);
+    }
+
+    public int getNombreRangs() {
+        return repartition.length;
+    }
+}
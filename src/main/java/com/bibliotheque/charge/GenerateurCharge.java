@@ -0,0 +1,93 @@
+package com.bibliotheque.charge;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Horloge;
+import com.bibliotheque.modele.Livre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Génère un catalogue et une base d'adhérents synthétiques mais réalistes.
+ *
+ * Le livre de rang r (0 = le plus populaire) a l'ISBN isbn(r) ; les plus populaires reçoivent
+ * davantage d'exemplaires. Les auteurs suivent eux aussi une loi de Zipf : quelques auteurs
+ * prolifiques et une longue traîne.
+ */
+public class GenerateurCharge {
+
+    private static final String[] MOTS = {
+            "Introduction", "Histoire", "Algorithmes", "Réseaux", "Chimie", "Droit", "Économie",
+            "Physique", "Analyse", "Philosophie", "Biologie", "Littérature", "Statistiques",
+            "Architecture", "Médecine", "Géographie", "Mathématiques", "Sociologie", "Java", "Données"
+    };
+    private static final String[] COMPLEMENTS = {
+            "avancée", "pour débutants", "moderne", "appliquée", "générale", "comparée",
+            "fondamentale", "pratique", "théorique", "numérique"
+    };
+    private static final int ANNEE_MIN = 1950;
+
+    private final Random aleatoire;
+    private final Horloge horloge;
+
+    public GenerateurCharge(long graine) {
+        this(graine, Horloge.parDefaut());
+    }
+
+    /**
+     * @param horloge L'horloge du service qui recevra les livres et adhérents générés
+     */
+    public GenerateurCharge(long graine, Horloge horloge) {
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        this.aleatoire = new Random(graine);
+        this.horloge = horloge;
+    }
+
+    public static String isbn(int rang) {
+        return String.format("978-%010d", rang);
+    }
+
+    /**
+     * Génère les livres du rang 0 au rang nombreLivres - 1
+     * @param destination Reçoit chaque livre généré (par exemple service::ajouterLivre)
+     */
+    public void genererLivres(int nombreLivres, int nombreAuteurs, Consumer<Livre> destination) {
+        DistributionZipf auteurs = new DistributionZipf(nombreAuteurs, 0.8);
+        int anneeMax = horloge.anneeCourante();
+        for (int rang = 0; rang < nombreLivres; rang++) {
+            String titre = MOTS[aleatoire.nextInt(MOTS.length)] + " "
+                    + COMPLEMENTS[aleatoire.nextInt(COMPLEMENTS.length)] + " " + rang;
+            String auteur = "Auteur " + auteurs.tirer(aleatoire);
+            int annee = ANNEE_MIN + aleatoire.nextInt(anneeMax - ANNEE_MIN + 1);
+
+            Livre livre = new Livre(isbn(rang), titre, auteur, annee, horloge);
+            // Manuels populaires : jusqu'à 20 exemplaires pour le premier pour-mille du catalogue
+            if (rang < nombreLivres / 1000) {
+                livre.ajouterExemplaires(19);
+            } else if (rang < nombreLivres / 100) {
+                livre.ajouterExemplaires(4);
+            }
+            destination.accept(livre);
+        }
+    }
+
+    /**
+     * Génère des adhérents
+     * @param destination Reçoit chaque adhérent généré
+     * @return Les numéros de carte, dans l'ordre de génération
+     */
+    public List<String> genererAdherents(int nombreAdherents, Consumer<Adherent> destination) {
+        List<String> cartes = new ArrayList<>(nombreAdherents);
+        for (int i = 0; i < nombreAdherents; i++) {
+            Adherent adherent = new Adherent("Nom" + i, "Prenom" + aleatoire.nextInt(500),
+                    "adherent" + i + "@universite.fr", horloge);
+            cartes.add(adherent.getNumeroCarte());
+            destination.accept(adherent);
+        }
+        return cartes;
+    }
+}
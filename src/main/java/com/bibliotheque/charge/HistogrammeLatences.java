@@ -0,0 +1,86 @@
+package com.bibliotheque.charge;
+
+/**
+ * Histogramme de latences à précision relative constante (environ 1,5 %).
+ *
+ * Les valeurs en nanosecondes sont rangées dans des cases log-linéaires : 64 cases par
+ * puissance de deux. L'enregistrement est en O(1) sans allocation ; chaque thread utilise
+ * son propre histogramme, fusionné à la fin du test.
+ */
+public class HistogrammeLatences {
+
+    private static final int BITS_MANTISSE = 6;
+    private static final int CASES_PAR_OCTAVE = 1 << BITS_MANTISSE;
+    private static final int NOMBRE_CASES = (63 - BITS_MANTISSE + 1) * CASES_PAR_OCTAVE;
+
+    private final long[] cases;
+    private long nombre;
+    private long maximum;
+
+    public HistogrammeLatences() {
+        this.cases = new long[NOMBRE_CASES];
+    }
+
+    public void enregistrer(long nanos) {
+        long valeur = Math.max(0, nanos);
+        cases[indice(valeur)]++;
+        nombre++;
+        if (valeur > maximum) {
+            maximum = valeur;
+        }
+    }
+
+    public void fusionner(HistogrammeLatences autre) {
+        for (int i = 0; i < NOMBRE_CASES; i++) {
+            cases[i] += autre.cases[i];
+        }
+        nombre += autre.nombre;
+        maximum = Math.max(maximum, autre.maximum);
+    }
+
+    public long getNombre() {
+        return nombre;
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * @param centile Centile recherché, entre 0 et 100
+     * @return La latence (ns) en dessous de laquelle se trouve ce pourcentage des mesures
+     */
+    public long centile(double centile) {
+        if (nombre == 0) {
+            return 0;
+        }
+        long rang = (long) Math.ceil(centile / 100.0 * nombre);
+        long cumul = 0;
+        for (int i = 0; i < NOMBRE_CASES; i++) {
+            cumul += cases[i];
+            if (cumul >= Math.max(1, rang)) {
+                return Math.min(valeurMaximale(i), maximum);
+            }
+        }
+        return maximum;
+    }
+
+    static int indice(long valeur) {
+        if (valeur < CASES_PAR_OCTAVE) {
+            return (int) valeur;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+        int mantisse = (int) (valeur >>> (exposant - BITS_MANTISSE)) & (CASES_PAR_OCTAVE - 1);
+        return (exposant - BITS_MANTISSE + 1) * CASES_PAR_OCTAVE + mantisse;
+    }
+
+    // Plus grande valeur rangée dans une case
+    static long valeurMaximale(int indice) {
+        if (indice < CASES_PAR_OCTAVE) {
+            return indice;
+        }
+        int exposant = indice / CASES_PAR_OCTAVE + BITS_MANTISSE - 1;
+        long mantisse = CASES_PAR_OCTAVE + indice % CASES_PAR_OCTAVE;
+        return ((mantisse + 1) << (exposant - BITS_MANTISSE)) - 1;
+    }
+}
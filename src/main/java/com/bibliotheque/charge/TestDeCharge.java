@@ -0,0 +1,403 @@
+package com.bibliotheque.charge;
+
+import com.bibliotheque.charge.ConfigurationCharge.Operation;
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Horloge;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.BibliothequeServicePartitionne;
+import com.bibliotheque.service.PipelineCommandes;
+import com.bibliotheque.stockage.CatalogueMemoire;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Test de charge : construit un catalogue et des adhérents synthétiques, puis lance un mélange
+ * configurable d'emprunts, retours, prolongations et recherches depuis de nombreux threads.
+ * Le rapport donne, par opération, le débit, le taux de refus, le nombre d'erreurs inattendues
+ * et les centiles de latence. Une erreur inattendue (toute autre exception qu'un refus métier)
+ * n'arrête pas le travailleur : elle est comptée, et la première est imprimée après le rapport.
+ *
+ * Trois cibles sont disponibles : « verrou » (service protégé par un verrou global),
+ * « pipeline » (PipelineCommandes) et « partitions » (BibliothequeServicePartitionne).
+ */
+public class TestDeCharge {
+
+    private static final String[] RECHERCHES_TITRE = {"Java avancée", "Histoire moderne", "Droit comparée", "Données"};
+
+    private final ConfigurationCharge configuration;
+
+    public TestDeCharge(ConfigurationCharge configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Lance le test et imprime le rapport
+     * @return Les latences mesurées par opération (hors échauffement)
+     */
+    public Map<Operation, HistogrammeLatences> executer(PrintStream sortie) throws InterruptedException {
+        sortie.println("=== Test de charge ===");
+        sortie.println(configuration);
+
+        // L'horloge simulée est propre à la cible : l'horloge par défaut de la JVM n'est pas touchée
+        HorlogeSimulee horlogeSimulee = null;
+        Horloge horloge = Horloge.parDefaut();
+        if (configuration.getJoursParSeconde() > 0) {
+            horlogeSimulee = new HorlogeSimulee(horloge.aujourdhui());
+            horloge = horlogeSimulee;
+        }
+
+        try (Cible cible = creerCible(configuration.getCible(), horloge)) {
+            long debutPreparation = System.nanoTime();
+            GenerateurCharge generateur = new GenerateurCharge(configuration.getGraine(), horloge);
+            generateur.genererLivres(configuration.getNombreLivres(), configuration.getNombreAuteurs(), cible::ajouterLivre);
+            List<String> cartes = generateur.genererAdherents(configuration.getNombreAdherents(), cible::inscrireAdherent);
+            sortie.printf("Données générées en %d ms%n", (System.nanoTime() - debutPreparation) / 1_000_000);
+
+            DistributionZipf popularite = new DistributionZipf(configuration.getNombreLivres(), configuration.getExposantZipf());
+            long debutMesure = System.nanoTime() + configuration.getEchauffementSecondes() * 1_000_000_000L;
+            long fin = debutMesure + configuration.getDureeSecondes() * 1_000_000_000L;
+
+            List<Travailleur> travailleurs = new ArrayList<>();
+            for (int i = 0; i < configuration.getThreads(); i++) {
+                Travailleur travailleur = new Travailleur(i, cible, cartes, popularite, debutMesure, fin);
+                travailleurs.add(travailleur);
+                travailleur.start();
+            }
+
+            while (System.nanoTime() < fin) {
+                Thread.sleep(1000);
+                if (horlogeSimulee != null) {
+                    horlogeSimulee.avancer(configuration.getJoursParSeconde());
+                }
+            }
+
+            Map<Operation, HistogrammeLatences> latences = new EnumMap<>(Operation.class);
+            Map<Operation, Long> refus = new EnumMap<>(Operation.class);
+            Map<Operation, Long> erreurs = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                latences.put(operation, new HistogrammeLatences());
+                refus.put(operation, 0L);
+                erreurs.put(operation, 0L);
+            }
+            RuntimeException premiereErreur = null;
+            for (Travailleur travailleur : travailleurs) {
+                travailleur.join();
+                for (Operation operation : Operation.values()) {
+                    latences.get(operation).fusionner(travailleur.latences.get(operation));
+                    refus.merge(operation, travailleur.refus.get(operation), Long::sum);
+                    erreurs.merge(operation, travailleur.erreurs.get(operation), Long::sum);
+                }
+                if (premiereErreur == null) {
+                    premiereErreur = travailleur.premiereErreur;
+                }
+            }
+
+            imprimer(sortie, latences, refus, erreurs);
+            if (premiereErreur != null) {
+                sortie.print("Première erreur inattendue : ");
+                premiereErreur.printStackTrace(sortie);
+            }
+            return latences;
+        }
+    }
+
+    private void imprimer(PrintStream sortie, Map<Operation, HistogrammeLatences> latences, Map<Operation, Long> refus,
+                          Map<Operation, Long> erreurs) {
+        sortie.printf("%n%-13s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "Opération", "op/s", "refus", "erreurs", "p50 µs", "p90 µs", "p99 µs", "p99.9 µs", "max µs");
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            HistogrammeLatences h = latences.get(operation);
+            total += h.getNombre();
+            sortie.printf("%-13s %10d %7.1f%% %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    operation.name().toLowerCase(),
+                    h.getNombre() / configuration.getDureeSecondes(),
+                    h.getNombre() == 0 ? 0.0 : 100.0 * refus.get(operation) / h.getNombre(),
+                    erreurs.get(operation),
+                    h.centile(50) / 1000.0, h.centile(90) / 1000.0, h.centile(99) / 1000.0,
+                    h.centile(99.9) / 1000.0, h.getMaximum() / 1000.0);
+        }
+        sortie.printf("Total: %d op/s sur %d threads%n", total / configuration.getDureeSecondes(), configuration.getThreads());
+    }
+
+    private static Cible creerCible(String nom, Horloge horloge) {
+        switch (nom) {
+            case "verrou":
+                return new CibleVerrou(horloge);
+            case "pipeline":
+                return new CiblePipeline(horloge);
+            case "partitions":
+                return new CiblePartitions(Runtime.getRuntime().availableProcessors(), horloge);
+            default:
+                throw new IllegalArgumentException("Cible inconnue: " + nom);
+        }
+    }
+
+    /**
+     * Thread client : tire une opération selon le mix et mesure sa latence
+     */
+    private final class Travailleur extends Thread {
+        private final Cible cible;
+        private final List<String> cartes;
+        private final DistributionZipf popularite;
+        private final long debutMesure;
+        private final long fin;
+        private final List<Emprunt> empruntsOuverts = new ArrayList<>();
+        private final Map<Operation, HistogrammeLatences> latences = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> refus = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> erreurs = new EnumMap<>(Operation.class);
+        private RuntimeException premiereErreur;
+
+        Travailleur(int numero, Cible cible, List<String> cartes, DistributionZipf popularite, long debutMesure, long fin) {
+            super("charge-" + numero);
+            this.cible = cible;
+            this.cartes = cartes;
+            this.popularite = popularite;
+            this.debutMesure = debutMesure;
+            this.fin = fin;
+            for (Operation operation : Operation.values()) {
+                latences.put(operation, new HistogrammeLatences());
+                refus.put(operation, 0L);
+                erreurs.put(operation, 0L);
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+            int poidsTotal = configuration.getPoidsTotal();
+            long maintenant;
+            while ((maintenant = System.nanoTime()) < fin) {
+                Operation operation = configuration.operation(aleatoire.nextInt(poidsTotal));
+                if (operation != Operation.EMPRUNT && operation != Operation.RECHERCHE && empruntsOuverts.isEmpty()) {
+                    operation = Operation.EMPRUNT;
+                }
+
+                boolean refuse = false;
+                boolean erreur = false;
+                try {
+                    executer(operation, aleatoire);
+                } catch (IllegalStateException e) {
+                    refuse = true;
+                } catch (RuntimeException e) {
+                    // Défaut de la cible : compté, même pendant l'échauffement, sans arrêter le travailleur
+                    erreur = true;
+                    if (premiereErreur == null) {
+                        premiereErreur = e;
+                    }
+                }
+
+                if (maintenant >= debutMesure) {
+                    latences.get(operation).enregistrer(System.nanoTime() - maintenant);
+                    if (refuse) {
+                        refus.merge(operation, 1L, Long::sum);
+                    }
+                }
+                if (erreur) {
+                    erreurs.merge(operation, 1L, Long::sum);
+                }
+            }
+        }
+
+        private void executer(Operation operation, ThreadLocalRandom aleatoire) {
+            switch (operation) {
+                case EMPRUNT:
+                    String isbn = GenerateurCharge.isbn(popularite.tirer(aleatoire));
+                    String carte = cartes.get(aleatoire.nextInt(cartes.size()));
+                    empruntsOuverts.add(cible.emprunter(isbn, carte));
+                    break;
+                case RETOUR:
+                    int position = aleatoire.nextInt(empruntsOuverts.size());
+                    Emprunt emprunt = empruntsOuverts.get(position);
+                    empruntsOuverts.set(position, empruntsOuverts.get(empruntsOuverts.size() - 1));
+                    empruntsOuverts.remove(empruntsOuverts.size() - 1);
+                    cible.retourner(emprunt);
+                    break;
+                case PROLONGATION:
+                    if (!cible.prolonger(empruntsOuverts.get(aleatoire.nextInt(empruntsOuverts.size())))) {
+                        throw new IllegalStateException("Prolongation refusée");
+                    }
+                    break;
+                case RECHERCHE:
+                    // La recherche par titre parcourt tout le catalogue : une recherche sur dix
+                    if (aleatoire.nextInt(10) == 0) {
+                        cible.rechercherParTitre(RECHERCHES_TITRE[aleatoire.nextInt(RECHERCHES_TITRE.length)]);
+                    } else {
+                        cible.rechercherParAuteur("Auteur " + aleatoire.nextInt(configuration.getNombreAuteurs()));
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opération inconnue: " + operation);
+            }
+        }
+    }
+
+    /**
+     * Système testé. Un refus métier est signalé par une IllegalStateException.
+     */
+    interface Cible extends AutoCloseable {
+        void ajouterLivre(Livre livre);
+
+        void inscrireAdherent(Adherent adherent);
+
+        Emprunt emprunter(String isbn, String numeroCarte);
+
+        void retourner(Emprunt emprunt);
+
+        boolean prolonger(Emprunt emprunt);
+
+        int rechercherParTitre(String titre);
+
+        int rechercherParAuteur(String auteur);
+
+        @Override
+        default void close() {
+        }
+    }
+
+    // Service protégé par un verrou global
+    private static final class CibleVerrou implements Cible {
+        private final BibliothequeService service;
+
+        CibleVerrou(Horloge horloge) {
+            this.service = new BibliothequeService(new CatalogueMemoire(), horloge);
+        }
+
+        public synchronized void ajouterLivre(Livre livre) {
+            service.ajouterLivre(livre);
+        }
+
+        public synchronized void inscrireAdherent(Adherent adherent) {
+            service.inscrireAdherent(adherent);
+        }
+
+        public synchronized Emprunt emprunter(String isbn, String numeroCarte) {
+            return service.emprunterLivre(isbn, numeroCarte);
+        }
+
+        public synchronized void retourner(Emprunt emprunt) {
+            service.retournerLivre(emprunt);
+        }
+
+        public synchronized boolean prolonger(Emprunt emprunt) {
+            return service.prolongerEmprunt(emprunt);
+        }
+
+        public synchronized int rechercherParTitre(String titre) {
+            return service.rechercherLivreParTitre(titre).size();
+        }
+
+        public synchronized int rechercherParAuteur(String auteur) {
+            return service.rechercherLivreParAuteur(auteur).size();
+        }
+    }
+
+    // Écrivain unique, lectures sur instantanés
+    private static final class CiblePipeline implements Cible {
+        private final PipelineCommandes pipeline;
+
+        CiblePipeline(Horloge horloge) {
+            this.pipeline = new PipelineCommandes(new BibliothequeService(new CatalogueMemoire(), horloge));
+        }
+
+        public void ajouterLivre(Livre livre) {
+            pipeline.ajouterLivre(livre);
+        }
+
+        public void inscrireAdherent(Adherent adherent) {
+            attendre(pipeline.inscrireAdherent(adherent));
+        }
+
+        public Emprunt emprunter(String isbn, String numeroCarte) {
+            return attendre(pipeline.emprunterLivre(isbn, numeroCarte));
+        }
+
+        public void retourner(Emprunt emprunt) {
+            attendre(pipeline.retournerLivre(emprunt));
+        }
+
+        public boolean prolonger(Emprunt emprunt) {
+            return attendre(pipeline.prolongerEmprunt(emprunt));
+        }
+
+        public int rechercherParTitre(String titre) {
+            return pipeline.rechercherLivreParTitre(titre).size();
+        }
+
+        public int rechercherParAuteur(String auteur) {
+            return pipeline.rechercherLivreParAuteur(auteur).size();
+        }
+
+        public void close() {
+            pipeline.close();
+        }
+    }
+
+    // Une partition par coeur
+    private static final class CiblePartitions implements Cible {
+        private static final int LIMITE_RESULTATS = 50;
+        private final BibliothequeServicePartitionne reseau;
+
+        CiblePartitions(int partitions, Horloge horloge) {
+            this.reseau = new BibliothequeServicePartitionne(partitions, horloge);
+        }
+
+        public void ajouterLivre(Livre livre) {
+            reseau.ajouterLivre(livre);
+        }
+
+        public void inscrireAdherent(Adherent adherent) {
+            attendre(reseau.inscrireAdherent(adherent));
+        }
+
+        public Emprunt emprunter(String isbn, String numeroCarte) {
+            return attendre(reseau.emprunterLivre(isbn, numeroCarte));
+        }
+
+        public void retourner(Emprunt emprunt) {
+            attendre(reseau.retournerLivre(emprunt));
+        }
+
+        public boolean prolonger(Emprunt emprunt) {
+            return attendre(reseau.prolongerEmprunt(emprunt));
+        }
+
+        public int rechercherParTitre(String titre) {
+            return attendre(reseau.rechercherLivreParTitre(titre, LIMITE_RESULTATS)).size();
+        }
+
+        public int rechercherParAuteur(String auteur) {
+            return attendre(reseau.rechercherLivreParAuteur(auteur, LIMITE_RESULTATS)).size();
+        }
+
+        public void close() {
+            reseau.close();
+        }
+    }
+
+    // Attend un future et restitue l'exception métier d'origine
+    private static <T> T attendre(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente interrompue", e);
+        }
+    }
+}
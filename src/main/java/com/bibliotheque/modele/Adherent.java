@@ -24,19 +24,60 @@ public class Adherent {
 
     // Constructeur d'un adhérent
     public Adherent(String nom, String prenom, String email) {
+        this(nom, prenom, email, Horloge.parDefaut());
+    }
+
+    // Adhérent inscrit à la date d'une horloge donnée (celle du service qui l'inscrit)
+    public Adherent(String nom, String prenom, String email, Horloge horloge) {
+        this(nom, prenom, email, dateDuJour(horloge));
+    }
+
+    // Reconstruit un adhérent déjà inscrit ailleurs, avec son numéro de carte (réplicas)
+    public Adherent(String numeroCarte, String nom, String prenom, String email, LocalDate dateInscription) {
+        this(nom, prenom, email, dateInscription);
+        if (numeroCarte == null || numeroCarte.trim().isEmpty()) {
+            throw new IllegalArgumentException("Le numéro de carte ne peut pas être null ou vide");
+        }
+        this.numeroCarte = numeroCarte;
+    }
+
+    private Adherent(String nom, String prenom, String email, LocalDate dateInscription) {
         validerParametres(nom, prenom, email);
+        if (dateInscription == null) {
+            throw new IllegalArgumentException("La date d'inscription ne peut pas être null");
+        }
 
         this.numeroCarte = genererNumeroCarte();
         this.nom = nom;
         this.prenom = prenom;
         this.email = email;
-        this.dateInscription = LocalDate.now();
+        this.dateInscription = dateInscription;
         this.actif = true;
         this.nombreEmpruntsEnCours = 0;
         this.aDesRetards = false;
         this.joursRetard = 0;
     }
 
+    // Constructeur de copie : fige l'état courant d'un adhérent (utilisé pour les lectures publiées)
+    public Adherent(Adherent source) {
+        this.numeroCarte = source.numeroCarte;
+        this.nom = source.nom;
+        this.prenom = source.prenom;
+        this.email = source.email;
+        this.dateInscription = source.dateInscription;
+        this.actif = source.actif;
+        this.nombreEmpruntsEnCours = source.nombreEmpruntsEnCours;
+        this.aDesRetards = source.aDesRetards;
+        this.joursRetard = source.joursRetard;
+    }
+
+    private static LocalDate dateDuJour(Horloge horloge) {
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        return horloge.aujourdhui();
+    }
+
     private void validerParametres(String nom, String prenom, String email) {
         if (nom == null || nom.trim().isEmpty()) {
             throw new IllegalArgumentException("Le nom ne peut pas être null ou vide");
@@ -0,0 +1,102 @@
+package com.bibliotheque.modele;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+// Dictionnaire de chaînes : associe chaque chaîne distincte à un identifiant entier compact
+// Les livres d'un même auteur partagent ainsi une seule copie de la chaîne et de sa clé de recherche
+
+public class Dictionnaire {
+
+    // Dictionnaire partagé des auteurs, utilisé par tous les livres
+    public static final Dictionnaire AUTEURS = new Dictionnaire();
+
+    private static final int CAPACITE_INITIALE = 256;
+
+    // Les écritures sont sérialisées ; les lectures se font sans verrou grâce à la publication volatile
+    private final Map<String, Integer> identifiants;
+    private volatile String[] valeurs;
+    private volatile String[] clesNormalisees;
+    private volatile int taille;
+
+    public Dictionnaire() {
+        this.identifiants = new HashMap<>();
+        this.valeurs = new String[CAPACITE_INITIALE];
+        this.clesNormalisees = new String[CAPACITE_INITIALE];
+        this.taille = 0;
+    }
+
+    // Normalise une chaîne pour la recherche (casse ignorée)
+    public static String normaliser(String valeur) {
+        return valeur.toLowerCase(Locale.ROOT);
+    }
+
+    // Retourne l'identifiant de la chaîne, en l'enregistrant si elle est nouvelle
+    public synchronized int encoder(String valeur) {
+        if (valeur == null) {
+            throw new IllegalArgumentException("La valeur ne peut pas être null");
+        }
+
+        Integer existant = identifiants.get(valeur);
+        if (existant != null) {
+            return existant;
+        }
+
+        if (taille == valeurs.length) {
+            valeurs = Arrays.copyOf(valeurs, taille * 2);
+            clesNormalisees = Arrays.copyOf(clesNormalisees, taille * 2);
+        }
+
+        int id = taille;
+        valeurs[id] = valeur;
+        clesNormalisees[id] = normaliser(valeur);
+        identifiants.put(valeur, id);
+        taille = id + 1;
+        return id;
+    }
+
+    // Retourne l'identifiant d'une chaîne déjà connue, ou -1
+    public synchronized int identifiant(String valeur) {
+        Integer id = identifiants.get(valeur);
+        return id != null ? id : -1;
+    }
+
+    // Retourne la chaîne correspondant à un identifiant
+    public String decoder(int id) {
+        verifierIdentifiant(id);
+        return valeurs[id];
+    }
+
+    // Retourne la clé de recherche normalisée d'un identifiant
+    public String cleNormalisee(int id) {
+        verifierIdentifiant(id);
+        return clesNormalisees[id];
+    }
+
+    // Parcourt les identifiants dont la clé normalisée contient le fragment recherché
+    // Le coût dépend du nombre de chaînes distinctes et non du nombre de livres
+    public void rechercher(String fragment, IntConsumer action) {
+        String cle = normaliser(fragment);
+        int limite = taille;
+        String[] cles = clesNormalisees;
+        for (int id = 0; id < limite; id++) {
+            if (cles[id].contains(cle)) {
+                action.accept(id);
+            }
+        }
+    }
+
+    // Nombre de chaînes distinctes enregistrées
+    public int taille() {
+        return taille;
+    }
+
+    private void verifierIdentifiant(int id) {
+        if (id < 0 || id >= taille) {
+            throw new IllegalArgumentException("Identifiant inconnu: " + id);
+        }
+    }
+}
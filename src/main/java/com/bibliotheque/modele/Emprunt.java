@@ -2,6 +2,7 @@ package com.bibliotheque.modele;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 //Représente un emprunt de livre par un adhérent
@@ -10,6 +11,7 @@ public class Emprunt {
     private static final int DUREE_EMPRUNT_JOURS = 14;
     private static final int DUREE_PROLONGATION_JOURS = 7;
     private static final double FRAIS_PAR_JOUR = 0.50;
+    private static final AtomicLong IDENTIFIANTS = new AtomicLong();
 
     public enum StatutEmprunt {
         EN_COURS,
@@ -17,49 +19,102 @@ public class Emprunt {
         RETARD
     }
 
+    // Identifiant stable, partagé par l'emprunt et ses copies figées
+    private final long identifiant;
+    // Vrai pour une copie figée : elle ne peut plus être modifiée
+    private final boolean fige;
     private Livre livre;
     private Adherent adherent;
+    private Horloge horloge;
     private LocalDate dateEmprunt;
     private LocalDate dateRetourPrevue;
     private LocalDate dateRetourEffective;
     private StatutEmprunt statut;
+    // Code-barres de l'exemplaire emprunté, 0 s'il n'est pas suivi (voir service.Exemplaires)
+    private long codeBarreExemplaire;
+    // Vrai une fois le passage en retard compté par le service
+    private boolean retardSignale;
 
 
 
 
     public Emprunt(Livre livre, Adherent adherent) {
+        this(livre, adherent, Horloge.parDefaut());
+    }
+
+    // Emprunt daté par une horloge donnée (par exemple une HorlogeSimulee)
+    public Emprunt(Livre livre, Adherent adherent, Horloge horloge) {
+        this(livre, adherent, horloge, 0);
+    }
+
+    // Emprunt d'un exemplaire précis, désigné par son code-barres
+    public Emprunt(Livre livre, Adherent adherent, Horloge horloge, long codeBarreExemplaire) {
         if (livre == null) {
             throw new IllegalArgumentException("Le livre ne peut pas être null");
         }
         if (adherent == null) {
             throw new IllegalArgumentException("L'adhérent ne peut pas être null");
         }
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
 
+        this.identifiant = IDENTIFIANTS.incrementAndGet();
+        this.fige = false;
         this.livre = livre;
         this.adherent = adherent;
-        this.dateEmprunt = LocalDate.now();
+        this.horloge = horloge;
+        this.dateEmprunt = horloge.aujourdhui();
         this.dateRetourPrevue = dateEmprunt.plusDays(DUREE_EMPRUNT_JOURS);
         this.statut = StatutEmprunt.EN_COURS;
+        this.codeBarreExemplaire = codeBarreExemplaire;
+    }
+
+    // Constructeur de copie : fige l'état d'un emprunt, de son livre et de son adhérent (lectures publiées)
+    public Emprunt(Emprunt source) {
+        this(source, new Livre(source.livre), new Adherent(source.adherent));
+    }
+
+    // Copie figée qui reprend des copies déjà faites du livre et de l'adhérent (par exemple celles d'un instantané)
+    public Emprunt(Emprunt source, Livre livreFige, Adherent adherentFige) {
+        if (livreFige == null || !livreFige.getIsbn().equals(source.livre.getIsbn())) {
+            throw new IllegalArgumentException("Le livre figé doit être celui de l'emprunt");
+        }
+        if (adherentFige == null || !adherentFige.getNumeroCarte().equals(source.adherent.getNumeroCarte())) {
+            throw new IllegalArgumentException("L'adhérent figé doit être celui de l'emprunt");
+        }
+        this.identifiant = source.identifiant;
+        this.fige = true;
+        this.livre = livreFige;
+        this.adherent = adherentFige;
+        this.horloge = source.horloge;
+        this.dateEmprunt = source.dateEmprunt;
+        this.dateRetourPrevue = source.dateRetourPrevue;
+        this.dateRetourEffective = source.dateRetourEffective;
+        this.statut = source.statut;
+        this.codeBarreExemplaire = source.codeBarreExemplaire;
+        this.retardSignale = source.retardSignale;
     }
 
     // Retourne le livre
     public void retourner() {
-        this.dateRetourEffective = LocalDate.now();
+        verifierModifiable();
+        this.dateRetourEffective = horloge.aujourdhui();
         this.statut = StatutEmprunt.RENDU;
     }
 
 
-     // Vérifie si l'emprunt est en retard
+     // Vérifie si l'emprunt est en retard ; sur une copie figée, le statut n'est pas modifié
 
     public boolean estEnRetard() {
         if (statut == StatutEmprunt.RENDU) {
             return false;
         }
 
-        LocalDate dateReference = dateRetourEffective != null ? dateRetourEffective : LocalDate.now();
+        LocalDate dateReference = dateRetourEffective != null ? dateRetourEffective : horloge.aujourdhui();
         boolean enRetard = dateReference.isAfter(dateRetourPrevue);
 
-        if (enRetard && statut == StatutEmprunt.EN_COURS) {
+        if (enRetard && statut == StatutEmprunt.EN_COURS && !fige) {
             statut = StatutEmprunt.RETARD;
         }
 
@@ -73,7 +128,7 @@ public class Emprunt {
             return 0;
         }
 
-        LocalDate dateReference = dateRetourEffective != null ? dateRetourEffective : LocalDate.now();
+        LocalDate dateReference = dateRetourEffective != null ? dateRetourEffective : horloge.aujourdhui();
         return (int) ChronoUnit.DAYS.between(dateRetourPrevue, dateReference);
     }
 
@@ -81,13 +136,19 @@ public class Emprunt {
      // Calcule les frais de retard
 
     public double calculerFraisRetard() {
-        return calculerJoursRetard() * FRAIS_PAR_JOUR;
+        return calculerFrais(calculerJoursRetard());
+    }
+
+    // Calcule les frais correspondant à un nombre de jours de retard déjà connu
+    public static double calculerFrais(int joursRetard) {
+        return joursRetard * FRAIS_PAR_JOUR;
     }
 
 
 
     //Prolonge l'emprunt de 7 jours
     public boolean prolonger() {
+        verifierModifiable();
         if (statut != StatutEmprunt.EN_COURS || estEnRetard()) {
             return false;
         }
@@ -96,7 +157,32 @@ public class Emprunt {
         return true;
     }
 
+    // Marque le retard comme signalé ; retourne false s'il l'avait déjà été
+    public boolean marquerRetardSignale() {
+        verifierModifiable();
+        if (retardSignale) {
+            return false;
+        }
+        retardSignale = true;
+        return true;
+    }
+
+    private void verifierModifiable() {
+        if (fige) {
+            throw new IllegalStateException("Un emprunt figé ne peut pas être modifié");
+        }
+    }
+
     // Getters
+    public long getIdentifiant() {
+        return identifiant;
+    }
+
+    // Vrai pour une copie figée (instantanés, lectures du pipeline)
+    public boolean estFige() {
+        return fige;
+    }
+
     public Livre getLivre() {
         return livre;
     }
@@ -121,6 +207,10 @@ public class Emprunt {
         return statut;
     }
 
+    public long getCodeBarreExemplaire() {
+        return codeBarreExemplaire;
+    }
+
     // Setters pour les tests (package-private)
     void setDateEmprunt(LocalDate dateEmprunt) {
         this.dateEmprunt = dateEmprunt;
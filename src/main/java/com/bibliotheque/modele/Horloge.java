@@ -0,0 +1,39 @@
+package com.bibliotheque.modele;
+
+import java.time.LocalDate;
+
+// Source de la date du jour pour les livres, adhérents et emprunts
+// L'horloge par défaut est l'horloge système mise en cache ; une HorlogeSimulee permet de rejouer
+// une charge en temps accéléré
+
+public abstract class Horloge {
+
+    private static volatile Horloge parDefaut = new HorlogeSysteme();
+
+    // Horloge utilisée quand aucune n'est fournie explicitement
+    public static Horloge parDefaut() {
+        return parDefaut;
+    }
+
+    // Remplace l'horloge par défaut (simulations, tests)
+    public static void definirParDefaut(Horloge horloge) {
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        parDefaut = horloge;
+    }
+
+    // Date du jour
+    public abstract LocalDate aujourdhui();
+
+    // Année en cours
+    public int anneeCourante() {
+        return aujourdhui().getYear();
+    }
+
+    // Heures écoulées depuis le 1er janvier 1970 à minuit, heure locale (séries horaires)
+    // Par défaut, la granularité est le jour : l'heure retournée est minuit
+    public long heureCourante() {
+        return aujourdhui().toEpochDay() * 24;
+    }
+}
@@ -0,0 +1,40 @@
+package com.bibliotheque.modele;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Horloge contrôlable pour les tests et les simulations de charge en temps accéléré
+// Thread-safe : la date peut être avancée pendant que d'autres threads la lisent
+
+public class HorlogeSimulee extends Horloge {
+
+    private final AtomicLong jourEpoch;
+
+    public HorlogeSimulee(LocalDate depart) {
+        if (depart == null) {
+            throw new IllegalArgumentException("La date de départ ne peut pas être null");
+        }
+        this.jourEpoch = new AtomicLong(depart.toEpochDay());
+    }
+
+    @Override
+    public LocalDate aujourdhui() {
+        return LocalDate.ofEpochDay(jourEpoch.get());
+    }
+
+    // Avance l'horloge d'un nombre de jours
+    public void avancer(int jours) {
+        if (jours < 0) {
+            throw new IllegalArgumentException("Le nombre de jours ne peut pas être négatif");
+        }
+        jourEpoch.addAndGet(jours);
+    }
+
+    // Place l'horloge à une date donnée
+    public void fixer(LocalDate date) {
+        if (date == null) {
+            throw new IllegalArgumentException("La date ne peut pas être null");
+        }
+        jourEpoch.set(date.toEpochDay());
+    }
+}
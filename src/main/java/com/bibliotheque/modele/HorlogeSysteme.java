@@ -0,0 +1,71 @@
+package com.bibliotheque.modele;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+// Horloge système à granularité journalière
+// La date n'est recalculée (avec le fuseau horaire) qu'une fois par jour, au premier appel
+// après minuit ; entre deux, un appel ne coûte qu'une lecture de l'heure en millisecondes
+
+public class HorlogeSysteme extends Horloge {
+
+    private static final long MILLIS_PAR_HEURE = 3_600_000L;
+
+    private final Clock source;
+    private volatile Jour jourCourant;
+
+    public HorlogeSysteme() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public HorlogeSysteme(Clock source) {
+        if (source == null) {
+            throw new IllegalArgumentException("La source ne peut pas être null");
+        }
+        this.source = source;
+        this.jourCourant = calculerJour();
+    }
+
+    @Override
+    public LocalDate aujourdhui() {
+        Jour jour = jourCourant;
+        if (source.millis() >= jour.finMillis) {
+            jour = calculerJour();
+            jourCourant = jour;
+        }
+        return jour.date;
+    }
+
+    @Override
+    public long heureCourante() {
+        long millis = source.millis();
+        Jour jour = jourCourant;
+        if (millis >= jour.finMillis) {
+            jour = calculerJour();
+            jourCourant = jour;
+        }
+        // Les jours de changement d'heure comptent 23 ou 25 heures
+        long heure = Math.max(0, Math.min(23, (millis - jour.debutMillis) / MILLIS_PAR_HEURE));
+        return jour.date.toEpochDay() * 24 + heure;
+    }
+
+    private Jour calculerJour() {
+        LocalDate date = LocalDate.now(source);
+        long debutMillis = date.atStartOfDay(source.getZone()).toInstant().toEpochMilli();
+        long finMillis = date.plusDays(1).atStartOfDay(source.getZone()).toInstant().toEpochMilli();
+        return new Jour(date, debutMillis, finMillis);
+    }
+
+    // Date du jour et instants de début et de fin de ce jour, publiés ensemble
+    private static final class Jour {
+        private final LocalDate date;
+        private final long debutMillis;
+        private final long finMillis;
+
+        Jour(LocalDate date, long debutMillis, long finMillis) {
+            this.date = date;
+            this.debutMillis = debutMillis;
+            this.finMillis = finMillis;
+        }
+    }
+}
@@ -1,13 +1,11 @@
 package com.bibliotheque.modele;
 
-import java.time.Year;
-
 // Représente un livre dans le système de gestion de bibliothèque
 
 public class Livre {
     private String isbn;
     private String titre;
-    private String auteur;
+    private int idAuteur;
     private int anneePublication;
     private int nombreExemplaires;
     private int exemplairesDisponibles;
@@ -16,17 +14,38 @@ public class Livre {
 
 
     public Livre(String isbn, String titre, String auteur, int anneePublication) {
-        validerParametres(isbn, titre, auteur, anneePublication);
+        this(isbn, titre, auteur, anneePublication, Horloge.parDefaut());
+    }
+
+    // Livre dont l'année de publication est vérifiée avec une horloge donnée (celle du service)
+    public Livre(String isbn, String titre, String auteur, int anneePublication, Horloge horloge) {
+        validerParametres(isbn, titre, auteur, anneePublication, horloge);
 
         this.isbn = isbn;
         this.titre = titre;
-        this.auteur = auteur;
+        this.idAuteur = Dictionnaire.AUTEURS.encoder(auteur);
         this.anneePublication = anneePublication;
         this.nombreExemplaires = 1;
         this.exemplairesDisponibles = 1;
     }
 
-    private void validerParametres(String isbn, String titre, String auteur, int anneePublication) {
+    // Constructeur de copie : fige l'état courant d'un livre (utilisé pour les lectures publiées)
+    public Livre(Livre source) {
+        this.isbn = source.getIsbn();
+        this.titre = source.getTitre();
+        // Une vue sur un stockage externe peut ignorer l'identifiant de son auteur (-1)
+        int idSource = source.getIdAuteur();
+        this.idAuteur = idSource >= 0 ? idSource : Dictionnaire.AUTEURS.encoder(source.getAuteur());
+        this.anneePublication = source.getAnneePublication();
+        this.nombreExemplaires = source.getNombreExemplaires();
+        this.exemplairesDisponibles = source.getExemplairesDisponibles();
+    }
+
+    // Constructeur réservé aux vues sur un stockage externe (voir stockage.CatalogueHorsTas)
+    protected Livre() {
+    }
+
+    private void validerParametres(String isbn, String titre, String auteur, int anneePublication, Horloge horloge) {
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("L'ISBN ne peut pas être null ou vide");
         }
@@ -39,7 +58,10 @@ public class Livre {
             throw new IllegalArgumentException("L'auteur ne peut pas être null ou vide");
         }
 
-        int anneeActuelle = Year.now().getValue();
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        int anneeActuelle = horloge.anneeCourante();
         if (anneePublication < 1900 || anneePublication > anneeActuelle) {
             throw new IllegalArgumentException(
                     "L'année de publication doit être entre 1900 et " + anneeActuelle
@@ -92,7 +114,12 @@ public class Livre {
     }
 
     public String getAuteur() {
-        return auteur;
+        return Dictionnaire.AUTEURS.decoder(idAuteur);
+    }
+
+    // Identifiant de l'auteur dans le dictionnaire partagé des auteurs
+    public int getIdAuteur() {
+        return idAuteur;
     }
 
     public int getAnneePublication() {
@@ -110,6 +137,7 @@ public class Livre {
     @Override
     public String toString() {
         return String.format("Livre{isbn='%s', titre='%s', auteur='%s', année=%d, exemplaires=%d/%d}",
-                isbn, titre, auteur, anneePublication, exemplairesDisponibles, nombreExemplaires);
+                getIsbn(), getTitre(), getAuteur(), getAnneePublication(),
+                getExemplairesDisponibles(), getNombreExemplaires());
     }
 }
@@ -0,0 +1,157 @@
+package com.bibliotheque.modele;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+// Représente la réservation d'un livre indisponible par un adhérent
+// La réservation attend dans la file du livre, puis un exemplaire rendu est mis de côté pour
+// l'adhérent jusqu'à la date limite de retrait
+
+public class Reservation {
+    private static final AtomicLong IDENTIFIANTS = new AtomicLong();
+
+    public enum StatutReservation {
+        EN_ATTENTE,
+        DISPONIBLE,
+        HONOREE,
+        EXPIREE,
+        ANNULEE
+    }
+
+    // Identifiant stable, partagé par la réservation et ses copies figées
+    private final long identifiant;
+    // Vrai pour une copie figée : elle ne peut plus être modifiée
+    private final boolean fige;
+    private Livre livre;
+    private Adherent adherent;
+    private LocalDate dateReservation;
+    private LocalDate dateLimiteRetrait;
+    private StatutReservation statut;
+    // Code-barres de l'exemplaire mis de côté, 0 s'il n'est pas suivi
+    private long codeBarreExemplaire;
+
+    public Reservation(Livre livre, Adherent adherent, Horloge horloge) {
+        if (livre == null) {
+            throw new IllegalArgumentException("Le livre ne peut pas être null");
+        }
+        if (adherent == null) {
+            throw new IllegalArgumentException("L'adhérent ne peut pas être null");
+        }
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+
+        this.identifiant = IDENTIFIANTS.incrementAndGet();
+        this.fige = false;
+        this.livre = livre;
+        this.adherent = adherent;
+        this.dateReservation = horloge.aujourdhui();
+        this.statut = StatutReservation.EN_ATTENTE;
+    }
+
+    // Constructeur de copie : fige l'état d'une réservation, de son livre et de son adhérent (lectures publiées)
+    public Reservation(Reservation source) {
+        this.identifiant = source.identifiant;
+        this.fige = true;
+        this.livre = new Livre(source.livre);
+        this.adherent = new Adherent(source.adherent);
+        this.dateReservation = source.dateReservation;
+        this.dateLimiteRetrait = source.dateLimiteRetrait;
+        this.statut = source.statut;
+        this.codeBarreExemplaire = source.codeBarreExemplaire;
+    }
+
+    // Un exemplaire est mis de côté pour l'adhérent jusqu'à la date limite incluse
+    public void mettreDeCote(LocalDate dateLimite) {
+        mettreDeCote(dateLimite, 0);
+    }
+
+    // Met de côté un exemplaire précis, désigné par son code-barres
+    public void mettreDeCote(LocalDate dateLimite, long codeBarreExemplaire) {
+        verifierModifiable();
+        if (statut != StatutReservation.EN_ATTENTE) {
+            throw new IllegalStateException("La réservation n'est pas en attente");
+        }
+        this.dateLimiteRetrait = dateLimite;
+        this.codeBarreExemplaire = codeBarreExemplaire;
+        this.statut = StatutReservation.DISPONIBLE;
+    }
+
+    // L'adhérent a retiré l'exemplaire mis de côté
+    public void honorer() {
+        verifierModifiable();
+        if (statut != StatutReservation.DISPONIBLE) {
+            throw new IllegalStateException("Aucun exemplaire n'est mis de côté");
+        }
+        this.statut = StatutReservation.HONOREE;
+    }
+
+    // L'exemplaire n'a pas été retiré à temps
+    public void expirer() {
+        verifierModifiable();
+        if (statut != StatutReservation.DISPONIBLE) {
+            throw new IllegalStateException("Aucun exemplaire n'est mis de côté");
+        }
+        this.statut = StatutReservation.EXPIREE;
+    }
+
+    public void annuler() {
+        verifierModifiable();
+        if (!estActive()) {
+            throw new IllegalStateException("La réservation est déjà terminée");
+        }
+        this.statut = StatutReservation.ANNULEE;
+    }
+
+    // En attente ou mise de côté
+    public boolean estActive() {
+        return statut == StatutReservation.EN_ATTENTE || statut == StatutReservation.DISPONIBLE;
+    }
+
+    private void verifierModifiable() {
+        if (fige) {
+            throw new IllegalStateException("Une réservation figée ne peut pas être modifiée");
+        }
+    }
+
+    // Getters
+    public long getIdentifiant() {
+        return identifiant;
+    }
+
+    // Vrai pour une copie figée (lectures du pipeline)
+    public boolean estFige() {
+        return fige;
+    }
+
+    public Livre getLivre() {
+        return livre;
+    }
+
+    public Adherent getAdherent() {
+        return adherent;
+    }
+
+    public LocalDate getDateReservation() {
+        return dateReservation;
+    }
+
+    public LocalDate getDateLimiteRetrait() {
+        return dateLimiteRetrait;
+    }
+
+    public StatutReservation getStatut() {
+        return statut;
+    }
+
+    public long getCodeBarreExemplaire() {
+        return codeBarreExemplaire;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Reservation{livre=%s, adherent=%s, dateReservation=%s, statut=%s}",
+                livre.getTitre(), adherent.getNom(), dateReservation, statut);
+    }
+}
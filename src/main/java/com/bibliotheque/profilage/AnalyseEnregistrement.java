@@ -0,0 +1,206 @@
+package com.bibliotheque.profilage;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Résumé d'un enregistrement JFR : pour chaque type d'événement de la bibliothèque, les clés
+ * (ISBN, ou critère et texte d'une recherche) qui ont coûté le plus de temps au total, et les
+ * motifs de refus les plus fréquents.
+ *
+ * L'enregistrement est lu événement par événement : la mémoire ne dépend que du nombre de clés
+ * distinctes, pas de la taille du fichier.
+ */
+public class AnalyseEnregistrement {
+
+    private static final List<String> EVENEMENTS = List.of(EvenementsJfr.EMPRUNT, EvenementsJfr.RETOUR,
+            EvenementsJfr.PROLONGATION, EvenementsJfr.RECHERCHE);
+
+    /**
+     * Cumul des événements d'une même clé
+     */
+    public static final class Statistique {
+        private final String cle;
+        private long nombre;
+        private long refus;
+        private long resultats;
+        private Duration dureeTotale = Duration.ZERO;
+        private Duration dureeMaximale = Duration.ZERO;
+
+        Statistique(String cle) {
+            this.cle = cle;
+        }
+
+        void ajouter(Duration duree, boolean refuse, long resultats) {
+            nombre++;
+            if (refuse) {
+                refus++;
+            }
+            this.resultats += resultats;
+            dureeTotale = dureeTotale.plus(duree);
+            if (duree.compareTo(dureeMaximale) > 0) {
+                dureeMaximale = duree;
+            }
+        }
+
+        public String getCle() {
+            return cle;
+        }
+
+        public long getNombre() {
+            return nombre;
+        }
+
+        public long getRefus() {
+            return refus;
+        }
+
+        public long getResultats() {
+            return resultats;
+        }
+
+        public Duration getDureeTotale() {
+            return dureeTotale;
+        }
+
+        public Duration getDureeMaximale() {
+            return dureeMaximale;
+        }
+    }
+
+    // Par type d'événement : statistiques par clé, et nombre d'occurrences par motif de refus
+    private final Map<String, Map<String, Statistique>> parCle = new HashMap<>();
+    private final Map<String, Map<String, Long>> parMotif = new HashMap<>();
+
+    private AnalyseEnregistrement() {
+        for (String evenement : EVENEMENTS) {
+            parCle.put(evenement, new HashMap<>());
+            parMotif.put(evenement, new HashMap<>());
+        }
+    }
+
+    /**
+     * Lit un enregistrement JFR ; les événements étrangers à la bibliothèque sont ignorés
+     * @param fichier Fichier .jfr
+     * @return Le résumé de l'enregistrement
+     */
+    public static AnalyseEnregistrement lire(Path fichier) throws IOException {
+        AnalyseEnregistrement analyse = new AnalyseEnregistrement();
+        try (RecordingFile enregistrement = new RecordingFile(fichier)) {
+            while (enregistrement.hasMoreEvents()) {
+                analyse.ajouter(enregistrement.readEvent());
+            }
+        }
+        return analyse;
+    }
+
+    private void ajouter(RecordedEvent evenement) {
+        String type = evenement.getEventType().getName();
+        Map<String, Statistique> statistiques = parCle.get(type);
+        if (statistiques == null) {
+            return;
+        }
+        String cle;
+        String refus = null;
+        long resultats = 0;
+        if (EvenementsJfr.RECHERCHE.equals(type)) {
+            cle = evenement.getString("critere") + "=" + evenement.getString("requete");
+            resultats = evenement.getInt("resultats");
+        } else {
+            cle = evenement.getString("isbn");
+            refus = evenement.getString("refus");
+        }
+        statistiques.computeIfAbsent(String.valueOf(cle), Statistique::new)
+                .ajouter(evenement.getDuration(), refus != null, resultats);
+        if (refus != null) {
+            parMotif.get(type).merge(refus, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * @param evenement Nom de l'événement, par exemple EvenementsJfr.EMPRUNT
+     * @return Le nombre d'événements de ce type dans l'enregistrement
+     */
+    public long nombre(String evenement) {
+        long nombre = 0;
+        for (Statistique statistique : statistiques(evenement).values()) {
+            nombre += statistique.nombre;
+        }
+        return nombre;
+    }
+
+    /**
+     * Les clés dont la durée cumulée est la plus longue
+     * @param evenement Nom de l'événement, par exemple EvenementsJfr.EMPRUNT
+     * @param nombre Nombre maximal de clés retournées
+     * @return Les clés, de la plus coûteuse à la moins coûteuse
+     */
+    public List<Statistique> plusCouteuses(String evenement, int nombre) {
+        if (nombre <= 0) {
+            throw new IllegalArgumentException("Le nombre de clés doit être positif");
+        }
+        List<Statistique> triees = new ArrayList<>(statistiques(evenement).values());
+        triees.sort(Comparator.comparing(Statistique::getDureeTotale).reversed()
+                .thenComparing(Statistique::getCle));
+        return triees.subList(0, Math.min(nombre, triees.size()));
+    }
+
+    /**
+     * @param evenement Nom de l'événement, par exemple EvenementsJfr.EMPRUNT
+     * @return Le nombre d'occurrences de chaque motif de refus, du plus fréquent au moins fréquent
+     */
+    public Map<String, Long> motifsRefus(String evenement) {
+        statistiques(evenement);
+        Map<String, Long> motifs = new LinkedHashMap<>();
+        parMotif.get(evenement).entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entree -> motifs.put(entree.getKey(), entree.getValue()));
+        return motifs;
+    }
+
+    private Map<String, Statistique> statistiques(String evenement) {
+        Map<String, Statistique> statistiques = parCle.get(evenement);
+        if (statistiques == null) {
+            throw new IllegalArgumentException("Événement inconnu: " + evenement);
+        }
+        return statistiques;
+    }
+
+    /**
+     * Imprime, pour chaque type d'événement présent, les clés les plus coûteuses et les motifs de refus
+     * @param nombre Nombre de clés par type d'événement
+     */
+    public void imprimer(PrintStream sortie, int nombre) {
+        for (String evenement : EVENEMENTS) {
+            long total = nombre(evenement);
+            if (total == 0) {
+                continue;
+            }
+            sortie.printf("%n%s : %d événements%n", evenement, total);
+            sortie.printf("%-40s %8s %8s %10s %10s %10s%n",
+                    "Clé", "nombre", "refus", "total ms", "moy. ms", "max ms");
+            for (Statistique s : plusCouteuses(evenement, nombre)) {
+                sortie.printf("%-40s %8d %8d %10.1f %10.2f %10.2f%n",
+                        s.cle, s.nombre, s.refus, millisecondes(s.dureeTotale),
+                        millisecondes(s.dureeTotale) / s.nombre, millisecondes(s.dureeMaximale));
+            }
+            motifsRefus(evenement).forEach((motif, occurrences) ->
+                    sortie.printf("  refus « %s » : %d%n", motif, occurrences));
+        }
+    }
+
+    private static double millisecondes(Duration duree) {
+        return duree.toNanos() / 1_000_000.0;
+    }
+}
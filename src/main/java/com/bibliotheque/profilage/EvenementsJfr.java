@@ -0,0 +1,147 @@
+package com.bibliotheque.profilage;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+/**
+ * Événements Java Flight Recorder émis par BibliothequeService pour les emprunts, retours,
+ * prolongations et recherches.
+ *
+ * Chaque événement porte la clé de l'opération (ISBN, ou critère et texte d'une recherche), le
+ * motif d'un refus et le nombre de résultats ; sa durée est mesurée par JFR. Par défaut, seules
+ * les opérations plus lentes que le seuil sont enregistrées : en production, un événement plus
+ * rapide ne coûte qu'une lecture d'horloge, et les champs ne sont remplis qu'à l'enregistrement.
+ *
+ * Le profil bibliotheque.jfc, livré avec ces classes, fixe les seuils et s'ajoute à un profil
+ * du JDK :
+ * <pre>
+ * java -XX:StartFlightRecording:settings=default,settings=bibliotheque.jfc,filename=bibliotheque.jfr ...
+ * </pre>
+ * AnalyseEnregistrement résume ensuite les clés les plus coûteuses de l'enregistrement.
+ */
+public final class EvenementsJfr {
+
+    public static final String EMPRUNT = "bibliotheque.Emprunt";
+    public static final String RETOUR = "bibliotheque.Retour";
+    public static final String PROLONGATION = "bibliotheque.Prolongation";
+    public static final String RECHERCHE = "bibliotheque.Recherche";
+
+    /**
+     * Nom du profil JFC, à côté de cette classe dans le classpath
+     */
+    public static final String PROFIL = "bibliotheque.jfc";
+
+    private EvenementsJfr() {
+    }
+
+    /**
+     * Charge le profil livré avec l'application, par exemple pour démarrer un
+     * jdk.jfr.Recording depuis le code
+     * @return La configuration JFR des événements de la bibliothèque
+     */
+    public static Configuration profil() throws IOException {
+        InputStream flux = EvenementsJfr.class.getResourceAsStream(PROFIL);
+        if (flux == null) {
+            throw new IOException("Profil JFR introuvable: " + PROFIL);
+        }
+        try (Reader lecteur = new InputStreamReader(flux, StandardCharsets.UTF_8)) {
+            return Configuration.create(lecteur);
+        } catch (ParseException e) {
+            throw new IOException("Profil JFR invalide: " + PROFIL, e);
+        }
+    }
+
+    /**
+     * Champs communs aux opérations sur un emprunt
+     */
+    @Category("Bibliothèque")
+    @StackTrace(false)
+    public abstract static class Operation extends Event {
+
+        @Label("ISBN")
+        String isbn;
+
+        @Label("Numéro de carte")
+        String numeroCarte;
+
+        @Label("Motif du refus")
+        @Description("Message de l'exception, ou null si l'opération a réussi")
+        String refus;
+
+        /**
+         * Termine la mesure et enregistre l'événement s'il dépasse le seuil
+         * @param refus Motif du refus, ou null si l'opération a réussi
+         */
+        public void terminer(String isbn, String numeroCarte, String refus) {
+            end();
+            if (shouldCommit()) {
+                this.isbn = isbn;
+                this.numeroCarte = numeroCarte;
+                this.refus = refus;
+                commit();
+            }
+        }
+    }
+
+    @Name(EMPRUNT)
+    @Label("Emprunt")
+    @Threshold("10 ms")
+    public static final class Emprunt extends Operation {
+    }
+
+    @Name(RETOUR)
+    @Label("Retour")
+    @Threshold("10 ms")
+    public static final class Retour extends Operation {
+    }
+
+    @Name(PROLONGATION)
+    @Label("Prolongation")
+    @Threshold("10 ms")
+    public static final class Prolongation extends Operation {
+    }
+
+    @Name(RECHERCHE)
+    @Label("Recherche de livres")
+    @Category("Bibliothèque")
+    @StackTrace(false)
+    @Threshold("50 ms")
+    public static final class Recherche extends Event {
+
+        @Label("Critère")
+        @Description("titre ou auteur")
+        String critere;
+
+        @Label("Texte recherché")
+        String requete;
+
+        @Label("Résultats")
+        int resultats;
+
+        /**
+         * Termine la mesure et enregistre l'événement s'il dépasse le seuil
+         */
+        public void terminer(String critere, String requete, int resultats) {
+            end();
+            if (shouldCommit()) {
+                this.critere = critere;
+                this.requete = requete;
+                this.resultats = resultats;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.bibliotheque.serveur;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture et écriture JSON minimales pour l'API HTTP, sans dépendance externe.
+ *
+ * Types pris en charge : Map (objet), List (tableau), String, Number, Boolean et null.
+ * Les nombres lus sont des Long s'ils sont entiers, des Double sinon. L'imbrication des objets
+ * et tableaux lus est limitée à PROFONDEUR_MAX niveaux.
+ */
+public final class Json {
+
+    public static final int PROFONDEUR_MAX = 64;
+
+    private Json() {
+    }
+
+    public static String ecrire(Object valeur) {
+        StringBuilder sortie = new StringBuilder();
+        ecrire(valeur, sortie);
+        return sortie.toString();
+    }
+
+    /**
+     * @throws IllegalArgumentException si le texte n'est pas du JSON valide
+     */
+    public static Object lire(String texte) {
+        if (texte == null) {
+            throw new IllegalArgumentException("Le JSON ne peut pas être null");
+        }
+        Lecteur lecteur = new Lecteur(texte);
+        Object valeur = lecteur.valeur();
+        lecteur.espaces();
+        if (lecteur.position != texte.length()) {
+            throw lecteur.erreur("fin du document attendue");
+        }
+        return valeur;
+    }
+
+    /**
+     * Lit un objet JSON
+     * @throws IllegalArgumentException si le texte n'est pas un objet JSON valide
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> lireObjet(String texte) {
+        Object valeur = lire(texte);
+        if (!(valeur instanceof Map)) {
+            throw new IllegalArgumentException("Un objet JSON est attendu");
+        }
+        return (Map<String, Object>) valeur;
+    }
+
+    private static void ecrire(Object valeur, StringBuilder sortie) {
+        if (valeur == null) {
+            sortie.append("null");
+        } else if (valeur instanceof String) {
+            ecrireChaine((String) valeur, sortie);
+        } else if (valeur instanceof Number || valeur instanceof Boolean) {
+            sortie.append(valeur);
+        } else if (valeur instanceof Map) {
+            sortie.append('{');
+            boolean premier = true;
+            for (Map.Entry<?, ?> entree : ((Map<?, ?>) valeur).entrySet()) {
+                if (!premier) {
+                    sortie.append(',');
+                }
+                premier = false;
+                ecrireChaine(String.valueOf(entree.getKey()), sortie);
+                sortie.append(':');
+                ecrire(entree.getValue(), sortie);
+            }
+            sortie.append('}');
+        } else if (valeur instanceof Iterable) {
+            sortie.append('[');
+            boolean premier = true;
+            for (Object element : (Iterable<?>) valeur) {
+                if (!premier) {
+                    sortie.append(',');
+                }
+                premier = false;
+                ecrire(element, sortie);
+            }
+            sortie.append(']');
+        } else {
+            ecrireChaine(valeur.toString(), sortie);
+        }
+    }
+
+    private static void ecrireChaine(String chaine, StringBuilder sortie) {
+        sortie.append('"');
+        for (int i = 0; i < chaine.length(); i++) {
+            char c = chaine.charAt(i);
+            switch (c) {
+                case '"':
+                    sortie.append("\\\"");
+                    break;
+                case '\\':
+                    sortie.append("\\\\");
+                    break;
+                case '\n':
+                    sortie.append("\\n");
+                    break;
+                case '\r':
+                    sortie.append("\\r");
+                    break;
+                case '\t':
+                    sortie.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sortie.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sortie.append(c);
+                    }
+            }
+        }
+        sortie.append('"');
+    }
+
+    /**
+     * Analyseur descendant récursif
+     */
+    private static final class Lecteur {
+        private final String texte;
+        private int position;
+        // Objets et tableaux ouverts : bornés pour ne pas épuiser la pile sur [[[[...
+        private int profondeur;
+
+        Lecteur(String texte) {
+            this.texte = texte;
+        }
+
+        Object valeur() {
+            espaces();
+            if (position >= texte.length()) {
+                throw erreur("valeur attendue");
+            }
+            char c = texte.charAt(position);
+            switch (c) {
+                case '{':
+                    return objet();
+                case '[':
+                    return tableau();
+                case '"':
+                    return chaine();
+                case 't':
+                    return motCle("true", Boolean.TRUE);
+                case 'f':
+                    return motCle("false", Boolean.FALSE);
+                case 'n':
+                    return motCle("null", null);
+                default:
+                    return nombre();
+            }
+        }
+
+        private Map<String, Object> objet() {
+            Map<String, Object> objet = new LinkedHashMap<>();
+            ouvrir();
+            espaces();
+            if (suivantEst('}')) {
+                profondeur--;
+                return objet;
+            }
+            while (true) {
+                espaces();
+                if (position >= texte.length() || texte.charAt(position) != '"') {
+                    throw erreur("nom de propriété attendu");
+                }
+                String cle = chaine();
+                espaces();
+                attendre(':');
+                objet.put(cle, valeur());
+                espaces();
+                if (suivantEst('}')) {
+                    profondeur--;
+                    return objet;
+                }
+                attendre(',');
+            }
+        }
+
+        private List<Object> tableau() {
+            List<Object> tableau = new ArrayList<>();
+            ouvrir();
+            espaces();
+            if (suivantEst(']')) {
+                profondeur--;
+                return tableau;
+            }
+            while (true) {
+                tableau.add(valeur());
+                espaces();
+                if (suivantEst(']')) {
+                    profondeur--;
+                    return tableau;
+                }
+                attendre(',');
+            }
+        }
+
+        private void ouvrir() {
+            if (++profondeur > PROFONDEUR_MAX) {
+                throw erreur("imbrication au-delà de " + PROFONDEUR_MAX + " niveaux");
+            }
+            position++;
+        }
+
+        private String chaine() {
+            position++;
+            StringBuilder chaine = new StringBuilder();
+            while (position < texte.length()) {
+                char c = texte.charAt(position++);
+                if (c == '"') {
+                    return chaine.toString();
+                }
+                if (c != '\\') {
+                    chaine.append(c);
+                    continue;
+                }
+                if (position >= texte.length()) {
+                    break;
+                }
+                char echappe = texte.charAt(position++);
+                switch (echappe) {
+                    case 'n':
+                        chaine.append('\n');
+                        break;
+                    case 'r':
+                        chaine.append('\r');
+                        break;
+                    case 't':
+                        chaine.append('\t');
+                        break;
+                    case 'b':
+                        chaine.append('\b');
+                        break;
+                    case 'f':
+                        chaine.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > texte.length()) {
+                            throw erreur("séquence \\u incomplète");
+                        }
+                        chaine.append((char) Integer.parseInt(texte.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        chaine.append(echappe);
+                }
+            }
+            throw erreur("chaîne non terminée");
+        }
+
+        private Number nombre() {
+            int debut = position;
+            while (position < texte.length() && "+-0123456789.eE".indexOf(texte.charAt(position)) >= 0) {
+                position++;
+            }
+            String nombre = texte.substring(debut, position);
+            if (nombre.isEmpty()) {
+                throw erreur("valeur attendue");
+            }
+            try {
+                if (nombre.indexOf('.') >= 0 || nombre.indexOf('e') >= 0 || nombre.indexOf('E') >= 0) {
+                    return Double.parseDouble(nombre);
+                }
+                return Long.parseLong(nombre);
+            } catch (NumberFormatException e) {
+                throw erreur("nombre invalide: " + nombre);
+            }
+        }
+
+        private Object motCle(String motCle, Object valeur) {
+            if (!texte.startsWith(motCle, position)) {
+                throw erreur("valeur attendue");
+            }
+            position += motCle.length();
+            return valeur;
+        }
+
+        private boolean suivantEst(char c) {
+            if (position < texte.length() && texte.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void attendre(char c) {
+            if (!suivantEst(c)) {
+                throw erreur("'" + c + "' attendu");
+            }
+        }
+
+        void espaces() {
+            while (position < texte.length() && Character.isWhitespace(texte.charAt(position))) {
+                position++;
+            }
+        }
+
+        IllegalArgumentException erreur(String message) {
+            return new IllegalArgumentException("JSON invalide à la position " + position + " : " + message);
+        }
+    }
+}
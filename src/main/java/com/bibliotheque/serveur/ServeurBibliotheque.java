@@ -0,0 +1,726 @@
+package com.bibliotheque.serveur;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.service.BalayageRetards;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.Exemplaires;
+import com.bibliotheque.service.Instantane;
+import com.bibliotheque.service.PipelineCommandes;
+import com.bibliotheque.service.PopulariteEmprunts;
+import com.bibliotheque.service.RecommandationsEmprunts;
+import com.bibliotheque.service.ServiceSuiveur;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur HTTP/JSON autonome pour les bornes et l'OPAC.
+ *
+ * Chaque requête est traitée par son propre thread virtuel : un thread bloqué sur une commande
+ * du pipeline ne retient aucun thread système, et des dizaines de milliers de connexions peuvent
+ * rester ouvertes simultanément. Les modifications passent par un PipelineCommandes (écrivain
+ * unique), les lectures par les instantanés. Le serveur ne garde aucun objet du service : il ne
+ * sérialise que des copies figées, et un emprunt ou une réservation est désigné par son identifiant,
+ * résolu par l'instantané ou par l'écrivain.
+ *
+ * Les réservations mises de côté et non retirées à temps expirent d'elles-mêmes : le serveur
+ * soumet périodiquement au pipeline une commande d'expiration, pour que l'exemplaire passe à
+ * l'adhérent suivant même si aucune autre requête n'arrive.
+ *
+ * Contrôle d'admission : au-delà de maxRequetesEnCours requêtes en cours de traitement, les
+ * suivantes sont refusées immédiatement (503 avec Retry-After) plutôt que mises en attente.
+ *
+ * Points d'accès :
+ * <pre>
+ *   GET    /sante                          état du serveur et compteur de refus
+ *   GET    /statistiques
+ *   GET    /livres?titre=... | ?auteur=...
+ *   GET    /livres/{isbn}
+ *   GET    /livres/{isbn}/aussi-empruntes?nombre=5
+ *   GET    /livres/{isbn}/exemplaires
+ *   POST   /livres/{isbn}/exemplaires      {"nombre", "succursale"}, succursale principale par défaut
+ *   POST   /livres                         {"isbn", "titre", "auteur", "anneePublication"}
+ *   GET    /exemplaires/{codeBarre}
+ *   GET    /populaires?nombre=10&jours=7
+ *   POST   /adherents                      {"nom", "prenom", "email"}, 409 si l'email est déjà inscrit
+ *   GET    /adherents?email=... | ?nom=...&max=20
+ *   GET    /adherents/{carte}
+ *   GET    /adherents/{carte}/emprunts
+ *   POST   /emprunts                       {"isbn", "numeroCarte"}
+ *   POST   /emprunts/{id}/retour
+ *   POST   /emprunts/{id}/prolongation
+ *   POST   /reservations                   {"isbn", "numeroCarte"}
+ *   GET    /reservations/{id}
+ *   POST   /reservations/{id}/retrait
+ *   DELETE /reservations/{id}
+ *   POST   /retards/balayage               balayage des retards, rapport en réponse
+ * </pre>
+ * Erreurs : 400 requête invalide (JSON imbriqué au-delà de Json.PROFONDEUR_MAX compris), 404 ressource
+ * inconnue, 409 opération refusée par les règles métier, 413 corps au-delà de TAILLE_CORPS_MAX octets,
+ * 500 erreur inattendue (la requête reçoit toujours une réponse).
+ *
+ * Construit sur un ServiceSuiveur, le serveur est un réplica en lecture seule : les lectures sont
+ * servies depuis l'état répliqué, les modifications sont refusées (405) et /sante expose le retard
+ * de réplication.
+ */
+public class ServeurBibliotheque implements AutoCloseable {
+
+    public static final int PORT_PAR_DEFAUT = 8080;
+    public static final int MAX_REQUETES_EN_COURS_PAR_DEFAUT = 10_000;
+    public static final int TAILLE_CORPS_MAX = 64 * 1024;
+
+    private static final int FILE_CONNEXIONS = 8192;
+    private static final Duration INTERVALLE_EXPIRATION = Duration.ofMinutes(5);
+
+    // Exactement l'un des deux : pipeline du service principal ou réplica en lecture seule
+    private final PipelineCommandes pipeline;
+    private final ServiceSuiveur suiveur;
+    private final HttpServer serveur;
+    private final ExecutorService executeur;
+    // Expiration périodique des réservations ; null pour un réplica, qui rejoue celles du principal
+    private final ScheduledExecutorService expirations;
+    private final Duration intervalleExpiration;
+    private final Semaphore admission;
+    private final int maxRequetesEnCours;
+    private final AtomicLong requetesRefusees = new AtomicLong();
+    private final BalayageRetards balayage = new BalayageRetards();
+
+    /**
+     * @param service Le service exposé, qui ne doit plus être modifié que par ce serveur
+     * @param port Port d'écoute (0 pour un port libre quelconque)
+     * @param maxRequetesEnCours Nombre maximal de requêtes traitées simultanément
+     */
+    public ServeurBibliotheque(BibliothequeService service, int port, int maxRequetesEnCours) throws IOException {
+        this(service, port, maxRequetesEnCours, INTERVALLE_EXPIRATION);
+    }
+
+    /**
+     * @param intervalleExpiration Intervalle entre deux expirations des réservations non retirées
+     */
+    ServeurBibliotheque(BibliothequeService service, int port, int maxRequetesEnCours,
+                        Duration intervalleExpiration) throws IOException {
+        this(creerPipeline(service, maxRequetesEnCours, intervalleExpiration), null, port, maxRequetesEnCours,
+                intervalleExpiration);
+    }
+
+    /**
+     * Serveur en lecture seule sur un réplica
+     * @param suiveur Le réplica exposé, fermé avec le serveur
+     * @param port Port d'écoute (0 pour un port libre quelconque)
+     * @param maxRequetesEnCours Nombre maximal de requêtes traitées simultanément
+     */
+    public ServeurBibliotheque(ServiceSuiveur suiveur, int port, int maxRequetesEnCours) throws IOException {
+        this(null, verifierSuiveur(suiveur), port, maxRequetesEnCours, null);
+    }
+
+    private ServeurBibliotheque(PipelineCommandes pipeline, ServiceSuiveur suiveur, int port,
+                                int maxRequetesEnCours, Duration intervalleExpiration) throws IOException {
+        if (maxRequetesEnCours <= 0) {
+            throw new IllegalArgumentException("Le nombre maximal de requêtes doit être positif");
+        }
+        this.pipeline = pipeline;
+        this.suiveur = suiveur;
+        this.maxRequetesEnCours = maxRequetesEnCours;
+        this.admission = new Semaphore(maxRequetesEnCours);
+        this.executeur = Executors.newVirtualThreadPerTaskExecutor();
+        this.serveur = HttpServer.create(new InetSocketAddress(port), FILE_CONNEXIONS);
+        this.serveur.createContext("/", this::traiter);
+        this.serveur.setExecutor(executeur);
+        this.intervalleExpiration = intervalleExpiration;
+        this.expirations = pipeline == null ? null : Executors.newSingleThreadScheduledExecutor(tache -> {
+            Thread thread = new Thread(tache, "bibliotheque-expirations");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Paramètres vérifiés avant de démarrer le thread écrivain du pipeline
+    private static PipelineCommandes creerPipeline(BibliothequeService service, int maxRequetesEnCours,
+                                                   Duration intervalleExpiration) {
+        if (service == null) {
+            throw new IllegalArgumentException("Le service ne peut pas être null");
+        }
+        if (maxRequetesEnCours <= 0) {
+            throw new IllegalArgumentException("Le nombre maximal de requêtes doit être positif");
+        }
+        if (intervalleExpiration == null || intervalleExpiration.isNegative() || intervalleExpiration.isZero()) {
+            throw new IllegalArgumentException("L'intervalle d'expiration doit être positif");
+        }
+        return new PipelineCommandes(service);
+    }
+
+    private static ServiceSuiveur verifierSuiveur(ServiceSuiveur suiveur) {
+        if (suiveur == null) {
+            throw new IllegalArgumentException("Le réplica ne peut pas être null");
+        }
+        return suiveur;
+    }
+
+    public void demarrer() {
+        serveur.start();
+        if (expirations != null) {
+            long intervalle = intervalleExpiration.toMillis();
+            // Une commande à la fois : la suivante n'est planifiée qu'une fois la précédente appliquée
+            expirations.scheduleWithFixedDelay(() -> pipeline.expirerReservations().exceptionally(e -> null).join(),
+                    intervalle, intervalle, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int getPort() {
+        return serveur.getAddress().getPort();
+    }
+
+    public long getRequetesRefusees() {
+        return requetesRefusees.get();
+    }
+
+    /**
+     * Arrête d'accepter des connexions et les expirations périodiques, termine les requêtes en cours
+     * puis ferme le pipeline ou le réplica
+     */
+    @Override
+    public void close() {
+        serveur.stop(1);
+        executeur.close();
+        if (pipeline != null) {
+            expirations.shutdownNow();
+            pipeline.close();
+        } else {
+            suiveur.close();
+        }
+    }
+
+    private void traiter(HttpExchange echange) throws IOException {
+        if (!admission.tryAcquire()) {
+            requetesRefusees.incrementAndGet();
+            echange.getResponseHeaders().set("Retry-After", "1");
+            repondre(echange, 503, erreur("Serveur saturé, réessayer plus tard"));
+            return;
+        }
+        try {
+            Reponse reponse;
+            try {
+                reponse = router(echange);
+            } catch (RessourceIntrouvable e) {
+                reponse = new Reponse(404, erreur(e.getMessage()));
+            } catch (LectureSeule e) {
+                reponse = new Reponse(405, erreur(e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                reponse = new Reponse(400, erreur(e.getMessage()));
+            } catch (IllegalStateException e) {
+                reponse = new Reponse(409, erreur(e.getMessage()));
+            } catch (CorpsTropGrand e) {
+                reponse = new Reponse(413, erreur(e.getMessage()));
+            } catch (RuntimeException | StackOverflowError e) {
+                // Défaut inattendu : la borne reçoit une réponse au lieu d'une connexion coupée
+                reponse = new Reponse(500, erreur("Erreur interne du serveur"));
+            }
+            repondre(echange, reponse.statut, reponse.corps);
+        } finally {
+            admission.release();
+        }
+    }
+
+    private Reponse router(HttpExchange echange) throws IOException {
+        String methode = echange.getRequestMethod();
+        String[] chemin = echange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+        Map<String, String> parametres = lireParametres(echange.getRequestURI().getRawQuery());
+        String ressource = chemin[0];
+        if (suiveur != null && !"GET".equals(methode)) {
+            throw new LectureSeule("Réplica en lecture seule : modifier sur le serveur principal");
+        }
+
+        switch (ressource) {
+            case "sante":
+                return new Reponse(200, sante());
+            case "statistiques":
+                verifierMethode(methode, "GET");
+                return new Reponse(200, statistiques(instantane().obtenirStatistiques()));
+            case "populaires":
+                verifierMethode(methode, "GET");
+                return new Reponse(200, populaires(
+                        entier(parametres.getOrDefault("nombre", "10"), "nombre"),
+                        entier(parametres.getOrDefault("jours", "7"), "jours")));
+            case "livres":
+                return livres(methode, chemin, parametres, echange);
+            case "adherents":
+                return adherents(methode, chemin, parametres, echange);
+            case "emprunts":
+                return emprunts(methode, chemin, echange);
+            case "exemplaires":
+                verifierMethode(methode, "GET");
+                return new Reponse(200, exemplaire(chemin));
+            case "reservations":
+                return reservations(methode, chemin, echange);
+            case "retards":
+                verifierMethode(methode, "POST");
+                if (chemin.length != 2 || !"balayage".equals(chemin[1])) {
+                    throw new RessourceIntrouvable("Ressource inconnue: /" + String.join("/", chemin));
+                }
+                return new Reponse(200, balayage(attendre(ecrivain().balayerRetards(balayage))));
+            default:
+                throw new RessourceIntrouvable("Ressource inconnue: /" + ressource);
+        }
+    }
+
+    private Reponse livres(String methode, String[] chemin, Map<String, String> parametres,
+                           HttpExchange echange) throws IOException {
+        if (chemin.length == 1 && "POST".equals(methode)) {
+            Map<String, Object> corps = lireCorps(echange);
+            Livre livre = new Livre(texte(corps, "isbn"), texte(corps, "titre"), texte(corps, "auteur"),
+                    (int) nombre(corps, "anneePublication"), ecrivain().getHorloge());
+            attendre(ecrivain().ajouterLivre(livre));
+            return new Reponse(201, livre(trouverLivre(livre.getIsbn())));
+        }
+        if (chemin.length == 3 && "exemplaires".equals(chemin[2])) {
+            return exemplaires(methode, chemin[1], echange);
+        }
+        verifierMethode(methode, "GET");
+        if (chemin.length == 3 && "aussi-empruntes".equals(chemin[2])) {
+            return new Reponse(200, aussiEmpruntes(chemin[1], entier(parametres.getOrDefault("nombre", "5"), "nombre")));
+        }
+        if (chemin.length == 2) {
+            Livre livre = trouverLivre(chemin[1]);
+            if (livre == null) {
+                throw new RessourceIntrouvable("Livre non trouvé");
+            }
+            return new Reponse(200, livre(livre));
+        }
+        List<Livre> resultats;
+        if (parametres.containsKey("titre")) {
+            resultats = pipeline != null ? pipeline.rechercherLivreParTitre(parametres.get("titre"))
+                    : suiveur.rechercherLivreParTitre(parametres.get("titre"));
+        } else if (parametres.containsKey("auteur")) {
+            resultats = pipeline != null ? pipeline.rechercherLivreParAuteur(parametres.get("auteur"))
+                    : suiveur.rechercherLivreParAuteur(parametres.get("auteur"));
+        } else {
+            throw new IllegalArgumentException("Paramètre titre ou auteur attendu");
+        }
+        List<Object> livres = new ArrayList<>(resultats.size());
+        for (Livre livre : resultats) {
+            livres.add(livre(livre));
+        }
+        return new Reponse(200, livres);
+    }
+
+    private Reponse adherents(String methode, String[] chemin, Map<String, String> parametres,
+                              HttpExchange echange) throws IOException {
+        if (chemin.length == 1 && "GET".equals(methode)) {
+            return new Reponse(200, annuaire(parametres));
+        }
+        if (chemin.length == 1) {
+            verifierMethode(methode, "POST");
+            Map<String, Object> corps = lireCorps(echange);
+            Adherent adherent = new Adherent(texte(corps, "nom"), texte(corps, "prenom"), texte(corps, "email"),
+                    ecrivain().getHorloge());
+            attendre(ecrivain().inscrireAdherent(adherent));
+            return new Reponse(201, adherent(instantane().rechercherAdherent(adherent.getNumeroCarte())));
+        }
+        verifierMethode(methode, "GET");
+        Adherent adherent = instantane().rechercherAdherent(chemin[1]);
+        if (adherent == null) {
+            throw new RessourceIntrouvable("Adhérent non trouvé");
+        }
+        if (chemin.length == 2) {
+            return new Reponse(200, adherent(adherent));
+        }
+        if (chemin.length == 3 && "emprunts".equals(chemin[2])) {
+            List<Object> liste = new ArrayList<>();
+            for (Emprunt emprunt : instantane().listerEmpruntsAdherent(adherent.getNumeroCarte())) {
+                liste.add(emprunt(emprunt));
+            }
+            return new Reponse(200, liste);
+        }
+        throw new RessourceIntrouvable("Ressource inconnue");
+    }
+
+    private Reponse emprunts(String methode, String[] chemin, HttpExchange echange) throws IOException {
+        verifierMethode(methode, "POST");
+        if (chemin.length == 1) {
+            Map<String, Object> corps = lireCorps(echange);
+            Emprunt emprunt = attendre(ecrivain().emprunterLivre(texte(corps, "isbn"), texte(corps, "numeroCarte")));
+            return new Reponse(201, emprunt(emprunt));
+        }
+        Emprunt emprunt = instantane().rechercherEmprunt(entier(chemin[1], "id"));
+        if (emprunt == null || emprunt.getStatut() != Emprunt.StatutEmprunt.EN_COURS || chemin.length != 3) {
+            throw new RessourceIntrouvable("Emprunt non trouvé");
+        }
+        switch (chemin[2]) {
+            case "retour":
+                // Deux retours simultanés passent tous deux ce contrôle : l'écrivain refuse le second (409)
+                attendre(ecrivain().retournerLivre(emprunt));
+                return new Reponse(200, emprunt(etatPublie(emprunt)));
+            case "prolongation":
+                if (!attendre(ecrivain().prolongerEmprunt(emprunt))) {
+                    throw new IllegalStateException("La prolongation a été refusée");
+                }
+                return new Reponse(200, emprunt(etatPublie(emprunt)));
+            default:
+                throw new RessourceIntrouvable("Action inconnue: " + chemin[2]);
+        }
+    }
+
+    private Reponse reservations(String methode, String[] chemin, HttpExchange echange) throws IOException {
+        if (chemin.length == 1) {
+            verifierMethode(methode, "POST");
+            Map<String, Object> corps = lireCorps(echange);
+            Reservation reservation = attendre(ecrivain().reserverLivre(texte(corps, "isbn"),
+                    texte(corps, "numeroCarte"), null));
+            return new Reponse(201, reservation(reservation));
+        }
+        // Une réservation terminée n'est plus consultable par l'API
+        Reservation reservation = attendre(ecrivain().consulterReservation(entier(chemin[1], "id")));
+        if (reservation == null) {
+            throw new RessourceIntrouvable("Réservation non trouvée");
+        }
+        if (chemin.length == 2 && "GET".equals(methode)) {
+            return new Reponse(200, reservation(reservation));
+        }
+        if (chemin.length == 2 && "DELETE".equals(methode)) {
+            return new Reponse(200, reservation(attendre(ecrivain().annulerReservation(reservation))));
+        }
+        if (chemin.length == 3 && "retrait".equals(chemin[2])) {
+            verifierMethode(methode, "POST");
+            return new Reponse(201, emprunt(attendre(ecrivain().retirerReservation(reservation))));
+        }
+        throw new RessourceIntrouvable("Ressource inconnue");
+    }
+
+    // Les copies rendues par le pipeline sont figées : l'état après une commande se lit sur l'instantané
+    private Emprunt etatPublie(Emprunt emprunt) {
+        Emprunt publie = instantane().rechercherEmprunt(emprunt.getIdentifiant());
+        return publie != null ? publie : emprunt;
+    }
+
+    // Représentations JSON
+
+    private Map<String, Object> sante() {
+        Map<String, Object> sante = new LinkedHashMap<>();
+        sante.put("requetesEnCours", maxRequetesEnCours - admission.availablePermits());
+        sante.put("maxRequetesEnCours", maxRequetesEnCours);
+        sante.put("requetesRefusees", requetesRefusees.get());
+        if (suiveur != null) {
+            sante.put("sequenceAppliquee", suiveur.getSequenceAppliquee());
+            sante.put("retardOctets", suiveur.getRetardOctets());
+            sante.put("retardMillis", suiveur.getRetardMillis());
+            sante.put("replicationArretee", suiveur.getErreur() != null);
+        }
+        return sante;
+    }
+
+    private static Map<String, Object> statistiques(BibliothequeService.Statistiques statistiques) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("nombreLivres", statistiques.getNombreLivres());
+        json.put("nombreAdherents", statistiques.getNombreAdherents());
+        json.put("nombreEmpruntsEnCours", statistiques.getNombreEmpruntsEnCours());
+        return json;
+    }
+
+    private static Map<String, Object> balayage(BalayageRetards.Resultat resultat) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("empruntsAnalyses", resultat.getNombreEmpruntsAnalyses());
+        json.put("empruntsEnRetard", resultat.getNombreEmpruntsEnRetard());
+        json.put("adherentsEnRetard", resultat.getNombreAdherentsEnRetard());
+        json.put("fraisTotaux", resultat.getFraisTotaux());
+        return json;
+    }
+
+    private List<Object> populaires(int nombre, int jours) {
+        List<Object> classement = new ArrayList<>();
+        List<PopulariteEmprunts.Entree> entrees = pipeline != null ? pipeline.livresLesPlusEmpruntes(nombre, jours)
+                : suiveur.livresLesPlusEmpruntes(nombre, jours);
+        for (PopulariteEmprunts.Entree entree : entrees) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("isbn", entree.getIsbn());
+            json.put("nombreEmprunts", entree.getNombreEmprunts());
+            classement.add(json);
+        }
+        return classement;
+    }
+
+    private List<Object> aussiEmpruntes(String isbn, int nombre) {
+        List<Object> livres = new ArrayList<>();
+        List<RecommandationsEmprunts.Recommandation> recommandations = pipeline != null
+                ? pipeline.livresAussiEmpruntes(isbn, nombre) : suiveur.livresAussiEmpruntes(isbn, nombre);
+        for (RecommandationsEmprunts.Recommandation recommandation : recommandations) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("isbn", recommandation.getIsbn());
+            json.put("nombreEmpruntsCommuns", recommandation.getNombreEmpruntsCommuns());
+            livres.add(json);
+        }
+        return livres;
+    }
+
+    private Reponse exemplaires(String methode, String isbn, HttpExchange echange) throws IOException {
+        if ("POST".equals(methode)) {
+            Map<String, Object> corps = lireCorps(echange);
+            int succursale = corps.containsKey("succursale") ? (int) nombre(corps, "succursale")
+                    : Exemplaires.SUCCURSALE_PRINCIPALE;
+            attendre(ecrivain().ajouterExemplaires(isbn, (int) nombre(corps, "nombre"), succursale));
+        } else {
+            verifierMethode(methode, "GET");
+        }
+        if (trouverLivre(isbn) == null) {
+            throw new RessourceIntrouvable("Livre non trouvé");
+        }
+        List<Object> liste = new ArrayList<>();
+        for (Exemplaires.Exemplaire exemplaire : pipeline != null ? pipeline.listerExemplaires(isbn)
+                : suiveur.listerExemplaires(isbn)) {
+            liste.add(exemplaire(exemplaire));
+        }
+        return new Reponse("POST".equals(methode) ? 201 : 200, liste);
+    }
+
+    private Map<String, Object> exemplaire(String[] chemin) {
+        if (chemin.length != 2) {
+            throw new RessourceIntrouvable("Ressource inconnue");
+        }
+        long codeBarre;
+        try {
+            codeBarre = Long.parseLong(chemin[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Code-barres numérique attendu: " + chemin[1]);
+        }
+        Exemplaires.Exemplaire exemplaire = pipeline != null ? pipeline.rechercherExemplaire(codeBarre)
+                : suiveur.rechercherExemplaire(codeBarre);
+        if (exemplaire == null) {
+            throw new RessourceIntrouvable("Exemplaire non trouvé");
+        }
+        return exemplaire(exemplaire);
+    }
+
+    private List<Object> annuaire(Map<String, String> parametres) {
+        List<Adherent> resultats;
+        if (parametres.containsKey("email")) {
+            Adherent adherent = pipeline != null ? pipeline.rechercherAdherentParEmail(parametres.get("email"))
+                    : suiveur.rechercherAdherentParEmail(parametres.get("email"));
+            resultats = adherent != null ? List.of(adherent) : List.of();
+        } else if (parametres.containsKey("nom")) {
+            int max = entier(parametres.getOrDefault("max", "20"), "max");
+            resultats = pipeline != null ? pipeline.rechercherAdherentsParNom(parametres.get("nom"), max)
+                    : suiveur.rechercherAdherentsParNom(parametres.get("nom"), max);
+        } else {
+            throw new IllegalArgumentException("Paramètre email ou nom attendu");
+        }
+        List<Object> adherents = new ArrayList<>(resultats.size());
+        for (Adherent adherent : resultats) {
+            adherents.add(adherent(adherent));
+        }
+        return adherents;
+    }
+
+    private static Map<String, Object> livre(Livre livre) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("isbn", livre.getIsbn());
+        json.put("titre", livre.getTitre());
+        json.put("auteur", livre.getAuteur());
+        json.put("anneePublication", livre.getAnneePublication());
+        json.put("nombreExemplaires", livre.getNombreExemplaires());
+        json.put("exemplairesDisponibles", livre.getExemplairesDisponibles());
+        return json;
+    }
+
+    private static Map<String, Object> adherent(Adherent adherent) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("numeroCarte", adherent.getNumeroCarte());
+        json.put("nom", adherent.getNom());
+        json.put("prenom", adherent.getPrenom());
+        json.put("email", adherent.getEmail());
+        json.put("actif", adherent.isActif());
+        json.put("nombreEmpruntsEnCours", adherent.getNombreEmpruntsEnCours());
+        json.put("aDesRetards", adherent.aDesRetards());
+        return json;
+    }
+
+    private static Map<String, Object> exemplaire(Exemplaires.Exemplaire exemplaire) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("codeBarre", exemplaire.getCodeBarre());
+        json.put("isbn", exemplaire.getIsbn());
+        json.put("etat", exemplaire.getEtat());
+        json.put("succursale", exemplaire.getSuccursale());
+        json.put("numeroCarte", exemplaire.getNumeroCarte());
+        json.put("dateRetourPrevue", exemplaire.getDateRetourPrevue());
+        return json;
+    }
+
+    // Les identifiants d'un réplica ne désignent pas les emprunts du serveur principal : omis en lecture seule
+    private Map<String, Object> emprunt(Emprunt emprunt) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        if (pipeline != null) {
+            json.put("id", emprunt.getIdentifiant());
+        }
+        json.put("isbn", emprunt.getLivre().getIsbn());
+        json.put("codeBarreExemplaire", emprunt.getCodeBarreExemplaire());
+        json.put("numeroCarte", emprunt.getAdherent().getNumeroCarte());
+        json.put("dateEmprunt", emprunt.getDateEmprunt());
+        json.put("dateRetourPrevue", emprunt.getDateRetourPrevue());
+        json.put("dateRetourEffective", emprunt.getDateRetourEffective());
+        json.put("statut", emprunt.getStatut());
+        return json;
+    }
+
+    private static Map<String, Object> reservation(Reservation reservation) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", reservation.getIdentifiant());
+        json.put("isbn", reservation.getLivre().getIsbn());
+        json.put("numeroCarte", reservation.getAdherent().getNumeroCarte());
+        json.put("dateReservation", reservation.getDateReservation());
+        json.put("dateLimiteRetrait", reservation.getDateLimiteRetrait());
+        json.put("statut", reservation.getStatut());
+        return json;
+    }
+
+    private static Map<String, Object> erreur(String message) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("erreur", message);
+        return json;
+    }
+
+    // Utilitaires HTTP
+
+    private static void repondre(HttpExchange echange, int statut, Object corps) throws IOException {
+        byte[] octets = Json.ecrire(corps).getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        echange.sendResponseHeaders(statut, octets.length);
+        try (OutputStream sortie = echange.getResponseBody()) {
+            sortie.write(octets);
+        }
+    }
+
+    private static Map<String, Object> lireCorps(HttpExchange echange) throws IOException {
+        // Un octet de plus que la limite suffit à détecter un corps trop grand sans le lire en entier
+        byte[] octets = echange.getRequestBody().readNBytes(TAILLE_CORPS_MAX + 1);
+        if (octets.length > TAILLE_CORPS_MAX) {
+            throw new CorpsTropGrand("Corps de requête limité à " + TAILLE_CORPS_MAX + " octets");
+        }
+        return Json.lireObjet(new String(octets, StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> lireParametres(String requete) {
+        Map<String, String> parametres = new HashMap<>();
+        if (requete == null || requete.isEmpty()) {
+            return parametres;
+        }
+        for (String paire : requete.split("&")) {
+            int egal = paire.indexOf('=');
+            String cle = egal < 0 ? paire : paire.substring(0, egal);
+            String valeur = egal < 0 ? "" : paire.substring(egal + 1);
+            parametres.put(URLDecoder.decode(cle, StandardCharsets.UTF_8), URLDecoder.decode(valeur, StandardCharsets.UTF_8));
+        }
+        return parametres;
+    }
+
+    // Un catalogue hors tas ou sur disque n'est pas dans les instantanés : le pipeline lit alors ses livres
+    private Livre trouverLivre(String isbn) {
+        return pipeline != null ? pipeline.rechercherLivreParIsbn(isbn) : suiveur.rechercherLivreParIsbn(isbn);
+    }
+
+    private Instantane instantane() {
+        return pipeline != null ? pipeline.instantane() : suiveur.instantane();
+    }
+
+    private PipelineCommandes ecrivain() {
+        if (pipeline == null) {
+            throw new LectureSeule("Réplica en lecture seule : modifier sur le serveur principal");
+        }
+        return pipeline;
+    }
+
+    private static void verifierMethode(String methode, String attendue) {
+        if (!attendue.equals(methode)) {
+            throw new IllegalArgumentException("Méthode " + methode + " non prise en charge, " + attendue + " attendue");
+        }
+    }
+
+    private static String texte(Map<String, Object> corps, String champ) {
+        Object valeur = corps.get(champ);
+        if (!(valeur instanceof String)) {
+            throw new IllegalArgumentException("Champ texte attendu: " + champ);
+        }
+        return (String) valeur;
+    }
+
+    private static long nombre(Map<String, Object> corps, String champ) {
+        Object valeur = corps.get(champ);
+        if (!(valeur instanceof Long)) {
+            throw new IllegalArgumentException("Champ entier attendu: " + champ);
+        }
+        return (Long) valeur;
+    }
+
+    private static int entier(String valeur, String nom) {
+        try {
+            return Integer.parseInt(valeur);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Entier attendu pour " + nom + ": " + valeur);
+        }
+    }
+
+    // Attend une commande du pipeline et restitue l'exception métier d'origine
+    private static <T> T attendre(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Reponse {
+        private final int statut;
+        private final Object corps;
+
+        Reponse(int statut, Object corps) {
+            this.statut = statut;
+            this.corps = corps;
+        }
+    }
+
+    private static final class RessourceIntrouvable extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RessourceIntrouvable(String message) {
+            super(message);
+        }
+    }
+
+    private static final class LectureSeule extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        LectureSeule(String message) {
+            super(message);
+        }
+    }
+
+    private static final class CorpsTropGrand extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CorpsTropGrand(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Annuaire des adhérents : index exact par email et recherche par préfixe sur le nom et le prénom.
+ *
+ * L'email, normalisé (espaces retirés, casse ignorée), est unique : l'index par hachage permet
+ * de refuser un doublon dès l'inscription. Le nom et le prénom sont découpés en mots normalisés
+ * (casse et accents ignorés) ; chaque mot est rangé dans une table triée sous la clé
+ * « mot \0 carte », si bien que tous les adhérents dont un mot commence par un préfixe donné
+ * forment une plage contiguë de la table.
+ *
+ * Les deux index sont mis à jour à chaque inscription, sans reconstruction. Ils sont modifiés
+ * par le seul thread qui modifie le service et peuvent être lus depuis d'autres threads.
+ */
+final class AnnuaireAdherents {
+
+    private static final char SEPARATEUR_CLE = '\0';
+    private static final char FIN_PLAGE = '\uffff';
+    private static final int PLAFOND_COMPTAGE = 128;
+
+    private final Map<String, Adherent> parEmail = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Adherent> parMot = new ConcurrentSkipListMap<>();
+
+    /**
+     * Indexe un adhérent, en remplaçant éventuellement l'adhérent inscrit avec la même carte
+     * @param adherent L'adhérent à indexer
+     * @param remplace L'adhérent de même carte déjà indexé, ou null
+     * @throws IllegalStateException si l'email est déjà celui d'un autre adhérent
+     */
+    void indexer(Adherent adherent, Adherent remplace) {
+        String email = normaliserEmail(adherent.getEmail());
+        Adherent titulaire = parEmail.get(email);
+        if (titulaire != null && !titulaire.getNumeroCarte().equals(adherent.getNumeroCarte())) {
+            throw new IllegalStateException("Un adhérent est déjà inscrit avec l'email " + adherent.getEmail());
+        }
+        if (remplace != null) {
+            parEmail.remove(normaliserEmail(remplace.getEmail()));
+            for (String mot : mots(remplace)) {
+                parMot.remove(cle(mot, remplace.getNumeroCarte()));
+            }
+        }
+        parEmail.put(email, adherent);
+        for (String mot : mots(adherent)) {
+            parMot.put(cle(mot, adherent.getNumeroCarte()), adherent);
+        }
+    }
+
+    /**
+     * @return L'adhérent inscrit avec cet email (casse ignorée), ou null
+     */
+    Adherent rechercherParEmail(String email) {
+        return email == null ? null : parEmail.get(normaliserEmail(email));
+    }
+
+    /**
+     * Recherche les adhérents dont chaque mot du texte commence un mot du nom ou du prénom,
+     * sans tenir compte de la casse ni des accents : « dup j » trouve Jean Dupont.
+     * Seule la plage du mot le plus sélectif est parcourue, les autres mots servant de filtre ;
+     * les résultats suivent l'ordre alphabétique du mot qui lui correspond.
+     * @param texte Un ou plusieurs débuts de mots
+     * @param max Nombre maximal de résultats
+     */
+    List<Adherent> rechercherParNom(String texte, int max) {
+        if (max <= 0) {
+            throw new IllegalArgumentException("Le nombre maximal de résultats doit être positif");
+        }
+        List<Adherent> resultats = new ArrayList<>();
+        List<String> prefixes = texte == null ? List.of() : decouper(texte);
+        if (prefixes.isEmpty()) {
+            return resultats;
+        }
+        int selectif = 0;
+        int plusPetite = Integer.MAX_VALUE;
+        for (int i = 0; i < prefixes.size() && prefixes.size() > 1; i++) {
+            int taille = compterPlage(prefixes.get(i));
+            if (taille < plusPetite) {
+                plusPetite = taille;
+                selectif = i;
+            }
+        }
+        String prefixe = prefixes.remove(selectif);
+        // Un même adhérent peut correspondre par son nom et par son prénom
+        Map<String, Adherent> trouves = new LinkedHashMap<>();
+        for (Adherent adherent : plage(prefixe).values()) {
+            if (trouves.size() == max) {
+                break;
+            }
+            if (!trouves.containsKey(adherent.getNumeroCarte()) && correspond(adherent, prefixes)) {
+                trouves.put(adherent.getNumeroCarte(), adherent);
+            }
+        }
+        resultats.addAll(trouves.values());
+        return resultats;
+    }
+
+    private NavigableMap<String, Adherent> plage(String prefixe) {
+        return parMot.subMap(prefixe, true, prefixe + FIN_PLAGE, false);
+    }
+
+    // Taille de la plage d'un préfixe, comptée jusqu'à un plafond pour rester bon marché
+    private int compterPlage(String prefixe) {
+        int taille = 0;
+        for (String ignoree : plage(prefixe).keySet()) {
+            if (++taille == PLAFOND_COMPTAGE) {
+                break;
+            }
+        }
+        return taille;
+    }
+
+    int taille() {
+        return parEmail.size();
+    }
+
+    // Normalisation
+
+    static String normaliserEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Découpe en mots sans casse ni accents : « Saint-Exupéry » donne [saint, exupery].
+    // La décomposition des accents n'est faite que si le texte n'est pas en ASCII.
+    static List<String> decouper(String texte) {
+        String source = texte;
+        for (int i = 0; i < texte.length(); i++) {
+            if (texte.charAt(i) >= 0x80) {
+                source = Normalizer.normalize(texte, Normalizer.Form.NFD);
+                break;
+            }
+        }
+        List<String> mots = new ArrayList<>(2);
+        StringBuilder mot = new StringBuilder(source.length());
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                mot.append(Character.toLowerCase(c));
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && mot.length() > 0) {
+                mots.add(mot.toString());
+                mot.setLength(0);
+            }
+        }
+        if (mot.length() > 0) {
+            mots.add(mot.toString());
+        }
+        return mots;
+    }
+
+    private static List<String> mots(Adherent adherent) {
+        List<String> mots = decouper(adherent.getNom());
+        for (String mot : decouper(adherent.getPrenom())) {
+            if (!mots.contains(mot)) {
+                mots.add(mot);
+            }
+        }
+        return mots;
+    }
+
+    // Chacun des préfixes restants commence-t-il un mot de l'adhérent ?
+    private static boolean correspond(Adherent adherent, List<String> prefixes) {
+        if (prefixes.isEmpty()) {
+            return true;
+        }
+        List<String> mots = mots(adherent);
+        for (int i = 0; i < prefixes.size(); i++) {
+            boolean trouve = false;
+            for (int j = 0; j < mots.size() && !trouve; j++) {
+                trouve = mots.get(j).startsWith(prefixes.get(i));
+            }
+            if (!trouve) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String cle(String mot, String numeroCarte) {
+        return mot + SEPARATEUR_CLE + numeroCarte;
+    }
+}
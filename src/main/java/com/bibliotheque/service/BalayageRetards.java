@@ -0,0 +1,174 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Balayage nocturne des retards.
+ *
+ * Les retards ne sont sinon constatés qu'au retour du livre. Le balayage répartit les emprunts
+ * non rendus entre les threads d'un ForkJoinPool, calcule une seule fois par emprunt les jours
+ * et les frais de retard, puis cumule les résultats par adhérent. Chaque sous-tâche produit son
+ * propre cumul, fusionné à la jointure : aucune structure n'est partagée entre threads.
+ *
+ * Les adhérents concernés sont ensuite signalés en retard (aDesRetards). Les jours de retard
+ * ne sont pas ajoutés à l'adhérent : ils le seront, une seule fois, au retour du livre.
+ *
+ * Le balayage doit être lancé depuis le thread qui modifie le service.
+ */
+public class BalayageRetards {
+
+    // En dessous de ce nombre d'emprunts, une sous-tâche ne se divise plus
+    private static final int SEUIL_SEQUENTIEL = 4096;
+
+    private final ForkJoinPool pool;
+
+    public BalayageRetards() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BalayageRetards(ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("Le pool ne peut pas être null");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Balaye les emprunts non rendus du service et signale les adhérents en retard
+     * @param service Le service à balayer
+     * @return Le rapport du balayage
+     */
+    public Resultat executer(BibliothequeService service) {
+        long debut = System.nanoTime();
+
+        List<Emprunt> nonRendus = service.listerEmpruntsNonRendus();
+        Cumul cumul = pool.invoke(new Tache(nonRendus, 0, nonRendus.size()));
+
+        for (Emprunt emprunt : cumul.empruntsEnRetard) {
+            service.signalerRetard(emprunt);
+        }
+
+        Map<String, Double> fraisParAdherent = new HashMap<>();
+        double fraisTotaux = 0;
+        for (Map.Entry<Adherent, Integer> entree : cumul.joursParAdherent.entrySet()) {
+            double frais = Emprunt.calculerFrais(entree.getValue());
+            fraisParAdherent.put(entree.getKey().getNumeroCarte(), frais);
+            fraisTotaux += frais;
+        }
+
+        return new Resultat(nonRendus.size(), cumul.empruntsEnRetard.size(), fraisParAdherent,
+                fraisTotaux, Duration.ofNanos(System.nanoTime() - debut));
+    }
+
+    /**
+     * Cumul partiel d'une sous-tâche
+     */
+    private static final class Cumul {
+        private final Map<Adherent, Integer> joursParAdherent = new HashMap<>();
+        private final List<Emprunt> empruntsEnRetard = new ArrayList<>();
+
+        Cumul fusionner(Cumul autre) {
+            autre.joursParAdherent.forEach((adherent, jours) -> joursParAdherent.merge(adherent, jours, Integer::sum));
+            empruntsEnRetard.addAll(autre.empruntsEnRetard);
+            return this;
+        }
+    }
+
+    private static final class Tache extends RecursiveTask<Cumul> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Emprunt> emprunts;
+        private final int debut;
+        private final int fin;
+
+        Tache(List<Emprunt> emprunts, int debut, int fin) {
+            this.emprunts = emprunts;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected Cumul compute() {
+            if (fin - debut <= SEUIL_SEQUENTIEL) {
+                Cumul cumul = new Cumul();
+                for (int i = debut; i < fin; i++) {
+                    Emprunt emprunt = emprunts.get(i);
+                    int jours = emprunt.calculerJoursRetard();
+                    if (jours > 0) {
+                        cumul.joursParAdherent.merge(emprunt.getAdherent(), jours, Integer::sum);
+                        cumul.empruntsEnRetard.add(emprunt);
+                    }
+                }
+                return cumul;
+            }
+
+            int milieu = (debut + fin) >>> 1;
+            Tache gauche = new Tache(emprunts, debut, milieu);
+            gauche.fork();
+            Cumul droite = new Tache(emprunts, milieu, fin).compute();
+            return gauche.join().fusionner(droite);
+        }
+    }
+
+    /**
+     * Rapport d'un balayage
+     */
+    public static class Resultat {
+        private final int nombreEmpruntsAnalyses;
+        private final int nombreEmpruntsEnRetard;
+        private final Map<String, Double> fraisParAdherent;
+        private final double fraisTotaux;
+        private final Duration duree;
+
+        public Resultat(int nombreEmpruntsAnalyses, int nombreEmpruntsEnRetard,
+                        Map<String, Double> fraisParAdherent, double fraisTotaux, Duration duree) {
+            this.nombreEmpruntsAnalyses = nombreEmpruntsAnalyses;
+            this.nombreEmpruntsEnRetard = nombreEmpruntsEnRetard;
+            this.fraisParAdherent = Collections.unmodifiableMap(fraisParAdherent);
+            this.fraisTotaux = fraisTotaux;
+            this.duree = duree;
+        }
+
+        public int getNombreEmpruntsAnalyses() {
+            return nombreEmpruntsAnalyses;
+        }
+
+        public int getNombreEmpruntsEnRetard() {
+            return nombreEmpruntsEnRetard;
+        }
+
+        public int getNombreAdherentsEnRetard() {
+            return fraisParAdherent.size();
+        }
+
+        // Frais de retard en cours par numéro de carte
+        public Map<String, Double> getFraisParAdherent() {
+            return fraisParAdherent;
+        }
+
+        public double getFraisTotaux() {
+            return fraisTotaux;
+        }
+
+        public Duration getDuree() {
+            return duree;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Balayage{emprunts=%d, en retard=%d, adhérents=%d, frais=%.2f€, durée=%d ms}",
+                    nombreEmpruntsAnalyses, nombreEmpruntsEnRetard, getNombreAdherentsEnRetard(),
+                    fraisTotaux, duree.toMillis());
+        }
+    }
+}
@@ -2,23 +2,99 @@ package com.bibliotheque.service;
 
 import com.bibliotheque.modele.Adherent;
 import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Horloge;
 import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.profilage.EvenementsJfr;
+import com.bibliotheque.stockage.Catalogue;
+import com.bibliotheque.stockage.CatalogueMemoire;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 /**
  * Service principal de gestion de la bibliothèque
  */
 public class BibliothequeService {
 
-    private Map<String, Livre> catalogueLivres;
+    // Nombre de jours pendant lesquels un exemplaire réservé reste mis de côté
+    public static final int DELAI_RETRAIT_JOURS = 3;
+
+    private Catalogue catalogueLivres;
     private Map<String, Adherent> adherents;
+    private final AnnuaireAdherents annuaire;
     private List<Emprunt> emprunts;
+    private Horloge horloge;
+    private final PopulariteEmprunts popularite;
+    private final RecommandationsEmprunts recommandations;
+    private final HistoriqueActivite historique;
+    private final Exemplaires exemplaires;
+    // Files de réservations en attente par ISBN, et échéances de retrait des exemplaires mis de côté
+    private final Map<String, Deque<Attente>> reservations;
+    private final RoueTemporelle<Attente> echeancesRetrait;
+    // Réservations en attente ou mises de côté, par identifiant (voir reservationCourante)
+    private final Map<Long, Reservation> reservationsActives;
+    // Dernier instantané publié, null tant que les instantanés ne sont pas activés
+    private volatile Instantane instantane;
+    // Flux de capture des modifications, null tant qu'il n'est pas activé
+    private volatile FluxEvenements fluxEvenements;
+    // Journal de réplication, null tant qu'il n'est pas activé
+    private JournalReplication journal;
 
     public BibliothequeService() {
-        this.catalogueLivres = new HashMap<>();
+        this(new CatalogueMemoire());
+    }
+
+    /**
+     * Crée un service sur un stockage de catalogue donné
+     * @param catalogue Le stockage du catalogue (par exemple CatalogueHorsTas)
+     */
+    public BibliothequeService(Catalogue catalogue) {
+        this(catalogue, Horloge.parDefaut());
+    }
+
+    /**
+     * Crée un service sur un stockage de catalogue et une horloge donnés
+     * @param catalogue Le stockage du catalogue
+     * @param horloge L'horloge qui date les emprunts (par exemple une HorlogeSimulee)
+     */
+    public BibliothequeService(Catalogue catalogue, Horloge horloge) {
+        this(catalogue, horloge, PopulariteEmprunts.CAPACITE_PAR_DEFAUT, HistoriqueActivite.JOURS_CONSERVES_PAR_DEFAUT);
+    }
+
+    /**
+     * Crée un service dont les statistiques d'activité sont dimensionnées, par exemple pour tenir
+     * dans le quota mémoire d'un locataire (voir ConteneurBibliotheques)
+     * @param catalogue Le stockage du catalogue
+     * @param horloge L'horloge qui date les emprunts
+     * @param capacitePopularite Nombre de livres suivis par jour pour le classement des plus empruntés
+     * @param joursHistorique Nombre de jours d'historique d'activité conservés
+     */
+    public BibliothequeService(Catalogue catalogue, Horloge horloge, int capacitePopularite, int joursHistorique) {
+        if (catalogue == null) {
+            throw new IllegalArgumentException("Le catalogue ne peut pas être null");
+        }
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        this.catalogueLivres = catalogue;
+        this.horloge = horloge;
+        this.popularite = new PopulariteEmprunts(horloge, capacitePopularite);
+        this.recommandations = new RecommandationsEmprunts();
+        this.historique = new HistoriqueActivite(horloge, joursHistorique, HistoriqueActivite.HEURES_CONSERVEES_PAR_DEFAUT);
+        this.exemplaires = new Exemplaires();
+        this.reservations = new HashMap<>();
+        this.reservationsActives = new HashMap<>();
+        this.echeancesRetrait = new RoueTemporelle<>(32, horloge.aujourdhui().toEpochDay());
         this.adherents = new HashMap<>();
+        this.annuaire = new AnnuaireAdherents();
         this.emprunts = new ArrayList<>();
     }
 
@@ -30,18 +106,29 @@ public class BibliothequeService {
         if (livre == null) {
             throw new IllegalArgumentException("Le livre ne peut pas être null");
         }
-        catalogueLivres.put(livre.getIsbn(), livre);
+        catalogueLivres.ajouter(livre);
+        signaler(FluxEvenements.Type.AJOUT_LIVRE, livre.getIsbn(), null);
+        journaliser(JournalReplication.Operation.AJOUT_LIVRE, livre.getIsbn(), livre.getTitre(), livre.getAuteur(),
+                String.valueOf(livre.getAnneePublication()), String.valueOf(livre.getNombreExemplaires()));
+        publier(livre, null, null);
     }
 
     /**
      * Inscrit un nouvel adhérent
      * @param adherent L'adhérent à inscrire
+     * @throws IllegalStateException si un autre adhérent est déjà inscrit avec le même email
      */
     public void inscrireAdherent(Adherent adherent) {
         if (adherent == null) {
             throw new IllegalArgumentException("L'adhérent ne peut pas être null");
         }
+        annuaire.indexer(adherent, adherents.get(adherent.getNumeroCarte()));
         adherents.put(adherent.getNumeroCarte(), adherent);
+        historique.enregistrer(HistoriqueActivite.Evenement.INSCRIPTION);
+        signaler(FluxEvenements.Type.INSCRIPTION, null, adherent.getNumeroCarte());
+        journaliser(JournalReplication.Operation.INSCRIPTION, adherent.getNumeroCarte(), adherent.getNom(),
+                adherent.getPrenom(), adherent.getEmail(), String.valueOf(adherent.getDateInscription().toEpochDay()));
+        publier(null, adherent, null);
     }
 
     /**
@@ -52,33 +139,93 @@ public class BibliothequeService {
      * @throws IllegalStateException si l'emprunt n'est pas possible
      */
     public Emprunt emprunterLivre(String isbn, String numeroCarte) {
-        Livre livre = catalogueLivres.get(isbn);
-        if (livre == null) {
-            throw new IllegalStateException("Livre non trouvé");
-        }
+        EvenementsJfr.Emprunt evenement = new EvenementsJfr.Emprunt();
+        evenement.begin();
+        String refus = null;
+        try {
+            Livre livre = catalogueLivres.trouver(isbn);
+            if (livre == null) {
+                throw new IllegalStateException("Livre non trouvé");
+            }
 
-        Adherent adherent = adherents.get(numeroCarte);
-        if (adherent == null) {
-            throw new IllegalStateException("Adhérent non trouvé");
-        }
+            Adherent adherent = adherents.get(numeroCarte);
+            if (adherent == null) {
+                throw new IllegalStateException("Adhérent non trouvé");
+            }
 
-        if (!adherent.peutEmprunter()) {
-            throw new IllegalStateException("L'adhérent ne peut pas emprunter de livre");
+            Emprunt emprunt = emprunterLivre(livre, adherent, Exemplaires.AUCUN);
+            journaliser(JournalReplication.Operation.EMPRUNT, isbn, numeroCarte);
+            return emprunt;
+        } catch (IllegalStateException e) {
+            refus = e.getMessage();
+            throw e;
+        } finally {
+            evenement.terminer(isbn, numeroCarte, refus);
         }
+    }
 
-        if (!livre.estDisponible()) {
-            throw new IllegalStateException("Le livre n'est pas disponible");
-        }
+    /**
+     * Emprunte un livre pour un adhérent inscrit dans un autre service
+     * (par exemple une autre partition de BibliothequeServicePartitionne)
+     * @param isbn ISBN du livre
+     * @param adherent L'adhérent emprunteur
+     * @return L'emprunt créé
+     * @throws IllegalStateException si l'emprunt n'est pas possible
+     */
+    public Emprunt emprunterLivre(String isbn, Adherent adherent) {
+        EvenementsJfr.Emprunt evenement = new EvenementsJfr.Emprunt();
+        evenement.begin();
+        String refus = null;
+        try {
+            Livre livre = catalogueLivres.trouver(isbn);
+            if (livre == null) {
+                throw new IllegalStateException("Livre non trouvé");
+            }
+            if (adherent == null) {
+                throw new IllegalStateException("Adhérent non trouvé");
+            }
 
-        // Effectuer l'emprunt
-        if (!livre.emprunter()) {
-            throw new IllegalStateException("Impossible d'emprunter le livre");
+            Emprunt emprunt = emprunterLivre(livre, adherent, Exemplaires.AUCUN);
+            journaliser(JournalReplication.Operation.EMPRUNT, isbn, adherent.getNumeroCarte());
+            return emprunt;
+        } catch (IllegalStateException e) {
+            refus = e.getMessage();
+            throw e;
+        } finally {
+            evenement.terminer(isbn, adherent != null ? adherent.getNumeroCarte() : null, refus);
         }
+    }
+
+    // misDeCote : code-barres de l'exemplaire mis de côté pour l'adhérent, ou Exemplaires.AUCUN
+    private Emprunt emprunterLivre(Livre livre, Adherent adherent, long misDeCote) {
+        // Vérification et décompte d'un seul tenant sous le verrou de l'adhérent (voir peutEmprunter)
+        synchronized (adherent) {
+            if (!adherent.peutEmprunter()) {
+                throw new IllegalStateException("L'adhérent ne peut pas emprunter de livre");
+            }
 
-        adherent.ajouterEmprunt();
+            if (!livre.estDisponible()) {
+                throw new IllegalStateException("Le livre n'est pas disponible");
+            }
 
-        Emprunt emprunt = new Emprunt(livre, adherent);
+            // Effectuer l'emprunt
+            if (!livre.emprunter()) {
+                throw new IllegalStateException("Impossible d'emprunter le livre");
+            }
+
+            adherent.ajouterEmprunt();
+        }
+
+        long codeBarre = misDeCote != Exemplaires.AUCUN ? misDeCote
+                : exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE);
+        Emprunt emprunt = new Emprunt(livre, adherent, horloge, codeBarre);
+        exemplaires.attacher(codeBarre, emprunt);
         emprunts.add(emprunt);
+        popularite.enregistrer(livre.getIsbn());
+        recommandations.enregistrer(adherent.getNumeroCarte(), livre.getIsbn());
+        historique.enregistrer(HistoriqueActivite.Evenement.EMPRUNT);
+        signaler(FluxEvenements.Type.EMPRUNT, livre.getIsbn(), adherent.getNumeroCarte());
+        publier(livre, adherent, emprunt);
 
         return emprunt;
     }
@@ -86,21 +233,291 @@ public class BibliothequeService {
     /**
      * Retourne un livre
      * @param emprunt L'emprunt à terminer
+     * @throws IllegalStateException si l'emprunt est déjà rendu ou n'est qu'une copie figée
      */
     public void retournerLivre(Emprunt emprunt) {
         if (emprunt == null) {
             throw new IllegalArgumentException("L'emprunt ne peut pas être null");
         }
+        verifierModifiable(emprunt);
+        EvenementsJfr.Retour evenement = new EvenementsJfr.Retour();
+        evenement.begin();
+        if (emprunt.getStatut() == Emprunt.StatutEmprunt.RENDU) {
+            evenement.terminer(emprunt.getLivre().getIsbn(), emprunt.getAdherent().getNumeroCarte(),
+                    "L'emprunt est déjà rendu");
+            throw new IllegalStateException("L'emprunt est déjà rendu");
+        }
+        expirerEcheances();
 
+        // Mesuré avant le retour : un emprunt rendu n'est plus en retard
+        int joursRetard = emprunt.calculerJoursRetard();
         emprunt.retourner();
         emprunt.getLivre().retourner();
-        emprunt.getAdherent().retirerEmprunt();
+        exemplaires.liberer(emprunt.getCodeBarreExemplaire());
+        Adherent adherent = emprunt.getAdherent();
+        synchronized (adherent) {
+            adherent.retirerEmprunt();
 
-        // Si l'emprunt est en retard, mettre à jour l'adhérent
-        if (emprunt.estEnRetard()) {
-            emprunt.getAdherent().ajouterRetard();
-            emprunt.getAdherent().ajouterJoursRetard(emprunt.calculerJoursRetard());
+            // Si l'emprunt est en retard, mettre à jour l'adhérent
+            if (joursRetard > 0) {
+                adherent.ajouterRetard();
+                adherent.ajouterJoursRetard(joursRetard);
+            }
         }
+        historique.enregistrer(HistoriqueActivite.Evenement.RETOUR);
+        signaler(FluxEvenements.Type.RETOUR, emprunt.getLivre().getIsbn(), emprunt.getAdherent().getNumeroCarte());
+        // L'exemplaire rendu revient en priorité au premier adhérent de la file
+        allouer(emprunt.getLivre());
+        publier(emprunt.getLivre(), emprunt.getAdherent(), emprunt);
+        journaliserEmprunt(JournalReplication.Operation.RETOUR, emprunt);
+        evenement.terminer(emprunt.getLivre().getIsbn(), emprunt.getAdherent().getNumeroCarte(), null);
+    }
+
+    /**
+     * Rend les exemplaires d'un lot scanné par la boîte de retour, adhérent par adhérent ; les
+     * scans inconnus ou déjà rendus sont écartés sans interrompre le lot
+     * @param lot Les scans de la boîte de retour
+     * @return Le bilan du lot : retours, rejets et retards ajoutés
+     */
+    public RetoursEnLot.Bilan retournerLot(RetoursEnLot lot) {
+        if (lot == null) {
+            throw new IllegalArgumentException("Le lot ne peut pas être null");
+        }
+        return lot.appliquer(this);
+    }
+
+    /**
+     * Réserve un livre indisponible
+     * @param isbn ISBN du livre
+     * @param numeroCarte Numéro de carte de l'adhérent
+     * @return La réservation, placée en fin de file
+     * @throws IllegalStateException si la réservation n'est pas possible
+     */
+    public Reservation reserverLivre(String isbn, String numeroCarte) {
+        return reserverLivre(isbn, numeroCarte, null);
+    }
+
+    /**
+     * Réserve un livre indisponible et s'abonne à son évolution : l'abonné est notifié quand un
+     * exemplaire est mis de côté, puis si le délai de retrait expire. La notification est
+     * exécutée par le thread qui modifie le service et doit rester brève.
+     * @param isbn ISBN du livre
+     * @param numeroCarte Numéro de carte de l'adhérent
+     * @param notification Abonné à la réservation, ou null
+     * @return La réservation, placée en fin de file
+     * @throws IllegalStateException si la réservation n'est pas possible
+     */
+    public Reservation reserverLivre(String isbn, String numeroCarte, Consumer<Reservation> notification) {
+        Adherent adherent = adherents.get(numeroCarte);
+        if (adherent == null) {
+            throw new IllegalStateException("Adhérent non trouvé");
+        }
+        return reserverLivre(isbn, adherent, notification);
+    }
+
+    /**
+     * Réserve un livre pour un adhérent inscrit dans un autre service
+     * (par exemple une autre partition de BibliothequeServicePartitionne)
+     */
+    public Reservation reserverLivre(String isbn, Adherent adherent, Consumer<Reservation> notification) {
+        Livre livre = catalogueLivres.trouver(isbn);
+        if (livre == null) {
+            throw new IllegalStateException("Livre non trouvé");
+        }
+        if (adherent == null) {
+            throw new IllegalStateException("Adhérent non trouvé");
+        }
+        expirerEcheances();
+
+        Deque<Attente> file = reservations.get(isbn);
+        if (file == null && livre.estDisponible()) {
+            throw new IllegalStateException("Le livre est disponible et peut être emprunté directement");
+        }
+        if (file != null) {
+            for (Attente attente : file) {
+                if (attente.reservation.getAdherent() == adherent) {
+                    throw new IllegalStateException("L'adhérent a déjà réservé ce livre");
+                }
+            }
+        } else {
+            file = new ArrayDeque<>();
+            reservations.put(isbn, file);
+        }
+
+        Reservation reservation = new Reservation(livre, adherent, horloge);
+        file.addLast(new Attente(reservation, notification));
+        reservationsActives.put(reservation.getIdentifiant(), reservation);
+        journaliser(JournalReplication.Operation.RESERVATION, isbn, adherent.getNumeroCarte());
+        return reservation;
+    }
+
+    /**
+     * Retire l'exemplaire mis de côté pour une réservation
+     * @param reservation Une réservation au statut DISPONIBLE
+     * @return L'emprunt créé
+     * @throws IllegalStateException si aucun exemplaire n'est mis de côté, si l'adhérent ne peut pas
+     *         emprunter ou si la réservation n'est qu'une copie figée
+     */
+    public Emprunt retirerReservation(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("La réservation ne peut pas être null");
+        }
+        verifierModifiable(reservation);
+        expirerEcheances();
+        if (reservation.getStatut() != Reservation.StatutReservation.DISPONIBLE) {
+            throw new IllegalStateException("Aucun exemplaire n'est mis de côté pour cette réservation");
+        }
+
+        // L'exemplaire mis de côté est libéré puis emprunté aussitôt par le même adhérent
+        Livre livre = reservation.getLivre();
+        livre.retourner();
+        Emprunt emprunt;
+        try {
+            emprunt = emprunterLivre(livre, reservation.getAdherent(), reservation.getCodeBarreExemplaire());
+        } catch (IllegalStateException e) {
+            livre.emprunter();
+            throw e;
+        }
+        reservation.honorer();
+        reservationsActives.remove(reservation.getIdentifiant());
+        journaliserReservation(JournalReplication.Operation.RETRAIT, reservation);
+        return emprunt;
+    }
+
+    /**
+     * Annule une réservation ; un exemplaire mis de côté passe à l'adhérent suivant
+     * @param reservation La réservation à annuler
+     * @throws IllegalStateException si la réservation est terminée ou n'est qu'une copie figée
+     */
+    public void annulerReservation(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("La réservation ne peut pas être null");
+        }
+        verifierModifiable(reservation);
+        expirerEcheances();
+        boolean miseDeCote = reservation.getStatut() == Reservation.StatutReservation.DISPONIBLE;
+        reservation.annuler();
+        reservationsActives.remove(reservation.getIdentifiant());
+
+        Livre livre = reservation.getLivre();
+        Deque<Attente> file = reservations.get(livre.getIsbn());
+        if (file != null) {
+            file.removeIf(attente -> attente.reservation == reservation);
+            if (file.isEmpty()) {
+                reservations.remove(livre.getIsbn());
+            }
+        }
+        if (miseDeCote) {
+            livre.retourner();
+            exemplaires.liberer(reservation.getCodeBarreExemplaire());
+            allouer(livre);
+            publier(livre, null, null);
+        }
+        journaliserReservation(JournalReplication.Operation.ANNULATION, reservation);
+    }
+
+    /**
+     * @param isbn ISBN du livre
+     * @return Les réservations en attente, dans l'ordre de la file
+     */
+    public List<Reservation> listerReservations(String isbn) {
+        Deque<Attente> file = reservations.get(isbn);
+        if (file == null) {
+            return new ArrayList<>();
+        }
+        List<Reservation> resultat = new ArrayList<>(file.size());
+        for (Attente attente : file) {
+            resultat.add(attente.reservation);
+        }
+        return resultat;
+    }
+
+    /**
+     * Libère les exemplaires mis de côté dont le délai de retrait est dépassé et les attribue
+     * aux adhérents suivants. Fait aussi en passant par les opérations du service ; à appeler
+     * périodiquement quand le service peut rester sans activité (ServeurBibliotheque le fait).
+     * Ne coûte rien tant que la date ne change pas.
+     */
+    public void expirerReservations() {
+        expirerEcheances();
+        journaliser(JournalReplication.Operation.EXPIRATION);
+    }
+
+    private void expirerEcheances() {
+        echeancesRetrait.avancer(horloge.aujourdhui().toEpochDay(), attente -> {
+            Reservation reservation = attente.reservation;
+            // Réservation retirée ou annulée depuis la planification
+            if (reservation.getStatut() != Reservation.StatutReservation.DISPONIBLE) {
+                return;
+            }
+            reservation.expirer();
+            reservationsActives.remove(reservation.getIdentifiant());
+            attente.notifier();
+            Livre livre = reservation.getLivre();
+            livre.retourner();
+            exemplaires.liberer(reservation.getCodeBarreExemplaire());
+            allouer(livre);
+            publier(livre, null, null);
+        });
+    }
+
+    // Met de côté les exemplaires disponibles pour les premiers adhérents de la file qui peuvent emprunter
+    private void allouer(Livre livre) {
+        Deque<Attente> file = reservations.get(livre.getIsbn());
+        if (file == null) {
+            return;
+        }
+        Iterator<Attente> iterateur = file.iterator();
+        while (livre.estDisponible() && iterateur.hasNext()) {
+            Attente attente = iterateur.next();
+            if (!peutEmprunter(attente.reservation.getAdherent())) {
+                continue;
+            }
+            iterateur.remove();
+            livre.emprunter();
+            LocalDate dateLimite = horloge.aujourdhui().plusDays(DELAI_RETRAIT_JOURS);
+            attente.reservation.mettreDeCote(dateLimite, exemplaires.prendre(livre, Exemplaires.Etat.MIS_DE_COTE));
+            echeancesRetrait.planifier(attente, dateLimite.toEpochDay() + 1);
+            attente.notifier();
+        }
+        if (file.isEmpty()) {
+            reservations.remove(livre.getIsbn());
+        }
+    }
+
+    // Un adhérent peut emprunter dans plusieurs partitions (BibliothequeServicePartitionne) : son état
+    // n'est lu ou modifié que sous son verrou, par de courtes sections qui n'en prennent aucun autre.
+    // Deux partitions ne peuvent donc jamais s'attendre l'une l'autre, quel que soit l'ordre des retours.
+    private static boolean peutEmprunter(Adherent adherent) {
+        synchronized (adherent) {
+            return adherent.peutEmprunter();
+        }
+    }
+
+    /**
+     * Prolonge un emprunt de 7 jours
+     * @param emprunt L'emprunt à prolonger
+     * @return true si la prolongation a été accordée
+     * @throws IllegalStateException si l'emprunt n'est qu'une copie figée
+     */
+    public boolean prolongerEmprunt(Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("L'emprunt ne peut pas être null");
+        }
+        verifierModifiable(emprunt);
+        EvenementsJfr.Prolongation evenement = new EvenementsJfr.Prolongation();
+        evenement.begin();
+        boolean prolonge = emprunt.prolonger();
+        if (prolonge) {
+            exemplaires.prolonger(emprunt.getCodeBarreExemplaire(), emprunt.getDateRetourPrevue());
+            signaler(FluxEvenements.Type.PROLONGATION, emprunt.getLivre().getIsbn(),
+                    emprunt.getAdherent().getNumeroCarte());
+            journaliserEmprunt(JournalReplication.Operation.PROLONGATION, emprunt);
+        }
+        publier(null, null, emprunt);
+        evenement.terminer(emprunt.getLivre().getIsbn(), emprunt.getAdherent().getNumeroCarte(),
+                prolonge ? null : "Prolongation refusée");
+        return prolonge;
     }
 
     /**
@@ -113,13 +530,18 @@ public class BibliothequeService {
             return new ArrayList<>();
         }
 
-        return catalogueLivres.values().stream()
+        EvenementsJfr.Recherche evenement = new EvenementsJfr.Recherche();
+        evenement.begin();
+        List<Livre> resultats = StreamSupport.stream(catalogueLivres.spliterator(), false)
                 .filter(livre -> livre.getTitre().toLowerCase().contains(titre.toLowerCase()))
                 .collect(Collectors.toList());
+        evenement.terminer("titre", titre, resultats.size());
+        return resultats;
     }
 
     /**
-     * Recherche des livres par auteur
+     * Recherche des livres par auteur.
+     * La comparaison porte sur les auteurs distincts du catalogue, pas sur chaque livre.
      * @param auteur L'auteur à rechercher
      * @return La liste des livres correspondants
      */
@@ -128,9 +550,52 @@ public class BibliothequeService {
             return new ArrayList<>();
         }
 
-        return catalogueLivres.values().stream()
-                .filter(livre -> livre.getAuteur().toLowerCase().contains(auteur.toLowerCase()))
-                .collect(Collectors.toList());
+        EvenementsJfr.Recherche evenement = new EvenementsJfr.Recherche();
+        evenement.begin();
+        List<Livre> resultats = catalogueLivres.rechercherParAuteur(auteur);
+        evenement.terminer("auteur", auteur, resultats.size());
+        return resultats;
+    }
+
+    /**
+     * Recherche ad hoc, sans index, sur le dernier instantané publié : le critère est évalué en
+     * parallèle sur tous les livres, avec un budget de 5 secondes. Peut être appelé depuis
+     * n'importe quel thread.
+     * @param critere Prédicat sans effet de bord, par exemple
+     *                {@code l -> l.getTitre().matches(".*\\d.*") && l.getNombreExemplaires() > 3}
+     * @return Copies figées des livres retenus, dans un ordre quelconque
+     * @throws IllegalStateException si les instantanés ne sont pas activés, s'ils ne contiennent pas
+     *         les livres (catalogue hors tas ou sur disque) ou si le budget est dépassé
+     */
+    public List<Livre> rechercherLivres(Predicate<? super Livre> critere) {
+        return instantane().rechercherLivres(critere);
+    }
+
+    /**
+     * Recherche ad hoc sur les livres, abandonnée au-delà du budget
+     * @see #rechercherLivres(Predicate)
+     */
+    public List<Livre> rechercherLivres(Predicate<? super Livre> critere, Duration budget) {
+        return instantane().rechercherLivres(critere, budget);
+    }
+
+    /**
+     * Recherche ad hoc, sans index, sur tous les emprunts du dernier instantané publié, rendus
+     * compris, avec un budget de 5 secondes. Peut être appelé depuis n'importe quel thread.
+     * @param critere Prédicat sans effet de bord
+     * @return Copies figées des emprunts retenus, dans un ordre quelconque
+     * @throws IllegalStateException si les instantanés ne sont pas activés ou si le budget est dépassé
+     */
+    public List<Emprunt> rechercherEmprunts(Predicate<? super Emprunt> critere) {
+        return instantane().rechercherEmprunts(critere);
+    }
+
+    /**
+     * Recherche ad hoc sur les emprunts, abandonnée au-delà du budget
+     * @see #rechercherEmprunts(Predicate)
+     */
+    public List<Emprunt> rechercherEmprunts(Predicate<? super Emprunt> critere, Duration budget) {
+        return instantane().rechercherEmprunts(critere, budget);
     }
 
     /**
@@ -139,7 +604,7 @@ public class BibliothequeService {
      * @return Le livre correspondant ou null
      */
     public Livre rechercherLivreParIsbn(String isbn) {
-        return catalogueLivres.get(isbn);
+        return catalogueLivres.trouver(isbn);
     }
 
     /**
@@ -151,6 +616,26 @@ public class BibliothequeService {
         return adherents.get(numeroCarte);
     }
 
+    /**
+     * Recherche un adhérent par email, sans tenir compte de la casse
+     * @param email L'email de l'adhérent
+     * @return L'adhérent correspondant ou null
+     */
+    public Adherent rechercherAdherentParEmail(String email) {
+        return annuaire.rechercherParEmail(email);
+    }
+
+    /**
+     * Recherche les adhérents par début de nom et de prénom, sans tenir compte de la casse ni des accents.
+     * Chaque mot du texte doit commencer le nom ou le prénom : « dup je » trouve Jean Dupont.
+     * @param texte Un ou plusieurs débuts de mots
+     * @param max Nombre maximal d'adhérents retournés
+     * @return Les adhérents correspondants, au plus max
+     */
+    public List<Adherent> rechercherAdherentsParNom(String texte, int max) {
+        return annuaire.rechercherParNom(texte, max);
+    }
+
     /**
      * Liste les emprunts d'un adhérent
      * @param numeroCarte Le numéro de carte de l'adhérent
@@ -173,16 +658,379 @@ public class BibliothequeService {
     }
 
     /**
-     * Obtient les statistiques de la bibliothèque
+     * Liste les emprunts non rendus, qu'ils soient en cours ou déjà signalés en retard
+     * @return La liste des emprunts non rendus
+     */
+    public List<Emprunt> listerEmpruntsNonRendus() {
+        return emprunts.stream()
+                .filter(e -> e.getStatut() != Emprunt.StatutEmprunt.RENDU)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Signale un emprunt en retard : l'adhérent ne peut plus emprunter jusqu'à régularisation.
+     * Utilisé par le balayage nocturne des retards ; le passage en retard n'est compté qu'une fois
+     * par emprunt dans l'historique.
+     */
+    void signalerRetard(Emprunt emprunt) {
+        verifierModifiable(emprunt);
+        if (emprunt.marquerRetardSignale()) {
+            historique.enregistrer(HistoriqueActivite.Evenement.RETARD);
+        }
+        synchronized (emprunt.getAdherent()) {
+            emprunt.getAdherent().ajouterRetard();
+        }
+        publier(null, emprunt.getAdherent(), emprunt);
+        journaliserEmprunt(JournalReplication.Operation.RETARD, emprunt);
+    }
+
+    /**
+     * Retrouve l'emprunt tenu par le service dont une copie figée a été lue sur un instantané.
+     * Doit être appelé depuis le thread qui modifie le service.
+     * @param emprunt Un emprunt du service ou une copie figée
+     * @return L'emprunt du service, éventuellement déjà rendu
+     * @throws IllegalStateException si l'emprunt n'appartient pas à ce service
+     */
+    Emprunt empruntCourant(Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("L'emprunt ne peut pas être null");
+        }
+        if (!emprunt.estFige()) {
+            return emprunt;
+        }
+        // Emprunt en cours : retrouvé par son exemplaire ; sinon (rendu, exemplaire non suivi) par parcours
+        Emprunt courant = exemplaires.emprunt(emprunt.getCodeBarreExemplaire());
+        if (courant != null && courant.getIdentifiant() == emprunt.getIdentifiant()) {
+            return courant;
+        }
+        for (Emprunt candidat : emprunts) {
+            if (candidat.getIdentifiant() == emprunt.getIdentifiant()) {
+                return candidat;
+            }
+        }
+        throw new IllegalStateException("Emprunt non trouvé");
+    }
+
+    /**
+     * Retrouve la réservation tenue par le service dont une copie figée a été rendue par le pipeline.
+     * Doit être appelé depuis le thread qui modifie le service.
+     * @param reservation Une réservation du service ou une copie figée
+     * @return La réservation du service
+     * @throws IllegalStateException si la réservation est terminée ou n'appartient pas à ce service
+     */
+    Reservation reservationCourante(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("La réservation ne peut pas être null");
+        }
+        if (!reservation.estFige()) {
+            return reservation;
+        }
+        Reservation courante = reservationsActives.get(reservation.getIdentifiant());
+        if (courante == null) {
+            throw new IllegalStateException("Réservation active non trouvée");
+        }
+        return courante;
+    }
+
+    /**
+     * Doit être appelé depuis le thread qui modifie le service ; les retraits échus sont d'abord expirés
+     * @return La réservation en attente ou mise de côté portant cet identifiant, ou null
+     */
+    Reservation reservationActive(long identifiant) {
+        expirerEcheances();
+        return reservationsActives.get(identifiant);
+    }
+
+    // Une copie figée (instantané, lecture du pipeline) ne désigne pas l'emprunt tenu par le service
+    private static void verifierModifiable(Emprunt emprunt) {
+        if (emprunt.estFige()) {
+            throw new IllegalStateException("Un emprunt figé ne peut pas être modifié");
+        }
+    }
+
+    private static void verifierModifiable(Reservation reservation) {
+        if (reservation.estFige()) {
+            throw new IllegalStateException("Une réservation figée ne peut pas être modifiée");
+        }
+    }
+
+    /**
+     * Réservation en file et son abonné éventuel
+     */
+    private static final class Attente {
+        private final Reservation reservation;
+        private final Consumer<Reservation> notification;
+
+        Attente(Reservation reservation, Consumer<Reservation> notification) {
+            this.reservation = reservation;
+            this.notification = notification;
+        }
+
+        void notifier() {
+            if (notification == null) {
+                return;
+            }
+            try {
+                notification.accept(reservation);
+            } catch (RuntimeException e) {
+                // Un abonné défaillant ne doit pas interrompre le retour ou l'expiration en cours
+            }
+        }
+    }
+
+    /**
+     * Active la publication d'instantanés immuables après chaque modification.
+     * Construit le premier instantané à partir de l'état courant (coût linéaire, une seule fois) ;
+     * doit être appelé depuis le thread qui modifie le service. Un catalogue qui ne tient pas sur
+     * le tas n'y est pas copié (voir Instantane.contientLivres).
+     */
+    public void activerInstantanes() {
+        if (instantane != null) {
+            return;
+        }
+        int nombreLivres = catalogueLivres.taille();
+        Instantane initial = Instantane.vide(catalogueLivres.surLeTas());
+        if (initial.contientLivres()) {
+            for (Livre livre : catalogueLivres) {
+                initial = initial.avec(livre, null, null, nombreLivres);
+            }
+        }
+        for (Adherent adherent : adherents.values()) {
+            initial = initial.avec(null, adherent, null, nombreLivres);
+        }
+        for (Emprunt emprunt : emprunts) {
+            initial = initial.avec(null, null, emprunt, nombreLivres);
+        }
+        instantane = initial;
+    }
+
+    /**
+     * @return L'horloge du service, à passer aux livres et adhérents créés pour lui
+     */
+    public Horloge getHorloge() {
+        return horloge;
+    }
+
+    /**
+     * Retourne le dernier instantané publié, en O(1) et sans verrou.
+     * Les lectures faites sur l'instantané restent cohérentes entre elles pendant les écritures.
+     * @return L'instantané courant
+     * @throws IllegalStateException si les instantanés ne sont pas activés
+     */
+    public Instantane instantane() {
+        Instantane courant = instantane;
+        if (courant == null) {
+            throw new IllegalStateException("Les instantanés ne sont pas activés");
+        }
+        return courant;
+    }
+
+    /**
+     * Remplace des adhérents trouvés dans l'annuaire par leurs copies figées du dernier instantané,
+     * pour les lectures faites hors du thread qui modifie le service. Un adhérent inscrit après
+     * la publication de l'instantané est omis.
+     */
+    List<Adherent> figer(List<Adherent> trouves) {
+        Instantane courant = instantane();
+        List<Adherent> copies = new ArrayList<>(trouves.size());
+        for (Adherent adherent : trouves) {
+            Adherent copie = courant.rechercherAdherent(adherent.getNumeroCarte());
+            if (copie != null) {
+                copies.add(copie);
+            }
+        }
+        return copies;
+    }
+
+    /**
+     * Active le flux de capture des modifications avec la capacité par défaut.
+     * Doit être appelé depuis le thread qui modifie le service ; sans effet s'il est déjà actif.
+     * @return Le flux, auquel les systèmes en aval s'abonnent depuis n'importe quel thread
+     */
+    public FluxEvenements activerFluxEvenements() {
+        return activerFluxEvenements(FluxEvenements.CAPACITE_PAR_DEFAUT);
+    }
+
+    /**
+     * Active le flux de capture des modifications
+     * @param capacite Nombre d'événements conservés pour les consommateurs en retard, puissance de 2
+     * @return Le flux actif
+     */
+    public FluxEvenements activerFluxEvenements(int capacite) {
+        if (fluxEvenements == null) {
+            fluxEvenements = new FluxEvenements(capacite);
+        }
+        return fluxEvenements;
+    }
+
+    /**
+     * @return Le flux de capture des modifications
+     * @throws IllegalStateException si le flux n'est pas activé
+     */
+    public FluxEvenements fluxEvenements() {
+        FluxEvenements flux = fluxEvenements;
+        if (flux == null) {
+            throw new IllegalStateException("Le flux d'événements n'est pas activé");
+        }
+        return flux;
+    }
+
+    /**
+     * Active le journal de réplication lu par les réplicas (ServiceSuiveur).
+     * Le service doit être encore vide, pour que le journal décrive tout son état ; doit être
+     * appelé depuis le thread qui modifie le service.
+     * @param fichier Le fichier du journal, partagé avec les réplicas
+     * @return Le journal, à vider régulièrement si le service n'est pas piloté par un PipelineCommandes
+     * @throws IllegalStateException si le journal est déjà actif ou si le service n'est pas vide
+     */
+    public JournalReplication activerJournal(Path fichier) throws IOException {
+        if (journal != null) {
+            throw new IllegalStateException("Le journal de réplication est déjà actif");
+        }
+        if (catalogueLivres.taille() > 0 || !adherents.isEmpty() || !emprunts.isEmpty()) {
+            throw new IllegalStateException("Le journal de réplication doit être activé sur un service vide");
+        }
+        journal = new JournalReplication(fichier);
+        return journal;
+    }
+
+    // Écrit les enregistrements en attente, après chaque lot du pipeline
+    void viderJournal() {
+        if (journal != null) {
+            journal.vider();
+        }
+    }
+
+    private void journaliser(JournalReplication.Operation operation, String... champs) {
+        if (journal != null) {
+            journal.enregistrer(operation, horloge.aujourdhui().toEpochDay(), champs);
+        }
+    }
+
+    private void journaliserEmprunt(JournalReplication.Operation operation, Emprunt emprunt) {
+        if (journal != null) {
+            journaliser(operation, emprunt.getLivre().getIsbn(), emprunt.getAdherent().getNumeroCarte(),
+                    String.valueOf(emprunt.getDateEmprunt().toEpochDay()),
+                    String.valueOf(emprunt.getCodeBarreExemplaire()));
+        }
+    }
+
+    private void journaliserReservation(JournalReplication.Operation operation, Reservation reservation) {
+        if (journal != null) {
+            journaliser(operation, reservation.getLivre().getIsbn(), reservation.getAdherent().getNumeroCarte());
+        }
+    }
+
+    private void signaler(FluxEvenements.Type type, String isbn, String numeroCarte) {
+        FluxEvenements flux = fluxEvenements;
+        if (flux != null) {
+            flux.publier(type, isbn, numeroCarte, horloge.heureCourante());
+        }
+    }
+
+    private void publier(Livre livre, Adherent adherent, Emprunt emprunt) {
+        Instantane courant = instantane;
+        if (courant != null) {
+            instantane = courant.avec(livre, adherent, emprunt, catalogueLivres.taille());
+        }
+    }
+
+    /**
+     * Livres les plus empruntés sur une fenêtre glissante, sans parcourir les emprunts.
+     * Peut être appelé depuis n'importe quel thread.
+     * @param nombre Nombre maximal de livres
+     * @param nombreJours Fenêtre en jours (7 pour la semaine, 30 pour le mois)
+     * @return Le classement, du plus emprunté au moins emprunté
+     */
+    public List<PopulariteEmprunts.Entree> livresLesPlusEmpruntes(int nombre, int nombreJours) {
+        return popularite.plusEmpruntes(nombre, nombreJours);
+    }
+
+    /**
+     * Livres empruntés par les adhérents qui ont aussi emprunté ce livre, tenus à jour à chaque
+     * emprunt. Peut être appelé depuis n'importe quel thread.
+     * @param isbn Le livre consulté
+     * @param nombre Nombre maximal de livres
+     * @return Les livres classés par nombre d'emprunts communs décroissant
+     */
+    public List<RecommandationsEmprunts.Recommandation> livresAussiEmpruntes(String isbn, int nombre) {
+        return recommandations.aussiEmpruntes(isbn, nombre);
+    }
+
+    /**
+     * Ajoute des exemplaires d'un livre à une succursale ; ils vont d'abord aux réservations en attente
+     * @param isbn ISBN du livre
+     * @param nombre Nombre d'exemplaires ajoutés
+     * @param succursale Numéro de la succursale (Exemplaires.SUCCURSALE_PRINCIPALE par défaut)
+     * @throws IllegalStateException si le livre n'existe pas
+     */
+    public void ajouterExemplaires(String isbn, int nombre, int succursale) {
+        if (nombre <= 0) {
+            throw new IllegalArgumentException("Le nombre d'exemplaires doit être positif");
+        }
+        if (succursale < 0) {
+            throw new IllegalArgumentException("Le numéro de succursale ne peut pas être négatif");
+        }
+        Livre livre = catalogueLivres.trouver(isbn);
+        if (livre == null) {
+            throw new IllegalStateException("Livre non trouvé");
+        }
+        expirerEcheances();
+
+        exemplaires.ajouter(livre, nombre, succursale);
+        livre.ajouterExemplaires(nombre);
+        allouer(livre);
+        publier(livre, null, null);
+        journaliser(JournalReplication.Operation.EXEMPLAIRES, isbn, String.valueOf(nombre), String.valueOf(succursale));
+    }
+
+    /**
+     * Exemplaires d'un livre avec leur état, leur succursale et leur emprunteur éventuel
+     * @param isbn ISBN du livre
+     * @return Les exemplaires par rang, ou une liste vide si le livre n'existe pas
+     */
+    public List<Exemplaires.Exemplaire> listerExemplaires(String isbn) {
+        return exemplaires.lister(catalogueLivres.trouver(isbn));
+    }
+
+    /**
+     * Recherche un exemplaire par code-barres. Peut être appelé depuis n'importe quel thread.
+     * @param codeBarre Le code-barres de l'exemplaire
+     * @return L'exemplaire, ou null s'il n'a encore jamais été emprunté ou mis de côté
+     */
+    public Exemplaires.Exemplaire rechercherExemplaire(long codeBarre) {
+        return exemplaires.trouver(codeBarre);
+    }
+
+    // Registre des exemplaires, lisible depuis les threads de lecture du pipeline et du réplica
+    Exemplaires exemplaires() {
+        return exemplaires;
+    }
+
+    /**
+     * @return L'historique journalier et horaire de l'activité, lisible depuis n'importe quel thread
+     */
+    public HistoriqueActivite historique() {
+        return historique;
+    }
+
+    /**
+     * Obtient les statistiques de la bibliothèque.
+     * Si les instantanés sont activés, elles sont lues sur l'instantané courant en O(1).
      * @return Les statistiques
      */
     public Statistiques obtenirStatistiques() {
+        Instantane courant = instantane;
+        if (courant != null) {
+            return courant.obtenirStatistiques();
+        }
+
         long nombreEmpruntsEnCours = emprunts.stream()
                 .filter(e -> e.getStatut() == Emprunt.StatutEmprunt.EN_COURS)
                 .count();
 
         return new Statistiques(
-                catalogueLivres.size(),
+                catalogueLivres.taille(),
                 adherents.size(),
                 (int) nombreEmpruntsEnCours
         );
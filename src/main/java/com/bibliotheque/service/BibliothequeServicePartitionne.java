@@ -0,0 +1,412 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Horloge;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.stockage.CatalogueMemoire;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Façade partitionnée pour un réseau de bibliothèques.
+ *
+ * Les livres sont répartis entre N partitions selon le hachage de leur ISBN, et les adhérents
+ * selon le hachage de leur numéro de carte. Chaque partition est un BibliothequeService confié
+ * à son propre thread : il n'est jamais accédé par deux threads à la fois.
+ *
+ * Les opérations sur une seule clé sont routées vers leur partition. Un emprunt est exécuté
+ * sur la partition du livre, qui conserve l'emprunt. L'adhérent, qui peut emprunter dans
+ * plusieurs partitions, n'est lu et modifié par le service que sous son verrou, par de courtes
+ * sections qui n'en prennent jamais d'autre : un retour qui attribue l'exemplaire au premier
+ * de la file d'attente ne bloque jamais une autre partition en sens inverse. Les recherches sont envoyées à toutes les partitions et leurs meilleurs résultats fusionnés.
+ *
+ * Les livres, emprunts et réservations rendus à l'appelant sont des copies figées faites sur la
+ * partition, l'adhérent copié sous son verrou. Les opérations qui reçoivent un emprunt ou une
+ * réservation acceptent ces copies et retrouvent l'objet du service sur sa partition.
+ */
+public class BibliothequeServicePartitionne implements AutoCloseable {
+
+    // Ordre des résultats de recherche : titre, puis ISBN
+    private static final Comparator<Livre> ORDRE_RESULTATS =
+            Comparator.comparing(Livre::getTitre).thenComparing(Livre::getIsbn);
+
+    private final List<Partition> partitions;
+
+    public BibliothequeServicePartitionne(int nombrePartitions) {
+        this(nombrePartitions, Horloge.parDefaut());
+    }
+
+    /**
+     * @param nombrePartitions Nombre de partitions, chacune avec son thread
+     * @param horloge L'horloge commune à toutes les partitions
+     */
+    public BibliothequeServicePartitionne(int nombrePartitions, Horloge horloge) {
+        if (nombrePartitions <= 0) {
+            throw new IllegalArgumentException("Le nombre de partitions doit être positif");
+        }
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        this.partitions = new ArrayList<>(nombrePartitions);
+        for (int i = 0; i < nombrePartitions; i++) {
+            partitions.add(new Partition(i, horloge));
+        }
+    }
+
+    public int getNombrePartitions() {
+        return partitions.size();
+    }
+
+    // Opérations routées vers une partition
+
+    public CompletableFuture<Void> ajouterLivre(Livre livre) {
+        if (livre == null) {
+            throw new IllegalArgumentException("Le livre ne peut pas être null");
+        }
+        return partitionLivre(livre.getIsbn()).executer(service -> {
+            service.ajouterLivre(livre);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> inscrireAdherent(Adherent adherent) {
+        if (adherent == null) {
+            throw new IllegalArgumentException("L'adhérent ne peut pas être null");
+        }
+        return partitionAdherent(adherent.getNumeroCarte()).executer(service -> {
+            service.inscrireAdherent(adherent);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Livre> rechercherLivreParIsbn(String isbn) {
+        return partitionLivre(isbn).executer(service -> {
+            Livre livre = service.rechercherLivreParIsbn(isbn);
+            return livre != null ? new Livre(livre) : null;
+        });
+    }
+
+    /**
+     * Recherche un adhérent sur sa partition
+     * @param numeroCarte Le numéro de carte
+     * @return Une copie figée de l'adhérent, lue sous son verrou, ou null : l'original reste
+     *         modifié par les partitions des livres qu'il emprunte
+     */
+    public CompletableFuture<Adherent> rechercherAdherent(String numeroCarte) {
+        return adherent(numeroCarte).thenApply(adherent -> {
+            if (adherent == null) {
+                return null;
+            }
+            synchronized (adherent) {
+                return new Adherent(adherent);
+            }
+        });
+    }
+
+    public CompletableFuture<Emprunt> emprunterLivre(String isbn, String numeroCarte) {
+        return adherent(numeroCarte).thenCompose(adherent -> {
+            if (adherent == null) {
+                throw new IllegalStateException("Adhérent non trouvé");
+            }
+            return partitionLivre(isbn).executer(service -> copie(service.emprunterLivre(isbn, adherent)));
+        });
+    }
+
+    public CompletableFuture<Void> retournerLivre(Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("L'emprunt ne peut pas être null");
+        }
+        return partitionLivre(emprunt.getLivre().getIsbn()).executer(service -> {
+            service.retournerLivre(service.empruntCourant(emprunt));
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> prolongerEmprunt(Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("L'emprunt ne peut pas être null");
+        }
+        return partitionLivre(emprunt.getLivre().getIsbn()).executer(service -> service.prolongerEmprunt(service.empruntCourant(emprunt)));
+    }
+
+    /**
+     * Réserve un livre sur sa partition ; la notification est exécutée par le thread de la partition
+     * et reçoit, comme l'appelant, une copie figée de la réservation
+     */
+    public CompletableFuture<Reservation> reserverLivre(String isbn, String numeroCarte,
+                                                        Consumer<Reservation> notification) {
+        Consumer<Reservation> copie = notification == null ? null
+                : reservation -> notification.accept(copie(reservation));
+        return adherent(numeroCarte).thenCompose(adherent -> {
+            if (adherent == null) {
+                throw new IllegalStateException("Adhérent non trouvé");
+            }
+            return partitionLivre(isbn).executer(service -> copie(service.reserverLivre(isbn, adherent, copie)));
+        });
+    }
+
+    public CompletableFuture<Emprunt> retirerReservation(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("La réservation ne peut pas être null");
+        }
+        return partitionLivre(reservation.getLivre().getIsbn()).executer(
+                service -> copie(service.retirerReservation(service.reservationCourante(reservation))));
+    }
+
+    public CompletableFuture<Void> annulerReservation(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("La réservation ne peut pas être null");
+        }
+        return partitionLivre(reservation.getLivre().getIsbn()).executer(service -> {
+            service.annulerReservation(service.reservationCourante(reservation));
+            return null;
+        });
+    }
+
+    // Opérations réparties sur toutes les partitions
+
+    /**
+     * Rend un lot de la boîte de retour. Chaque partition résout les codes-barres des
+     * exemplaires de ses livres, puis rend ses emprunts en parallèle des autres ; un code reconnu
+     * par plusieurs partitions est écarté plutôt que rendu deux fois.
+     * @param lot Les scans de la boîte de retour
+     * @return Le bilan fusionné de toutes les partitions
+     */
+    public CompletableFuture<RetoursEnLot.Bilan> retournerLot(RetoursEnLot lot) {
+        if (lot == null) {
+            throw new IllegalArgumentException("Le lot ne peut pas être null");
+        }
+        long debut = System.nanoTime();
+        return diffuser(lot::resoudre).thenCompose(resolutions -> {
+            RetoursEnLot.Bilan bilan = lot.bilan();
+            lot.departager(resolutions, bilan);
+            List<CompletableFuture<RetoursEnLot.Bilan>> partiels = new ArrayList<>(partitions.size());
+            for (int i = 0; i < partitions.size(); i++) {
+                Map<Long, Emprunt> emprunts = resolutions.get(i);
+                partiels.add(partitions.get(i).executer(service -> lot.rendre(service, emprunts)));
+            }
+            return CompletableFuture.allOf(partiels.toArray(new CompletableFuture<?>[0])).thenApply(ignore -> {
+                for (CompletableFuture<RetoursEnLot.Bilan> partiel : partiels) {
+                    bilan.fusionner(partiel.join());
+                }
+                bilan.terminer(debut);
+                return bilan;
+            });
+        });
+    }
+
+    /**
+     * Recherche par titre sur toutes les partitions
+     * @param titre Le titre (ou partie du titre) à rechercher
+     * @param limite Nombre maximal de résultats, classés par titre puis ISBN
+     * @return Les meilleurs résultats fusionnés
+     */
+    public CompletableFuture<List<Livre>> rechercherLivreParTitre(String titre, int limite) {
+        return diffuser(service -> copies(meilleurs(service.rechercherLivreParTitre(titre), limite)))
+                .thenApply(resultats -> fusionner(resultats, limite));
+    }
+
+    /**
+     * Recherche par auteur sur toutes les partitions
+     * @param auteur L'auteur à rechercher
+     * @param limite Nombre maximal de résultats, classés par titre puis ISBN
+     * @return Les meilleurs résultats fusionnés
+     */
+    public CompletableFuture<List<Livre>> rechercherLivreParAuteur(String auteur, int limite) {
+        return diffuser(service -> copies(meilleurs(service.rechercherLivreParAuteur(auteur), limite)))
+                .thenApply(resultats -> fusionner(resultats, limite));
+    }
+
+    /**
+     * Livres les plus empruntés sur toutes les partitions. Un livre n'appartient qu'à une
+     * partition : les classements se fusionnent sans addition.
+     * @param nombre Nombre maximal de livres
+     * @param nombreJours Fenêtre en jours
+     * @return Le classement fusionné
+     */
+    public CompletableFuture<List<PopulariteEmprunts.Entree>> livresLesPlusEmpruntes(int nombre, int nombreJours) {
+        return diffuser(service -> service.livresLesPlusEmpruntes(nombre, nombreJours)).thenApply(classements -> {
+            List<PopulariteEmprunts.Entree> tous = concatener(classements);
+            tous.sort(Comparator.comparingLong(PopulariteEmprunts.Entree::getNombreEmprunts).reversed()
+                    .thenComparing(PopulariteEmprunts.Entree::getIsbn));
+            return new ArrayList<>(tous.subList(0, Math.min(nombre, tous.size())));
+        });
+    }
+
+    public CompletableFuture<List<Emprunt>> listerEmpruntsAdherent(String numeroCarte) {
+        return diffuser(service -> copiesEmprunts(service.listerEmpruntsAdherent(numeroCarte)))
+                .thenApply(this::concatener);
+    }
+
+    public CompletableFuture<List<Emprunt>> listerEmpruntsEnCours() {
+        return diffuser(service -> copiesEmprunts(service.listerEmpruntsEnCours())).thenApply(this::concatener);
+    }
+
+    public CompletableFuture<BibliothequeService.Statistiques> obtenirStatistiques() {
+        return diffuser(BibliothequeService::obtenirStatistiques).thenApply(statistiques -> {
+            int livres = 0;
+            int adherents = 0;
+            int empruntsEnCours = 0;
+            for (BibliothequeService.Statistiques s : statistiques) {
+                livres += s.getNombreLivres();
+                adherents += s.getNombreAdherents();
+                empruntsEnCours += s.getNombreEmpruntsEnCours();
+            }
+            return new BibliothequeService.Statistiques(livres, adherents, empruntsEnCours);
+        });
+    }
+
+    /**
+     * Arrête les threads des partitions après les opérations en cours
+     */
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.executeur.shutdown();
+        }
+        try {
+            for (Partition partition : partitions) {
+                partition.executeur.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // L'adhérent lui-même, pour les opérations qui le modifient sous son verrou
+    private CompletableFuture<Adherent> adherent(String numeroCarte) {
+        return partitionAdherent(numeroCarte).executer(service -> service.rechercherAdherent(numeroCarte));
+    }
+
+    private Partition partitionLivre(String isbn) {
+        return partition(isbn);
+    }
+
+    private Partition partitionAdherent(String numeroCarte) {
+        return partition(numeroCarte);
+    }
+
+    private Partition partition(String cle) {
+        return partitions.get(numeroPartition(cle));
+    }
+
+    // Numéro de la partition d'un ISBN ou d'un numéro de carte
+    int numeroPartition(String cle) {
+        if (cle == null) {
+            throw new IllegalArgumentException("La clé ne peut pas être null");
+        }
+        int h = cle.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), partitions.size());
+    }
+
+    private <T> CompletableFuture<List<T>> diffuser(Function<BibliothequeService, T> action) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            futures.add(partition.executer(action));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignore -> {
+            List<T> resultats = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures) {
+                resultats.add(future.join());
+            }
+            return resultats;
+        });
+    }
+
+    private <T> List<T> concatener(List<List<T>> listes) {
+        List<T> resultat = new ArrayList<>();
+        for (List<T> liste : listes) {
+            resultat.addAll(liste);
+        }
+        return resultat;
+    }
+
+    // Copies faites sur la partition qui tient l'objet ; l'adhérent, partagé entre partitions, sous son verrou
+
+    private static Emprunt copie(Emprunt emprunt) {
+        synchronized (emprunt.getAdherent()) {
+            return new Emprunt(emprunt);
+        }
+    }
+
+    private static Reservation copie(Reservation reservation) {
+        synchronized (reservation.getAdherent()) {
+            return new Reservation(reservation);
+        }
+    }
+
+    private static List<Emprunt> copiesEmprunts(List<Emprunt> emprunts) {
+        List<Emprunt> copies = new ArrayList<>(emprunts.size());
+        for (Emprunt emprunt : emprunts) {
+            copies.add(copie(emprunt));
+        }
+        return copies;
+    }
+
+    private static List<Livre> copies(List<Livre> livres) {
+        List<Livre> copies = new ArrayList<>(livres.size());
+        for (Livre livre : livres) {
+            copies.add(new Livre(livre));
+        }
+        return copies;
+    }
+
+    // Sélectionne les k meilleurs livres d'une partition avec un tas borné
+    private static List<Livre> meilleurs(List<Livre> livres, int limite) {
+        if (limite <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Livre> tas = new PriorityQueue<>(limite + 1, ORDRE_RESULTATS.reversed());
+        for (Livre livre : livres) {
+            tas.offer(livre);
+            if (tas.size() > limite) {
+                tas.poll();
+            }
+        }
+        List<Livre> resultat = new ArrayList<>(tas);
+        resultat.sort(ORDRE_RESULTATS);
+        return resultat;
+    }
+
+    // Fusionne les listes triées de chaque partition en gardant les k premiers
+    private static List<Livre> fusionner(List<List<Livre>> listes, int limite) {
+        List<Livre> tous = new ArrayList<>();
+        for (List<Livre> liste : listes) {
+            tous.addAll(liste);
+        }
+        return meilleurs(tous, limite);
+    }
+
+    /**
+     * Une partition : un service et le thread qui lui est dédié
+     */
+    private static final class Partition {
+        private final BibliothequeService service;
+        private final ExecutorService executeur;
+
+        Partition(int numero, Horloge horloge) {
+            this.service = new BibliothequeService(new CatalogueMemoire(), horloge);
+            this.executeur = Executors.newSingleThreadExecutor(tache -> {
+                Thread thread = new Thread(tache, "bibliotheque-partition-" + numero);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        <T> CompletableFuture<T> executer(Function<BibliothequeService, T> action) {
+            return CompletableFuture.supplyAsync(() -> action.apply(service), executeur);
+        }
+    }
+}
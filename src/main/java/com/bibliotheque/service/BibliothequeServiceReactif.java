@@ -0,0 +1,252 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Façade réactive (java.util.concurrent.Flow) des listes et recherches du service.
+ *
+ * Chaque publication est froide : à la première demande de l'abonné, elle prend l'instantané
+ * courant et le parcourt au rythme de ses demandes (request(n)). Seul l'élément en cours est matérialisé ;
+ * un abonné lent (envoi de courriels, synchronisation ERP) ne force donc jamais le service à
+ * constituer la liste complète, et ne bloque pas les écritures, qui publient de nouveaux
+ * instantanés pendant le parcours.
+ *
+ * Les signaux d'un abonnement sont émis en série sur l'exécuteur fourni, jamais sur le thread
+ * appelant subscribe ou request.
+ */
+public class BibliothequeServiceReactif {
+
+    private final Supplier<Instantane> instantanes;
+    private final Executor executeur;
+
+    /**
+     * Active les instantanés du service : à construire depuis le thread qui modifie le service
+     * @param service Le service à publier
+     */
+    public BibliothequeServiceReactif(BibliothequeService service) {
+        this(service, ForkJoinPool.commonPool());
+    }
+
+    public BibliothequeServiceReactif(BibliothequeService service, Executor executeur) {
+        this(activer(service)::instantane, executeur);
+    }
+
+    /**
+     * @param pipeline Le pipeline dont les instantanés sont publiés
+     */
+    public BibliothequeServiceReactif(PipelineCommandes pipeline) {
+        this(pipeline, ForkJoinPool.commonPool());
+    }
+
+    public BibliothequeServiceReactif(PipelineCommandes pipeline, Executor executeur) {
+        this(nonNull(pipeline)::instantane, executeur);
+    }
+
+    private BibliothequeServiceReactif(Supplier<Instantane> instantanes, Executor executeur) {
+        if (executeur == null) {
+            throw new IllegalArgumentException("L'exécuteur ne peut pas être null");
+        }
+        this.instantanes = instantanes;
+        this.executeur = executeur;
+    }
+
+    /**
+     * @return Les emprunts en cours
+     */
+    public Flow.Publisher<Emprunt> empruntsEnCours() {
+        return publier(Instantane::empruntsEnCours);
+    }
+
+    /**
+     * @param numeroCarte Le numéro de carte de l'adhérent
+     * @return Les emprunts de l'adhérent
+     */
+    public Flow.Publisher<Emprunt> empruntsAdherent(String numeroCarte) {
+        return publier(instantane -> instantane.empruntsAdherent(numeroCarte));
+    }
+
+    /**
+     * @param titre Le titre (ou partie du titre) à rechercher
+     * @return Les livres correspondants
+     */
+    public Flow.Publisher<Livre> livresParTitre(String titre) {
+        return publier(instantane -> instantane.livresParTitre(titre));
+    }
+
+    /**
+     * @param auteur L'auteur (ou partie du nom) à rechercher
+     * @return Les livres correspondants
+     */
+    public Flow.Publisher<Livre> livresParAuteur(String auteur) {
+        return publier(instantane -> instantane.livresParAuteur(auteur));
+    }
+
+    /**
+     * @return Tout le catalogue, pour les exports
+     */
+    public Flow.Publisher<Livre> livres() {
+        return publier(Instantane::livres);
+    }
+
+    /**
+     * @return Tous les emprunts, rendus compris, pour les exports
+     */
+    public Flow.Publisher<Emprunt> emprunts() {
+        return publier(Instantane::emprunts);
+    }
+
+    private <T> Flow.Publisher<T> publier(Function<Instantane, Stream<T>> requete) {
+        return abonne -> {
+            if (abonne == null) {
+                throw new NullPointerException("L'abonné ne peut pas être null");
+            }
+            new Souscription<>(abonne, () -> requete.apply(instantanes.get()).iterator(), executeur).planifier();
+        };
+    }
+
+    private static BibliothequeService activer(BibliothequeService service) {
+        if (service == null) {
+            throw new IllegalArgumentException("Le service ne peut pas être null");
+        }
+        service.activerInstantanes();
+        return service;
+    }
+
+    private static PipelineCommandes nonNull(PipelineCommandes pipeline) {
+        if (pipeline == null) {
+            throw new IllegalArgumentException("Le pipeline ne peut pas être null");
+        }
+        return pipeline;
+    }
+
+    /**
+     * Abonnement à une publication : parcourt paresseusement le résultat selon la demande.
+     *
+     * Toutes les émissions passent par run(), dont une seule exécution est active à la fois
+     * (compteur de travail) : onSubscribe, onNext, onComplete et onError sont donc toujours
+     * sérialisés, y compris quand l'abonné appelle request depuis onSubscribe ou onNext.
+     */
+    private static final class Souscription<T> implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> abonne;
+        private final Supplier<Iterator<T>> source;
+        private final Executor executeur;
+        private final AtomicLong demande = new AtomicLong();
+        private final AtomicInteger travail = new AtomicInteger();
+
+        private volatile boolean terminee;
+        private volatile IllegalArgumentException demandeInvalide;
+        // Accédés uniquement depuis run()
+        private boolean demarree;
+        private Iterator<T> elements;
+
+        Souscription(Flow.Subscriber<? super T> abonne, Supplier<Iterator<T>> source, Executor executeur) {
+            this.abonne = abonne;
+            this.source = source;
+            this.executeur = executeur;
+        }
+
+        @Override
+        public void request(long n) {
+            if (terminee) {
+                return;
+            }
+            if (n <= 0) {
+                demandeInvalide = new IllegalArgumentException("La demande doit être positive : " + n);
+            } else {
+                // Une demande cumulée qui déborde vaut demande illimitée
+                demande.getAndAccumulate(n, (courante, ajout) -> {
+                    long somme = courante + ajout;
+                    return somme < 0 ? Long.MAX_VALUE : somme;
+                });
+            }
+            planifier();
+        }
+
+        @Override
+        public void cancel() {
+            terminee = true;
+            planifier();
+        }
+
+        void planifier() {
+            if (travail.getAndIncrement() == 0) {
+                executeur.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int manquants = 1;
+            do {
+                if (!demarree) {
+                    demarree = true;
+                    try {
+                        abonne.onSubscribe(this);
+                    } catch (RuntimeException e) {
+                        // Un abonné qui lève une exception est considéré comme désabonné
+                        terminer();
+                    }
+                }
+                emettre();
+                manquants = travail.addAndGet(-manquants);
+            } while (manquants != 0);
+        }
+
+        private void emettre() {
+            while (!terminee) {
+                if (demandeInvalide != null) {
+                    echouer(demandeInvalide);
+                    return;
+                }
+                if (demande.get() == 0) {
+                    return;
+                }
+                T element;
+                try {
+                    if (elements == null) {
+                        elements = source.get();
+                    }
+                    if (!elements.hasNext()) {
+                        terminer();
+                        abonne.onComplete();
+                        return;
+                    }
+                    element = elements.next();
+                } catch (RuntimeException e) {
+                    echouer(e);
+                    return;
+                }
+                demande.getAndUpdate(courante -> courante == Long.MAX_VALUE ? courante : courante - 1);
+                try {
+                    abonne.onNext(element);
+                } catch (RuntimeException e) {
+                    terminer();
+                }
+            }
+            // Annulé : l'instantané parcouru peut être libéré
+            elements = null;
+        }
+
+        private void echouer(Throwable erreur) {
+            terminer();
+            abonne.onError(erreur);
+        }
+
+        private void terminer() {
+            terminee = true;
+            elements = null;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.bibliotheque.service;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Table de hachage immuable (trie à 32 branches indexé par les bits du hachage).
+ *
+ * Chaque ajout retourne une nouvelle carte qui partage tous les noeuds non modifiés
+ * avec l'ancienne : seul le chemin de la racine à l'entrée est copié, soit au plus
+ * sept petits tableaux. Une carte déjà obtenue ne change jamais, ce qui permet de la
+ * lire depuis n'importe quel thread sans verrou.
+ *
+ * Pour un parcours parallèle, la carte se découpe en plages de branches d'un même noeud :
+ * le hachage répartit les entrées uniformément entre les branches, si bien que la taille
+ * d'une plage s'estime en proportion de son nombre de branches.
+ */
+final class CartePersistante<K, V> implements Iterable<V> {
+
+    private static final int BITS = 5;
+    private static final int MASQUE = (1 << BITS) - 1;
+    // Au-delà de 32 bits de hachage, les entrées en collision sont rangées à plat
+    private static final int PROFONDEUR_MAX = 8;
+    // En deçà de ce nombre estimé d'entrées, une plage n'est plus découpée
+    private static final long GRAIN = 1024;
+
+    private static final Noeud NOEUD_VIDE = new Noeud(0, new Object[0]);
+    private static final CartePersistante<?, ?> VIDE = new CartePersistante<>(NOEUD_VIDE, 0);
+
+    private final Noeud racine;
+    private final int taille;
+
+    private CartePersistante(Noeud racine, int taille) {
+        this.racine = racine;
+        this.taille = taille;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <K, V> CartePersistante<K, V> vide() {
+        return (CartePersistante<K, V>) VIDE;
+    }
+
+    int taille() {
+        return taille;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(Object cle) {
+        int hash = hacher(cle);
+        Noeud noeud = racine;
+        for (int decalage = 0; ; decalage += BITS) {
+            if (decalage >= Integer.SIZE) {
+                for (Object element : noeud.elements) {
+                    Entree entree = (Entree) element;
+                    if (entree.cle.equals(cle)) {
+                        return (V) entree.valeur;
+                    }
+                }
+                return null;
+            }
+
+            int bit = 1 << ((hash >>> decalage) & MASQUE);
+            if ((noeud.bitmap & bit) == 0) {
+                return null;
+            }
+            Object element = noeud.elements[Integer.bitCount(noeud.bitmap & (bit - 1))];
+            if (element instanceof Noeud) {
+                noeud = (Noeud) element;
+                continue;
+            }
+            Entree entree = (Entree) element;
+            return entree.hash == hash && entree.cle.equals(cle) ? (V) entree.valeur : null;
+        }
+    }
+
+    /**
+     * Retourne une carte contenant en plus (ou à la place) l'association cle -> valeur
+     */
+    CartePersistante<K, V> avec(K cle, V valeur) {
+        boolean[] ajout = new boolean[1];
+        Noeud nouvelleRacine = inserer(racine, 0, new Entree(hacher(cle), cle, valeur), ajout);
+        return new CartePersistante<>(nouvelleRacine, ajout[0] ? taille + 1 : taille);
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Parcours(racine, 0, racine.elements.length);
+    }
+
+    @Override
+    public Spliterator<V> spliterator() {
+        return new Decoupage(racine, 0, racine.elements.length, taille, true);
+    }
+
+    private static Noeud inserer(Noeud noeud, int decalage, Entree nouvelle, boolean[] ajout) {
+        if (decalage >= Integer.SIZE) {
+            for (int i = 0; i < noeud.elements.length; i++) {
+                if (((Entree) noeud.elements[i]).cle.equals(nouvelle.cle)) {
+                    return new Noeud(0, remplacer(noeud.elements, i, nouvelle));
+                }
+            }
+            ajout[0] = true;
+            Object[] elements = Arrays.copyOf(noeud.elements, noeud.elements.length + 1);
+            elements[noeud.elements.length] = nouvelle;
+            return new Noeud(0, elements);
+        }
+
+        int bit = 1 << ((nouvelle.hash >>> decalage) & MASQUE);
+        int position = Integer.bitCount(noeud.bitmap & (bit - 1));
+
+        if ((noeud.bitmap & bit) == 0) {
+            ajout[0] = true;
+            Object[] elements = new Object[noeud.elements.length + 1];
+            System.arraycopy(noeud.elements, 0, elements, 0, position);
+            elements[position] = nouvelle;
+            System.arraycopy(noeud.elements, position, elements, position + 1, noeud.elements.length - position);
+            return new Noeud(noeud.bitmap | bit, elements);
+        }
+
+        Object existant = noeud.elements[position];
+        if (existant instanceof Noeud) {
+            Noeud fils = inserer((Noeud) existant, decalage + BITS, nouvelle, ajout);
+            return new Noeud(noeud.bitmap, remplacer(noeud.elements, position, fils));
+        }
+
+        Entree entree = (Entree) existant;
+        if (entree.hash == nouvelle.hash && entree.cle.equals(nouvelle.cle)) {
+            return new Noeud(noeud.bitmap, remplacer(noeud.elements, position, nouvelle));
+        }
+
+        // Deux clés dans la même case : les descendre d'un niveau
+        Noeud fils = inserer(NOEUD_VIDE, decalage + BITS, entree, new boolean[1]);
+        fils = inserer(fils, decalage + BITS, nouvelle, ajout);
+        return new Noeud(noeud.bitmap, remplacer(noeud.elements, position, fils));
+    }
+
+    private static Object[] remplacer(Object[] elements, int position, Object element) {
+        Object[] copie = elements.clone();
+        copie[position] = element;
+        return copie;
+    }
+
+    private static int hacher(Object cle) {
+        if (cle == null) {
+            throw new IllegalArgumentException("La clé ne peut pas être null");
+        }
+        int h = cle.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Noeud {
+        private final int bitmap;
+        // Chaque élément est une Entree ou un Noeud fils
+        private final Object[] elements;
+
+        Noeud(int bitmap, Object[] elements) {
+            this.bitmap = bitmap;
+            this.elements = elements;
+        }
+    }
+
+    private static final class Entree {
+        private final int hash;
+        private final Object cle;
+        private final Object valeur;
+
+        Entree(int hash, Object cle, Object valeur) {
+            this.hash = hash;
+            this.cle = cle;
+            this.valeur = valeur;
+        }
+    }
+
+    /**
+     * Parcours en profondeur avec une pile explicite, limité aux branches [debut, fin) du noeud de départ
+     */
+    private final class Parcours implements Iterator<V> {
+        private final Noeud[] noeuds = new Noeud[PROFONDEUR_MAX];
+        private final int[] positions = new int[PROFONDEUR_MAX];
+        private final int fin;
+        private int profondeur;
+        private Entree suivante;
+
+        Parcours(Noeud depart, int debut, int fin) {
+            noeuds[0] = depart;
+            positions[0] = debut;
+            this.fin = fin;
+            profondeur = 0;
+            avancer();
+        }
+
+        private void avancer() {
+            suivante = null;
+            while (profondeur >= 0) {
+                Noeud noeud = noeuds[profondeur];
+                int limite = profondeur == 0 ? fin : noeud.elements.length;
+                if (positions[profondeur] == limite) {
+                    profondeur--;
+                    continue;
+                }
+                Object element = noeud.elements[positions[profondeur]++];
+                if (element instanceof Noeud) {
+                    profondeur++;
+                    noeuds[profondeur] = (Noeud) element;
+                    positions[profondeur] = 0;
+                } else {
+                    suivante = (Entree) element;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return suivante != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (suivante == null) {
+                throw new NoSuchElementException();
+            }
+            V valeur = (V) suivante.valeur;
+            avancer();
+            return valeur;
+        }
+    }
+
+    /**
+     * Découpage pour les flux parallèles : une plage de branches d'un noeud. Le découpage coupe
+     * la plage en deux, ou descend dans la branche quand il n'en reste qu'une ; il s'arrête
+     * sous GRAIN entrées estimées, ou dès que le parcours a commencé.
+     */
+    private final class Decoupage implements Spliterator<V> {
+        private Noeud noeud;
+        private int debut;
+        private int fin;
+        private long estimation;
+        // Vrai tant que l'estimation est la taille exacte, c'est-à-dire avant tout découpage
+        private boolean exacte;
+        private Parcours parcours;
+
+        Decoupage(Noeud noeud, int debut, int fin, long estimation, boolean exacte) {
+            this.noeud = noeud;
+            this.debut = debut;
+            this.fin = fin;
+            this.estimation = estimation;
+            this.exacte = exacte;
+        }
+
+        @Override
+        public Spliterator<V> trySplit() {
+            if (parcours != null || estimation < GRAIN) {
+                return null;
+            }
+            int finCourante = fin;
+            Noeud courant = noeud;
+            int debutCourant = debut;
+            while (finCourante - debutCourant == 1 && courant.elements[debutCourant] instanceof Noeud) {
+                courant = (Noeud) courant.elements[debutCourant];
+                debutCourant = 0;
+                finCourante = courant.elements.length;
+            }
+            if (finCourante - debutCourant < 2) {
+                return null;
+            }
+            int milieu = (debutCourant + finCourante) >>> 1;
+            long moitie = estimation * (milieu - debutCourant) / (finCourante - debutCourant);
+            Decoupage premiere = new Decoupage(courant, debutCourant, milieu, moitie, false);
+            noeud = courant;
+            debut = milieu;
+            fin = finCourante;
+            estimation -= moitie;
+            exacte = false;
+            return premiere;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super V> action) {
+            if (parcours == null) {
+                parcours = new Parcours(noeud, debut, fin);
+            }
+            if (!parcours.hasNext()) {
+                return false;
+            }
+            action.accept(parcours.next());
+            return true;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimation;
+        }
+
+        @Override
+        public int characteristics() {
+            return IMMUTABLE | NONNULL | (exacte ? SIZED : 0);
+        }
+    }
+}
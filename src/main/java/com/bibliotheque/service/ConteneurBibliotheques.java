@@ -0,0 +1,501 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Horloge;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.stockage.CatalogueMemoire;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Hébergement de nombreuses petites bibliothèques (locataires) dans une même JVM.
+ *
+ * Chaque locataire a son propre BibliothequeService : livres, adhérents et emprunts ne sont
+ * jamais partagés, et un emprunt d'un locataire est refusé par les autres. Ce qui est partagé :
+ * - les threads : un seul pool pour tous les locataires, au lieu d'un thread par bibliothèque.
+ *   Les commandes d'un locataire s'exécutent en série, dans l'ordre d'envoi, par tours d'au
+ *   plus COMMANDES_PAR_TOUR commandes ; un locataire très actif repasse ensuite en fin de file,
+ *   derrière les autres, et ne peut donc pas les affamer ;
+ * - la mémoire des statistiques d'activité (popularité, historique) : un budget global, divisé
+ *   à parts égales entre le nombre maximal de locataires, fixe la capacité de chacun ;
+ * - le dictionnaire des auteurs, déjà commun à toute la JVM (Dictionnaire.AUTEURS).
+ *
+ * Le nombre de commandes en attente par locataire est borné : au-delà, les commandes sont
+ * refusées et comptées dans ses métriques. Les lectures passent par la même file que les
+ * écritures, sans instantanés, qui dupliqueraient l'état de chaque bibliothèque : les livres,
+ * adhérents et emprunts rendus à l'appelant sont des copies faites à son tour, que le pool
+ * peut continuer de modifier sans lui. De même, ajouterLivre et inscrireAdherent copient le
+ * livre ou l'adhérent reçu avant l'envoi : l'appelant garde son objet, que le locataire ne
+ * modifie pas. Un emprunt ainsi copié se rend avec retournerLivre.
+ * Seules les actions passées à executer reçoivent le service lui-même.
+ */
+public class ConteneurBibliotheques implements AutoCloseable {
+
+    public static final long BUDGET_CACHES_PAR_DEFAUT = 64L * 1024 * 1024;
+    public static final int COMMANDES_EN_ATTENTE_PAR_DEFAUT = 1024;
+    static final int COMMANDES_PAR_TOUR = 32;
+
+    // Coût approché d'un livre suivi pendant un jour par PopulariteEmprunts (compteur, entrée de table, case du tas)
+    static final int OCTETS_PAR_COMPTEUR = 96;
+    // Coût d'un jour d'historique : deux longs par événement compté
+    static final int OCTETS_PAR_JOUR = 2 * Long.BYTES * HistoriqueActivite.Evenement.values().length;
+    static final int CAPACITE_POPULARITE_MIN = 8;
+    static final int JOURS_HISTORIQUE_MIN = 31;
+
+    private final int maxLocataires;
+    private final long quotaCachesOctets;
+    private final int capacitePopularite;
+    private final int joursHistorique;
+    private final int maxCommandesEnAttente;
+    private final Horloge horloge;
+    private final ExecutorService executeur;
+    private final ConcurrentHashMap<String, Locataire> locataires = new ConcurrentHashMap<>();
+    private volatile boolean ferme;
+
+    public ConteneurBibliotheques(int maxLocataires) {
+        this(maxLocataires, BUDGET_CACHES_PAR_DEFAUT, Runtime.getRuntime().availableProcessors(),
+                COMMANDES_EN_ATTENTE_PAR_DEFAUT, Horloge.parDefaut());
+    }
+
+    /**
+     * @param maxLocataires Nombre maximal de bibliothèques hébergées
+     * @param budgetCachesOctets Mémoire totale des statistiques d'activité, partagée à parts égales
+     * @param nombreThreads Taille du pool partagé par tous les locataires
+     * @param maxCommandesEnAttente Nombre de commandes en attente au-delà duquel un locataire est refusé
+     * @param horloge L'horloge qui date les emprunts de tous les locataires
+     */
+    public ConteneurBibliotheques(int maxLocataires, long budgetCachesOctets, int nombreThreads,
+                                  int maxCommandesEnAttente, Horloge horloge) {
+        if (maxLocataires <= 0) {
+            throw new IllegalArgumentException("Le nombre maximal de locataires doit être positif");
+        }
+        if (budgetCachesOctets <= 0) {
+            throw new IllegalArgumentException("Le budget des caches doit être positif");
+        }
+        if (nombreThreads <= 0) {
+            throw new IllegalArgumentException("Le nombre de threads doit être positif");
+        }
+        if (maxCommandesEnAttente <= 0) {
+            throw new IllegalArgumentException("Le nombre de commandes en attente doit être positif");
+        }
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        this.maxLocataires = maxLocataires;
+        this.quotaCachesOctets = budgetCachesOctets / maxLocataires;
+        // Moitié du quota pour la popularité, moitié pour l'historique
+        this.capacitePopularite = (int) Math.max(CAPACITE_POPULARITE_MIN, Math.min(PopulariteEmprunts.CAPACITE_PAR_DEFAUT,
+                quotaCachesOctets / 2 / ((long) PopulariteEmprunts.FENETRE_MAX_JOURS * OCTETS_PAR_COMPTEUR)));
+        this.joursHistorique = (int) Math.max(JOURS_HISTORIQUE_MIN, Math.min(HistoriqueActivite.JOURS_CONSERVES_PAR_DEFAUT,
+                quotaCachesOctets / 2 / OCTETS_PAR_JOUR));
+        this.maxCommandesEnAttente = maxCommandesEnAttente;
+        this.horloge = horloge;
+        AtomicInteger numero = new AtomicInteger();
+        this.executeur = Executors.newFixedThreadPool(nombreThreads, tache -> {
+            Thread thread = new Thread(tache, "bibliotheque-locataires-" + numero.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Gestion des locataires
+
+    /**
+     * Héberge une nouvelle bibliothèque, vide
+     * @throws IllegalStateException si l'identifiant est déjà pris ou le conteneur plein
+     */
+    public void ajouterLocataire(String id) {
+        if (id == null || id.isBlank()) {
+            throw new IllegalArgumentException("L'identifiant du locataire ne peut pas être vide");
+        }
+        synchronized (locataires) {
+            if (locataires.containsKey(id)) {
+                throw new IllegalStateException("Locataire déjà hébergé : " + id);
+            }
+            if (locataires.size() >= maxLocataires) {
+                throw new IllegalStateException("Nombre maximal de locataires atteint (" + maxLocataires + ")");
+            }
+            locataires.put(id, new Locataire(id, new BibliothequeService(new CatalogueMemoire(), horloge,
+                    capacitePopularite, joursHistorique)));
+        }
+    }
+
+    /**
+     * Cesse d'héberger une bibliothèque ; ses commandes déjà acceptées sont encore exécutées
+     * @return Vrai si le locataire était hébergé
+     */
+    public boolean retirerLocataire(String id) {
+        synchronized (locataires) {
+            return locataires.remove(id) != null;
+        }
+    }
+
+    public boolean contientLocataire(String id) {
+        return id != null && locataires.containsKey(id);
+    }
+
+    public int getNombreLocataires() {
+        return locataires.size();
+    }
+
+    public List<String> listerLocataires() {
+        List<String> ids = new ArrayList<>(locataires.keySet());
+        ids.sort(Comparator.naturalOrder());
+        return ids;
+    }
+
+    public long getQuotaCachesOctets() {
+        return quotaCachesOctets;
+    }
+
+    // Opérations routées vers un locataire
+
+    /**
+     * Exécute une action sur la bibliothèque d'un locataire, à son tour sur le pool partagé
+     * @return Le résultat de l'action, ou un échec IllegalStateException si le locataire a
+     *         atteint son nombre de commandes en attente ou si le conteneur est fermé
+     * @throws IllegalStateException si le locataire n'est pas hébergé
+     */
+    public <T> CompletableFuture<T> executer(String id, Function<BibliothequeService, T> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("L'action ne peut pas être null");
+        }
+        Locataire locataire = locataire(id);
+        if (ferme) {
+            return fermeture();
+        }
+        if (locataire.enAttente.incrementAndGet() > maxCommandesEnAttente) {
+            locataire.enAttente.decrementAndGet();
+            locataire.refusees.increment();
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Trop de commandes en attente pour le locataire " + id));
+        }
+        return locataire.soumettre(action, true);
+    }
+
+    public CompletableFuture<Void> ajouterLivre(String id, Livre livre) {
+        if (livre == null) {
+            throw new IllegalArgumentException("Le livre ne peut pas être null");
+        }
+        Livre copie = new Livre(livre);
+        return executer(id, service -> {
+            service.ajouterLivre(copie);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> inscrireAdherent(String id, Adherent adherent) {
+        if (adherent == null) {
+            throw new IllegalArgumentException("L'adhérent ne peut pas être null");
+        }
+        Adherent copie = new Adherent(adherent);
+        return executer(id, service -> {
+            service.inscrireAdherent(copie);
+            return null;
+        });
+    }
+
+    /**
+     * @return Une copie du livre, ou null
+     */
+    public CompletableFuture<Livre> rechercherLivreParIsbn(String id, String isbn) {
+        return executer(id, service -> {
+            Livre livre = service.rechercherLivreParIsbn(isbn);
+            return livre != null ? new Livre(livre) : null;
+        });
+    }
+
+    /**
+     * @return Des copies des livres correspondants
+     */
+    public CompletableFuture<List<Livre>> rechercherLivreParTitre(String id, String titre) {
+        return executer(id, service -> {
+            List<Livre> copies = new ArrayList<>();
+            for (Livre livre : service.rechercherLivreParTitre(titre)) {
+                copies.add(new Livre(livre));
+            }
+            return copies;
+        });
+    }
+
+    /**
+     * @return Une copie de l'adhérent, ou null
+     */
+    public CompletableFuture<Adherent> rechercherAdherent(String id, String numeroCarte) {
+        return executer(id, service -> {
+            Adherent adherent = service.rechercherAdherent(numeroCarte);
+            return adherent != null ? new Adherent(adherent) : null;
+        });
+    }
+
+    /**
+     * @return Une copie figée de l'emprunt, à passer à retournerLivre
+     */
+    public CompletableFuture<Emprunt> emprunterLivre(String id, String isbn, String numeroCarte) {
+        return executer(id, service -> new Emprunt(service.emprunterLivre(isbn, numeroCarte)));
+    }
+
+    /**
+     * Rend un emprunt, qui doit avoir été fait chez ce locataire
+     * @param emprunt L'emprunt tenu par le service ou sa copie figée
+     */
+    public CompletableFuture<Void> retournerLivre(String id, Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("L'emprunt ne peut pas être null");
+        }
+        return executer(id, service -> {
+            Emprunt courant;
+            try {
+                courant = service.empruntCourant(emprunt);
+            } catch (IllegalStateException e) {
+                courant = null;
+            }
+            // L'adhérent d'un autre locataire n'est pas celui inscrit ici, même à numéro de carte égal
+            if (courant == null
+                    || service.rechercherAdherent(courant.getAdherent().getNumeroCarte()) != courant.getAdherent()) {
+                throw new IllegalStateException("L'emprunt n'appartient pas au locataire " + id);
+            }
+            service.retournerLivre(courant);
+            return null;
+        });
+    }
+
+    public CompletableFuture<BibliothequeService.Statistiques> obtenirStatistiques(String id) {
+        return executer(id, BibliothequeService::obtenirStatistiques);
+    }
+
+    // Métriques
+
+    /**
+     * Métriques d'un locataire, relevées à son tour ; ce relevé n'est jamais refusé
+     */
+    public CompletableFuture<MetriquesLocataire> metriques(String id) {
+        Locataire locataire = locataire(id);
+        if (ferme) {
+            return fermeture();
+        }
+        locataire.enAttente.incrementAndGet();
+        return locataire.soumettre(service -> locataire.metriques(service.obtenirStatistiques()), false);
+    }
+
+    /**
+     * Métriques de tous les locataires, triées par identifiant
+     */
+    public CompletableFuture<List<MetriquesLocataire>> metriques() {
+        List<CompletableFuture<MetriquesLocataire>> releves = new ArrayList<>();
+        for (String id : listerLocataires()) {
+            releves.add(metriques(id));
+        }
+        return CompletableFuture.allOf(releves.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignore -> releves.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Arrête le pool partagé après l'exécution des commandes déjà acceptées ; les suivantes
+     * échouent avec IllegalStateException
+     */
+    @Override
+    public void close() {
+        ferme = true;
+        executeur.shutdown();
+        try {
+            executeur.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> CompletableFuture<T> fermeture() {
+        return CompletableFuture.failedFuture(new IllegalStateException("Le conteneur est fermé"));
+    }
+
+    private Locataire locataire(String id) {
+        Locataire locataire = id == null ? null : locataires.get(id);
+        if (locataire == null) {
+            throw new IllegalStateException("Locataire inconnu : " + id);
+        }
+        return locataire;
+    }
+
+    /**
+     * Un locataire : sa bibliothèque et sa file de commandes, vidée par tours sur le pool partagé
+     */
+    private final class Locataire {
+        private final String id;
+        private final BibliothequeService service;
+        private final Queue<Commande<?>> commandes = new ConcurrentLinkedQueue<>();
+        // Commandes acceptées et pas encore commencées
+        private final AtomicInteger enAttente = new AtomicInteger();
+        // Vrai quand un tour est prévu ou en cours : au plus un thread exécute les commandes du locataire
+        private final AtomicBoolean planifie = new AtomicBoolean();
+        private final LongAdder executees = new LongAdder();
+        private final LongAdder refusees = new LongAdder();
+        private final LongAdder dureeNanos = new LongAdder();
+
+        Locataire(String id, BibliothequeService service) {
+            this.id = id;
+            this.service = service;
+        }
+
+        // L'appelant a déjà compté la commande dans enAttente
+        <T> CompletableFuture<T> soumettre(Function<BibliothequeService, T> action, boolean mesuree) {
+            Commande<T> commande = new Commande<>(action, mesuree);
+            commandes.add(commande);
+            planifier();
+            return commande.resultat;
+        }
+
+        private void planifier() {
+            if (planifie.compareAndSet(false, true)) {
+                try {
+                    executeur.execute(this::tour);
+                } catch (RejectedExecutionException e) {
+                    // Commande acceptée pendant close() : le pool ne prend plus de tour
+                    Commande<?> commande;
+                    while ((commande = commandes.poll()) != null) {
+                        enAttente.decrementAndGet();
+                        commande.resultat.completeExceptionally(new IllegalStateException("Le conteneur est fermé", e));
+                    }
+                    planifie.set(false);
+                }
+            }
+        }
+
+        private void tour() {
+            // Après close(), le tour vide la file : le pool arrêté refuserait un tour suivant
+            for (int i = 0; i < COMMANDES_PAR_TOUR || ferme; i++) {
+                Commande<?> commande = commandes.poll();
+                if (commande == null) {
+                    break;
+                }
+                enAttente.decrementAndGet();
+                commande.executer();
+            }
+            planifie.set(false);
+            // Commandes arrivées pendant le tour, ou restantes : nouveau tour en fin de file
+            if (!commandes.isEmpty()) {
+                planifier();
+            }
+        }
+
+        MetriquesLocataire metriques(BibliothequeService.Statistiques statistiques) {
+            return new MetriquesLocataire(id, statistiques, executees.sum(), refusees.sum(), enAttente.get(),
+                    Duration.ofNanos(dureeNanos.sum()), quotaCachesOctets, capacitePopularite, joursHistorique);
+        }
+
+        // Une commande en file et son résultat ; les relevés de métriques ne sont pas mesurés
+        private final class Commande<T> {
+            private final Function<BibliothequeService, T> action;
+            private final boolean mesuree;
+            private final CompletableFuture<T> resultat = new CompletableFuture<>();
+
+            Commande(Function<BibliothequeService, T> action, boolean mesuree) {
+                this.action = action;
+                this.mesuree = mesuree;
+            }
+
+            void executer() {
+                long debut = System.nanoTime();
+                try {
+                    resultat.complete(action.apply(service));
+                } catch (Throwable e) {
+                    resultat.completeExceptionally(e);
+                } finally {
+                    if (mesuree) {
+                        dureeNanos.add(System.nanoTime() - debut);
+                        executees.increment();
+                    }
+                }
+            }
+        }
+    }
+
+    public static class MetriquesLocataire {
+        private final String id;
+        private final BibliothequeService.Statistiques statistiques;
+        private final long commandesExecutees;
+        private final long commandesRefusees;
+        private final int commandesEnAttente;
+        private final Duration dureeExecution;
+        private final long quotaCachesOctets;
+        private final int capacitePopularite;
+        private final int joursHistorique;
+
+        public MetriquesLocataire(String id, BibliothequeService.Statistiques statistiques, long commandesExecutees,
+                                  long commandesRefusees, int commandesEnAttente, Duration dureeExecution,
+                                  long quotaCachesOctets, int capacitePopularite, int joursHistorique) {
+            this.id = id;
+            this.statistiques = statistiques;
+            this.commandesExecutees = commandesExecutees;
+            this.commandesRefusees = commandesRefusees;
+            this.commandesEnAttente = commandesEnAttente;
+            this.dureeExecution = dureeExecution;
+            this.quotaCachesOctets = quotaCachesOctets;
+            this.capacitePopularite = capacitePopularite;
+            this.joursHistorique = joursHistorique;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public BibliothequeService.Statistiques getStatistiques() {
+            return statistiques;
+        }
+
+        public long getCommandesExecutees() {
+            return commandesExecutees;
+        }
+
+        public long getCommandesRefusees() {
+            return commandesRefusees;
+        }
+
+        public int getCommandesEnAttente() {
+            return commandesEnAttente;
+        }
+
+        /**
+         * @return Temps cumulé passé à exécuter les commandes du locataire
+         */
+        public Duration getDureeExecution() {
+            return dureeExecution;
+        }
+
+        public long getQuotaCachesOctets() {
+            return quotaCachesOctets;
+        }
+
+        public int getCapacitePopularite() {
+            return capacitePopularite;
+        }
+
+        public int getJoursHistorique() {
+            return joursHistorique;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Locataire %s{%s, commandes=%d, refusées=%d, en attente=%d, durée=%d ms, "
+                            + "quota caches=%d octets, popularité=%d livres/jour, historique=%d jours}",
+                    id, statistiques, commandesExecutees, commandesRefusees, commandesEnAttente,
+                    dureeExecution.toMillis(), quotaCachesOctets, capacitePopularite, joursHistorique);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exemplaires physiques des livres : état, emprunt en cours et succursale de chaque exemplaire.
+ *
+ * Les exemplaires d'un titre sont rangés dans des tableaux primitifs parallèles (état,
+ * succursale, emprunt en cours, emprunteur, date de retour prévue, chaînage), sans objet par
+ * exemplaire. L'emprunteur et la date de retour sont recopiés de l'emprunt quand il est attaché
+ * ou prolongé : les vues ne lisent jamais l'emprunt, que le service modifie sans ce verrou. Les exemplaires libres
+ * forment une liste chaînée à travers le tableau des suivants : un emprunt prend la tête de la
+ * liste en O(1), un retour y remet l'exemplaire en O(1).
+ *
+ * Le code-barres d'un exemplaire est calculé, pas stocké : les chiffres de l'ISBN (précédés d'un 1
+ * pour garder les zéros de tête) suivis du rang de l'exemplaire sur cinq chiffres. Il désigne un
+ * exemplaire unique dans toute la bibliothèque, y compris entre partitions, se décode en O(1) et
+ * reste identique sur un réplica. Un ISBN qui n'est pas fait de chiffres et de tirets, ou dont
+ * les chiffres sont déjà pris, reçoit un numéro de titre au-delà des ISBN, dans l'ordre des
+ * opérations.
+ *
+ * La table d'un titre n'est créée qu'à sa première opération, puis complétée quand le livre
+ * gagne des exemplaires : un titre jamais emprunté ne coûte rien. Ses exemplaires appartiennent
+ * alors à la succursale principale.
+ *
+ * Thread-safe : le service modifie les tables, le serveur et le pipeline les lisent depuis
+ * d'autres threads.
+ */
+public class Exemplaires {
+
+    public static final int SUCCURSALE_PRINCIPALE = 0;
+    public static final int MAX_EXEMPLAIRES_PAR_TITRE = 99_999;
+    /**
+     * Code-barres d'un emprunt ou d'une réservation sans exemplaire suivi
+     */
+    public static final long AUCUN = 0;
+
+    private static final long FACTEUR_NUMERO = 100_000L;
+    private static final int MAX_CHIFFRES_ISBN = 13;
+    // Premier numéro de titre au-delà des ISBN numériques (un 1 suivi d'au plus 13 chiffres)
+    private static final long PREMIER_TITRE_HORS_NORME = 2 * 10_000_000_000_000L;
+
+    private static final byte LIBRE = 0;
+    private static final byte EMPRUNTE = 1;
+    private static final byte MIS_DE_COTE = 2;
+    private static final int FIN = -1;
+    private static final Etat[] ETATS = Etat.values();
+
+    /**
+     * État d'un exemplaire
+     */
+    public enum Etat {
+        LIBRE,
+        EMPRUNTE,
+        MIS_DE_COTE
+    }
+
+    /**
+     * Vue figée d'un exemplaire, construite à la demande
+     */
+    public static final class Exemplaire {
+        private final long codeBarre;
+        private final String isbn;
+        private final Etat etat;
+        private final int succursale;
+        private final String numeroCarte;
+        private final LocalDate dateRetourPrevue;
+
+        Exemplaire(long codeBarre, String isbn, Etat etat, int succursale, String numeroCarte,
+                   LocalDate dateRetourPrevue) {
+            this.codeBarre = codeBarre;
+            this.isbn = isbn;
+            this.etat = etat;
+            this.succursale = succursale;
+            this.numeroCarte = numeroCarte;
+            this.dateRetourPrevue = dateRetourPrevue;
+        }
+
+        public long getCodeBarre() {
+            return codeBarre;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public Etat getEtat() {
+            return etat;
+        }
+
+        public int getSuccursale() {
+            return succursale;
+        }
+
+        /**
+         * @return Le numéro de carte de l'emprunteur, ou null si l'exemplaire n'est pas emprunté
+         */
+        public String getNumeroCarte() {
+            return numeroCarte;
+        }
+
+        public LocalDate getDateRetourPrevue() {
+            return dateRetourPrevue;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Exemplaire{codeBarre=%d, isbn='%s', etat=%s, succursale=%d, carte=%s}",
+                    codeBarre, isbn, etat, succursale, numeroCarte);
+        }
+    }
+
+    // Tables par numéro de titre ; les ISBN hors norme gardent leur numéro à part
+    private final Map<Long, Table> parTitre = new HashMap<>();
+    private final Map<String, Long> titresHorsNorme = new HashMap<>();
+    private long prochainTitreHorsNorme = PREMIER_TITRE_HORS_NORME;
+
+    /**
+     * Prend le premier exemplaire libre du livre
+     * @param etat EMPRUNTE ou MIS_DE_COTE
+     * @return Son code-barres, ou AUCUN si tous les exemplaires sont pris
+     */
+    synchronized long prendre(Livre livre, Etat etat) {
+        Table table = table(livre);
+        int numero = table.premierLibre;
+        if (numero == FIN) {
+            return AUCUN;
+        }
+        table.premierLibre = table.suivants[numero];
+        table.suivants[numero] = FIN;
+        table.etats[numero] = etat == Etat.MIS_DE_COTE ? MIS_DE_COTE : EMPRUNTE;
+        return table.codeBarre(numero);
+    }
+
+    /**
+     * Associe un exemplaire pris (ou mis de côté) à son emprunt
+     */
+    synchronized void attacher(long codeBarre, Emprunt emprunt) {
+        Table table = parTitre.get(codeBarre / FACTEUR_NUMERO);
+        if (table == null) {
+            return;
+        }
+        int numero = numero(codeBarre);
+        table.etats[numero] = EMPRUNTE;
+        table.emprunts[numero] = emprunt;
+        table.cartes[numero] = emprunt.getAdherent().getNumeroCarte();
+        table.retoursPrevus[numero] = emprunt.getDateRetourPrevue().toEpochDay();
+    }
+
+    /**
+     * Reporte la nouvelle date de retour d'un emprunt prolongé sur son exemplaire
+     */
+    synchronized void prolonger(long codeBarre, LocalDate dateRetourPrevue) {
+        Table table = parTitre.get(codeBarre / FACTEUR_NUMERO);
+        if (table == null) {
+            return;
+        }
+        int numero = numero(codeBarre);
+        if (table.etats[numero] == EMPRUNTE) {
+            table.retoursPrevus[numero] = dateRetourPrevue.toEpochDay();
+        }
+    }
+
+    /**
+     * Remet un exemplaire en tête de la liste des libres ; sans effet pour AUCUN
+     */
+    synchronized void liberer(long codeBarre) {
+        Table table = parTitre.get(codeBarre / FACTEUR_NUMERO);
+        if (table == null) {
+            return;
+        }
+        int numero = numero(codeBarre);
+        if (table.etats[numero] == LIBRE) {
+            throw new IllegalStateException("L'exemplaire " + codeBarre + " est déjà libre");
+        }
+        table.etats[numero] = LIBRE;
+        table.emprunts[numero] = null;
+        table.cartes[numero] = null;
+        table.suivants[numero] = table.premierLibre;
+        table.premierLibre = numero;
+    }
+
+    /**
+     * Ajoute des exemplaires libres à une succursale, avant que le livre n'en augmente son compte
+     */
+    synchronized void ajouter(Livre livre, int nombre, int succursale) {
+        Table table = table(livre);
+        if (table.nombre + nombre > MAX_EXEMPLAIRES_PAR_TITRE) {
+            throw new IllegalArgumentException("Un titre compte au plus " + MAX_EXEMPLAIRES_PAR_TITRE + " exemplaires");
+        }
+        // Vérifié avant d'ajouter quoi que ce soit : la table et le livre restent d'accord
+        for (int i = 0; i < nombre; i++) {
+            table.ajouter(succursale);
+        }
+    }
+
+    /**
+     * Les exemplaires d'un livre dans leur état courant, par rang. Un titre encore jamais
+     * utilisé est décrit sans créer sa table ; si son ISBN est hors norme, ses codes-barres
+     * valent AUCUN jusqu'à sa première opération.
+     * @param livre Le livre, éventuellement une copie figée
+     */
+    public synchronized List<Exemplaire> lister(Livre livre) {
+        if (livre == null) {
+            return new ArrayList<>();
+        }
+        Table table = chercher(livre.getIsbn());
+        List<Exemplaire> exemplaires = new ArrayList<>(livre.getNombreExemplaires());
+        int suivis = table != null ? table.nombre : 0;
+        for (int numero = 0; numero < suivis; numero++) {
+            exemplaires.add(table.exemplaire(numero));
+        }
+        long titre = table != null ? table.titre : titreNumerique(livre.getIsbn());
+        if (table == null && parTitre.containsKey(titre)) {
+            // Chiffres déjà pris par un autre ISBN : le titre sera numéroté à sa première opération
+            titre = -1;
+        }
+        for (int numero = suivis; numero < livre.getNombreExemplaires(); numero++) {
+            long codeBarre = titre >= 0 ? titre * FACTEUR_NUMERO + numero + 1 : AUCUN;
+            exemplaires.add(new Exemplaire(codeBarre, livre.getIsbn(), Etat.LIBRE, SUCCURSALE_PRINCIPALE, null, null));
+        }
+        return exemplaires;
+    }
+
+    /**
+     * @param codeBarre Code-barres d'un exemplaire déjà utilisé
+     * @return L'exemplaire, ou null si le code-barres est inconnu
+     */
+    public synchronized Exemplaire trouver(long codeBarre) {
+        if (codeBarre <= 0) {
+            return null;
+        }
+        Table table = parTitre.get(codeBarre / FACTEUR_NUMERO);
+        int numero = (int) (codeBarre % FACTEUR_NUMERO) - 1;
+        if (table == null || numero < 0 || numero >= table.nombre) {
+            return null;
+        }
+        return table.exemplaire(numero);
+    }
+
+    /**
+     * @param codeBarre Code-barres scanné
+     * @return L'emprunt en cours de l'exemplaire, ou null s'il est inconnu ou n'est pas emprunté
+     */
+    synchronized Emprunt emprunt(long codeBarre) {
+        if (codeBarre <= 0) {
+            return null;
+        }
+        Table table = parTitre.get(codeBarre / FACTEUR_NUMERO);
+        int numero = numero(codeBarre);
+        if (table == null || numero < 0 || numero >= table.nombre || table.etats[numero] != EMPRUNTE) {
+            return null;
+        }
+        return table.emprunts[numero];
+    }
+
+    private static int numero(long codeBarre) {
+        return (int) (codeBarre % FACTEUR_NUMERO) - 1;
+    }
+
+    private Table chercher(String isbn) {
+        Long horsNorme = titresHorsNorme.get(isbn);
+        long titre = horsNorme != null ? horsNorme : titreNumerique(isbn);
+        Table table = titre >= 0 ? parTitre.get(titre) : null;
+        return table != null && table.isbn.equals(isbn) ? table : null;
+    }
+
+    // Table du livre, créée ou complétée jusqu'à son nombre d'exemplaires
+    private Table table(Livre livre) {
+        String isbn = livre.getIsbn();
+        Table table = chercher(isbn);
+        if (table == null) {
+            long titre = titreNumerique(isbn);
+            if (titre < 0 || parTitre.containsKey(titre)) {
+                titre = prochainTitreHorsNorme++;
+                titresHorsNorme.put(isbn, titre);
+            }
+            table = new Table(isbn, titre);
+            parTitre.put(titre, table);
+        }
+        while (table.nombre < livre.getNombreExemplaires()) {
+            table.ajouter(SUCCURSALE_PRINCIPALE);
+        }
+        return table;
+    }
+
+    // Un 1 suivi des chiffres de l'ISBN, ou -1 si l'ISBN contient autre chose que des chiffres et des tirets
+    private static long titreNumerique(String isbn) {
+        long titre = 1;
+        int chiffres = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++chiffres > MAX_CHIFFRES_ISBN) {
+                    return -1;
+                }
+                titre = titre * 10 + (c - '0');
+            } else if (c != '-' && c != ' ') {
+                return -1;
+            }
+        }
+        return chiffres > 0 ? titre : -1;
+    }
+
+    // Exemplaires d'un titre, en tableaux parallèles indexés par rang
+    private static final class Table {
+        private final String isbn;
+        private final long titre;
+        private byte[] etats = new byte[1];
+        private int[] succursales = new int[1];
+        private Emprunt[] emprunts = new Emprunt[1];
+        // Emprunteur et date de retour prévue (jour epoch) de l'exemplaire emprunté
+        private String[] cartes = new String[1];
+        private long[] retoursPrevus = new long[1];
+        // Exemplaire libre suivant dans la liste chaînée, FIN pour le dernier
+        private int[] suivants = new int[1];
+        private int premierLibre = FIN;
+        private int nombre;
+
+        Table(String isbn, long titre) {
+            this.isbn = isbn;
+            this.titre = titre;
+        }
+
+        void ajouter(int succursale) {
+            if (nombre == MAX_EXEMPLAIRES_PAR_TITRE) {
+                throw new IllegalArgumentException("Un titre compte au plus " + MAX_EXEMPLAIRES_PAR_TITRE + " exemplaires");
+            }
+            if (nombre == etats.length) {
+                int capacite = Math.min(etats.length * 2, MAX_EXEMPLAIRES_PAR_TITRE);
+                etats = Arrays.copyOf(etats, capacite);
+                succursales = Arrays.copyOf(succursales, capacite);
+                emprunts = Arrays.copyOf(emprunts, capacite);
+                cartes = Arrays.copyOf(cartes, capacite);
+                retoursPrevus = Arrays.copyOf(retoursPrevus, capacite);
+                suivants = Arrays.copyOf(suivants, capacite);
+            }
+            int numero = nombre++;
+            etats[numero] = LIBRE;
+            succursales[numero] = succursale;
+            suivants[numero] = premierLibre;
+            premierLibre = numero;
+        }
+
+        long codeBarre(int numero) {
+            return titre * FACTEUR_NUMERO + numero + 1;
+        }
+
+        Exemplaire exemplaire(int numero) {
+            return new Exemplaire(codeBarre(numero), isbn, ETATS[etats[numero]], succursales[numero],
+                    cartes[numero], cartes[numero] != null ? LocalDate.ofEpochDay(retoursPrevus[numero]) : null);
+        }
+    }
+}
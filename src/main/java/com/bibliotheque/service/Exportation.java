@@ -0,0 +1,336 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Export en flux du catalogue et de l'historique des emprunts, en CSV ou en JSON.
+ *
+ * L'export parcourt un instantané : il peut tourner pendant que le service continue de servir
+ * le trafic, et reflète l'état au moment où l'instantané a été pris. Aucune liste ni chaîne
+ * intermédiaire n'est construite : chaque champ est encodé en UTF-8 directement dans un tampon
+ * réutilisé, vidé dans le canal dès qu'il est plein. La mémoire utilisée ne dépend donc pas du
+ * volume exporté.
+ *
+ * Le JSON produit est un tableau, à raison d'un objet par ligne. Un exportateur réutilise son
+ * tampon d'un export à l'autre et n'est pas thread-safe.
+ */
+public class Exportation {
+
+    public static final int TAILLE_TAMPON_PAR_DEFAUT = 64 * 1024;
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    private static final String[] COLONNES_LIVRES =
+            {"isbn", "titre", "auteur", "anneePublication", "nombreExemplaires", "exemplairesDisponibles"};
+    private static final String[] COLONNES_EMPRUNTS =
+            {"isbn", "titre", "numeroCarte", "dateEmprunt", "dateRetourPrevue", "dateRetourEffective", "statut"};
+
+    private final ByteBuffer tampon;
+    // Chiffres d'un nombre, écrits à l'envers puis recopiés
+    private final byte[] chiffres = new byte[20];
+    private WritableByteChannel canal;
+    private Format format;
+    // Colonnes de l'export en cours et position dans la ligne
+    private String[] cles;
+    private int colonne;
+
+    public Exportation() {
+        this(TAILLE_TAMPON_PAR_DEFAUT);
+    }
+
+    /**
+     * @param tailleTampon Taille du tampon d'écriture en octets (au moins 16)
+     */
+    public Exportation(int tailleTampon) {
+        if (tailleTampon < 16) {
+            throw new IllegalArgumentException("Le tampon doit faire au moins 16 octets");
+        }
+        this.tampon = ByteBuffer.allocateDirect(tailleTampon);
+    }
+
+    /**
+     * Exporte tout le catalogue de l'instantané
+     * @return Le nombre de livres exportés
+     * @throws IllegalStateException si l'instantané ne contient pas les livres (catalogue hors tas ou sur disque)
+     */
+    public long exporterLivres(Instantane instantane, Format format, WritableByteChannel canal) throws IOException {
+        debuter(instantane, format, canal, COLONNES_LIVRES);
+        long nombre = 0;
+        for (Iterator<Livre> livres = instantane.livres().iterator(); livres.hasNext(); nombre++) {
+            Livre livre = livres.next();
+            debuterLigne(nombre);
+            texte(livre.getIsbn());
+            texte(livre.getTitre());
+            texte(livre.getAuteur());
+            nombre(livre.getAnneePublication());
+            nombre(livre.getNombreExemplaires());
+            nombre(livre.getExemplairesDisponibles());
+            terminerLigne();
+        }
+        terminer();
+        return nombre;
+    }
+
+    /**
+     * Exporte tout l'historique des emprunts de l'instantané
+     * @return Le nombre d'emprunts exportés
+     */
+    public long exporterEmprunts(Instantane instantane, Format format, WritableByteChannel canal) throws IOException {
+        return exporterEmprunts(instantane, format, canal, null, null, null);
+    }
+
+    /**
+     * Exporte les emprunts de l'instantané faits dans une période et dans certains statuts
+     * @param debut Première date d'emprunt incluse, ou null
+     * @param fin Dernière date d'emprunt incluse, ou null
+     * @param statuts Statuts retenus, ou null pour tous
+     * @return Le nombre d'emprunts exportés
+     */
+    public long exporterEmprunts(Instantane instantane, Format format, WritableByteChannel canal,
+                                 LocalDate debut, LocalDate fin, Set<Emprunt.StatutEmprunt> statuts) throws IOException {
+        if (debut != null && fin != null && fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La fin de la période précède son début");
+        }
+        debuter(instantane, format, canal, COLONNES_EMPRUNTS);
+        long nombre = 0;
+        for (Iterator<Emprunt> emprunts = instantane.emprunts().iterator(); emprunts.hasNext(); ) {
+            Emprunt emprunt = emprunts.next();
+            LocalDate date = emprunt.getDateEmprunt();
+            if ((debut != null && date.isBefore(debut)) || (fin != null && date.isAfter(fin))
+                    || (statuts != null && !statuts.contains(emprunt.getStatut()))) {
+                continue;
+            }
+            // Titre lu sur le livre de l'instantané, jamais sur l'objet du service (éventuellement une vue disque)
+            String isbn = emprunt.getLivre().getIsbn();
+            Livre livre = instantane.contientLivres() ? instantane.rechercherLivreParIsbn(isbn) : null;
+            debuterLigne(nombre++);
+            texte(isbn);
+            texte(livre != null ? livre.getTitre() : emprunt.getLivre().getTitre());
+            texte(emprunt.getAdherent().getNumeroCarte());
+            date(emprunt.getDateEmprunt());
+            date(emprunt.getDateRetourPrevue());
+            date(emprunt.getDateRetourEffective());
+            texte(emprunt.getStatut().name());
+            terminerLigne();
+        }
+        terminer();
+        return nombre;
+    }
+
+    // Structure du document
+
+    private void debuter(Instantane instantane, Format format, WritableByteChannel canal, String[] colonnes)
+            throws IOException {
+        if (instantane == null) {
+            throw new IllegalArgumentException("L'instantané ne peut pas être null");
+        }
+        if (format == null) {
+            throw new IllegalArgumentException("Le format ne peut pas être null");
+        }
+        if (canal == null) {
+            throw new IllegalArgumentException("Le canal ne peut pas être null");
+        }
+        this.canal = canal;
+        this.format = format;
+        this.cles = colonnes;
+        tampon.clear();
+        if (format == Format.CSV) {
+            for (int i = 0; i < colonnes.length; i++) {
+                if (i > 0) {
+                    octet(',');
+                }
+                ascii(colonnes[i]);
+            }
+            octet('\n');
+        } else {
+            octet('[');
+        }
+    }
+
+    private void debuterLigne(long indice) throws IOException {
+        colonne = 0;
+        if (format == Format.JSON) {
+            if (indice > 0) {
+                octet(',');
+            }
+            ascii("\n{");
+        }
+    }
+
+    private void terminerLigne() throws IOException {
+        octet(format == Format.CSV ? '\n' : '}');
+    }
+
+    private void terminer() throws IOException {
+        if (format == Format.JSON) {
+            ascii("\n]\n");
+        }
+        vider();
+        canal = null;
+    }
+
+    // Champs
+
+    private void separateur() throws IOException {
+        if (colonne > 0) {
+            octet(',');
+        }
+        if (format == Format.JSON) {
+            octet('"');
+            ascii(cles[colonne]);
+            ascii("\":");
+        }
+        colonne++;
+    }
+
+    private void texte(String valeur) throws IOException {
+        separateur();
+        if (valeur == null) {
+            if (format == Format.JSON) {
+                ascii("null");
+            }
+            return;
+        }
+        if (format == Format.JSON) {
+            octet('"');
+            for (int i = 0; i < valeur.length(); i++) {
+                char c = valeur.charAt(i);
+                if (c == '"' || c == '\\') {
+                    octet('\\');
+                    octet(c);
+                } else if (c < 0x20) {
+                    ascii("\\u00");
+                    octet(Character.forDigit(c >> 4, 16));
+                    octet(Character.forDigit(c & 0xF, 16));
+                } else {
+                    i = caractere(valeur, i);
+                }
+            }
+            octet('"');
+            return;
+        }
+        boolean guillemets = false;
+        for (int i = 0; i < valeur.length() && !guillemets; i++) {
+            char c = valeur.charAt(i);
+            guillemets = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (guillemets) {
+            octet('"');
+        }
+        for (int i = 0; i < valeur.length(); i++) {
+            if (valeur.charAt(i) == '"') {
+                octet('"');
+            }
+            i = caractere(valeur, i);
+        }
+        if (guillemets) {
+            octet('"');
+        }
+    }
+
+    private void nombre(long valeur) throws IOException {
+        separateur();
+        ecrireNombre(valeur, 1);
+    }
+
+    private void date(LocalDate date) throws IOException {
+        separateur();
+        if (date == null) {
+            if (format == Format.JSON) {
+                ascii("null");
+            }
+            return;
+        }
+        // Format ISO aaaa-mm-jj, sans passer par LocalDate.toString
+        if (format == Format.JSON) {
+            octet('"');
+        }
+        ecrireNombre(date.getYear(), 4);
+        octet('-');
+        ecrireNombre(date.getMonthValue(), 2);
+        octet('-');
+        ecrireNombre(date.getDayOfMonth(), 2);
+        if (format == Format.JSON) {
+            octet('"');
+        }
+    }
+
+    // Encodage
+
+    private void ecrireNombre(long valeur, int largeurMin) throws IOException {
+        if (valeur < 0) {
+            octet('-');
+            valeur = -valeur;
+        }
+        int n = 0;
+        do {
+            chiffres[n++] = (byte) ('0' + valeur % 10);
+            valeur /= 10;
+        } while (valeur > 0);
+        while (n < largeurMin) {
+            chiffres[n++] = '0';
+        }
+        while (n > 0) {
+            octet(chiffres[--n]);
+        }
+    }
+
+    // Encode le caractère à la position i en UTF-8 ; retourne la position du dernier char consommé
+    private int caractere(String valeur, int i) throws IOException {
+        char c = valeur.charAt(i);
+        if (c < 0x80) {
+            octet(c);
+        } else if (c < 0x800) {
+            octet(0xC0 | (c >> 6));
+            octet(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < valeur.length()
+                && Character.isLowSurrogate(valeur.charAt(i + 1))) {
+            int point = Character.toCodePoint(c, valeur.charAt(i + 1));
+            octet(0xF0 | (point >> 18));
+            octet(0x80 | ((point >> 12) & 0x3F));
+            octet(0x80 | ((point >> 6) & 0x3F));
+            octet(0x80 | (point & 0x3F));
+            return i + 1;
+        } else if (Character.isSurrogate(c)) {
+            // Demi-paire isolée : remplacée comme le fait String.getBytes
+            octet('?');
+        } else {
+            octet(0xE0 | (c >> 12));
+            octet(0x80 | ((c >> 6) & 0x3F));
+            octet(0x80 | (c & 0x3F));
+        }
+        return i;
+    }
+
+    private void ascii(String valeur) throws IOException {
+        for (int i = 0; i < valeur.length(); i++) {
+            octet(valeur.charAt(i));
+        }
+    }
+
+    private void octet(int valeur) throws IOException {
+        if (!tampon.hasRemaining()) {
+            vider();
+        }
+        tampon.put((byte) valeur);
+    }
+
+    private void vider() throws IOException {
+        tampon.flip();
+        while (tampon.hasRemaining()) {
+            canal.write(tampon);
+        }
+        tampon.clear();
+    }
+}
@@ -0,0 +1,294 @@
+package com.bibliotheque.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flux des modifications du service (capture de changements) pour les systèmes en aval :
+ * réplique de recherche, statistiques, rappels par SMS.
+ *
+ * Les événements sont numérotés par une séquence croissante à partir de 0 et rangés dans un
+ * tampon circulaire préalloué, un tableau par champ. Publier un événement n'alloue rien : le
+ * producteur (le thread qui modifie le service) écrit les champs de la case puis avance le
+ * curseur. Il n'attend jamais les consommateurs, pour qu'un système en aval arrêté ne bloque
+ * pas les emprunts : un consommateur distancé de plus d'un tour de tampon perd les événements
+ * écrasés et doit se resynchroniser.
+ *
+ * Chaque consommateur lit par lots à sa propre position, sans coordination avec les autres, et
+ * peut reprendre à une séquence donnée tant qu'elle est encore dans le tampon.
+ */
+public class FluxEvenements {
+
+    public static final int CAPACITE_PAR_DEFAUT = 1 << 16;
+
+    /**
+     * Types d'événements publiés
+     */
+    public enum Type {
+        AJOUT_LIVRE,
+        INSCRIPTION,
+        EMPRUNT,
+        RETOUR,
+        PROLONGATION
+    }
+
+    private static final VarHandle SEQUENCES = MethodHandles.arrayElementVarHandle(long[].class);
+    // Séquence d'une case en cours d'écriture
+    private static final long EN_ECRITURE = -1;
+    // Attente maximale entre deux scrutations du curseur
+    private static final long PAUSE_MAX_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final int masque;
+    // Séquence de l'événement rangé dans chaque case
+    private final long[] sequences;
+    private final Type[] types;
+    private final String[] isbns;
+    private final String[] cartes;
+    private final long[] heures;
+    // Dernière séquence publiée, -1 tant que rien n'est publié
+    private final AtomicLong curseur = new AtomicLong(-1);
+
+    public FluxEvenements() {
+        this(CAPACITE_PAR_DEFAUT);
+    }
+
+    /**
+     * @param capacite Nombre d'événements conservés, puissance de 2
+     */
+    public FluxEvenements(int capacite) {
+        if (capacite <= 0 || Integer.bitCount(capacite) != 1) {
+            throw new IllegalArgumentException("La capacité doit être une puissance de 2");
+        }
+        this.masque = capacite - 1;
+        this.sequences = new long[capacite];
+        this.types = new Type[capacite];
+        this.isbns = new String[capacite];
+        this.cartes = new String[capacite];
+        this.heures = new long[capacite];
+        Arrays.fill(sequences, EN_ECRITURE);
+    }
+
+    /**
+     * Publie un événement ; réservé au thread qui modifie le service (producteur unique)
+     * @param type Le type d'événement
+     * @param isbn L'ISBN du livre concerné, ou null
+     * @param numeroCarte Le numéro de carte de l'adhérent concerné, ou null
+     * @param heure L'heure de l'événement (heures depuis l'epoch, voir Horloge.heureCourante)
+     */
+    void publier(Type type, String isbn, String numeroCarte, long heure) {
+        long sequence = curseur.getPlain() + 1;
+        int i = (int) sequence & masque;
+        // La case est marquée avant d'être réécrite : un lecteur qui la lit en même temps
+        // constate que sa séquence a changé et ne retient pas un événement mélangé
+        SEQUENCES.setOpaque(sequences, i, EN_ECRITURE);
+        VarHandle.storeStoreFence();
+        types[i] = type;
+        isbns[i] = isbn;
+        cartes[i] = numeroCarte;
+        heures[i] = heure;
+        SEQUENCES.setRelease(sequences, i, sequence);
+        curseur.setRelease(sequence);
+    }
+
+    /**
+     * @return La dernière séquence publiée, -1 si aucune
+     */
+    public long getDerniereSequence() {
+        return curseur.get();
+    }
+
+    /**
+     * @return La plus ancienne séquence encore disponible dans le tampon
+     */
+    public long getPlusAncienneSequence() {
+        return Math.max(0, curseur.get() - masque);
+    }
+
+    public int getCapacite() {
+        return masque + 1;
+    }
+
+    /**
+     * @return Un consommateur qui recevra les événements publiés à partir de maintenant
+     */
+    public Consommateur consommateur() {
+        return new Consommateur(curseur.get() + 1);
+    }
+
+    /**
+     * Crée un consommateur qui reprend à une séquence donnée (par exemple la dernière traitée + 1)
+     * @param sequence La première séquence à lire
+     * @return Le consommateur
+     * @throws IllegalArgumentException si la séquence n'a pas encore été atteinte
+     * @throws IllegalStateException si la séquence a déjà été écrasée
+     */
+    public Consommateur consommateur(long sequence) {
+        if (sequence < 0 || sequence > curseur.get() + 1) {
+            throw new IllegalArgumentException("Séquence hors du flux : " + sequence);
+        }
+        if (sequence < getPlusAncienneSequence()) {
+            throw perdus(sequence);
+        }
+        return new Consommateur(sequence);
+    }
+
+    // Copie l'événement de séquence donnée, ou retourne null s'il a été écrasé
+    private Evenement lire(long sequence) {
+        int i = (int) sequence & masque;
+        if ((long) SEQUENCES.getAcquire(sequences, i) != sequence) {
+            return null;
+        }
+        Type type = types[i];
+        String isbn = isbns[i];
+        String carte = cartes[i];
+        long heure = heures[i];
+        VarHandle.loadLoadFence();
+        if ((long) SEQUENCES.getOpaque(sequences, i) != sequence) {
+            return null;
+        }
+        return new Evenement(sequence, type, isbn, carte, heure);
+    }
+
+    private IllegalStateException perdus(long sequence) {
+        return new IllegalStateException("Événements perdus : la séquence " + sequence
+                + " a été écrasée (plus ancienne disponible : " + getPlusAncienneSequence() + ")");
+    }
+
+    /**
+     * Position de lecture d'un système en aval. Un consommateur n'est utilisé que par un thread ;
+     * les consommateurs d'un même flux sont indépendants les uns des autres.
+     */
+    public final class Consommateur {
+
+        private long position;
+
+        private Consommateur(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Lit sans attendre les prochains événements disponibles
+         * @param max Nombre maximal d'événements du lot
+         * @return Le lot, vide si rien n'a été publié depuis la dernière lecture
+         * @throws IllegalStateException si le consommateur a été distancé et a perdu des événements
+         */
+        public List<Evenement> lire(int max) {
+            if (max <= 0) {
+                throw new IllegalArgumentException("La taille du lot doit être positive");
+            }
+            long disponible = curseur.get();
+            if (position > disponible) {
+                return List.of();
+            }
+            List<Evenement> lot = new ArrayList<>((int) Math.min(max, disponible - position + 1));
+            while (lot.size() < max && position <= disponible) {
+                Evenement evenement = FluxEvenements.this.lire(position);
+                if (evenement == null) {
+                    // Le lot déjà lu est rendu ; la perte sera signalée à la lecture suivante
+                    if (lot.isEmpty()) {
+                        throw perdus(position);
+                    }
+                    break;
+                }
+                lot.add(evenement);
+                position++;
+            }
+            return lot;
+        }
+
+        /**
+         * Lit les prochains événements, en attendant au plus le délai donné qu'il en arrive
+         * @return Le lot, vide si rien n'a été publié pendant le délai
+         * @throws InterruptedException si le thread est interrompu pendant l'attente
+         */
+        public List<Evenement> attendre(int max, long delai, TimeUnit unite) throws InterruptedException {
+            long limite = System.nanoTime() + unite.toNanos(delai);
+            long pause = 1_000;
+            while (true) {
+                List<Evenement> lot = lire(max);
+                long restant = limite - System.nanoTime();
+                if (!lot.isEmpty() || restant <= 0) {
+                    return lot;
+                }
+                LockSupport.parkNanos(Math.min(pause, restant));
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                pause = Math.min(pause * 2, PAUSE_MAX_NANOS);
+            }
+        }
+
+        /**
+         * @return La prochaine séquence à lire, à conserver pour reprendre plus tard
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * @return Le nombre d'événements publiés et pas encore lus
+         */
+        public long getRetard() {
+            return Math.max(0, curseur.get() + 1 - position);
+        }
+    }
+
+    /**
+     * Copie immuable d'un événement, remise aux consommateurs
+     */
+    public static final class Evenement {
+        private final long sequence;
+        private final Type type;
+        private final String isbn;
+        private final String numeroCarte;
+        private final long heure;
+
+        Evenement(long sequence, Type type, String isbn, String numeroCarte, long heure) {
+            this.sequence = sequence;
+            this.type = type;
+            this.isbn = isbn;
+            this.numeroCarte = numeroCarte;
+            this.heure = heure;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return L'ISBN du livre concerné, null pour une inscription
+         */
+        public String getIsbn() {
+            return isbn;
+        }
+
+        /**
+         * @return Le numéro de carte de l'adhérent concerné, null pour un ajout de livre
+         */
+        public String getNumeroCarte() {
+            return numeroCarte;
+        }
+
+        /**
+         * @return Heures écoulées depuis le 1er janvier 1970 à minuit, heure locale
+         */
+        public long getHeure() {
+            return heure;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Evenement{sequence=%d, type=%s, isbn=%s, carte=%s}", sequence, type, isbn, numeroCarte);
+        }
+    }
+}
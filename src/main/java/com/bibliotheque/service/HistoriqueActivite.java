@@ -0,0 +1,120 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Horloge;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Historique de l'activité de la bibliothèque, par jour et par heure.
+ *
+ * Chaque événement (emprunt, retour, passage en retard, inscription) incrémente un compteur
+ * journalier et un compteur horaire, rangés dans des anneaux de taille fixe : la mémoire ne
+ * dépend que de la durée de conservation. Les requêtes lisent directement les compteurs, sans
+ * rejouer l'historique des emprunts.
+ *
+ * Thread-safe : le service enregistre, les tableaux de bord lisent depuis d'autres threads.
+ */
+public class HistoriqueActivite {
+
+    public static final int JOURS_CONSERVES_PAR_DEFAUT = 366;
+    public static final int HEURES_CONSERVEES_PAR_DEFAUT = 7 * 24;
+
+    /**
+     * Événements comptés
+     */
+    public enum Evenement {
+        EMPRUNT,
+        RETOUR,
+        RETARD,
+        INSCRIPTION
+    }
+
+    private final Horloge horloge;
+    private final Map<Evenement, SerieTemporelle> parJour = new EnumMap<>(Evenement.class);
+    private final Map<Evenement, SerieTemporelle> parHeure = new EnumMap<>(Evenement.class);
+
+    public HistoriqueActivite(Horloge horloge) {
+        this(horloge, JOURS_CONSERVES_PAR_DEFAUT, HEURES_CONSERVEES_PAR_DEFAUT);
+    }
+
+    /**
+     * @param horloge L'horloge qui date les événements
+     * @param joursConserves Nombre de jours conservés
+     * @param heuresConservees Nombre d'heures conservées
+     */
+    public HistoriqueActivite(Horloge horloge, int joursConserves, int heuresConservees) {
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        this.horloge = horloge;
+        for (Evenement evenement : Evenement.values()) {
+            parJour.put(evenement, new SerieTemporelle(joursConserves));
+            parHeure.put(evenement, new SerieTemporelle(heuresConservees));
+        }
+    }
+
+    /**
+     * Compte un événement à la date et à l'heure courantes
+     */
+    public synchronized void enregistrer(Evenement evenement) {
+        long heure = horloge.heureCourante();
+        parJour.get(evenement).incrementer(Math.floorDiv(heure, 24));
+        parHeure.get(evenement).incrementer(heure);
+    }
+
+    /**
+     * Nombre d'événements entre deux dates incluses
+     */
+    public synchronized long total(Evenement evenement, LocalDate debut, LocalDate fin) {
+        verifierPeriode(debut, fin);
+        return parJour.get(evenement).somme(debut.toEpochDay(), fin.toEpochDay());
+    }
+
+    /**
+     * Compteurs journaliers entre deux dates incluses, pour un graphique
+     * @return Un compteur par jour, du plus ancien au plus récent
+     */
+    public synchronized long[] parJour(Evenement evenement, LocalDate debut, LocalDate fin) {
+        verifierPeriode(debut, fin);
+        SerieTemporelle serie = parJour.get(evenement);
+        if (ChronoUnit.DAYS.between(debut, fin) >= serie.capacite()) {
+            throw new IllegalArgumentException("La période dépasse la durée de conservation ("
+                    + serie.capacite() + " jours)");
+        }
+        return serie.valeurs(debut.toEpochDay(), fin.toEpochDay());
+    }
+
+    /**
+     * Compteurs des dernières heures, heure en cours comprise
+     * @return Un compteur par heure, de la plus ancienne à la plus récente
+     */
+    public synchronized long[] dernieresHeures(Evenement evenement, int nombreHeures) {
+        SerieTemporelle serie = parHeure.get(evenement);
+        if (nombreHeures <= 0 || nombreHeures > serie.capacite()) {
+            throw new IllegalArgumentException("Le nombre d'heures doit être compris entre 1 et " + serie.capacite());
+        }
+        long heure = horloge.heureCourante();
+        return serie.valeurs(heure - nombreHeures + 1, heure);
+    }
+
+    /**
+     * Début de l'heure en cours selon l'horloge de l'historique
+     */
+    public LocalDateTime heureCourante() {
+        long heure = horloge.heureCourante();
+        return LocalDate.ofEpochDay(Math.floorDiv(heure, 24)).atTime((int) Math.floorMod(heure, 24L), 0);
+    }
+
+    private static void verifierPeriode(LocalDate debut, LocalDate fin) {
+        if (debut == null || fin == null) {
+            throw new IllegalArgumentException("Les dates ne peuvent pas être null");
+        }
+        if (fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La date de fin précède la date de début");
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Dictionnaire;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.profilage.EvenementsJfr;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Vue immuable du catalogue, des adhérents et des emprunts à un instant donné.
+ *
+ * Un instantané s'obtient en O(1) via BibliothequeService.instantane() et reste cohérent
+ * aussi longtemps qu'on le conserve, pendant que le service continue d'accepter des écritures.
+ * Il contient des copies figées : les livres, adhérents et emprunts retournés ne doivent pas
+ * être passés aux méthodes de modification du service, qui refusent les emprunts figés.
+ * Chaque emprunt figé référence les copies de son livre et de son adhérent prises lors de sa
+ * dernière modification, jamais les objets du service : il se lit sans risque depuis
+ * n'importe quel thread. L'état le plus récent d'un livre ou d'un adhérent se lit par
+ * rechercherLivreParIsbn et rechercherAdherent.
+ *
+ * Sur un catalogue qui ne tient pas sur le tas (Catalogue.surLeTas faux), les livres ne sont pas
+ * copiés dans l'instantané : seuls les livres des emprunts le sont. Les lectures de livres y lèvent
+ * IllegalStateException (voir contientLivres) et passent par le thread qui modifie le service.
+ */
+public class Instantane {
+
+    private final long version;
+    // Faux pour un catalogue hors tas ou sur disque : la carte des livres reste vide
+    private final boolean contientLivres;
+    private final int nombreLivres;
+    private final CartePersistante<String, Livre> livres;
+    private final CartePersistante<String, Adherent> adherents;
+    private final CartePersistante<Long, Emprunt> emprunts;
+    private final int nombreEmpruntsEnCours;
+
+    private Instantane(long version, boolean contientLivres, int nombreLivres,
+                       CartePersistante<String, Livre> livres,
+                       CartePersistante<String, Adherent> adherents,
+                       CartePersistante<Long, Emprunt> emprunts,
+                       int nombreEmpruntsEnCours) {
+        this.version = version;
+        this.contientLivres = contientLivres;
+        this.nombreLivres = nombreLivres;
+        this.livres = livres;
+        this.adherents = adherents;
+        this.emprunts = emprunts;
+        this.nombreEmpruntsEnCours = nombreEmpruntsEnCours;
+    }
+
+    /**
+     * @param contientLivres Faux pour ne pas copier les livres du catalogue (catalogue hors tas ou sur disque)
+     */
+    static Instantane vide(boolean contientLivres) {
+        return new Instantane(0, contientLivres, 0, CartePersistante.vide(), CartePersistante.vide(),
+                CartePersistante.vide(), 0);
+    }
+
+    /**
+     * Retourne la version suivante, où les objets non null sont remplacés par une copie figée.
+     * Seul le chemin vers chaque entrée modifiée est copié.
+     * @param nombreLivres Nombre de livres du catalogue après la modification
+     */
+    Instantane avec(Livre livre, Adherent adherent, Emprunt emprunt, int nombreLivres) {
+        CartePersistante<String, Livre> nouveauxLivres = livres;
+        CartePersistante<String, Adherent> nouveauxAdherents = adherents;
+        CartePersistante<Long, Emprunt> nouveauxEmprunts = emprunts;
+        int enCours = nombreEmpruntsEnCours;
+
+        if (livre != null && contientLivres) {
+            nouveauxLivres = livres.avec(livre.getIsbn(), new Livre(livre));
+        }
+        if (adherent != null) {
+            nouveauxAdherents = adherents.avec(adherent.getNumeroCarte(), new Adherent(adherent));
+        }
+        if (emprunt != null) {
+            Emprunt precedent = emprunts.get(emprunt.getIdentifiant());
+            if (precedent != null && precedent.getStatut() == Emprunt.StatutEmprunt.EN_COURS) {
+                enCours--;
+            }
+            if (emprunt.getStatut() == Emprunt.StatutEmprunt.EN_COURS) {
+                enCours++;
+            }
+            nouveauxEmprunts = emprunts.avec(emprunt.getIdentifiant(), new Emprunt(emprunt,
+                    figer(nouveauxLivres, emprunt.getLivre()), figer(nouveauxAdherents, emprunt.getAdherent())));
+        }
+
+        return new Instantane(version + 1, contientLivres, nombreLivres, nouveauxLivres, nouveauxAdherents,
+                nouveauxEmprunts, enCours);
+    }
+
+    // Copie figée déjà publiée dans la carte, sinon une nouvelle (adhérent inscrit dans une autre partition)
+    private static Livre figer(CartePersistante<String, Livre> livres, Livre livre) {
+        Livre copie = livres.get(livre.getIsbn());
+        return copie != null ? copie : new Livre(livre);
+    }
+
+    private static Adherent figer(CartePersistante<String, Adherent> adherents, Adherent adherent) {
+        Adherent copie = adherents.get(adherent.getNumeroCarte());
+        return copie != null ? copie : new Adherent(adherent);
+    }
+
+    /**
+     * @return Le numéro de version, incrémenté à chaque modification du service
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Vrai si l'instantané contient les livres du catalogue, faux pour un catalogue hors tas
+     *         ou sur disque dont les livres ne se lisent que depuis le thread qui modifie le service
+     */
+    public boolean contientLivres() {
+        return contientLivres;
+    }
+
+    /**
+     * @throws IllegalStateException si l'instantané ne contient pas les livres (voir contientLivres)
+     */
+    public Livre rechercherLivreParIsbn(String isbn) {
+        verifierLivres();
+        return isbn != null ? livres.get(isbn) : null;
+    }
+
+    public Adherent rechercherAdherent(String numeroCarte) {
+        return numeroCarte != null ? adherents.get(numeroCarte) : null;
+    }
+
+    /**
+     * @return La copie figée de l'emprunt portant cet identifiant, rendu ou non, ou null
+     */
+    public Emprunt rechercherEmprunt(long identifiant) {
+        return emprunts.get(identifiant);
+    }
+
+    public List<Livre> rechercherLivreParTitre(String titre) {
+        EvenementsJfr.Recherche evenement = new EvenementsJfr.Recherche();
+        evenement.begin();
+        List<Livre> resultats = livresParTitre(titre).collect(Collectors.toList());
+        evenement.terminer("titre", titre, resultats.size());
+        return resultats;
+    }
+
+    public List<Livre> rechercherLivreParAuteur(String auteur) {
+        EvenementsJfr.Recherche evenement = new EvenementsJfr.Recherche();
+        evenement.begin();
+        List<Livre> resultats = livresParAuteur(auteur).collect(Collectors.toList());
+        evenement.terminer("auteur", auteur, resultats.size());
+        return resultats;
+    }
+
+    /**
+     * Recherche ad hoc, sans index : le critère est évalué sur tous les livres de l'instantané,
+     * en parallèle sur le pool des recherches, avec un budget de 5 secondes
+     * @param critere Prédicat sans effet de bord, appelé depuis plusieurs threads
+     * @return Les livres retenus, dans un ordre quelconque
+     * @throws IllegalStateException si le budget est dépassé ou si l'instantané ne contient pas les livres
+     */
+    public List<Livre> rechercherLivres(Predicate<? super Livre> critere) {
+        return rechercherLivres(critere, RechercheParallele.BUDGET_PAR_DEFAUT);
+    }
+
+    /**
+     * Recherche ad hoc sur les livres, abandonnée au-delà du budget
+     * @param critere Prédicat sans effet de bord, appelé depuis plusieurs threads
+     * @param budget Durée maximale du parcours
+     * @return Les livres retenus, dans un ordre quelconque
+     * @throws IllegalStateException si le budget est dépassé
+     */
+    public List<Livre> rechercherLivres(Predicate<? super Livre> critere, Duration budget) {
+        EvenementsJfr.Recherche evenement = new EvenementsJfr.Recherche();
+        evenement.begin();
+        verifierLivres();
+        List<Livre> resultats = RechercheParallele.filtrer(livres.spliterator(), critere, budget);
+        evenement.terminer("predicat", "livres", resultats.size());
+        return resultats;
+    }
+
+    /**
+     * Recherche ad hoc sur tous les emprunts de l'instantané, rendus compris, avec un budget de 5 secondes.
+     * Le critère ne voit que des copies figées, livres et adhérents compris : il ne touche jamais le
+     * catalogue du service, dont les pages disque ne se lisent que depuis le thread qui le modifie.
+     * @param critere Prédicat sans effet de bord, appelé depuis plusieurs threads
+     * @return Les emprunts retenus, dans un ordre quelconque
+     * @throws IllegalStateException si le budget est dépassé
+     */
+    public List<Emprunt> rechercherEmprunts(Predicate<? super Emprunt> critere) {
+        return rechercherEmprunts(critere, RechercheParallele.BUDGET_PAR_DEFAUT);
+    }
+
+    /**
+     * Recherche ad hoc sur les emprunts, abandonnée au-delà du budget
+     * @param critere Prédicat sans effet de bord, appelé depuis plusieurs threads
+     * @param budget Durée maximale du parcours
+     * @return Les emprunts retenus, dans un ordre quelconque
+     * @throws IllegalStateException si le budget est dépassé
+     */
+    public List<Emprunt> rechercherEmprunts(Predicate<? super Emprunt> critere, Duration budget) {
+        EvenementsJfr.Recherche evenement = new EvenementsJfr.Recherche();
+        evenement.begin();
+        List<Emprunt> resultats = RechercheParallele.filtrer(emprunts.spliterator(), critere, budget);
+        evenement.terminer("predicat", "emprunts", resultats.size());
+        return resultats;
+    }
+
+    public List<Emprunt> listerEmpruntsAdherent(String numeroCarte) {
+        return empruntsAdherent(numeroCarte).collect(Collectors.toList());
+    }
+
+    public List<Emprunt> listerEmpruntsEnCours() {
+        return empruntsEnCours().collect(Collectors.toList());
+    }
+
+    // Variantes paresseuses des recherches, parcourues à la demande par BibliothequeServiceReactif
+
+    Stream<Livre> livresParTitre(String titre) {
+        if (titre == null || titre.trim().isEmpty()) {
+            return Stream.empty();
+        }
+        String cle = Dictionnaire.normaliser(titre);
+        return livres().filter(livre -> Dictionnaire.normaliser(livre.getTitre()).contains(cle));
+    }
+
+    Stream<Livre> livresParAuteur(String auteur) {
+        if (auteur == null || auteur.trim().isEmpty()) {
+            return Stream.empty();
+        }
+        String cle = Dictionnaire.normaliser(auteur);
+        return livres().filter(livre -> Dictionnaire.AUTEURS.cleNormalisee(livre.getIdAuteur()).contains(cle));
+    }
+
+    Stream<Emprunt> empruntsAdherent(String numeroCarte) {
+        return emprunts().filter(e -> e.getAdherent().getNumeroCarte().equals(numeroCarte));
+    }
+
+    Stream<Emprunt> empruntsEnCours() {
+        return emprunts().filter(e -> e.getStatut() == Emprunt.StatutEmprunt.EN_COURS);
+    }
+
+    public BibliothequeService.Statistiques obtenirStatistiques() {
+        return new BibliothequeService.Statistiques(nombreLivres, adherents.taille(), nombreEmpruntsEnCours);
+    }
+
+    /**
+     * @return Tous les livres de l'instantané, pour les rapports
+     * @throws IllegalStateException si l'instantané ne contient pas les livres (voir contientLivres)
+     */
+    public Stream<Livre> livres() {
+        verifierLivres();
+        return StreamSupport.stream(livres.spliterator(), false);
+    }
+
+    /**
+     * @return Tous les emprunts de l'instantané, pour les rapports
+     */
+    public Stream<Emprunt> emprunts() {
+        return StreamSupport.stream(emprunts.spliterator(), false);
+    }
+
+    private void verifierLivres() {
+        if (!contientLivres) {
+            throw new IllegalStateException("Les livres d'un catalogue hors tas ne sont pas copiés dans les instantanés");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.bibliotheque.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Journal des modifications du service principal, lu par les réplicas (ServiceSuiveur).
+ *
+ * Chaque opération réussie du service est ajoutée au fichier sous forme d'un enregistrement
+ * numéroté, dans l'ordre où elle a été appliquée. Rejouées dans le même ordre et à la même
+ * date, ces opérations reconstruisent le même état : les réplicas suivent le fichier comme
+ * un « tail -f » et peuvent démarrer à tout moment, en relisant le journal depuis le début.
+ *
+ * Format d'un enregistrement : longueur (int), séquence (long), horodatage de l'écriture en
+ * millisecondes (long), jour de l'horloge du service (long), opération (octet), nombre de
+ * champs (octet) puis chaque champ (longueur short et octets UTF-8).
+ *
+ * Les enregistrements sont accumulés dans un tampon et écrits par lots : à chaque lot du
+ * PipelineCommandes, ou par vider(). Une erreur d'écriture désactive le journal sans interrompre
+ * le service ; les réplicas cessent alors d'avancer et leur retard le signale.
+ * Non thread-safe : utilisé par le thread qui modifie le service.
+ */
+public class JournalReplication implements AutoCloseable {
+
+    /**
+     * Opérations journalisées et leurs champs
+     */
+    enum Operation {
+        // isbn, titre, auteur, année, nombre d'exemplaires
+        AJOUT_LIVRE,
+        // carte, nom, prénom, email, jour d'inscription
+        INSCRIPTION,
+        // isbn, carte
+        EMPRUNT,
+        // isbn, carte, jour d'emprunt, code-barres de l'exemplaire
+        RETOUR,
+        PROLONGATION,
+        RETARD,
+        // isbn, carte
+        RESERVATION,
+        RETRAIT,
+        ANNULATION,
+        // aucun champ
+        EXPIRATION,
+        // isbn, nombre d'exemplaires ajoutés, succursale
+        EXEMPLAIRES
+    }
+
+    static final int TAILLE_ENTETE = 4 + 8 + 8 + 8 + 1 + 1;
+    private static final int TAILLE_TAMPON = 256 * 1024;
+
+    private final FileChannel canal;
+    private final ByteBuffer tampon = ByteBuffer.allocate(TAILLE_TAMPON);
+    private long sequence = -1;
+    private IOException erreur;
+
+    /**
+     * Crée le journal ; un fichier existant est vidé, le service principal repartant d'un état vide
+     * @param fichier Le fichier partagé avec les réplicas
+     */
+    public JournalReplication(Path fichier) throws IOException {
+        if (fichier == null) {
+            throw new IllegalArgumentException("Le fichier ne peut pas être null");
+        }
+        this.canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void enregistrer(Operation operation, long jour, String... champs) {
+        if (erreur != null) {
+            return;
+        }
+        byte[][] octets = new byte[champs.length][];
+        int taille = TAILLE_ENTETE;
+        for (int i = 0; i < champs.length; i++) {
+            octets[i] = champs[i].getBytes(StandardCharsets.UTF_8);
+            if (octets[i].length > Short.MAX_VALUE) {
+                // L'opération est déjà appliquée : le journal ne peut plus être complet
+                erreur = new IOException("Champ trop long pour le journal (" + operation + ", séquence " + (sequence + 1) + ")");
+                return;
+            }
+            taille += 2 + octets[i].length;
+        }
+        if (taille > tampon.remaining()) {
+            vider();
+        }
+        tampon.putInt(taille - 4);
+        tampon.putLong(++sequence);
+        tampon.putLong(System.currentTimeMillis());
+        tampon.putLong(jour);
+        tampon.put((byte) operation.ordinal());
+        tampon.put((byte) champs.length);
+        for (byte[] champ : octets) {
+            tampon.putShort((short) champ.length);
+            tampon.put(champ);
+        }
+    }
+
+    /**
+     * Écrit dans le fichier les enregistrements en attente
+     */
+    public void vider() {
+        if (erreur != null || tampon.position() == 0) {
+            tampon.clear();
+            return;
+        }
+        tampon.flip();
+        try {
+            while (tampon.hasRemaining()) {
+                canal.write(tampon);
+            }
+        } catch (IOException e) {
+            erreur = e;
+        }
+        tampon.clear();
+    }
+
+    /**
+     * @return La séquence du dernier enregistrement, -1 si aucun
+     */
+    public long getDerniereSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return L'erreur d'écriture qui a désactivé le journal, ou null
+     */
+    public IOException getErreur() {
+        return erreur;
+    }
+
+    @Override
+    public void close() {
+        vider();
+        try {
+            canal.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
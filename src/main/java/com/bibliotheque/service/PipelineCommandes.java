@@ -0,0 +1,464 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Horloge;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Mode « écrivain unique » du service de bibliothèque.
+ *
+ * Toutes les modifications sont mises en file sous forme de commandes dans un tampon
+ * circulaire borné. Un seul thread écrivain les applique par lots au BibliothequeService
+ * puis complète les futures. L'ordre d'application est donc déterministe et le service
+ * n'a besoin d'aucun verrou.
+ *
+ * Les lectures ne passent pas par l'écrivain : elles sont servies depuis les instantanés
+ * publiés par le service, qui reflètent au minimum toutes les commandes dont le future est complété.
+ * Exception : un catalogue hors tas ou sur disque n'est pas copié dans les instantanés ; ses livres
+ * sont alors lus et copiés par l'écrivain, et la recherche ad hoc de livres est refusée.
+ * Les emprunts et réservations rendus à l'appelant, par les lectures comme par les commandes,
+ * sont des copies figées faites sur le thread écrivain : l'appelant ne voit jamais un objet que
+ * l'écrivain modifie. Les commandes qui les reçoivent retrouvent l'objet du service sur le
+ * thread écrivain.
+ *
+ * Une commande qui échoue, même sur une Error, n'échoue que son propre future. Si l'écrivain
+ * lui-même s'arrête sur une erreur (écriture du journal), le pipeline se ferme et les commandes
+ * en attente échouent.
+ */
+public class PipelineCommandes implements AutoCloseable {
+
+    private static final int CAPACITE_PAR_DEFAUT = 4096;
+    private static final int TAILLE_LOT_MAX = 256;
+    private static final long ATTENTE_MS = 50;
+
+    private final BibliothequeService service;
+    private final BlockingQueue<Commande<?>> anneau;
+    private final Thread ecrivain;
+    private volatile boolean ouvert;
+
+    public PipelineCommandes(BibliothequeService service) {
+        this(service, CAPACITE_PAR_DEFAUT);
+    }
+
+    /**
+     * Démarre le pipeline sur un service, qui ne doit plus être modifié que par ce pipeline
+     * @param service Le service à piloter
+     * @param capacite Nombre maximal de commandes en attente
+     */
+    public PipelineCommandes(BibliothequeService service, int capacite) {
+        if (service == null) {
+            throw new IllegalArgumentException("Le service ne peut pas être null");
+        }
+        if (capacite <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive");
+        }
+
+        this.service = service;
+        this.anneau = new ArrayBlockingQueue<>(capacite);
+        this.service.activerInstantanes();
+        this.ouvert = true;
+        this.ecrivain = new Thread(this::boucleEcrivain, "bibliotheque-ecrivain");
+        this.ecrivain.setDaemon(true);
+        this.ecrivain.start();
+    }
+
+    // Commandes de modification
+
+    public CompletableFuture<Void> ajouterLivre(Livre livre) {
+        return soumettre(s -> {
+            s.ajouterLivre(livre);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> inscrireAdherent(Adherent adherent) {
+        return soumettre(s -> {
+            s.inscrireAdherent(adherent);
+            return null;
+        });
+    }
+
+    /**
+     * @return Une copie figée de l'emprunt créé
+     */
+    public CompletableFuture<Emprunt> emprunterLivre(String isbn, String numeroCarte) {
+        return soumettre(s -> new Emprunt(s.emprunterLivre(isbn, numeroCarte)));
+    }
+
+    /**
+     * Rend un emprunt, lu sur un instantané ou retourné par emprunterLivre
+     */
+    public CompletableFuture<Void> retournerLivre(Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("L'emprunt ne peut pas être null");
+        }
+        return soumettre(s -> {
+            s.retournerLivre(s.empruntCourant(emprunt));
+            return null;
+        });
+    }
+
+    /**
+     * Rend un lot de la boîte de retour en une seule commande : ses retours ne sont pas
+     * entrelacés avec ceux des autres clients
+     */
+    public CompletableFuture<RetoursEnLot.Bilan> retournerLot(RetoursEnLot lot) {
+        return soumettre(s -> s.retournerLot(lot));
+    }
+
+    /**
+     * Prolonge un emprunt, lu sur un instantané ou retourné par emprunterLivre
+     */
+    public CompletableFuture<Boolean> prolongerEmprunt(Emprunt emprunt) {
+        if (emprunt == null) {
+            throw new IllegalArgumentException("L'emprunt ne peut pas être null");
+        }
+        return soumettre(s -> s.prolongerEmprunt(s.empruntCourant(emprunt)));
+    }
+
+    /**
+     * Réserve un livre ; la notification est exécutée par le thread écrivain et reçoit, comme
+     * l'appelant, une copie figée de la réservation
+     */
+    public CompletableFuture<Reservation> reserverLivre(String isbn, String numeroCarte,
+                                                        Consumer<Reservation> notification) {
+        Consumer<Reservation> copie = notification == null ? null
+                : reservation -> notification.accept(new Reservation(reservation));
+        return soumettre(s -> new Reservation(s.reserverLivre(isbn, numeroCarte, copie)));
+    }
+
+    /**
+     * Retire l'exemplaire mis de côté pour une réservation, copie figée ou non
+     * @return Une copie figée de l'emprunt créé
+     */
+    public CompletableFuture<Emprunt> retirerReservation(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("La réservation ne peut pas être null");
+        }
+        return soumettre(s -> new Emprunt(s.retirerReservation(s.reservationCourante(reservation))));
+    }
+
+    /**
+     * Annule une réservation, copie figée ou non
+     * @return Une copie figée de la réservation annulée
+     */
+    public CompletableFuture<Reservation> annulerReservation(Reservation reservation) {
+        if (reservation == null) {
+            throw new IllegalArgumentException("La réservation ne peut pas être null");
+        }
+        return soumettre(s -> {
+            Reservation courante = s.reservationCourante(reservation);
+            s.annulerReservation(courante);
+            return new Reservation(courante);
+        });
+    }
+
+    /**
+     * Les réservations ne figurent pas dans les instantanés : cette lecture passe par l'écrivain
+     * @return Une copie figée de la réservation en attente ou mise de côté, ou null si elle est
+     *         terminée ou inconnue
+     */
+    public CompletableFuture<Reservation> consulterReservation(long identifiant) {
+        return soumettre(s -> {
+            Reservation reservation = s.reservationActive(identifiant);
+            return reservation != null ? new Reservation(reservation) : null;
+        });
+    }
+
+    /**
+     * Libère les exemplaires mis de côté dont le délai de retrait est dépassé, sans attendre
+     * qu'une autre commande le fasse en passant
+     * @see BibliothequeService#expirerReservations()
+     */
+    public CompletableFuture<Void> expirerReservations() {
+        return soumettre(s -> {
+            s.expirerReservations();
+            return null;
+        });
+    }
+
+    /**
+     * Balaye les emprunts non rendus et signale les adhérents en retard. Le balayage s'exécute sur
+     * le thread écrivain, qui attend les sous-tâches du pool : aucune autre commande n'est
+     * appliquée pendant ce temps.
+     * @param balayage Le balayage à exécuter (et son pool)
+     * @return Le rapport du balayage
+     */
+    public CompletableFuture<BalayageRetards.Resultat> balayerRetards(BalayageRetards balayage) {
+        if (balayage == null) {
+            throw new IllegalArgumentException("Le balayage ne peut pas être null");
+        }
+        return soumettre(balayage::executer);
+    }
+
+    public CompletableFuture<Void> ajouterExemplaires(String isbn, int nombre, int succursale) {
+        return soumettre(s -> {
+            s.ajouterExemplaires(isbn, nombre, succursale);
+            return null;
+        });
+    }
+
+    // Lectures sur les instantanés publiés
+
+    /**
+     * @return Le dernier instantané publié, pour enchaîner plusieurs lectures cohérentes
+     */
+    public Instantane instantane() {
+        return service.instantane();
+    }
+
+    /**
+     * @return L'horloge du service piloté
+     */
+    public Horloge getHorloge() {
+        return service.getHorloge();
+    }
+
+    /**
+     * @return Le flux de capture des modifications, s'il a été activé sur le service
+     * @throws IllegalStateException si le flux n'est pas activé
+     */
+    public FluxEvenements fluxEvenements() {
+        return service.fluxEvenements();
+    }
+
+    public Livre rechercherLivreParIsbn(String isbn) {
+        Instantane instantane = service.instantane();
+        if (instantane.contientLivres()) {
+            return instantane.rechercherLivreParIsbn(isbn);
+        }
+        return lireSurEcrivain(s -> {
+            Livre livre = s.rechercherLivreParIsbn(isbn);
+            return livre != null ? new Livre(livre) : null;
+        });
+    }
+
+    public Adherent rechercherAdherent(String numeroCarte) {
+        return service.instantane().rechercherAdherent(numeroCarte);
+    }
+
+    public Adherent rechercherAdherentParEmail(String email) {
+        Adherent adherent = service.rechercherAdherentParEmail(email);
+        return adherent != null ? service.instantane().rechercherAdherent(adherent.getNumeroCarte()) : null;
+    }
+
+    public List<Adherent> rechercherAdherentsParNom(String texte, int max) {
+        return service.figer(service.rechercherAdherentsParNom(texte, max));
+    }
+
+    public List<Livre> rechercherLivreParTitre(String titre) {
+        Instantane instantane = service.instantane();
+        return instantane.contientLivres() ? instantane.rechercherLivreParTitre(titre)
+                : lireSurEcrivain(s -> copies(s.rechercherLivreParTitre(titre)));
+    }
+
+    public List<Livre> rechercherLivreParAuteur(String auteur) {
+        Instantane instantane = service.instantane();
+        return instantane.contientLivres() ? instantane.rechercherLivreParAuteur(auteur)
+                : lireSurEcrivain(s -> copies(s.rechercherLivreParAuteur(auteur)));
+    }
+
+    /**
+     * Recherche ad hoc sur les livres, en parallèle sur le pool des recherches
+     * @see BibliothequeService#rechercherLivres(Predicate)
+     */
+    public List<Livre> rechercherLivres(Predicate<? super Livre> critere) {
+        return service.instantane().rechercherLivres(critere);
+    }
+
+    public List<Livre> rechercherLivres(Predicate<? super Livre> critere, Duration budget) {
+        return service.instantane().rechercherLivres(critere, budget);
+    }
+
+    /**
+     * Recherche ad hoc sur les emprunts, en parallèle sur le pool des recherches
+     * @see BibliothequeService#rechercherEmprunts(Predicate)
+     */
+    public List<Emprunt> rechercherEmprunts(Predicate<? super Emprunt> critere) {
+        return service.instantane().rechercherEmprunts(critere);
+    }
+
+    public List<Emprunt> rechercherEmprunts(Predicate<? super Emprunt> critere, Duration budget) {
+        return service.instantane().rechercherEmprunts(critere, budget);
+    }
+
+    public List<Emprunt> listerEmpruntsAdherent(String numeroCarte) {
+        return service.instantane().listerEmpruntsAdherent(numeroCarte);
+    }
+
+    public List<Emprunt> listerEmpruntsEnCours() {
+        return service.instantane().listerEmpruntsEnCours();
+    }
+
+    public BibliothequeService.Statistiques obtenirStatistiques() {
+        return service.instantane().obtenirStatistiques();
+    }
+
+    public List<PopulariteEmprunts.Entree> livresLesPlusEmpruntes(int nombre, int nombreJours) {
+        return service.livresLesPlusEmpruntes(nombre, nombreJours);
+    }
+
+    public List<RecommandationsEmprunts.Recommandation> livresAussiEmpruntes(String isbn, int nombre) {
+        return service.livresAussiEmpruntes(isbn, nombre);
+    }
+
+    public List<Exemplaires.Exemplaire> listerExemplaires(String isbn) {
+        return service.exemplaires().lister(rechercherLivreParIsbn(isbn));
+    }
+
+    public Exemplaires.Exemplaire rechercherExemplaire(long codeBarre) {
+        return service.rechercherExemplaire(codeBarre);
+    }
+
+    /**
+     * Arrête le pipeline après application des commandes déjà acceptées
+     */
+    @Override
+    public void close() {
+        ouvert = false;
+        try {
+            ecrivain.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Commandes arrivées pendant l'arrêt : elles ne seront jamais appliquées
+        Commande<?> restante;
+        while ((restante = anneau.poll()) != null) {
+            restante.resultat.completeExceptionally(new IllegalStateException("Le pipeline est fermé"));
+        }
+    }
+
+    // Lecture de livres d'un catalogue que les instantanés ne contiennent pas : faite par l'écrivain, qui
+    // seul touche aux pages du catalogue, derrière les commandes déjà en file
+    private <T> T lireSurEcrivain(Function<BibliothequeService, T> lecture) {
+        try {
+            return soumettre(lecture).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static List<Livre> copies(List<Livre> livres) {
+        List<Livre> copies = new ArrayList<>(livres.size());
+        for (Livre livre : livres) {
+            copies.add(new Livre(livre));
+        }
+        return copies;
+    }
+
+    private <T> CompletableFuture<T> soumettre(Function<BibliothequeService, T> action) {
+        Commande<T> commande = new Commande<>(action);
+        if (!ouvert) {
+            commande.resultat.completeExceptionally(new IllegalStateException("Le pipeline est fermé"));
+            return commande.resultat;
+        }
+        try {
+            // Bloque si le tampon est plein : contre-pression naturelle sur les producteurs
+            anneau.put(commande);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            commande.resultat.completeExceptionally(e);
+            return commande.resultat;
+        }
+        if (!ouvert && anneau.remove(commande)) {
+            // Fermeture ou arrêt de l'écrivain concurrents : la commande n'est pas encore prise, elle ne le sera pas
+            commande.resultat.completeExceptionally(new IllegalStateException("Le pipeline est fermé"));
+        }
+        return commande.resultat;
+    }
+
+    private void boucleEcrivain() {
+        List<Commande<?>> lot = new ArrayList<>(TAILLE_LOT_MAX);
+        try {
+            appliquer(lot);
+        } catch (RuntimeException | Error e) {
+            // Erreur hors commande : plus rien ne sera appliqué, les producteurs ne doivent pas attendre
+            ouvert = false;
+            IllegalStateException fermeture = new IllegalStateException("Le pipeline est fermé", e);
+            for (Commande<?> commande : lot) {
+                commande.resultat.completeExceptionally(fermeture);
+            }
+            Commande<?> restante;
+            while ((restante = anneau.poll()) != null) {
+                restante.resultat.completeExceptionally(fermeture);
+            }
+        }
+    }
+
+    private void appliquer(List<Commande<?>> lot) {
+        while (ouvert || !anneau.isEmpty()) {
+            try {
+                Commande<?> premiere = anneau.poll(ATTENTE_MS, TimeUnit.MILLISECONDS);
+                if (premiere == null) {
+                    continue;
+                }
+                lot.add(premiere);
+                anneau.drainTo(lot, TAILLE_LOT_MAX - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            for (Commande<?> commande : lot) {
+                commande.executer(service);
+            }
+            // Le journal de réplication est écrit une fois par lot
+            service.viderJournal();
+            // Compléter après le lot entier : les futures ne bloquent pas l'application des commandes
+            for (Commande<?> commande : lot) {
+                commande.completer();
+            }
+            lot.clear();
+        }
+    }
+
+    /**
+     * Commande en attente dans le tampon
+     */
+    private static final class Commande<T> {
+        private final Function<BibliothequeService, T> action;
+        private final CompletableFuture<T> resultat;
+        private T valeur;
+        private Throwable erreur;
+
+        Commande(Function<BibliothequeService, T> action) {
+            this.action = action;
+            this.resultat = new CompletableFuture<>();
+        }
+
+        void executer(BibliothequeService service) {
+            try {
+                valeur = action.apply(service);
+            } catch (Throwable e) {
+                // Une Error (débordement de pile, assertion) ne doit pas arrêter l'écrivain
+                erreur = e;
+            }
+        }
+
+        void completer() {
+            if (erreur != null) {
+                resultat.completeExceptionally(erreur);
+            } else {
+                resultat.complete(valeur);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Horloge;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Suivi en continu des livres les plus empruntés sur une fenêtre glissante de jours.
+ *
+ * Chaque emprunt est compté dans le sommaire Space-Saving du jour ; les sommaires des
+ * FENETRE_MAX_JOURS derniers jours sont conservés dans un anneau, le plus ancien étant recyclé
+ * au changement de jour. Un enregistrement coûte O(log capacite). Une requête « top N sur
+ * 7 jours » fusionne les sommaires des jours concernés : elle parcourt et range dans une table
+ * jusqu'à nombreJours × capacite livres (7 168 avec la capacité par défaut, 31 744 sur la fenêtre
+ * maximale), puis les trie par un tas de N. Ce coût ne dépend ni de la taille du catalogue ni du
+ * nombre d'emprunts, mais il est payé à chaque requête : un appelant fréquent garde le résultat.
+ *
+ * Les comptes sont des estimations (voir Entree.getErreurMaximale) ; ils sont exacts tant que
+ * moins de « capacite » livres différents sont empruntés dans la journée. Un livre absent du
+ * sommaire plein d'un jour peut y avoir été emprunté jusqu'au plus petit compte de ce jour :
+ * la fusion lui ajoute ce minimum, au compte comme à l'erreur, pour ne jamais sous-estimer.
+ */
+public class PopulariteEmprunts {
+
+    public static final int FENETRE_MAX_JOURS = 31;
+    public static final int CAPACITE_PAR_DEFAUT = 1024;
+
+    private static final Comparator<Entree> ORDRE =
+            Comparator.comparingLong(Entree::getNombreEmprunts).thenComparing(Entree::getIsbn, Comparator.reverseOrder());
+
+    private final Horloge horloge;
+    private final SommaireSpaceSaving[] sommaires;
+    // Jour (epoch day) couvert par chaque case de l'anneau, -1 si vide
+    private final long[] jours;
+
+    public PopulariteEmprunts(Horloge horloge) {
+        this(horloge, CAPACITE_PAR_DEFAUT);
+    }
+
+    /**
+     * @param horloge L'horloge qui date les emprunts
+     * @param capacite Nombre de livres suivis par jour
+     */
+    public PopulariteEmprunts(Horloge horloge, int capacite) {
+        if (horloge == null) {
+            throw new IllegalArgumentException("L'horloge ne peut pas être null");
+        }
+        this.horloge = horloge;
+        this.sommaires = new SommaireSpaceSaving[FENETRE_MAX_JOURS];
+        this.jours = new long[FENETRE_MAX_JOURS];
+        for (int i = 0; i < FENETRE_MAX_JOURS; i++) {
+            sommaires[i] = new SommaireSpaceSaving(capacite);
+            jours[i] = -1;
+        }
+    }
+
+    /**
+     * Compte un emprunt du livre à la date du jour
+     */
+    public synchronized void enregistrer(String isbn) {
+        long jour = horloge.aujourdhui().toEpochDay();
+        int position = (int) Math.floorMod(jour, (long) FENETRE_MAX_JOURS);
+        if (jours[position] != jour) {
+            sommaires[position].vider();
+            jours[position] = jour;
+        }
+        sommaires[position].enregistrer(isbn);
+    }
+
+    /**
+     * Livres les plus empruntés sur les derniers jours, aujourd'hui compris
+     * @param nombre Nombre maximal de livres retournés
+     * @param nombreJours Taille de la fenêtre, entre 1 et FENETRE_MAX_JOURS (7 pour la semaine)
+     * @return Les livres classés par nombre d'emprunts décroissant
+     */
+    public synchronized List<Entree> plusEmpruntes(int nombre, int nombreJours) {
+        if (nombreJours <= 0 || nombreJours > FENETRE_MAX_JOURS) {
+            throw new IllegalArgumentException("La fenêtre doit être comprise entre 1 et " + FENETRE_MAX_JOURS + " jours");
+        }
+        if (nombre <= 0) {
+            return new ArrayList<>();
+        }
+
+        // Chaque livre part de la somme des minimums des jours pleins, comptée au nombre comme à
+        // l'erreur ; un jour où il est suivi remplace ce minimum par son compte et son erreur
+        Map<String, long[]> cumul = new HashMap<>();
+        long minimums = 0;
+        long aujourdhui = horloge.aujourdhui().toEpochDay();
+        for (long jour = aujourdhui - nombreJours + 1; jour <= aujourdhui; jour++) {
+            int position = (int) Math.floorMod(jour, (long) FENETRE_MAX_JOURS);
+            if (jours[position] != jour) {
+                continue;
+            }
+            int minimum = sommaires[position].minimum();
+            minimums += minimum;
+            sommaires[position].parcourir(
+                    (isbn, n) -> cumul.computeIfAbsent(isbn, cle -> new long[2])[0] += n - minimum,
+                    (isbn, erreur) -> cumul.get(isbn)[1] += erreur - minimum);
+        }
+
+        // Tas borné : seuls les N meilleurs sont conservés
+        PriorityQueue<Entree> meilleurs = new PriorityQueue<>(nombre + 1, ORDRE);
+        for (Map.Entry<String, long[]> entree : cumul.entrySet()) {
+            meilleurs.offer(new Entree(entree.getKey(), entree.getValue()[0] + minimums,
+                    entree.getValue()[1] + minimums));
+            if (meilleurs.size() > nombre) {
+                meilleurs.poll();
+            }
+        }
+        List<Entree> classement = new ArrayList<>(meilleurs);
+        classement.sort(ORDRE.reversed());
+        return classement;
+    }
+
+    /**
+     * Un livre du classement
+     */
+    public static class Entree {
+        private final String isbn;
+        private final long nombreEmprunts;
+        private final long erreurMaximale;
+
+        public Entree(String isbn, long nombreEmprunts, long erreurMaximale) {
+            this.isbn = isbn;
+            this.nombreEmprunts = nombreEmprunts;
+            this.erreurMaximale = erreurMaximale;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        // Nombre d'emprunts estimé, surestimé d'au plus getErreurMaximale()
+        public long getNombreEmprunts() {
+            return nombreEmprunts;
+        }
+
+        public long getErreurMaximale() {
+            return erreurMaximale;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d emprunts", isbn, nombreEmprunts);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.bibliotheque.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parcours parallèle des recherches sans index (prédicats ad hoc du personnel).
+ *
+ * Les parcours s'exécutent sur un ForkJoinPool dédié, d'autant de threads que de coeurs : un
+ * flux parallèle lancé depuis une tâche de ce pool y découpe son travail, et les recherches
+ * lourdes ne privent pas le pool commun (CompletableFuture, autres flux parallèles) de ses
+ * threads. Chaque parcours a un budget de temps ; au-delà, il est abandonné : les threads
+ * cessent d'évaluer le prédicat dès l'élément suivant.
+ */
+final class RechercheParallele {
+
+    static final Duration BUDGET_PAR_DEFAUT = Duration.ofSeconds(5);
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("bibliotheque-recherche-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+
+    private RechercheParallele() {
+    }
+
+    /**
+     * Filtre les éléments d'une source immuable, en parallèle sur le pool des recherches
+     * @param source Découpage de la source, lisible depuis plusieurs threads
+     * @param critere Prédicat évalué sur chaque élément, depuis plusieurs threads à la fois
+     * @param budget Durée maximale du parcours
+     * @return Les éléments retenus, dans un ordre quelconque
+     * @throws IllegalStateException si le budget est dépassé ou le thread appelant interrompu
+     */
+    static <T> List<T> filtrer(Spliterator<T> source, Predicate<? super T> critere, Duration budget) {
+        if (critere == null) {
+            throw new IllegalArgumentException("Le critère ne peut pas être null");
+        }
+        if (budget == null || budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Le budget doit être positif");
+        }
+        AtomicBoolean abandonne = new AtomicBoolean();
+        ForkJoinTask<List<T>> parcours = POOL.submit(() -> StreamSupport.stream(source, true)
+                .filter(element -> {
+                    if (abandonne.get()) {
+                        throw new CancellationException();
+                    }
+                    return critere.test(element);
+                })
+                .collect(Collectors.toList()));
+        try {
+            return parcours.get(budget.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            abandonne.set(true);
+            parcours.cancel(true);
+            throw new IllegalStateException("Recherche interrompue : budget de " + budget.toMillis() + " ms dépassé");
+        } catch (InterruptedException e) {
+            abandonne.set(true);
+            parcours.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recherche interrompue");
+        } catch (ExecutionException e) {
+            // Exception levée par le prédicat : transmise telle quelle à l'appelant. ForkJoinTask
+            // en construit une copie qui l'enveloppe, pour y joindre la pile du thread appelant
+            Throwable cause = e.getCause();
+            if (cause.getCause() != null && cause.getCause().getClass() == cause.getClass()) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
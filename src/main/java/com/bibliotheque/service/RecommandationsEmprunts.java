@@ -0,0 +1,219 @@
+package com.bibliotheque.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recommandations « les adhérents qui ont emprunté ce livre ont aussi emprunté… », tenues à jour
+ * à chaque emprunt plutôt que recalculées sur tout l'historique.
+ *
+ * Pour chaque adhérent, seuls ses EMPRUNTS_RECENTS derniers livres sont gardés. Un emprunt
+ * renforce d'une unité le lien entre le livre emprunté et chacun de ces livres récents, dans
+ * les deux sens.
+ *
+ * Chaque livre garde au plus « capacite » voisins, triés par nombre d'emprunts communs. Quand
+ * un nouveau voisin arrive dans une liste pleine, tous les comptes de la liste baissent d'une
+ * unité, les voisins tombés à zéro sont élagués et le nouveau venu est écarté (algorithme de
+ * Misra-Gries) : il entre à son prochain emprunt commun si une place s'est libérée. Un lien faible
+ * disparaît ainsi sans déloger les liens forts. Le compte d'un voisin est sous-estimé d'au plus
+ * le nombre de ces baisses, et tout voisin qui représente plus de 1 / (capacite + 1) des
+ * emprunts communs du livre est garanti d'être suivi.
+ *
+ * La mémoire est bornée par le nombre de livres empruntés fois la capacité, plus le nombre
+ * d'adhérents fois EMPRUNTS_RECENTS. Un emprunt coûte O(EMPRUNTS_RECENTS × capacite) et une
+ * recherche ne copie que les premiers voisins de la liste, sans dépendre de l'historique.
+ */
+public class RecommandationsEmprunts {
+
+    public static final int EMPRUNTS_RECENTS = 8;
+    public static final int CAPACITE_PAR_DEFAUT = 32;
+
+    private final int empruntsRecents;
+    private final int capacite;
+    // Derniers livres empruntés par numéro de carte, dans un anneau
+    private final Map<String, Recents> recents = new HashMap<>();
+    private final Map<String, Voisins> voisins = new HashMap<>();
+
+    public RecommandationsEmprunts() {
+        this(EMPRUNTS_RECENTS, CAPACITE_PAR_DEFAUT);
+    }
+
+    /**
+     * @param empruntsRecents Nombre de derniers emprunts d'un adhérent associés à un nouvel emprunt
+     * @param capacite Nombre maximal de voisins suivis par livre
+     */
+    public RecommandationsEmprunts(int empruntsRecents, int capacite) {
+        if (empruntsRecents <= 0) {
+            throw new IllegalArgumentException("Le nombre d'emprunts récents doit être positif");
+        }
+        if (capacite <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive");
+        }
+        this.empruntsRecents = empruntsRecents;
+        this.capacite = capacite;
+    }
+
+    /**
+     * Associe le livre emprunté aux derniers livres empruntés par le même adhérent.
+     * Un livre déjà parmi ses emprunts récents ne renforce aucun lien une seconde fois.
+     */
+    public synchronized void enregistrer(String numeroCarte, String isbn) {
+        Recents derniers = recents.computeIfAbsent(numeroCarte, carte -> new Recents(empruntsRecents));
+        if (derniers.contient(isbn)) {
+            return;
+        }
+        for (int i = 0; i < derniers.taille; i++) {
+            String autre = derniers.isbns[i];
+            voisins(isbn).renforcer(autre);
+            voisins(autre).renforcer(isbn);
+        }
+        derniers.ajouter(isbn);
+    }
+
+    /**
+     * Livres le plus souvent empruntés par les mêmes adhérents que ce livre
+     * @param isbn Le livre consulté
+     * @param nombre Nombre maximal de livres retournés, au plus la capacité
+     * @return Les livres classés par nombre d'emprunts communs décroissant
+     */
+    public synchronized List<Recommandation> aussiEmpruntes(String isbn, int nombre) {
+        List<Recommandation> resultats = new ArrayList<>();
+        Voisins liste = isbn != null ? voisins.get(isbn) : null;
+        if (liste == null) {
+            return resultats;
+        }
+        for (int i = 0; i < Math.min(nombre, liste.taille); i++) {
+            resultats.add(new Recommandation(liste.isbns[i], liste.comptes[i], liste.elagages));
+        }
+        return resultats;
+    }
+
+    private Voisins voisins(String isbn) {
+        return voisins.computeIfAbsent(isbn, cle -> new Voisins(capacite));
+    }
+
+    // Anneau des derniers ISBN empruntés par un adhérent
+    private static final class Recents {
+        private final String[] isbns;
+        private int taille;
+        private int prochain;
+
+        Recents(int capacite) {
+            this.isbns = new String[capacite];
+        }
+
+        boolean contient(String isbn) {
+            for (int i = 0; i < taille; i++) {
+                if (isbns[i].equals(isbn)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void ajouter(String isbn) {
+            isbns[prochain] = isbn;
+            prochain = (prochain + 1) % isbns.length;
+            taille = Math.min(taille + 1, isbns.length);
+        }
+    }
+
+    // Voisins d'un livre, triés par compte décroissant
+    private static final class Voisins {
+        private final String[] isbns;
+        private final int[] comptes;
+        private int taille;
+        // Nombre de baisses subies : borne de la sous-estimation de chaque compte
+        private int elagages;
+
+        Voisins(int capacite) {
+            this.isbns = new String[capacite];
+            this.comptes = new int[capacite];
+        }
+
+        void renforcer(String isbn) {
+            int position = indice(isbn);
+            if (position < 0) {
+                // Liste pleine : la baisse de tous les comptes absorbe aussi le nouveau voisin,
+                // qui n'entre qu'à son prochain emprunt commun si une place s'est libérée
+                if (taille == isbns.length) {
+                    elaguer();
+                    return;
+                }
+                position = taille++;
+                isbns[position] = isbn;
+                comptes[position] = 0;
+            }
+            comptes[position]++;
+            // Remonte le voisin renforcé pour garder la liste triée
+            while (position > 0 && comptes[position - 1] < comptes[position]) {
+                echanger(position - 1, position);
+                position--;
+            }
+        }
+
+        // Baisse tous les comptes d'une unité ; les voisins à zéro, en fin de liste, disparaissent
+        private void elaguer() {
+            elagages++;
+            for (int i = 0; i < taille; i++) {
+                comptes[i]--;
+            }
+            while (taille > 0 && comptes[taille - 1] == 0) {
+                isbns[--taille] = null;
+            }
+        }
+
+        private int indice(String isbn) {
+            for (int i = 0; i < taille; i++) {
+                if (isbns[i].equals(isbn)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void echanger(int i, int j) {
+            String isbn = isbns[i];
+            isbns[i] = isbns[j];
+            isbns[j] = isbn;
+            int compte = comptes[i];
+            comptes[i] = comptes[j];
+            comptes[j] = compte;
+        }
+    }
+
+    /**
+     * Un livre recommandé
+     */
+    public static class Recommandation {
+        private final String isbn;
+        private final int nombreEmpruntsCommuns;
+        private final int erreurMaximale;
+
+        public Recommandation(String isbn, int nombreEmpruntsCommuns, int erreurMaximale) {
+            this.isbn = isbn;
+            this.nombreEmpruntsCommuns = nombreEmpruntsCommuns;
+            this.erreurMaximale = erreurMaximale;
+        }
+
+        public String getIsbn() {
+            return isbn;
+        }
+
+        // Nombre d'emprunts rapprochés des deux livres par un même adhérent, sous-estimé d'au plus getErreurMaximale()
+        public int getNombreEmpruntsCommuns() {
+            return nombreEmpruntsCommuns;
+        }
+
+        public int getErreurMaximale() {
+            return erreurMaximale;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d emprunts communs", isbn, nombreEmpruntsCommuns);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lot de retours scannés par la boîte de retour automatique, à traiter avant l'ouverture.
+ *
+ * Le fichier de la nuit est lu ligne par ligne : un code-barres d'exemplaire par ligne,
+ * éventuellement suivi de champs séparés par « ; » (horodatage du scan...) qui sont ignorés.
+ * Les lignes vides et les commentaires (#) sont sautés, un exemplaire scanné plusieurs fois
+ * n'est rendu qu'une fois.
+ *
+ * Les codes-barres sont d'abord résolus en emprunts en cours, puis les retours sont regroupés
+ * par adhérent et passent chacun par retournerLivre : l'exemplaire est libéré, les retards de
+ * l'adhérent mis à jour et la file des réservations servie. L'adhérent est verrouillé le temps
+ * de ses retours. Sur une façade partitionnée, chaque partition rend en parallèle les
+ * exemplaires de ses propres livres (voir BibliothequeServicePartitionne.retournerLot).
+ */
+public class RetoursEnLot {
+
+    static final String INCONNU = "Exemplaire inconnu ou non emprunté";
+    static final String AMBIGU = "Code-barres reconnu par plusieurs partitions";
+
+    /**
+     * Scan écarté du lot, avec son motif
+     */
+    public static final class Rejet {
+        private final String scan;
+        private final String motif;
+
+        Rejet(String scan, String motif) {
+            this.scan = scan;
+            this.motif = motif;
+        }
+
+        public String getScan() {
+            return scan;
+        }
+
+        public String getMotif() {
+            return motif;
+        }
+
+        @Override
+        public String toString() {
+            return scan + " : " + motif;
+        }
+    }
+
+    /**
+     * Résumé du traitement d'un lot
+     */
+    public static final class Bilan {
+        private int scans;
+        private int doublons;
+        private int retours;
+        private final List<Rejet> rejets = new ArrayList<>();
+        // Jours de retard ajoutés par le lot, par numéro de carte
+        private final Map<String, Integer> joursRetard = new LinkedHashMap<>();
+        private Duration duree = Duration.ZERO;
+
+        void rejeter(String scan, String motif) {
+            rejets.add(new Rejet(scan, motif));
+        }
+
+        void fusionner(Bilan partiel) {
+            retours += partiel.retours;
+            rejets.addAll(partiel.rejets);
+            partiel.joursRetard.forEach((carte, jours) -> joursRetard.merge(carte, jours, Integer::sum));
+        }
+
+        void terminer(long debut) {
+            duree = Duration.ofNanos(System.nanoTime() - debut);
+        }
+
+        /**
+         * @return Le nombre de lignes de scan lues, doublons et lignes illisibles compris
+         */
+        public int getNombreScans() {
+            return scans;
+        }
+
+        public int getNombreDoublons() {
+            return doublons;
+        }
+
+        public int getNombreRetours() {
+            return retours;
+        }
+
+        public List<Rejet> getRejets() {
+            return Collections.unmodifiableList(rejets);
+        }
+
+        /**
+         * @return Les jours de retard ajoutés par numéro de carte, pour les seuls adhérents en retard
+         */
+        public Map<String, Integer> getJoursRetard() {
+            return Collections.unmodifiableMap(joursRetard);
+        }
+
+        /**
+         * @return Le total des frais de retard ajoutés par le lot
+         */
+        public double getFraisRetard() {
+            int total = 0;
+            for (int jours : joursRetard.values()) {
+                total += jours;
+            }
+            return Emprunt.calculerFrais(total);
+        }
+
+        public Duration getDuree() {
+            return duree;
+        }
+
+        /**
+         * Imprime le résumé du lot, puis chaque retardataire et chaque rejet
+         */
+        public void imprimer(PrintStream sortie) {
+            sortie.printf("%d scans, %d retours, %d doublons, %d rejets en %d ms%n",
+                    scans, retours, doublons, rejets.size(), duree.toMillis());
+            joursRetard.forEach((carte, jours) -> sortie.printf("  retard %s : %d jours, %.2f €%n",
+                    carte, jours, Emprunt.calculerFrais(jours)));
+            for (Rejet rejet : rejets) {
+                sortie.printf("  rejet %s%n", rejet);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Bilan{scans=%d, retours=%d, doublons=%d, rejets=%d, retardataires=%d, frais=%.2f}",
+                    scans, retours, doublons, rejets.size(), joursRetard.size(), getFraisRetard());
+        }
+    }
+
+    // Codes-barres distincts, dans l'ordre du premier scan
+    private final long[] codesBarres;
+    private final int scans;
+    private final List<Rejet> illisibles;
+
+    private RetoursEnLot(long[] codesBarres, int scans, List<Rejet> illisibles) {
+        this.codesBarres = codesBarres;
+        this.scans = scans;
+        this.illisibles = illisibles;
+    }
+
+    /**
+     * Lit un fichier de scans
+     * @param fichier Fichier texte UTF-8 de la boîte de retour
+     * @return Le lot, prêt à être appliqué
+     */
+    public static RetoursEnLot lire(Path fichier) throws IOException {
+        try (BufferedReader lecteur = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            return lire(lecteur);
+        }
+    }
+
+    /**
+     * Lit des scans jusqu'à la fin du flux, sans le fermer
+     */
+    public static RetoursEnLot lire(BufferedReader lecteur) throws IOException {
+        Set<Long> distincts = new LinkedHashSet<>();
+        List<Rejet> illisibles = new ArrayList<>();
+        int scans = 0;
+        int numeroLigne = 0;
+        String ligne;
+        while ((ligne = lecteur.readLine()) != null) {
+            numeroLigne++;
+            int separateur = ligne.indexOf(';');
+            String scan = (separateur >= 0 ? ligne.substring(0, separateur) : ligne).trim();
+            if (scan.isEmpty() || scan.startsWith("#")) {
+                continue;
+            }
+            scans++;
+            long codeBarre = codeBarre(scan);
+            if (codeBarre <= 0) {
+                illisibles.add(new Rejet(scan, "Code-barres illisible (ligne " + numeroLigne + ")"));
+            } else {
+                distincts.add(codeBarre);
+            }
+        }
+        return new RetoursEnLot(versTableau(distincts), scans, illisibles);
+    }
+
+    /**
+     * Lot construit à partir de codes-barres déjà lus
+     */
+    public static RetoursEnLot de(long... codesBarres) {
+        Set<Long> distincts = new LinkedHashSet<>();
+        List<Rejet> illisibles = new ArrayList<>();
+        for (long codeBarre : codesBarres) {
+            if (codeBarre <= 0) {
+                illisibles.add(new Rejet(String.valueOf(codeBarre), "Code-barres illisible"));
+            } else {
+                distincts.add(codeBarre);
+            }
+        }
+        return new RetoursEnLot(versTableau(distincts), codesBarres.length, illisibles);
+    }
+
+    /**
+     * @return Le nombre d'exemplaires distincts scannés
+     */
+    public int getNombreExemplaires() {
+        return codesBarres.length;
+    }
+
+    /**
+     * Applique le lot sur un service, depuis le thread qui le modifie
+     */
+    Bilan appliquer(BibliothequeService service) {
+        long debut = System.nanoTime();
+        Map<Long, Emprunt> emprunts = resoudre(service);
+        Bilan bilan = bilan();
+        departager(List.of(emprunts), bilan);
+        bilan.fusionner(rendre(service, emprunts));
+        bilan.terminer(debut);
+        return bilan;
+    }
+
+    // Bilan initial : scans lus, doublons et lignes illisibles
+    Bilan bilan() {
+        Bilan bilan = new Bilan();
+        bilan.scans = scans;
+        bilan.doublons = scans - illisibles.size() - codesBarres.length;
+        bilan.rejets.addAll(illisibles);
+        return bilan;
+    }
+
+    // Emprunts en cours des exemplaires scannés que le service connaît ; ne modifie rien
+    Map<Long, Emprunt> resoudre(BibliothequeService service) {
+        Exemplaires exemplaires = service.exemplaires();
+        Map<Long, Emprunt> emprunts = new HashMap<>();
+        for (long codeBarre : codesBarres) {
+            Emprunt emprunt = exemplaires.emprunt(codeBarre);
+            if (emprunt != null) {
+                emprunts.put(codeBarre, emprunt);
+            }
+        }
+        return emprunts;
+    }
+
+    // Rejette les codes qu'aucun service ne reconnaît, et ceux que plusieurs reconnaissent
+    void departager(List<Map<Long, Emprunt>> resolutions, Bilan bilan) {
+        Map<Long, Integer> reconnus = new HashMap<>();
+        for (Map<Long, Emprunt> emprunts : resolutions) {
+            for (Long codeBarre : emprunts.keySet()) {
+                reconnus.merge(codeBarre, 1, Integer::sum);
+            }
+        }
+        for (long codeBarre : codesBarres) {
+            Integer nombre = reconnus.get(codeBarre);
+            if (nombre == null) {
+                bilan.rejeter(String.valueOf(codeBarre), INCONNU);
+            } else if (nombre > 1) {
+                bilan.rejeter(String.valueOf(codeBarre), AMBIGU);
+            }
+        }
+        for (Map<Long, Emprunt> emprunts : resolutions) {
+            emprunts.keySet().removeIf(codeBarre -> reconnus.get(codeBarre) > 1);
+        }
+    }
+
+    // Rend les emprunts résolus, adhérent par adhérent dans l'ordre des scans
+    Bilan rendre(BibliothequeService service, Map<Long, Emprunt> emprunts) {
+        Map<Adherent, List<Long>> parAdherent = new LinkedHashMap<>();
+        for (long codeBarre : codesBarres) {
+            Emprunt emprunt = emprunts.get(codeBarre);
+            if (emprunt != null) {
+                parAdherent.computeIfAbsent(emprunt.getAdherent(), a -> new ArrayList<>()).add(codeBarre);
+            }
+        }
+        Bilan bilan = new Bilan();
+        for (Map.Entry<Adherent, List<Long>> groupe : parAdherent.entrySet()) {
+            Adherent adherent = groupe.getKey();
+            // Retards comptés emprunt par emprunt : d'autres partitions peuvent modifier l'adhérent
+            // pendant le lot, et le service ne le verrouille que le temps de chaque retour
+            int jours = 0;
+            for (long codeBarre : groupe.getValue()) {
+                Emprunt emprunt = emprunts.get(codeBarre);
+                int joursRetard = emprunt.calculerJoursRetard();
+                try {
+                    service.retournerLivre(emprunt);
+                    bilan.retours++;
+                    jours += joursRetard;
+                } catch (IllegalStateException e) {
+                    // Rendu entre la résolution et le retour, par exemple au guichet
+                    bilan.rejeter(String.valueOf(codeBarre), e.getMessage());
+                }
+            }
+            if (jours > 0) {
+                bilan.joursRetard.merge(adherent.getNumeroCarte(), jours, Integer::sum);
+            }
+        }
+        return bilan;
+    }
+
+    private static long codeBarre(String scan) {
+        try {
+            return Long.parseLong(scan);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static long[] versTableau(Set<Long> codesBarres) {
+        long[] tableau = new long[codesBarres.size()];
+        int i = 0;
+        for (long codeBarre : codesBarres) {
+            tableau[i++] = codeBarre;
+        }
+        return tableau;
+    }
+}
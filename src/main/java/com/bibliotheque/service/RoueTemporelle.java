@@ -0,0 +1,92 @@
+package com.bibliotheque.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Roue temporelle à granularité journalière pour les échéances (retraits de réservations).
+ *
+ * Une échéance au jour j est rangée dans la case j modulo le nombre de cases. Faire avancer la
+ * roue d'un jour ne visite qu'une case : planifier et avancer coûtent O(1) amorti, quel que soit
+ * le nombre d'échéances en attente. Une échéance plus lointaine que le tour de roue reste dans sa
+ * case jusqu'au bon passage. Les échéances annulées ne sont pas retirées : le destinataire ignore
+ * celles qui ne sont plus valides. Non thread-safe.
+ */
+final class RoueTemporelle<T> {
+
+    private final List<List<Echeance<T>>> cases;
+    private long jourCourant;
+    private int taille;
+
+    /**
+     * @param nombreCases Nombre de cases, idéalement supérieur au délai usuel des échéances
+     * @param jourInitial Jour (epoch day) à partir duquel la roue avance
+     */
+    RoueTemporelle(int nombreCases, long jourInitial) {
+        if (nombreCases <= 0) {
+            throw new IllegalArgumentException("Le nombre de cases doit être positif");
+        }
+        this.cases = new ArrayList<>(nombreCases);
+        for (int i = 0; i < nombreCases; i++) {
+            cases.add(new ArrayList<>());
+        }
+        this.jourCourant = jourInitial;
+    }
+
+    /**
+     * Planifie un élément pour le jour donné ; un jour déjà passé expire au prochain avancement
+     */
+    void planifier(T element, long jour) {
+        long echeance = Math.max(jour, jourCourant + 1);
+        cases.get(position(echeance)).add(new Echeance<>(element, echeance));
+        taille++;
+    }
+
+    /**
+     * Avance la roue jusqu'au jour donné inclus et remet les éléments échus
+     */
+    void avancer(long jour, Consumer<T> echus) {
+        if (jour <= jourCourant) {
+            return;
+        }
+        // Au-delà d'un tour complet, chaque case n'a besoin d'être visitée qu'une fois
+        long debut = Math.max(jourCourant + 1, jour - cases.size() + 1);
+        jourCourant = jour;
+        for (long j = debut; j <= jour; j++) {
+            List<Echeance<T>> echeances = cases.get(position(j));
+            if (echeances.isEmpty()) {
+                continue;
+            }
+            List<T> prets = new ArrayList<>();
+            echeances.removeIf(echeance -> {
+                if (echeance.jour <= jour) {
+                    prets.add(echeance.element);
+                    return true;
+                }
+                return false;
+            });
+            taille -= prets.size();
+            // Les éléments sont remis après la mise à jour de la case : le destinataire peut replanifier
+            prets.forEach(echus);
+        }
+    }
+
+    int taille() {
+        return taille;
+    }
+
+    private int position(long jour) {
+        return (int) Math.floorMod(jour, (long) cases.size());
+    }
+
+    private static final class Echeance<T> {
+        private final T element;
+        private final long jour;
+
+        Echeance(T element, long jour) {
+            this.element = element;
+            this.jour = jour;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.bibliotheque.service;
+
+import java.util.Arrays;
+
+/**
+ * Compteurs par période (jour, heure...) dans un anneau de taille fixe de long.
+ *
+ * La période p est rangée dans la case p modulo la capacité ; une case est remise à zéro
+ * quand une période plus récente la réutilise. Seules les « capacite » dernières périodes
+ * sont donc conservées. Un incrément est en O(1) sans allocation. Non thread-safe.
+ */
+final class SerieTemporelle {
+
+    private final long[] valeurs;
+    // Période couverte par chaque case, Long.MIN_VALUE si vide
+    private final long[] periodes;
+    private long plusRecente = Long.MIN_VALUE;
+
+    SerieTemporelle(int capacite) {
+        if (capacite <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive");
+        }
+        this.valeurs = new long[capacite];
+        this.periodes = new long[capacite];
+        Arrays.fill(periodes, Long.MIN_VALUE);
+    }
+
+    int capacite() {
+        return valeurs.length;
+    }
+
+    /**
+     * Incrémente le compteur d'une période ; ignoré si la période n'est plus conservée
+     */
+    void incrementer(long periode) {
+        if (plusRecente != Long.MIN_VALUE && periode <= plusRecente - valeurs.length) {
+            return;
+        }
+        int position = position(periode);
+        if (periodes[position] != periode) {
+            periodes[position] = periode;
+            valeurs[position] = 0;
+        }
+        valeurs[position]++;
+        plusRecente = Math.max(plusRecente, periode);
+    }
+
+    long valeur(long periode) {
+        int position = position(periode);
+        return periodes[position] == periode ? valeurs[position] : 0;
+    }
+
+    /**
+     * Somme des compteurs des périodes debut à fin incluses (0 pour les périodes non conservées)
+     */
+    long somme(long debut, long fin) {
+        long total = 0;
+        for (long periode = Math.max(debut, fin - valeurs.length + 1); periode <= fin; periode++) {
+            total += valeur(periode);
+        }
+        return total;
+    }
+
+    /**
+     * Compteurs des périodes debut à fin incluses, de la plus ancienne à la plus récente
+     */
+    long[] valeurs(long debut, long fin) {
+        if (fin < debut) {
+            return new long[0];
+        }
+        long[] resultat = new long[(int) Math.min(Integer.MAX_VALUE - 8, fin - debut + 1)];
+        for (int i = 0; i < resultat.length; i++) {
+            resultat[i] = valeur(debut + i);
+        }
+        return resultat;
+    }
+
+    private int position(long periode) {
+        return (int) Math.floorMod(periode, (long) valeurs.length);
+    }
+}
@@ -0,0 +1,374 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.stockage.CatalogueMemoire;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réplica en lecture seule d'un service principal, alimenté par son JournalReplication.
+ *
+ * Un thread dédié suit le fichier du journal et rejoue chaque enregistrement, dans l'ordre, sur
+ * un BibliothequeService local dont l'horloge est placée à la date de l'opération d'origine.
+ * Les lectures (recherches, listes, statistiques) sont servies depuis les instantanés de ce
+ * service local, sans jamais bloquer l'application du journal. Plusieurs réplicas peuvent suivre
+ * le même journal, dans d'autres processus de la même machine.
+ *
+ * Le retard de réplication est exposé en octets de journal non appliqués et en millisecondes.
+ * Un enregistrement qui ne peut pas être rejoué (journal d'un autre service, fichier tronqué)
+ * arrête le réplica : getErreur() le signale et le retard continue de croître.
+ */
+public class ServiceSuiveur implements AutoCloseable {
+
+    private static final long ATTENTE_PAR_DEFAUT_MS = 5;
+    private static final int TAILLE_TAMPON = 512 * 1024;
+
+    private final Path fichier;
+    private final long attenteMs;
+    private final HorlogeSimulee horloge;
+    private final BibliothequeService service;
+    private final Thread lecteur;
+    // Emprunts non rendus et réservations actives du réplica, retrouvés par ISBN et carte
+    private final Map<String, Deque<Emprunt>> empruntsOuverts = new HashMap<>();
+    private final Map<String, Reservation> reservationsActives = new HashMap<>();
+
+    private volatile boolean ouvert = true;
+    private volatile long sequenceAppliquee = -1;
+    private volatile long positionAppliquee;
+    private volatile long horodatageApplique;
+    private volatile RuntimeException erreur;
+
+    public ServiceSuiveur(Path fichier) {
+        this(fichier, ATTENTE_PAR_DEFAUT_MS);
+    }
+
+    /**
+     * Démarre le suivi du journal ; le fichier peut ne pas encore exister
+     * @param fichier Le fichier du journal du service principal
+     * @param attenteMs Pause entre deux lectures quand le réplica est à jour
+     */
+    public ServiceSuiveur(Path fichier, long attenteMs) {
+        if (fichier == null) {
+            throw new IllegalArgumentException("Le fichier ne peut pas être null");
+        }
+        if (attenteMs <= 0) {
+            throw new IllegalArgumentException("L'attente doit être positive");
+        }
+        this.fichier = fichier;
+        this.attenteMs = attenteMs;
+        this.horloge = new HorlogeSimulee(LocalDate.EPOCH);
+        this.service = new BibliothequeService(new CatalogueMemoire(), horloge);
+        this.service.activerInstantanes();
+        this.lecteur = new Thread(this::suivre, "bibliotheque-suiveur");
+        this.lecteur.setDaemon(true);
+        this.lecteur.start();
+    }
+
+    // Lectures sur le dernier état répliqué
+
+    public Instantane instantane() {
+        return service.instantane();
+    }
+
+    public Livre rechercherLivreParIsbn(String isbn) {
+        return service.instantane().rechercherLivreParIsbn(isbn);
+    }
+
+    public List<Livre> rechercherLivreParTitre(String titre) {
+        return service.instantane().rechercherLivreParTitre(titre);
+    }
+
+    public List<Livre> rechercherLivreParAuteur(String auteur) {
+        return service.instantane().rechercherLivreParAuteur(auteur);
+    }
+
+    public Adherent rechercherAdherent(String numeroCarte) {
+        return service.instantane().rechercherAdherent(numeroCarte);
+    }
+
+    public Adherent rechercherAdherentParEmail(String email) {
+        Adherent adherent = service.rechercherAdherentParEmail(email);
+        return adherent != null ? service.instantane().rechercherAdherent(adherent.getNumeroCarte()) : null;
+    }
+
+    public List<Adherent> rechercherAdherentsParNom(String texte, int max) {
+        return service.figer(service.rechercherAdherentsParNom(texte, max));
+    }
+
+    public List<Emprunt> listerEmpruntsAdherent(String numeroCarte) {
+        return service.instantane().listerEmpruntsAdherent(numeroCarte);
+    }
+
+    public List<Emprunt> listerEmpruntsEnCours() {
+        return service.instantane().listerEmpruntsEnCours();
+    }
+
+    public BibliothequeService.Statistiques obtenirStatistiques() {
+        return service.instantane().obtenirStatistiques();
+    }
+
+    public List<PopulariteEmprunts.Entree> livresLesPlusEmpruntes(int nombre, int nombreJours) {
+        return service.livresLesPlusEmpruntes(nombre, nombreJours);
+    }
+
+    public List<RecommandationsEmprunts.Recommandation> livresAussiEmpruntes(String isbn, int nombre) {
+        return service.livresAussiEmpruntes(isbn, nombre);
+    }
+
+    public List<Exemplaires.Exemplaire> listerExemplaires(String isbn) {
+        return service.exemplaires().lister(service.instantane().rechercherLivreParIsbn(isbn));
+    }
+
+    public Exemplaires.Exemplaire rechercherExemplaire(long codeBarre) {
+        return service.rechercherExemplaire(codeBarre);
+    }
+
+    // Suivi de la réplication
+
+    /**
+     * @return La séquence du dernier enregistrement appliqué, -1 si aucun
+     */
+    public long getSequenceAppliquee() {
+        return sequenceAppliquee;
+    }
+
+    /**
+     * @return Le nombre d'octets écrits dans le journal et pas encore appliqués
+     */
+    public long getRetardOctets() {
+        try {
+            return Math.max(0, Files.size(fichier) - positionAppliquee);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Retard en temps : zéro si tout le journal écrit est appliqué, sinon l'ancienneté de la
+     * dernière modification appliquée (borne supérieure du retard réel)
+     * @return Le retard en millisecondes
+     */
+    public long getRetardMillis() {
+        if (getRetardOctets() == 0) {
+            return 0;
+        }
+        long horodatage = horodatageApplique;
+        return horodatage == 0 ? 0 : Math.max(0, System.currentTimeMillis() - horodatage);
+    }
+
+    /**
+     * Attend que le réplica ait appliqué une séquence donnée
+     * @return true si la séquence est appliquée avant la fin du délai
+     */
+    public boolean attendreSequence(long sequence, long delai, TimeUnit unite) throws InterruptedException {
+        long limite = System.nanoTime() + unite.toNanos(delai);
+        while (sequenceAppliquee < sequence) {
+            if (erreur != null || System.nanoTime() >= limite) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    /**
+     * @return L'erreur qui a arrêté la réplication, ou null
+     */
+    public RuntimeException getErreur() {
+        return erreur;
+    }
+
+    @Override
+    public void close() {
+        // Pas d'interruption : elle fermerait le canal en pleine lecture
+        ouvert = false;
+        try {
+            lecteur.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Application du journal
+
+    private void suivre() {
+        ByteBuffer tampon = ByteBuffer.allocate(TAILLE_TAMPON);
+        FileChannel canal = null;
+        long position = 0;
+        try {
+            while (ouvert) {
+                if (canal == null) {
+                    canal = ouvrir();
+                    if (canal == null) {
+                        Thread.sleep(attenteMs);
+                        continue;
+                    }
+                }
+                if (canal.size() < position) {
+                    throw new IllegalStateException("Le journal a été tronqué : le service principal a redémarré");
+                }
+                int lus = canal.read(tampon, position + tampon.position());
+                if (lus <= 0) {
+                    Thread.sleep(attenteMs);
+                    continue;
+                }
+                tampon.flip();
+                while (tampon.remaining() >= 4 && tampon.remaining() >= 4 + tampon.getInt(tampon.position())) {
+                    int debut = tampon.position();
+                    int longueur = tampon.getInt();
+                    appliquer(tampon);
+                    position += 4 + longueur;
+                    tampon.position(debut + 4 + longueur);
+                    positionAppliquee = position;
+                }
+                // Enregistrement incomplet : il sera relu avec la suite
+                tampon.compact();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            erreur = new IllegalStateException("Lecture du journal impossible : " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            erreur = e;
+        } finally {
+            if (canal != null) {
+                try {
+                    canal.close();
+                } catch (IOException e) {
+                    // Fermeture en fin de suivi : rien à faire de plus
+                }
+            }
+        }
+    }
+
+    private FileChannel ouvrir() throws IOException {
+        try {
+            return FileChannel.open(fichier, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void appliquer(ByteBuffer enregistrement) {
+        long sequence = enregistrement.getLong();
+        long horodatage = enregistrement.getLong();
+        long jour = enregistrement.getLong();
+        JournalReplication.Operation operation = JournalReplication.Operation.values()[enregistrement.get()];
+        String[] champs = new String[enregistrement.get()];
+        for (int i = 0; i < champs.length; i++) {
+            byte[] octets = new byte[enregistrement.getShort()];
+            enregistrement.get(octets);
+            champs[i] = new String(octets, StandardCharsets.UTF_8);
+        }
+        if (sequence != sequenceAppliquee + 1) {
+            throw new IllegalStateException("Séquence " + sequence + " reçue après " + sequenceAppliquee);
+        }
+
+        horloge.fixer(LocalDate.ofEpochDay(jour));
+        switch (operation) {
+            case AJOUT_LIVRE:
+                Livre livre = new Livre(champs[0], champs[1], champs[2], Integer.parseInt(champs[3]), horloge);
+                livre.ajouterExemplaires(Integer.parseInt(champs[4]) - livre.getNombreExemplaires());
+                service.ajouterLivre(livre);
+                break;
+            case INSCRIPTION:
+                service.inscrireAdherent(new Adherent(champs[0], champs[1], champs[2], champs[3],
+                        LocalDate.ofEpochDay(Long.parseLong(champs[4]))));
+                break;
+            case EMPRUNT:
+                ouvrir(service.emprunterLivre(champs[0], champs[1]));
+                break;
+            case RETOUR:
+                service.retournerLivre(fermer(champs));
+                break;
+            case PROLONGATION:
+                service.prolongerEmprunt(emprunt(champs));
+                break;
+            case RETARD:
+                service.signalerRetard(emprunt(champs));
+                break;
+            case RESERVATION:
+                reservationsActives.put(cle(champs[0], champs[1]), service.reserverLivre(champs[0], champs[1]));
+                break;
+            case RETRAIT:
+                ouvrir(service.retirerReservation(reservation(champs)));
+                break;
+            case ANNULATION:
+                service.annulerReservation(reservation(champs));
+                break;
+            case EXPIRATION:
+                service.expirerReservations();
+                break;
+            case EXEMPLAIRES:
+                service.ajouterExemplaires(champs[0], Integer.parseInt(champs[1]), Integer.parseInt(champs[2]));
+                break;
+            default:
+                throw new IllegalStateException("Opération inconnue : " + operation);
+        }
+        horodatageApplique = horodatage;
+        sequenceAppliquee = sequence;
+    }
+
+    private void ouvrir(Emprunt emprunt) {
+        empruntsOuverts.computeIfAbsent(cle(emprunt.getLivre().getIsbn(), emprunt.getAdherent().getNumeroCarte()),
+                cle -> new ArrayDeque<>()).addLast(emprunt);
+    }
+
+    private Emprunt fermer(String[] champs) {
+        String cle = cle(champs[0], champs[1]);
+        Emprunt emprunt = emprunt(champs);
+        Deque<Emprunt> ouverts = empruntsOuverts.get(cle);
+        ouverts.remove(emprunt);
+        if (ouverts.isEmpty()) {
+            empruntsOuverts.remove(cle);
+        }
+        return emprunt;
+    }
+
+    // Emprunt non rendu d'un livre par un adhérent, fait le jour indiqué sur l'exemplaire indiqué
+    // (les codes-barres se calculent de la même façon sur le réplica et le service principal)
+    private Emprunt emprunt(String[] champs) {
+        Deque<Emprunt> ouverts = empruntsOuverts.get(cle(champs[0], champs[1]));
+        long jourEmprunt = Long.parseLong(champs[2]);
+        long codeBarre = champs.length > 3 ? Long.parseLong(champs[3]) : Exemplaires.AUCUN;
+        if (ouverts != null) {
+            for (Emprunt emprunt : ouverts) {
+                if (emprunt.getDateEmprunt().toEpochDay() == jourEmprunt
+                        && (codeBarre == Exemplaires.AUCUN || emprunt.getCodeBarreExemplaire() == codeBarre)) {
+                    return emprunt;
+                }
+            }
+        }
+        throw new IllegalStateException("Emprunt introuvable dans le réplica : " + champs[0] + " / " + champs[1]);
+    }
+
+    private Reservation reservation(String[] champs) {
+        Reservation reservation = reservationsActives.remove(cle(champs[0], champs[1]));
+        if (reservation == null) {
+            throw new IllegalStateException("Réservation introuvable dans le réplica : " + champs[0] + " / " + champs[1]);
+        }
+        return reservation;
+    }
+
+    private static String cle(String isbn, String numeroCarte) {
+        return isbn + '\n' + numeroCarte;
+    }
+}
@@ -0,0 +1,139 @@
+package com.bibliotheque.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Compteurs approchés des éléments les plus fréquents d'un flux (algorithme Space-Saving).
+ *
+ * Au plus « capacite » éléments sont suivis. Quand un élément inconnu arrive et que tous les
+ * compteurs sont pris, il remplace l'élément le moins compté et hérite de son compte : le compte
+ * d'un élément est donc surestimé d'au plus son erreur. Tout élément apparu plus de
+ * total / capacite fois est garanti d'être suivi.
+ *
+ * Les compteurs sont rangés dans un tas-min pour trouver le moins compté en O(1) ; un
+ * enregistrement coûte O(log capacite). Non thread-safe.
+ */
+final class SommaireSpaceSaving {
+
+    private final int capacite;
+    private final Map<String, Compteur> compteurs;
+    private final Compteur[] tas;
+    private int taille;
+
+    SommaireSpaceSaving(int capacite) {
+        if (capacite <= 0) {
+            throw new IllegalArgumentException("La capacité doit être positive");
+        }
+        this.capacite = capacite;
+        this.compteurs = new HashMap<>(capacite * 2);
+        this.tas = new Compteur[capacite];
+    }
+
+    void enregistrer(String cle) {
+        Compteur compteur = compteurs.get(cle);
+        if (compteur != null) {
+            compteur.nombre++;
+            descendre(compteur.position);
+            return;
+        }
+
+        if (taille < capacite) {
+            compteur = new Compteur(cle);
+            compteur.nombre = 1;
+            compteur.position = taille;
+            tas[taille++] = compteur;
+            compteurs.put(cle, compteur);
+            monter(compteur.position);
+            return;
+        }
+
+        // Remplace l'élément le moins compté, dont le compte devient l'erreur du nouveau
+        Compteur minimum = tas[0];
+        compteurs.remove(minimum.cle);
+        minimum.cle = cle;
+        minimum.erreur = minimum.nombre;
+        minimum.nombre++;
+        compteurs.put(cle, minimum);
+        descendre(0);
+    }
+
+    /**
+     * Parcourt les éléments suivis avec leur compte estimé et leur erreur maximale
+     */
+    void parcourir(ObjIntConsumer<String> nombre, ObjIntConsumer<String> erreur) {
+        for (int i = 0; i < taille; i++) {
+            nombre.accept(tas[i].cle, tas[i].nombre);
+            erreur.accept(tas[i].cle, tas[i].erreur);
+        }
+    }
+
+    int taille() {
+        return taille;
+    }
+
+    /**
+     * @return Le plus petit compte suivi si tous les compteurs sont pris, 0 sinon : un élément
+     *         absent d'un sommaire plein peut avoir été vu jusqu'à ce nombre de fois
+     */
+    int minimum() {
+        return taille == capacite ? tas[0].nombre : 0;
+    }
+
+    void vider() {
+        compteurs.clear();
+        for (int i = 0; i < taille; i++) {
+            tas[i] = null;
+        }
+        taille = 0;
+    }
+
+    private void monter(int position) {
+        Compteur compteur = tas[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (tas[parent].nombre <= compteur.nombre) {
+                break;
+            }
+            placer(tas[parent], position);
+            position = parent;
+        }
+        placer(compteur, position);
+    }
+
+    private void descendre(int position) {
+        Compteur compteur = tas[position];
+        while (true) {
+            int enfant = 2 * position + 1;
+            if (enfant >= taille) {
+                break;
+            }
+            if (enfant + 1 < taille && tas[enfant + 1].nombre < tas[enfant].nombre) {
+                enfant++;
+            }
+            if (compteur.nombre <= tas[enfant].nombre) {
+                break;
+            }
+            placer(tas[enfant], position);
+            position = enfant;
+        }
+        placer(compteur, position);
+    }
+
+    private void placer(Compteur compteur, int position) {
+        tas[position] = compteur;
+        compteur.position = position;
+    }
+
+    private static final class Compteur {
+        private String cle;
+        private int nombre;
+        private int erreur;
+        private int position;
+
+        Compteur(String cle) {
+            this.cle = cle;
+        }
+    }
+}
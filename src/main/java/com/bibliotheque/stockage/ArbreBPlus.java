@@ -0,0 +1,500 @@
+package com.bibliotheque.stockage;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+
+/**
+ * Arbre B+ rangé dans les pages d'un PoolPages, à clés et valeurs binaires de taille variable.
+ * Les clés sont comparées octet par octet, sans signe.
+ *
+ * Chaque page est organisée en cases : un en-tête, puis un tableau de décalages trié par clé
+ * qui grandit vers la fin de la page, et les cellules écrites depuis la fin de la page vers
+ * le début. Une feuille range des cellules (clé, valeur) et connaît la feuille suivante, ce
+ * qui permet les parcours par plage ; une page interne range des cellules (clé, enfant) et
+ * son premier enfant dans l'en-tête.
+ *
+ * Une valeur de même longueur est remplacée sur place : seule sa page est réécrite. Les
+ * suppressions ne fusionnent pas les pages, la place libérée est récupérée au compactage.
+ *
+ * Une position (page, case) reste valide tant que getVersion() ne change pas : la version
+ * augmente à chaque insertion ou suppression de clé.
+ */
+final class ArbreBPlus {
+
+    static final long AUCUNE = -1;
+
+    // En-tête d'une page (en octets)
+    private static final int TYPE = 0;
+    private static final int NOMBRE = 2;
+    private static final int DEBUT_CELLULES = 4;
+    private static final int LIEN = 8;
+    private static final int ENTETE = 16;
+
+    private static final byte FEUILLE = 1;
+    private static final byte INTERNE = 2;
+    private static final int AUCUN_LIEN = -1;
+
+    private final PoolPages pool;
+    private int racine;
+    private long version;
+    // Positionné par une insertion dont la clé n'existait pas
+    private boolean cleAjoutee;
+
+    ArbreBPlus(PoolPages pool, int racine) {
+        this.pool = pool;
+        this.racine = racine;
+    }
+
+    /**
+     * Crée un arbre vide dans une nouvelle page du pool
+     */
+    static ArbreBPlus creer(PoolPages pool) {
+        int page = pool.nouvellePage();
+        int cadre = pool.epingler(page);
+        try {
+            initialiser(pool.page(cadre), FEUILLE, AUCUN_LIEN);
+        } finally {
+            pool.liberer(cadre);
+        }
+        return new ArbreBPlus(pool, page);
+    }
+
+    int getRacine() {
+        return racine;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * Taille maximale d'une entrée (clé et valeur) : quatre entrées tiennent toujours dans une page,
+     * ce qui garantit qu'une page scindée en deux a la place de recevoir la nouvelle entrée
+     */
+    int tailleMaxEntree() {
+        return (pool.getTaillePage() - ENTETE) / 4 - 8;
+    }
+
+    // Recherche
+
+    /**
+     * @return La position de la clé, ou AUCUNE si elle est absente
+     */
+    long localiser(byte[] cle) {
+        int page = feuille(cle);
+        int cadre = pool.epingler(page);
+        try {
+            int casePage = rechercher(pool.page(cadre), cle);
+            return casePage < 0 ? AUCUNE : position(page, casePage);
+        } finally {
+            pool.liberer(cadre);
+        }
+    }
+
+    int lireInt(long position, int decalage) {
+        int cadre = pool.epingler(page(position));
+        try {
+            ByteBuffer page = pool.page(cadre);
+            return page.getInt(debutValeur(page, casePage(position)) + decalage);
+        } finally {
+            pool.liberer(cadre);
+        }
+    }
+
+    /**
+     * Modifie un entier de la valeur sur place ; la page sera réécrite à son éviction
+     */
+    void ecrireInt(long position, int decalage, int valeur) {
+        int cadre = pool.epingler(page(position));
+        try {
+            ByteBuffer page = pool.page(cadre);
+            page.putInt(debutValeur(page, casePage(position)) + decalage, valeur);
+            pool.marquerSale(cadre);
+        } finally {
+            pool.liberer(cadre);
+        }
+    }
+
+    byte[] lireValeur(long position) {
+        int cadre = pool.epingler(page(position));
+        try {
+            ByteBuffer page = pool.page(cadre);
+            int cellule = cellule(page, casePage(position));
+            byte[] valeur = new byte[page.getChar(cellule + 2)];
+            page.get(cellule + 4 + page.getChar(cellule), valeur);
+            return valeur;
+        } finally {
+            pool.liberer(cadre);
+        }
+    }
+
+    // Modification
+
+    /**
+     * Ajoute une entrée, ou remplace la valeur d'une clé existante
+     * @return true si la clé était absente
+     */
+    boolean inserer(byte[] cle, byte[] valeur) {
+        cleAjoutee = false;
+        Separation separation = inserer(racine, cle, valeur);
+        if (separation != null) {
+            // La racine a été scindée : l'arbre gagne un niveau
+            int nouvelle = pool.nouvellePage();
+            int cadre = pool.epingler(nouvelle);
+            try {
+                ByteBuffer page = pool.page(cadre);
+                initialiser(page, INTERNE, racine);
+                placer(page, 0, celluleInterne(separation.cle, separation.page));
+            } finally {
+                pool.liberer(cadre);
+            }
+            racine = nouvelle;
+        }
+        return cleAjoutee;
+    }
+
+    /**
+     * @return true si la clé était présente
+     */
+    boolean supprimer(byte[] cle) {
+        int cadre = pool.epingler(feuille(cle));
+        try {
+            ByteBuffer page = pool.page(cadre);
+            int casePage = rechercher(page, cle);
+            if (casePage < 0) {
+                return false;
+            }
+            retirerCase(page, casePage);
+            pool.marquerSale(cadre);
+            version++;
+            return true;
+        } finally {
+            pool.liberer(cadre);
+        }
+    }
+
+    private Separation inserer(int numeroPage, byte[] cle, byte[] valeur) {
+        int cadre = pool.epingler(numeroPage);
+        try {
+            ByteBuffer page = pool.page(cadre);
+            if (page.get(TYPE) == INTERNE) {
+                Separation separation = inserer(enfant(page, cle), cle, valeur);
+                if (separation == null) {
+                    return null;
+                }
+                pool.marquerSale(cadre);
+                byte[] cellule = celluleInterne(separation.cle, separation.page);
+                int casePage = -rechercher(page, separation.cle) - 1;
+                return placer(page, casePage, cellule) ? null : scinder(page, casePage, cellule);
+            }
+
+            int casePage = rechercher(page, cle);
+            pool.marquerSale(cadre);
+            if (casePage >= 0) {
+                int existante = cellule(page, casePage);
+                if (page.getChar(existante + 2) == valeur.length) {
+                    page.put(existante + 4 + cle.length, valeur);
+                    return null;
+                }
+                retirerCase(page, casePage);
+            } else {
+                casePage = -casePage - 1;
+                cleAjoutee = true;
+            }
+            version++;
+            byte[] cellule = celluleFeuille(cle, valeur);
+            return placer(page, casePage, cellule) ? null : scinder(page, casePage, cellule);
+        } finally {
+            pool.liberer(cadre);
+        }
+    }
+
+    // Répartit les cellules d'une page pleine et la nouvelle cellule entre la page et une nouvelle page
+    private Separation scinder(ByteBuffer page, int casePage, byte[] cellule) {
+        boolean feuille = page.get(TYPE) == FEUILLE;
+        List<byte[]> cellules = cellules(page);
+        cellules.add(casePage, cellule);
+        int total = 0;
+        for (byte[] c : cellules) {
+            total += c.length + 2;
+        }
+        int coupure = 0;
+        for (int gauche = 0; coupure < cellules.size() - 1 && (coupure == 0 || gauche < total / 2); coupure++) {
+            gauche += cellules.get(coupure).length + 2;
+        }
+
+        int nouvelle = pool.nouvellePage();
+        int cadre = pool.epingler(nouvelle);
+        try {
+            ByteBuffer droite = pool.page(cadre);
+            byte[] separateur;
+            if (feuille) {
+                reecrire(droite, FEUILLE, page.getInt(LIEN), cellules.subList(coupure, cellules.size()));
+                reecrire(page, FEUILLE, nouvelle, cellules.subList(0, coupure));
+                separateur = cleFeuille(cellules.get(coupure));
+            } else {
+                // La clé du milieu monte dans la page parente, son enfant devient le premier de droite
+                byte[] milieu = cellules.get(coupure);
+                reecrire(droite, INTERNE, ByteBuffer.wrap(milieu).getInt(2), cellules.subList(coupure + 1, cellules.size()));
+                reecrire(page, INTERNE, page.getInt(LIEN), cellules.subList(0, coupure));
+                separateur = cleInterne(milieu);
+            }
+            return new Separation(separateur, nouvelle);
+        } finally {
+            pool.liberer(cadre);
+        }
+    }
+
+    // Parcours
+
+    /**
+     * @param debut Première clé parcourue (incluse), ou null pour partir de la plus petite
+     */
+    Curseur curseur(byte[] debut) {
+        return new Curseur(debut);
+    }
+
+    /**
+     * Parcours des entrées dans l'ordre des clés, en suivant le chaînage des feuilles.
+     * Aucune page n'est épinglée entre deux appels à avancer().
+     */
+    final class Curseur {
+        private final long versionDepart = version;
+        private int page;
+        private int suivante;
+        private byte[] cle;
+        private long position;
+
+        private Curseur(byte[] debut) {
+            page = feuille(debut);
+            if (debut != null) {
+                int cadre = pool.epingler(page);
+                try {
+                    int casePage = rechercher(pool.page(cadre), debut);
+                    suivante = casePage >= 0 ? casePage : -casePage - 1;
+                } finally {
+                    pool.liberer(cadre);
+                }
+            }
+        }
+
+        /**
+         * Passe à l'entrée suivante
+         * @return false à la fin de l'arbre
+         */
+        boolean avancer() {
+            if (version != versionDepart) {
+                throw new ConcurrentModificationException("L'arbre a été modifié pendant le parcours");
+            }
+            while (page != AUCUN_LIEN) {
+                int cadre = pool.epingler(page);
+                try {
+                    ByteBuffer contenu = pool.page(cadre);
+                    if (suivante < nombre(contenu)) {
+                        int cellule = cellule(contenu, suivante);
+                        cle = new byte[contenu.getChar(cellule)];
+                        contenu.get(cellule + 4, cle);
+                        position = ArbreBPlus.position(page, suivante++);
+                        return true;
+                    }
+                    page = contenu.getInt(LIEN);
+                    suivante = 0;
+                } finally {
+                    pool.liberer(cadre);
+                }
+            }
+            return false;
+        }
+
+        byte[] cle() {
+            return cle;
+        }
+
+        long position() {
+            return position;
+        }
+    }
+
+    // Navigation
+
+    // Feuille qui contient ou contiendrait la clé ; la plus à gauche si la clé est null
+    private int feuille(byte[] cle) {
+        int numeroPage = racine;
+        while (true) {
+            int cadre = pool.epingler(numeroPage);
+            try {
+                ByteBuffer page = pool.page(cadre);
+                if (page.get(TYPE) == FEUILLE) {
+                    return numeroPage;
+                }
+                numeroPage = cle == null ? page.getInt(LIEN) : enfant(page, cle);
+            } finally {
+                pool.liberer(cadre);
+            }
+        }
+    }
+
+    // Enfant d'une page interne : celui de la dernière clé inférieure ou égale, sinon le premier
+    private static int enfant(ByteBuffer page, byte[] cle) {
+        int casePage = rechercher(page, cle);
+        int derniere = casePage >= 0 ? casePage : -casePage - 2;
+        return derniere < 0 ? page.getInt(LIEN) : page.getInt(cellule(page, derniere) + 2);
+    }
+
+    // Recherche dichotomique : la case de la clé, ou -(point d'insertion) - 1
+    private static int rechercher(ByteBuffer page, byte[] cle) {
+        int debutCle = page.get(TYPE) == FEUILLE ? 4 : 6;
+        int bas = 0;
+        int haut = nombre(page) - 1;
+        while (bas <= haut) {
+            int milieu = (bas + haut) >>> 1;
+            int cellule = cellule(page, milieu);
+            int comparaison = comparer(page, cellule + debutCle, page.getChar(cellule), cle);
+            if (comparaison < 0) {
+                bas = milieu + 1;
+            } else if (comparaison > 0) {
+                haut = milieu - 1;
+            } else {
+                return milieu;
+            }
+        }
+        return -(bas + 1);
+    }
+
+    private static int comparer(ByteBuffer page, int debut, int longueur, byte[] cle) {
+        int commun = Math.min(longueur, cle.length);
+        for (int i = 0; i < commun; i++) {
+            int difference = (page.get(debut + i) & 0xFF) - (cle[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return longueur - cle.length;
+    }
+
+    // Organisation d'une page
+
+    private static void initialiser(ByteBuffer page, byte type, int lien) {
+        page.put(TYPE, type);
+        page.putChar(NOMBRE, (char) 0);
+        page.putInt(DEBUT_CELLULES, page.capacity());
+        page.putInt(LIEN, lien);
+    }
+
+    private static int nombre(ByteBuffer page) {
+        return page.getChar(NOMBRE);
+    }
+
+    private static int cellule(ByteBuffer page, int casePage) {
+        return page.getChar(ENTETE + 2 * casePage);
+    }
+
+    private static int debutValeur(ByteBuffer page, int casePage) {
+        int cellule = cellule(page, casePage);
+        return cellule + 4 + page.getChar(cellule);
+    }
+
+    private static int libre(ByteBuffer page) {
+        return page.getInt(DEBUT_CELLULES) - ENTETE - 2 * nombre(page);
+    }
+
+    // Range une cellule à une case donnée ; false si la page est pleine même après compactage
+    private static boolean placer(ByteBuffer page, int casePage, byte[] cellule) {
+        if (libre(page) < cellule.length + 2) {
+            reecrire(page, page.get(TYPE), page.getInt(LIEN), cellules(page));
+            if (libre(page) < cellule.length + 2) {
+                return false;
+            }
+        }
+        int n = nombre(page);
+        int debut = page.getInt(DEBUT_CELLULES) - cellule.length;
+        page.put(debut, cellule);
+        page.putInt(DEBUT_CELLULES, debut);
+        for (int i = n; i > casePage; i--) {
+            page.putChar(ENTETE + 2 * i, page.getChar(ENTETE + 2 * (i - 1)));
+        }
+        page.putChar(ENTETE + 2 * casePage, (char) debut);
+        page.putChar(NOMBRE, (char) (n + 1));
+        return true;
+    }
+
+    // Retire une case ; la cellule reste en place jusqu'au prochain compactage
+    private static void retirerCase(ByteBuffer page, int casePage) {
+        int n = nombre(page);
+        for (int i = casePage; i < n - 1; i++) {
+            page.putChar(ENTETE + 2 * i, page.getChar(ENTETE + 2 * (i + 1)));
+        }
+        page.putChar(NOMBRE, (char) (n - 1));
+    }
+
+    private static List<byte[]> cellules(ByteBuffer page) {
+        boolean feuille = page.get(TYPE) == FEUILLE;
+        int n = nombre(page);
+        List<byte[]> cellules = new ArrayList<>(n + 1);
+        for (int i = 0; i < n; i++) {
+            int cellule = cellule(page, i);
+            byte[] octets = new byte[feuille ? 4 + page.getChar(cellule) + page.getChar(cellule + 2)
+                    : 6 + page.getChar(cellule)];
+            page.get(cellule, octets);
+            cellules.add(octets);
+        }
+        return cellules;
+    }
+
+    private static void reecrire(ByteBuffer page, byte type, int lien, List<byte[]> cellules) {
+        initialiser(page, type, lien);
+        for (int i = 0; i < cellules.size(); i++) {
+            placer(page, i, cellules.get(i));
+        }
+    }
+
+    // Cellules : feuille [longueur clé][longueur valeur][clé][valeur], interne [longueur clé][enfant][clé]
+
+    private static byte[] celluleFeuille(byte[] cle, byte[] valeur) {
+        ByteBuffer cellule = ByteBuffer.allocate(4 + cle.length + valeur.length);
+        cellule.putChar((char) cle.length).putChar((char) valeur.length).put(cle).put(valeur);
+        return cellule.array();
+    }
+
+    private static byte[] celluleInterne(byte[] cle, int enfant) {
+        ByteBuffer cellule = ByteBuffer.allocate(6 + cle.length);
+        cellule.putChar((char) cle.length).putInt(enfant).put(cle);
+        return cellule.array();
+    }
+
+    private static byte[] cleFeuille(byte[] cellule) {
+        byte[] cle = new byte[ByteBuffer.wrap(cellule).getChar(0)];
+        System.arraycopy(cellule, 4, cle, 0, cle.length);
+        return cle;
+    }
+
+    private static byte[] cleInterne(byte[] cellule) {
+        byte[] cle = new byte[ByteBuffer.wrap(cellule).getChar(0)];
+        System.arraycopy(cellule, 6, cle, 0, cle.length);
+        return cle;
+    }
+
+    private static long position(int page, int casePage) {
+        return ((long) page << 32) | casePage;
+    }
+
+    private static int page(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int casePage(long position) {
+        return (int) position;
+    }
+
+    private static final class Separation {
+        private final byte[] cle;
+        private final int page;
+
+        Separation(byte[] cle, int page) {
+            this.cle = cle;
+            this.page = page;
+        }
+    }
+}
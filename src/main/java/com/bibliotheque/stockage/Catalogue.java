@@ -0,0 +1,59 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Dictionnaire;
+import com.bibliotheque.modele.Livre;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stockage du catalogue de livres, indexé par ISBN
+ */
+public interface Catalogue extends Iterable<Livre> {
+
+    /**
+     * Ajoute un livre au catalogue, ou remplace celui qui a le même ISBN
+     * @param livre Le livre à ajouter
+     */
+    void ajouter(Livre livre);
+
+    /**
+     * Recherche un livre par ISBN
+     * @param isbn L'ISBN du livre
+     * @return Le livre correspondant ou null
+     */
+    Livre trouver(String isbn);
+
+    /**
+     * Liste les livres d'un auteur
+     * @param idAuteur L'identifiant de l'auteur dans Dictionnaire.AUTEURS
+     * @return La liste des livres de cet auteur
+     */
+    List<Livre> trouverParAuteur(int idAuteur);
+
+    /**
+     * Liste les livres dont le nom de l'auteur contient un fragment (casse ignorée).
+     * Par défaut, la comparaison porte sur les auteurs distincts de Dictionnaire.AUTEURS.
+     * @param fragment Le fragment du nom de l'auteur
+     * @return La liste des livres correspondants
+     */
+    default List<Livre> rechercherParAuteur(String fragment) {
+        List<Livre> livres = new ArrayList<>();
+        Dictionnaire.AUTEURS.rechercher(fragment, idAuteur -> livres.addAll(trouverParAuteur(idAuteur)));
+        return livres;
+    }
+
+    /**
+     * @return Le nombre de livres du catalogue
+     */
+    int taille();
+
+    /**
+     * @return Vrai si les livres sont des objets du tas, que les instantanés du service peuvent
+     *         copier ; faux pour un stockage hors tas ou sur disque, fait pour un catalogue plus
+     *         grand que le tas
+     */
+    default boolean surLeTas() {
+        return true;
+    }
+}
@@ -0,0 +1,384 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Dictionnaire;
+import com.bibliotheque.modele.Livre;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Catalogue stocké sur disque dans un arbre B+ indexé par ISBN, pour les catalogues collectifs
+ * qui ne tiennent pas dans le tas.
+ *
+ * Le fichier est découpé en pages de taille fixe ; seul un nombre borné de pages est gardé en
+ * mémoire (PoolPages, remplacement par l'horloge), si bien que la mémoire utilisée ne dépend
+ * pas de la taille du catalogue et que les livres consultés souvent restent en cache. Un
+ * second arbre indexe les livres par auteur (nom de l'auteur puis ISBN).
+ *
+ * Les livres retournés sont des vues (LivreDisque) : emprunter() et retourner() modifient le
+ * nombre d'exemplaires disponibles directement dans la page, qui sera réécrite sur le disque à
+ * son éviction ou au prochain vider(). Le fichier peut être rouvert : vider() ou close() le
+ * rendent cohérent, un arrêt brutal entre deux vidages peut le laisser inutilisable.
+ *
+ * Le parcours suit l'ordre des ISBN, et parcourir() lit une plage d'ISBN sans lire le reste
+ * de l'arbre. Comme Livre, cette classe n'est pas thread-safe.
+ */
+public class CatalogueDisque implements Catalogue, AutoCloseable {
+
+    public static final int TAILLE_PAGE_PAR_DEFAUT = 8192;
+    public static final int PAGES_EN_MEMOIRE_PAR_DEFAUT = 8192;
+
+    // Page 0 : métadonnées du fichier
+    private static final int MAGIQUE = 0x4249424C;
+    private static final int META_MAGIQUE = 0;
+    private static final int META_TAILLE_PAGE = 4;
+    private static final int META_NOMBRE_PAGES = 8;
+    private static final int META_RACINE_ISBN = 12;
+    private static final int META_RACINE_AUTEURS = 16;
+    private static final int META_TAILLE = 20;
+    private static final int TAILLE_META = 24;
+
+    // Valeur d'un livre dans l'index par ISBN (en octets)
+    static final int ANNEE_PUBLICATION = 0;
+    static final int NOMBRE_EXEMPLAIRES = 4;
+    static final int EXEMPLAIRES_DISPONIBLES = 8;
+    private static final int LONGUEUR_TITRE = 12;
+    private static final int LONGUEUR_AUTEUR = 14;
+    private static final int TITRE = 16;
+
+    private static final byte[] VIDE = new byte[0];
+
+    private final FileChannel canal;
+    private final PoolPages pool;
+    private final ArbreBPlus parIsbn;
+    // Clé : longueur du nom de l'auteur, nom puis ISBN ; valeur vide
+    private final ArbreBPlus parAuteur;
+    private int taille;
+    private boolean ouvert = true;
+
+    public CatalogueDisque(Path fichier) throws IOException {
+        this(fichier, TAILLE_PAGE_PAR_DEFAUT, PAGES_EN_MEMOIRE_PAR_DEFAUT);
+    }
+
+    /**
+     * @param fichier Le fichier du catalogue, créé s'il n'existe pas
+     * @param pagesEnMemoire Nombre de pages gardées en mémoire (au moins 16)
+     */
+    public CatalogueDisque(Path fichier, int pagesEnMemoire) throws IOException {
+        this(fichier, TAILLE_PAGE_PAR_DEFAUT, pagesEnMemoire);
+    }
+
+    CatalogueDisque(Path fichier, int taillePage, int pagesEnMemoire) throws IOException {
+        if (fichier == null) {
+            throw new IllegalArgumentException("Le fichier ne peut pas être null");
+        }
+        if (taillePage < 256 || taillePage > 32768) {
+            throw new IllegalArgumentException("La taille de page doit être comprise entre 256 et 32768 octets");
+        }
+        if (pagesEnMemoire < 16) {
+            throw new IllegalArgumentException("Le pool doit contenir au moins 16 pages");
+        }
+        this.canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (canal.size() == 0) {
+                this.pool = new PoolPages(canal, taillePage, pagesEnMemoire, 0);
+                pool.nouvellePage();
+                this.parIsbn = ArbreBPlus.creer(pool);
+                this.parAuteur = ArbreBPlus.creer(pool);
+                this.taille = 0;
+            } else {
+                ByteBuffer meta = ByteBuffer.allocate(TAILLE_META);
+                canal.read(meta, 0);
+                if (meta.hasRemaining() || meta.getInt(META_MAGIQUE) != MAGIQUE) {
+                    throw new IllegalStateException("Le fichier n'est pas un catalogue : " + fichier);
+                }
+                // La taille de page du fichier prime sur celle demandée
+                this.pool = new PoolPages(canal, meta.getInt(META_TAILLE_PAGE), pagesEnMemoire,
+                        meta.getInt(META_NOMBRE_PAGES));
+                this.parIsbn = new ArbreBPlus(pool, meta.getInt(META_RACINE_ISBN));
+                this.parAuteur = new ArbreBPlus(pool, meta.getInt(META_RACINE_AUTEURS));
+                this.taille = meta.getInt(META_TAILLE);
+            }
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void ajouter(Livre livre) {
+        verifierOuvert();
+        if (livre == null) {
+            throw new IllegalArgumentException("Le livre ne peut pas être null");
+        }
+
+        // Lire toutes les valeurs avant d'écrire : le livre peut être une vue de ce catalogue
+        byte[] isbn = encoder(livre.getIsbn());
+        byte[] titre = encoder(livre.getTitre());
+        byte[] auteur = encoder(livre.getAuteur());
+        byte[] valeur = ByteBuffer.allocate(TITRE + titre.length + auteur.length)
+                .putInt(livre.getAnneePublication())
+                .putInt(livre.getNombreExemplaires())
+                .putInt(livre.getExemplairesDisponibles())
+                .putChar((char) titre.length)
+                .putChar((char) auteur.length)
+                .put(titre)
+                .put(auteur)
+                .array();
+        byte[] cleAuteur = cleAuteur(auteur, isbn);
+        if (isbn.length + valeur.length > parIsbn.tailleMaxEntree()
+                || cleAuteur.length > parAuteur.tailleMaxEntree()) {
+            throw new IllegalArgumentException("Livre trop volumineux pour une page du catalogue");
+        }
+
+        long position = parIsbn.localiser(isbn);
+        boolean changementAuteur = true;
+        if (position != ArbreBPlus.AUCUNE) {
+            byte[] ancienAuteur = auteur(parIsbn.lireValeur(position));
+            changementAuteur = !Arrays.equals(ancienAuteur, auteur);
+            if (changementAuteur) {
+                parAuteur.supprimer(cleAuteur(ancienAuteur, isbn));
+            }
+        }
+        if (parIsbn.inserer(isbn, valeur)) {
+            taille++;
+        }
+        if (changementAuteur) {
+            parAuteur.inserer(cleAuteur, VIDE);
+        }
+    }
+
+    @Override
+    public Livre trouver(String isbn) {
+        verifierOuvert();
+        if (isbn == null) {
+            return null;
+        }
+        byte[] cle = encoder(isbn);
+        long position = parIsbn.localiser(cle);
+        return position == ArbreBPlus.AUCUNE ? null : new LivreDisque(this, isbn, cle, position);
+    }
+
+    @Override
+    public List<Livre> trouverParAuteur(int idAuteur) {
+        verifierOuvert();
+        if (idAuteur < 0 || idAuteur >= Dictionnaire.AUTEURS.taille()) {
+            return new ArrayList<>();
+        }
+        return livresAuteur(encoder(Dictionnaire.AUTEURS.decoder(idAuteur)));
+    }
+
+    /**
+     * Recherche par nom dans l'index par auteur, sans passer par Dictionnaire.AUTEURS : les
+     * auteurs d'un fichier rouvert n'y sont pas enregistrés. Chaque auteur distinct coûte une
+     * descente dans l'arbre, ses livres sont sautés.
+     */
+    @Override
+    public List<Livre> rechercherParAuteur(String fragment) {
+        verifierOuvert();
+        List<Livre> livres = new ArrayList<>();
+        String cle = Dictionnaire.normaliser(fragment);
+        ArbreBPlus.Curseur curseur = parAuteur.curseur(null);
+        while (curseur.avancer()) {
+            byte[] entree = curseur.cle();
+            int longueur = ByteBuffer.wrap(entree).getChar(0);
+            byte[] auteur = Arrays.copyOfRange(entree, 2, 2 + longueur);
+            if (Dictionnaire.normaliser(new String(auteur, StandardCharsets.UTF_8)).contains(cle)) {
+                livres.addAll(livresAuteur(auteur));
+            }
+            // 0xFF n'apparaît jamais en UTF-8 : cette clé suit tous les ISBN de l'auteur
+            curseur = parAuteur.curseur(cleAuteur(auteur, new byte[] {(byte) 0xFF}));
+        }
+        return livres;
+    }
+
+    @Override
+    public int taille() {
+        return taille;
+    }
+
+    @Override
+    public boolean surLeTas() {
+        return false;
+    }
+
+    /**
+     * Parcourt les livres dans l'ordre des ISBN
+     */
+    @Override
+    public Iterator<Livre> iterator() {
+        return parcourir(null, null);
+    }
+
+    /**
+     * Parcourt une plage d'ISBN, dans l'ordre (octets UTF-8 comparés sans signe)
+     * @param debut Premier ISBN inclus, ou null
+     * @param fin ISBN de fin exclu, ou null
+     */
+    public Iterator<Livre> parcourir(String debut, String fin) {
+        verifierOuvert();
+        ArbreBPlus.Curseur curseur = parIsbn.curseur(debut == null ? null : encoder(debut));
+        byte[] limite = fin == null ? null : encoder(fin);
+        return new Iterator<Livre>() {
+            private boolean suivant = avancer();
+
+            private boolean avancer() {
+                return curseur.avancer() && (limite == null || Arrays.compareUnsigned(curseur.cle(), limite) < 0);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return suivant;
+            }
+
+            @Override
+            public Livre next() {
+                if (!suivant) {
+                    throw new NoSuchElementException();
+                }
+                byte[] cle = curseur.cle();
+                Livre livre = new LivreDisque(CatalogueDisque.this, new String(cle, StandardCharsets.UTF_8), cle,
+                        curseur.position());
+                suivant = avancer();
+                return livre;
+            }
+        };
+    }
+
+    /**
+     * Écrit les pages modifiées et les métadonnées : le fichier peut ensuite être rouvert
+     */
+    public void vider() {
+        verifierOuvert();
+        int cadre = pool.epingler(0);
+        try {
+            ByteBuffer meta = pool.page(cadre);
+            meta.putInt(META_MAGIQUE, MAGIQUE);
+            meta.putInt(META_TAILLE_PAGE, pool.getTaillePage());
+            meta.putInt(META_NOMBRE_PAGES, pool.getNombrePages());
+            meta.putInt(META_RACINE_ISBN, parIsbn.getRacine());
+            meta.putInt(META_RACINE_AUTEURS, parAuteur.getRacine());
+            meta.putInt(META_TAILLE, taille);
+            pool.marquerSale(cadre);
+        } finally {
+            pool.liberer(cadre);
+        }
+        pool.vider();
+    }
+
+    @Override
+    public void close() {
+        if (!ouvert) {
+            return;
+        }
+        try {
+            vider();
+        } finally {
+            ouvert = false;
+            try {
+                canal.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Statistiques du pool de pages
+
+    /**
+     * @return Le nombre d'accès aux pages depuis l'ouverture
+     */
+    public long getAccesPages() {
+        return pool.getAcces();
+    }
+
+    /**
+     * @return Le nombre de pages lues sur le disque (accès hors cache)
+     */
+    public long getPagesLues() {
+        return pool.getLectures();
+    }
+
+    /**
+     * @return Le nombre de pages écrites sur le disque
+     */
+    public long getPagesEcrites() {
+        return pool.getEcritures();
+    }
+
+    // Accès des vues LivreDisque
+
+    long versionIndex() {
+        return parIsbn.getVersion();
+    }
+
+    long localiser(byte[] isbn) {
+        return parIsbn.localiser(isbn);
+    }
+
+    int lireInt(long position, int champ) {
+        return parIsbn.lireInt(position, champ);
+    }
+
+    void ecrireInt(long position, int champ, int valeur) {
+        parIsbn.ecrireInt(position, champ, valeur);
+    }
+
+    String lireTitre(long position) {
+        ByteBuffer valeur = ByteBuffer.wrap(parIsbn.lireValeur(position));
+        return new String(valeur.array(), TITRE, valeur.getChar(LONGUEUR_TITRE), StandardCharsets.UTF_8);
+    }
+
+    String lireAuteur(long position) {
+        return new String(auteur(parIsbn.lireValeur(position)), StandardCharsets.UTF_8);
+    }
+
+    private List<Livre> livresAuteur(byte[] auteur) {
+        List<Livre> livres = new ArrayList<>();
+        byte[] prefixe = cleAuteur(auteur, VIDE);
+        ArbreBPlus.Curseur curseur = parAuteur.curseur(prefixe);
+        while (curseur.avancer() && commencePar(curseur.cle(), prefixe)) {
+            byte[] isbn = Arrays.copyOfRange(curseur.cle(), prefixe.length, curseur.cle().length);
+            livres.add(new LivreDisque(this, new String(isbn, StandardCharsets.UTF_8), isbn, parIsbn.localiser(isbn)));
+        }
+        return livres;
+    }
+
+    // Encodage
+
+    private static byte[] auteur(byte[] valeur) {
+        ByteBuffer tampon = ByteBuffer.wrap(valeur);
+        int debut = TITRE + tampon.getChar(LONGUEUR_TITRE);
+        return Arrays.copyOfRange(valeur, debut, debut + tampon.getChar(LONGUEUR_AUTEUR));
+    }
+
+    private static byte[] cleAuteur(byte[] auteur, byte[] isbn) {
+        return ByteBuffer.allocate(2 + auteur.length + isbn.length)
+                .putChar((char) auteur.length).put(auteur).put(isbn).array();
+    }
+
+    private static boolean commencePar(byte[] cle, byte[] prefixe) {
+        return cle.length >= prefixe.length && Arrays.equals(cle, 0, prefixe.length, prefixe, 0, prefixe.length);
+    }
+
+    private static byte[] encoder(String valeur) {
+        return valeur.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void verifierOuvert() {
+        if (!ouvert) {
+            throw new IllegalStateException("Le catalogue est fermé");
+        }
+    }
+}
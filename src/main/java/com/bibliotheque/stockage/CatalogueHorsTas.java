@@ -0,0 +1,308 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Livre;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Catalogue stocké hors du tas Java, dans des segments ByteBuffer directs.
+ *
+ * Chaque livre occupe un enregistrement de taille fixe ; l'ISBN et le titre sont rangés
+ * dans un tas de chaînes séparé (longueur + octets UTF-8). L'index par ISBN et l'index
+ * par auteur sont chaînés dans les enregistrements eux-mêmes, seuls deux tableaux
+ * d'entiers restent dans le tas. Le ramasse-miettes n'a donc presque rien à parcourir,
+ * quelle que soit la taille du catalogue.
+ *
+ * Les livres retournés sont des vues légères (LivreHorsTas) : emprunter() et retourner()
+ * modifient directement l'enregistrement. Comme Livre, cette classe n'est pas thread-safe.
+ * La mémoire directe est limitée par -XX:MaxDirectMemorySize.
+ */
+public class CatalogueHorsTas implements Catalogue {
+
+    // Disposition d'un enregistrement (en octets)
+    static final int POSITION_ISBN = 0;
+    static final int POSITION_TITRE = 8;
+    static final int ID_AUTEUR = 16;
+    static final int ANNEE_PUBLICATION = 20;
+    static final int NOMBRE_EXEMPLAIRES = 24;
+    static final int EXEMPLAIRES_DISPONIBLES = 28;
+    static final int SUIVANT_MEME_AUTEUR = 32;
+    static final int SUIVANT_MEME_HASH = 36;
+    static final int TAILLE_ENREGISTREMENT = 40;
+
+    private static final int ENREGISTREMENTS_PAR_SEGMENT = 1 << 20;
+    private static final int TAILLE_SEGMENT_CHAINES = 1 << 26;
+    private static final int CAPACITE_INDEX_INITIALE = 1 << 10;
+    private static final int AUCUN = -1;
+
+    private final int enregistrementsParSegment;
+    private final int tailleSegmentChaines;
+    private final List<ByteBuffer> segmentsEnregistrements;
+    private final List<ByteBuffer> segmentsChaines;
+    private long finChaines;
+    private int taille;
+
+    // Tête de chaîne par case de hachage de l'ISBN
+    private int[] tetesIsbn;
+    // Tête de chaîne par identifiant d'auteur
+    private int[] tetesAuteur;
+
+    public CatalogueHorsTas() {
+        this(ENREGISTREMENTS_PAR_SEGMENT, TAILLE_SEGMENT_CHAINES);
+    }
+
+    CatalogueHorsTas(int enregistrementsParSegment, int tailleSegmentChaines) {
+        this.enregistrementsParSegment = enregistrementsParSegment;
+        this.tailleSegmentChaines = tailleSegmentChaines;
+        this.segmentsEnregistrements = new ArrayList<>();
+        this.segmentsChaines = new ArrayList<>();
+        this.finChaines = 0;
+        this.taille = 0;
+        this.tetesIsbn = new int[CAPACITE_INDEX_INITIALE];
+        this.tetesAuteur = new int[CAPACITE_INDEX_INITIALE];
+        Arrays.fill(tetesIsbn, AUCUN);
+        Arrays.fill(tetesAuteur, AUCUN);
+    }
+
+    @Override
+    public void ajouter(Livre livre) {
+        if (livre == null) {
+            throw new IllegalArgumentException("Le livre ne peut pas être null");
+        }
+
+        // Lire toutes les valeurs avant d'écrire : le livre peut être une vue de ce catalogue
+        byte[] isbn = encoder(livre.getIsbn());
+        String titre = livre.getTitre();
+        int idAuteur = livre.getIdAuteur();
+        int annee = livre.getAnneePublication();
+        int nombre = livre.getNombreExemplaires();
+        int disponibles = livre.getExemplairesDisponibles();
+
+        int indice = chercher(isbn);
+        boolean changementAuteur;
+        if (indice == AUCUN) {
+            if (taille >= tetesIsbn.length - (tetesIsbn.length >> 2)) {
+                agrandirIndexIsbn();
+            }
+            indice = taille++;
+            ecrireLong(indice, POSITION_ISBN, ecrireChaine(isbn));
+            chainerIsbn(indice, hacher(isbn));
+            changementAuteur = true;
+        } else {
+            changementAuteur = lireInt(indice, ID_AUTEUR) != idAuteur;
+            if (changementAuteur) {
+                dechainerAuteur(indice);
+            }
+        }
+
+        // Le remplacement d'un livre abandonne l'ancien titre dans le tas de chaînes
+        ecrireLong(indice, POSITION_TITRE, ecrireChaine(encoder(titre)));
+        ecrireInt(indice, ANNEE_PUBLICATION, annee);
+        ecrireInt(indice, NOMBRE_EXEMPLAIRES, nombre);
+        ecrireInt(indice, EXEMPLAIRES_DISPONIBLES, disponibles);
+        if (changementAuteur) {
+            ecrireInt(indice, ID_AUTEUR, idAuteur);
+            chainerAuteur(indice, idAuteur);
+        }
+    }
+
+    @Override
+    public Livre trouver(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        int indice = chercher(encoder(isbn));
+        return indice == AUCUN ? null : new LivreHorsTas(this, indice);
+    }
+
+    @Override
+    public List<Livre> trouverParAuteur(int idAuteur) {
+        List<Livre> livres = new ArrayList<>();
+        if (idAuteur < 0 || idAuteur >= tetesAuteur.length) {
+            return livres;
+        }
+        for (int i = tetesAuteur[idAuteur]; i != AUCUN; i = lireInt(i, SUIVANT_MEME_AUTEUR)) {
+            livres.add(new LivreHorsTas(this, i));
+        }
+        return livres;
+    }
+
+    @Override
+    public int taille() {
+        return taille;
+    }
+
+    @Override
+    public boolean surLeTas() {
+        return false;
+    }
+
+    @Override
+    public Iterator<Livre> iterator() {
+        return new Iterator<Livre>() {
+            private int suivant = 0;
+
+            @Override
+            public boolean hasNext() {
+                return suivant < taille;
+            }
+
+            @Override
+            public Livre next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new LivreHorsTas(CatalogueHorsTas.this, suivant++);
+            }
+        };
+    }
+
+    // Accès aux champs d'un enregistrement
+
+    int lireInt(int indice, int champ) {
+        return segment(indice).getInt(decalage(indice) + champ);
+    }
+
+    void ecrireInt(int indice, int champ, int valeur) {
+        segment(indice).putInt(decalage(indice) + champ, valeur);
+    }
+
+    String lireChaine(int indice, int champ) {
+        long position = segment(indice).getLong(decalage(indice) + champ);
+        ByteBuffer tampon = segmentsChaines.get((int) (position / tailleSegmentChaines)).duplicate();
+        int debut = (int) (position % tailleSegmentChaines);
+        byte[] octets = new byte[tampon.getInt(debut)];
+        tampon.position(debut + Integer.BYTES);
+        tampon.get(octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    private void ecrireLong(int indice, int champ, long valeur) {
+        segment(indice).putLong(decalage(indice) + champ, valeur);
+    }
+
+    private ByteBuffer segment(int indice) {
+        int numero = indice / enregistrementsParSegment;
+        while (numero >= segmentsEnregistrements.size()) {
+            segmentsEnregistrements.add(
+                    ByteBuffer.allocateDirect(enregistrementsParSegment * TAILLE_ENREGISTREMENT));
+        }
+        return segmentsEnregistrements.get(numero);
+    }
+
+    private int decalage(int indice) {
+        return (indice % enregistrementsParSegment) * TAILLE_ENREGISTREMENT;
+    }
+
+    // Tas de chaînes : [longueur][octets UTF-8], jamais à cheval sur deux segments
+
+    private long ecrireChaine(byte[] octets) {
+        int requis = Integer.BYTES + octets.length;
+        if (requis > tailleSegmentChaines) {
+            throw new IllegalArgumentException("Chaîne trop longue pour le catalogue hors tas");
+        }
+
+        long restant = tailleSegmentChaines - finChaines % tailleSegmentChaines;
+        if (requis > restant) {
+            finChaines += restant;
+        }
+
+        int numero = (int) (finChaines / tailleSegmentChaines);
+        if (numero == segmentsChaines.size()) {
+            segmentsChaines.add(ByteBuffer.allocateDirect(tailleSegmentChaines));
+        }
+
+        ByteBuffer tampon = segmentsChaines.get(numero).duplicate();
+        tampon.position((int) (finChaines % tailleSegmentChaines));
+        tampon.putInt(octets.length);
+        tampon.put(octets);
+
+        long position = finChaines;
+        finChaines += requis;
+        return position;
+    }
+
+    private boolean chaineEgale(int indice, byte[] attendu) {
+        long position = segment(indice).getLong(decalage(indice) + POSITION_ISBN);
+        ByteBuffer tampon = segmentsChaines.get((int) (position / tailleSegmentChaines));
+        int debut = (int) (position % tailleSegmentChaines);
+        if (tampon.getInt(debut) != attendu.length) {
+            return false;
+        }
+        for (int i = 0; i < attendu.length; i++) {
+            if (tampon.get(debut + Integer.BYTES + i) != attendu[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Index par ISBN : hachage sur les octets, collisions chaînées dans les enregistrements
+
+    private int chercher(byte[] isbn) {
+        int i = tetesIsbn[hacher(isbn) & (tetesIsbn.length - 1)];
+        while (i != AUCUN && !chaineEgale(i, isbn)) {
+            i = lireInt(i, SUIVANT_MEME_HASH);
+        }
+        return i;
+    }
+
+    private void chainerIsbn(int indice, int hash) {
+        int caseIndex = hash & (tetesIsbn.length - 1);
+        ecrireInt(indice, SUIVANT_MEME_HASH, tetesIsbn[caseIndex]);
+        tetesIsbn[caseIndex] = indice;
+    }
+
+    private void agrandirIndexIsbn() {
+        tetesIsbn = new int[tetesIsbn.length * 2];
+        Arrays.fill(tetesIsbn, AUCUN);
+        for (int i = 0; i < taille; i++) {
+            chainerIsbn(i, hacher(encoder(lireChaine(i, POSITION_ISBN))));
+        }
+    }
+
+    private static int hacher(byte[] octets) {
+        int h = 0;
+        for (byte octet : octets) {
+            h = 31 * h + octet;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static byte[] encoder(String valeur) {
+        return valeur.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Index par auteur : liste chaînée des livres d'un même auteur
+
+    private void chainerAuteur(int indice, int idAuteur) {
+        if (idAuteur >= tetesAuteur.length) {
+            int ancienneTaille = tetesAuteur.length;
+            tetesAuteur = Arrays.copyOf(tetesAuteur, Math.max(idAuteur + 1, ancienneTaille * 2));
+            Arrays.fill(tetesAuteur, ancienneTaille, tetesAuteur.length, AUCUN);
+        }
+        ecrireInt(indice, SUIVANT_MEME_AUTEUR, tetesAuteur[idAuteur]);
+        tetesAuteur[idAuteur] = indice;
+    }
+
+    private void dechainerAuteur(int indice) {
+        int idAuteur = lireInt(indice, ID_AUTEUR);
+        int suivant = lireInt(indice, SUIVANT_MEME_AUTEUR);
+        if (tetesAuteur[idAuteur] == indice) {
+            tetesAuteur[idAuteur] = suivant;
+            return;
+        }
+        for (int i = tetesAuteur[idAuteur]; i != AUCUN; i = lireInt(i, SUIVANT_MEME_AUTEUR)) {
+            if (lireInt(i, SUIVANT_MEME_AUTEUR) == indice) {
+                ecrireInt(i, SUIVANT_MEME_AUTEUR, suivant);
+                return;
+            }
+        }
+    }
+}
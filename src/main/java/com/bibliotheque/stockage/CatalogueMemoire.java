@@ -0,0 +1,57 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Livre;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Catalogue conservé dans le tas, sous forme d'objets Livre
+ */
+public class CatalogueMemoire implements Catalogue {
+
+    private final Map<String, Livre> livres;
+    private final Map<Integer, List<Livre>> livresParAuteur;
+
+    public CatalogueMemoire() {
+        this.livres = new HashMap<>();
+        this.livresParAuteur = new HashMap<>();
+    }
+
+    @Override
+    public void ajouter(Livre livre) {
+        Livre remplace = livres.put(livre.getIsbn(), livre);
+        if (remplace != null) {
+            List<Livre> livresAuteur = livresParAuteur.get(remplace.getIdAuteur());
+            livresAuteur.remove(remplace);
+            if (livresAuteur.isEmpty()) {
+                livresParAuteur.remove(remplace.getIdAuteur());
+            }
+        }
+        livresParAuteur.computeIfAbsent(livre.getIdAuteur(), id -> new ArrayList<>()).add(livre);
+    }
+
+    @Override
+    public Livre trouver(String isbn) {
+        return livres.get(isbn);
+    }
+
+    @Override
+    public List<Livre> trouverParAuteur(int idAuteur) {
+        return livresParAuteur.getOrDefault(idAuteur, Collections.emptyList());
+    }
+
+    @Override
+    public int taille() {
+        return livres.size();
+    }
+
+    @Override
+    public Iterator<Livre> iterator() {
+        return Collections.unmodifiableCollection(livres.values()).iterator();
+    }
+}
@@ -0,0 +1,121 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Dictionnaire;
+import com.bibliotheque.modele.Livre;
+
+/**
+ * Vue légère sur un livre de CatalogueDisque.
+ * Garde l'ISBN et la dernière position connue du livre dans l'arbre : tant que l'arbre n'a pas
+ * changé de forme, les lectures et écritures vont directement à la bonne page, sinon la
+ * position est recherchée à nouveau.
+ */
+class LivreDisque extends Livre {
+
+    private final CatalogueDisque catalogue;
+    private final String isbn;
+    private final byte[] cle;
+    private long position;
+    private long version;
+
+    LivreDisque(CatalogueDisque catalogue, String isbn, byte[] cle, long position) {
+        this.catalogue = catalogue;
+        this.isbn = isbn;
+        this.cle = cle;
+        this.position = position;
+        this.version = catalogue.versionIndex();
+    }
+
+    @Override
+    public boolean emprunter() {
+        int disponibles = getExemplairesDisponibles();
+        if (disponibles > 0) {
+            catalogue.ecrireInt(position(), CatalogueDisque.EXEMPLAIRES_DISPONIBLES, disponibles - 1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean retourner() {
+        int disponibles = getExemplairesDisponibles();
+        if (disponibles < getNombreExemplaires()) {
+            catalogue.ecrireInt(position(), CatalogueDisque.EXEMPLAIRES_DISPONIBLES, disponibles + 1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean estDisponible() {
+        return getExemplairesDisponibles() > 0;
+    }
+
+    @Override
+    public void ajouterExemplaires(int nombre) {
+        if (nombre < 0) {
+            throw new IllegalArgumentException("Le nombre d'exemplaires ne peut pas être négatif");
+        }
+        catalogue.ecrireInt(position(), CatalogueDisque.NOMBRE_EXEMPLAIRES, getNombreExemplaires() + nombre);
+        catalogue.ecrireInt(position(), CatalogueDisque.EXEMPLAIRES_DISPONIBLES, getExemplairesDisponibles() + nombre);
+    }
+
+    @Override
+    public String getIsbn() {
+        return isbn;
+    }
+
+    @Override
+    public String getTitre() {
+        return catalogue.lireTitre(position());
+    }
+
+    @Override
+    public String getAuteur() {
+        return catalogue.lireAuteur(position());
+    }
+
+    // L'auteur n'est pas enregistré dans le dictionnaire s'il n'y est pas déjà : -1 dans ce cas
+    @Override
+    public int getIdAuteur() {
+        return Dictionnaire.AUTEURS.identifiant(getAuteur());
+    }
+
+    @Override
+    public int getAnneePublication() {
+        return catalogue.lireInt(position(), CatalogueDisque.ANNEE_PUBLICATION);
+    }
+
+    @Override
+    public int getNombreExemplaires() {
+        return catalogue.lireInt(position(), CatalogueDisque.NOMBRE_EXEMPLAIRES);
+    }
+
+    @Override
+    public int getExemplairesDisponibles() {
+        return catalogue.lireInt(position(), CatalogueDisque.EXEMPLAIRES_DISPONIBLES);
+    }
+
+    private long position() {
+        long actuelle = catalogue.versionIndex();
+        if (version != actuelle) {
+            position = catalogue.localiser(cle);
+            version = actuelle;
+        }
+        return position;
+    }
+
+    // Deux vues du même livre désignent le même livre
+    @Override
+    public boolean equals(Object autre) {
+        if (!(autre instanceof LivreDisque)) {
+            return false;
+        }
+        LivreDisque vue = (LivreDisque) autre;
+        return vue.catalogue == catalogue && vue.isbn.equals(isbn);
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(catalogue) * 31 + isbn.hashCode();
+    }
+}
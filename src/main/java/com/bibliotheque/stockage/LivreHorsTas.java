@@ -0,0 +1,104 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Dictionnaire;
+import com.bibliotheque.modele.Livre;
+
+/**
+ * Vue légère sur un enregistrement de CatalogueHorsTas.
+ * Ne contient que le catalogue et l'indice de l'enregistrement ; toutes les lectures
+ * et écritures sont faites directement dans la mémoire hors tas.
+ */
+class LivreHorsTas extends Livre {
+
+    private final CatalogueHorsTas catalogue;
+    private final int indice;
+
+    LivreHorsTas(CatalogueHorsTas catalogue, int indice) {
+        this.catalogue = catalogue;
+        this.indice = indice;
+    }
+
+    @Override
+    public boolean emprunter() {
+        int disponibles = catalogue.lireInt(indice, CatalogueHorsTas.EXEMPLAIRES_DISPONIBLES);
+        if (disponibles > 0) {
+            catalogue.ecrireInt(indice, CatalogueHorsTas.EXEMPLAIRES_DISPONIBLES, disponibles - 1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean retourner() {
+        int disponibles = catalogue.lireInt(indice, CatalogueHorsTas.EXEMPLAIRES_DISPONIBLES);
+        if (disponibles < getNombreExemplaires()) {
+            catalogue.ecrireInt(indice, CatalogueHorsTas.EXEMPLAIRES_DISPONIBLES, disponibles + 1);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean estDisponible() {
+        return getExemplairesDisponibles() > 0;
+    }
+
+    @Override
+    public void ajouterExemplaires(int nombre) {
+        if (nombre < 0) {
+            throw new IllegalArgumentException("Le nombre d'exemplaires ne peut pas être négatif");
+        }
+        catalogue.ecrireInt(indice, CatalogueHorsTas.NOMBRE_EXEMPLAIRES, getNombreExemplaires() + nombre);
+        catalogue.ecrireInt(indice, CatalogueHorsTas.EXEMPLAIRES_DISPONIBLES, getExemplairesDisponibles() + nombre);
+    }
+
+    @Override
+    public String getIsbn() {
+        return catalogue.lireChaine(indice, CatalogueHorsTas.POSITION_ISBN);
+    }
+
+    @Override
+    public String getTitre() {
+        return catalogue.lireChaine(indice, CatalogueHorsTas.POSITION_TITRE);
+    }
+
+    @Override
+    public String getAuteur() {
+        return Dictionnaire.AUTEURS.decoder(getIdAuteur());
+    }
+
+    @Override
+    public int getIdAuteur() {
+        return catalogue.lireInt(indice, CatalogueHorsTas.ID_AUTEUR);
+    }
+
+    @Override
+    public int getAnneePublication() {
+        return catalogue.lireInt(indice, CatalogueHorsTas.ANNEE_PUBLICATION);
+    }
+
+    @Override
+    public int getNombreExemplaires() {
+        return catalogue.lireInt(indice, CatalogueHorsTas.NOMBRE_EXEMPLAIRES);
+    }
+
+    @Override
+    public int getExemplairesDisponibles() {
+        return catalogue.lireInt(indice, CatalogueHorsTas.EXEMPLAIRES_DISPONIBLES);
+    }
+
+    // Deux vues du même enregistrement désignent le même livre
+    @Override
+    public boolean equals(Object autre) {
+        if (!(autre instanceof LivreHorsTas)) {
+            return false;
+        }
+        LivreHorsTas vue = (LivreHorsTas) autre;
+        return vue.catalogue == catalogue && vue.indice == indice;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(catalogue) * 31 + indice;
+    }
+}
@@ -0,0 +1,221 @@
+package com.bibliotheque.stockage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Pool de pages d'un fichier, gardées dans un nombre fixe de cadres en mémoire directe.
+ *
+ * Une page est épinglée le temps d'y accéder, puis libérée ; une page épinglée n'est jamais
+ * évincée. Le remplacement suit l'algorithme de l'horloge : chaque accès pose un bit de
+ * référence, l'aiguille efface ce bit au premier passage et n'évince une page qu'au second.
+ * Les pages souvent consultées restent donc en mémoire. Une page modifiée (marquée sale)
+ * est réécrite dans le fichier quand elle est évincée, ou par vider().
+ *
+ * Non thread-safe : utilisé par un seul CatalogueDisque.
+ */
+final class PoolPages {
+
+    private static final int LIBRE = -1;
+
+    private final FileChannel canal;
+    private final int taillePage;
+    private final ByteBuffer[] cadres;
+    private final byte[] zeros;
+    // État de chaque cadre
+    private final int[] pageDuCadre;
+    private final int[] epingles;
+    private final boolean[] reference;
+    private final boolean[] sale;
+    // Cadre de chaque page du fichier, LIBRE si elle n'est pas en mémoire
+    private int[] cadreDePage;
+    private int nombrePages;
+    private int aiguille;
+
+    private long acces;
+    private long lectures;
+    private long ecritures;
+
+    /**
+     * @param canal Le fichier des pages, ouvert en lecture et écriture
+     * @param taillePage Taille d'une page en octets
+     * @param nombreCadres Nombre de pages gardées en mémoire
+     * @param nombrePages Nombre de pages déjà présentes dans le fichier
+     */
+    PoolPages(FileChannel canal, int taillePage, int nombreCadres, int nombrePages) {
+        if ((long) taillePage * nombreCadres > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Le pool de pages doit faire moins de 2 Go");
+        }
+        this.canal = canal;
+        this.taillePage = taillePage;
+        this.zeros = new byte[taillePage];
+        this.cadres = new ByteBuffer[nombreCadres];
+        ByteBuffer memoire = ByteBuffer.allocateDirect(taillePage * nombreCadres);
+        for (int i = 0; i < nombreCadres; i++) {
+            cadres[i] = memoire.slice(i * taillePage, taillePage);
+        }
+        this.pageDuCadre = new int[nombreCadres];
+        this.epingles = new int[nombreCadres];
+        this.reference = new boolean[nombreCadres];
+        this.sale = new boolean[nombreCadres];
+        Arrays.fill(pageDuCadre, LIBRE);
+        this.nombrePages = nombrePages;
+        this.cadreDePage = new int[Math.max(16, nombrePages)];
+        Arrays.fill(cadreDePage, LIBRE);
+    }
+
+    /**
+     * Charge une page si nécessaire et l'empêche d'être évincée jusqu'à liberer()
+     * @return Le cadre qui contient la page
+     */
+    int epingler(int page) {
+        if (page < 0 || page >= nombrePages) {
+            throw new IllegalStateException("Page inexistante : " + page);
+        }
+        acces++;
+        int cadre = cadreDePage[page];
+        if (cadre == LIBRE) {
+            cadre = victime();
+            lire(cadre, page);
+            attacher(cadre, page);
+        }
+        epingles[cadre]++;
+        reference[cadre] = true;
+        return cadre;
+    }
+
+    ByteBuffer page(int cadre) {
+        return cadres[cadre];
+    }
+
+    void marquerSale(int cadre) {
+        sale[cadre] = true;
+    }
+
+    void liberer(int cadre) {
+        epingles[cadre]--;
+    }
+
+    /**
+     * Ajoute une page remplie de zéros à la fin du fichier
+     * @return Le numéro de la nouvelle page, à épingler pour l'initialiser
+     */
+    int nouvellePage() {
+        int page = nombrePages;
+        if (page == cadreDePage.length) {
+            cadreDePage = Arrays.copyOf(cadreDePage, page * 2);
+            Arrays.fill(cadreDePage, page, cadreDePage.length, LIBRE);
+        }
+        // Page neuve : rien à lire sur le disque, elle y sera écrite à l'éviction
+        int cadre = victime();
+        cadres[cadre].put(0, zeros);
+        nombrePages = page + 1;
+        attacher(cadre, page);
+        sale[cadre] = true;
+        return page;
+    }
+
+    /**
+     * Écrit toutes les pages modifiées et force leur écriture sur le disque
+     */
+    void vider() {
+        for (int cadre = 0; cadre < cadres.length; cadre++) {
+            if (sale[cadre]) {
+                ecrire(cadre);
+            }
+        }
+        try {
+            canal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    int getTaillePage() {
+        return taillePage;
+    }
+
+    int getNombrePages() {
+        return nombrePages;
+    }
+
+    long getAcces() {
+        return acces;
+    }
+
+    long getLectures() {
+        return lectures;
+    }
+
+    long getEcritures() {
+        return ecritures;
+    }
+
+    // Remplacement par l'horloge
+
+    private int victime() {
+        // Deux tours suffisent : le premier efface les bits de référence
+        for (int tour = 0; tour < 2 * cadres.length; tour++) {
+            int cadre = aiguille;
+            aiguille = aiguille + 1 == cadres.length ? 0 : aiguille + 1;
+            if (epingles[cadre] > 0) {
+                continue;
+            }
+            if (pageDuCadre[cadre] == LIBRE) {
+                return cadre;
+            }
+            if (reference[cadre]) {
+                reference[cadre] = false;
+                continue;
+            }
+            if (sale[cadre]) {
+                ecrire(cadre);
+            }
+            cadreDePage[pageDuCadre[cadre]] = LIBRE;
+            pageDuCadre[cadre] = LIBRE;
+            return cadre;
+        }
+        throw new IllegalStateException("Toutes les pages du pool sont épinglées");
+    }
+
+    private void attacher(int cadre, int page) {
+        pageDuCadre[cadre] = page;
+        cadreDePage[page] = cadre;
+        sale[cadre] = false;
+    }
+
+    // Entrées-sorties
+
+    private void lire(int cadre, int page) {
+        ByteBuffer tampon = cadres[cadre].duplicate().clear();
+        long position = (long) page * taillePage;
+        try {
+            while (tampon.hasRemaining()) {
+                if (canal.read(tampon, position + tampon.position()) < 0) {
+                    // Fin de fichier : le reste de la page n'a jamais été écrit
+                    tampon.put(zeros, 0, tampon.remaining());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lectures++;
+    }
+
+    private void ecrire(int cadre) {
+        ByteBuffer tampon = cadres[cadre].duplicate().clear();
+        long position = (long) pageDuCadre[cadre] * taillePage;
+        try {
+            while (tampon.hasRemaining()) {
+                canal.write(tampon, position + tampon.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        sale[cadre] = false;
+        ecritures++;
+    }
+}
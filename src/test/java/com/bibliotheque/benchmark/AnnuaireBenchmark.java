@@ -0,0 +1,65 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.service.BibliothequeService;
+
+import java.util.Random;
+
+// Inscriptions avec contrôle d'unicité de l'email, puis recherches par email et par début de nom
+// Lancement : gradle benchmark -Pclasse=AnnuaireBenchmark -Parguments="2000000 100000"
+
+public class AnnuaireBenchmark {
+
+    private static final String[] NOMS = {"Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard",
+            "Petit", "Durand", "Leroy", "Moreau", "Simon", "Laurent", "Lefèvre", "Michel", "Garcia", "Ndiaye"};
+
+    public static void main(String[] args) {
+        int nombreAdherents = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int recherches = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Random aleatoire = new Random(42);
+
+        long avant = Mesures.memoireUtilisee();
+        BibliothequeService service = new BibliothequeService();
+        long debut = System.nanoTime();
+        for (int i = 0; i < nombreAdherents; i++) {
+            service.inscrireAdherent(new Adherent(NOMS[i % NOMS.length] + i, "Prenom" + aleatoire.nextInt(500),
+                    "adherent" + i + "@universite.fr"));
+        }
+        long inscription = System.nanoTime() - debut;
+        long apres = Mesures.memoireUtilisee();
+
+        System.out.printf("Adhérents: %d, inscription: %d ms (%d/s), tas: %d Mo (%d octets/adhérent)%n",
+                nombreAdherents, inscription / 1_000_000, nombreAdherents * 1_000_000_000L / Math.max(1, inscription),
+                (apres - avant) / (1024 * 1024), (apres - avant) / nombreAdherents);
+
+        debut = System.nanoTime();
+        int trouves = 0;
+        for (int i = 0; i < recherches; i++) {
+            if (service.rechercherAdherentParEmail("Adherent" + aleatoire.nextInt(nombreAdherents)
+                    + "@universite.fr") != null) {
+                trouves++;
+            }
+        }
+        long duree = System.nanoTime() - debut;
+        System.out.printf("Recherche par email: %d/%d trouvés, %.2f µs/recherche%n",
+                trouves, recherches, duree / 1000.0 / recherches);
+
+        debut = System.nanoTime();
+        int resultats = 0;
+        for (int i = 0; i < recherches; i++) {
+            // « durand12 » : un préfixe qui couvre des milliers d'adhérents, limité à 20 résultats
+            String prefixe = NOMS[aleatoire.nextInt(NOMS.length)] + aleatoire.nextInt(100);
+            resultats += service.rechercherAdherentsParNom(prefixe + " prenom4", 20).size();
+        }
+        duree = System.nanoTime() - debut;
+        System.out.printf("Recherche par nom: %.1f résultats en moyenne, %.2f µs/recherche%n",
+                (double) resultats / recherches, duree / 1000.0 / recherches);
+
+        try {
+            service.inscrireAdherent(new Adherent("Doublon", "Test", "adherent0@universite.fr"));
+            System.out.println("Erreur : email en double accepté");
+        } catch (IllegalStateException e) {
+            System.out.println("Email en double refusé : " + e.getMessage());
+        }
+    }
+}
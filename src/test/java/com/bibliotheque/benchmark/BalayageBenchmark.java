@@ -0,0 +1,40 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.EmpruntsDeTest;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BalayageRetards;
+import com.bibliotheque.service.BibliothequeService;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Durée du balayage nocturne des retards sur des millions d'emprunts ouverts
+// Lancement : gradle benchmark -Pclasse=BalayageBenchmark -Parguments="2000000" -Pjvm="-Xmx6g"
+
+public class BalayageBenchmark {
+
+    public static void main(String[] args) {
+        int nombreEmprunts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int parallelisme = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        BibliothequeService service = new BibliothequeService();
+        Adherent adherent = null;
+        for (int i = 0; i < nombreEmprunts; i++) {
+            if (i % 5 == 0) {
+                adherent = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+                service.inscrireAdherent(adherent);
+            }
+            service.ajouterLivre(new Livre(Mesures.isbn(i), "Titre " + i, "Auteur " + (i % 20_000), 2000));
+            Emprunt emprunt = service.emprunterLivre(Mesures.isbn(i), adherent.getNumeroCarte());
+            if (i % 10 == 0) {
+                EmpruntsDeTest.mettreEnRetard(emprunt, 1 + i % 30);
+            }
+        }
+
+        BalayageRetards balayage = new BalayageRetards(new ForkJoinPool(parallelisme));
+        for (int passe = 1; passe <= 3; passe++) {
+            System.out.printf("Passe %d (parallélisme %d): %s%n", passe, parallelisme, balayage.executer(service));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.stockage.Catalogue;
+import com.bibliotheque.stockage.CatalogueHorsTas;
+import com.bibliotheque.stockage.CatalogueMemoire;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Compare l'empreinte sur le tas et le temps passé en GC du catalogue en mémoire et hors tas
+// Chaque mode doit être lancé dans sa propre JVM :
+//   gradle benchmark -Pclasse=CatalogueBenchmark -Parguments="memoire 10000000" -Pjvm="-Xmx8g"
+//   gradle benchmark -Pclasse=CatalogueBenchmark -Parguments="horstas 10000000" -Pjvm="-Xmx8g"
+
+public class CatalogueBenchmark {
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "memoire";
+        int nombreLivres = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 20_000_000;
+
+        long avant = Mesures.memoireUtilisee();
+        Catalogue catalogue = "horstas".equals(mode) ? new CatalogueHorsTas() : new CatalogueMemoire();
+        for (int i = 0; i < nombreLivres; i++) {
+            catalogue.ajouter(new Livre(Mesures.isbn(i), "Titre " + i, "Auteur " + (i % 20_000), 2000));
+        }
+        long apres = Mesures.memoireUtilisee();
+
+        // Charge de fond : emprunts et retours aléatoires, plus des déchets à courte durée de vie
+        Random aleatoire = new Random(42);
+        List<Object> dechets = new ArrayList<>();
+        long gcAvant = Mesures.tempsGcCumule();
+        long debut = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            Livre livre = catalogue.trouver(Mesures.isbn(aleatoire.nextInt(nombreLivres)));
+            if (!livre.emprunter()) {
+                livre.retourner();
+            }
+            dechets.add(new byte[64]);
+            if (dechets.size() == 10_000) {
+                dechets.clear();
+            }
+        }
+        long duree = System.nanoTime() - debut;
+        long gc = Mesures.tempsGcCumule() - gcAvant;
+
+        System.out.printf("Mode: %s, livres: %d%n", mode, nombreLivres);
+        System.out.printf("Tas utilisé par le catalogue: %d Mo%n", (apres - avant) / (1024 * 1024));
+        System.out.printf("%d opérations en %d ms, dont %d ms de GC%n",
+                operations, duree / 1_000_000, gc);
+    }
+}
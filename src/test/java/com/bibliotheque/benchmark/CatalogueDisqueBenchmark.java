@@ -0,0 +1,116 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.stockage.CatalogueDisque;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+// Catalogue sur disque plus grand que le tas : chargement, emprunts et retours par le service
+// (instantanés activés) concentrés sur des livres populaires, qui doivent rester dans le pool de
+// pages, puis parcours d'une plage d'ISBN.
+// L'historique des emprunts reste sur le tas : le nombre d'opérations doit y tenir.
+// Arguments : livres opérations pagesEnMemoire [fichier]
+//   gradle benchmark -Pclasse=CatalogueDisqueBenchmark -Parguments="5000000 100000 4096" -Pjvm="-Xmx128m"
+
+public class CatalogueDisqueBenchmark {
+
+    private static final int NOMBRE_ADHERENTS = 10_000;
+    private static final int MAX_EMPRUNTS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int nombreLivres = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int pagesEnMemoire = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        Path fichier = args.length > 3 ? Path.of(args[3]) : Files.createTempFile("catalogue", ".db");
+        Files.deleteIfExists(fichier);
+
+        try (CatalogueDisque catalogue = new CatalogueDisque(fichier, pagesEnMemoire)) {
+            long debut = System.nanoTime();
+            for (int i = 0; i < nombreLivres; i++) {
+                Livre livre = new Livre(Mesures.isbn(i), "Titre du livre numéro " + i,
+                        "Auteur " + (i % 20_000), 1950 + i % 70);
+                livre.ajouterExemplaires(4);
+                catalogue.ajouter(livre);
+            }
+            catalogue.vider();
+            long chargement = System.nanoTime() - debut;
+
+            System.out.printf("Livres: %d, tas maximal: %d Mo, pool: %d Mo, fichier: %d Mo%n", nombreLivres,
+                    Runtime.getRuntime().maxMemory() / (1024 * 1024),
+                    (long) pagesEnMemoire * CatalogueDisque.TAILLE_PAGE_PAR_DEFAUT / (1024 * 1024),
+                    Files.size(fichier) / (1024 * 1024));
+            System.out.printf("Chargement: %d ms (%d livres/s)%n", chargement / 1_000_000,
+                    nombreLivres * 1_000_000_000L / Math.max(1, chargement));
+
+            BibliothequeService service = new BibliothequeService(catalogue);
+            service.activerInstantanes();
+            List<Adherent> adherents = new ArrayList<>(NOMBRE_ADHERENTS);
+            List<Deque<Emprunt>> enCours = new ArrayList<>(NOMBRE_ADHERENTS);
+            for (int i = 0; i < NOMBRE_ADHERENTS; i++) {
+                Adherent adherent = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+                service.inscrireAdherent(adherent);
+                adherents.add(adherent);
+                enCours.add(new ArrayDeque<>());
+            }
+
+            // 90 % des emprunts portent sur 1 % du catalogue ; un adhérent au maximum rend d'abord son plus ancien emprunt
+            int populaires = Math.max(1, nombreLivres / 100);
+            Random aleatoire = new Random(42);
+            long refus = 0;
+            long accesAvant = catalogue.getAccesPages();
+            long luesAvant = catalogue.getPagesLues();
+            debut = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                int indice = aleatoire.nextInt(10) < 9
+                        ? aleatoire.nextInt(populaires) * 100 : aleatoire.nextInt(nombreLivres);
+                int numero = aleatoire.nextInt(NOMBRE_ADHERENTS);
+                Deque<Emprunt> emprunts = enCours.get(numero);
+                if (emprunts.size() == MAX_EMPRUNTS) {
+                    service.retournerLivre(emprunts.removeFirst());
+                }
+                try {
+                    emprunts.addLast(service.emprunterLivre(Mesures.isbn(indice), adherents.get(numero).getNumeroCarte()));
+                } catch (IllegalStateException e) {
+                    // Exemplaire déjà emprunté
+                    refus++;
+                }
+            }
+            long duree = System.nanoTime() - debut;
+            long acces = catalogue.getAccesPages() - accesAvant;
+            long lues = catalogue.getPagesLues() - luesAvant;
+            System.out.printf("%d emprunts par le service en %d ms (%d op/s, %d refus), succès du cache: %.1f %%%n",
+                    operations, duree / 1_000_000, operations * 1_000_000_000L / Math.max(1, duree), refus,
+                    100.0 * (acces - lues) / Math.max(1, acces));
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            System.out.printf("Tas occupé après GC: %d Mo, livres dans l'instantané: %s%n",
+                    (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024),
+                    service.instantane().contientLivres() ? "oui" : "non");
+
+            debut = System.nanoTime();
+            int parcourus = 0;
+            int milieu = nombreLivres / 2;
+            for (Iterator<Livre> livres = catalogue.parcourir(Mesures.isbn(milieu), Mesures.isbn(milieu + 100_000));
+                 livres.hasNext(); parcourus++) {
+                livres.next().getExemplairesDisponibles();
+            }
+            System.out.printf("Parcours de %d ISBN consécutifs: %d ms%n", parcourus,
+                    (System.nanoTime() - debut) / 1_000_000);
+        } finally {
+            if (args.length <= 3) {
+                Files.deleteIfExists(fichier);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+
+// Mesure l'empreinte mémoire du catalogue quand les auteurs sont partagés par le dictionnaire
+// Lancement : gradle benchmark -Pclasse=DictionnaireBenchmark -Parguments="10000000 50000"
+
+public class DictionnaireBenchmark {
+
+    public static void main(String[] args) {
+        int nombreLivres = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int nombreAuteurs = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        long avant = Mesures.memoireUtilisee();
+
+        BibliothequeService service = new BibliothequeService();
+        for (int i = 0; i < nombreLivres; i++) {
+            // new String() simule une chaîne lue depuis un import : une copie par ligne
+            String auteur = new String("Auteur " + (i % nombreAuteurs));
+            service.ajouterLivre(new Livre(Mesures.isbn(i), "Titre " + i, auteur, 2000));
+        }
+
+        long apres = Mesures.memoireUtilisee();
+
+        long debut = System.nanoTime();
+        int resultats = service.rechercherLivreParAuteur("Auteur 1234").size();
+        long dureeRecherche = System.nanoTime() - debut;
+
+        System.out.printf("Livres: %d, auteurs distincts: %d%n", nombreLivres, nombreAuteurs);
+        System.out.printf("Tas utilisé par le catalogue: %d Mo (%d octets/livre)%n",
+                (apres - avant) / (1024 * 1024), (apres - avant) / nombreLivres);
+        System.out.printf("Recherche par auteur: %d résultats en %.2f ms%n",
+                resultats, dureeRecherche / 1_000_000.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.ConteneurBibliotheques;
+import com.bibliotheque.service.PipelineCommandes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Compare la mémoire de N petites bibliothèques hébergées par un conteneur, et de N pipelines indépendants
+// Lancement : gradle benchmark -Pclasse=LocatairesBenchmark -Parguments="conteneur 500" puis "pipelines 500"
+// (un mode par JVM, pour que les mesures de tas ne se mélangent pas)
+
+public class LocatairesBenchmark {
+
+    private static final int LIVRES_PAR_LOCATAIRE = 500;
+    private static final int ADHERENTS_PAR_LOCATAIRE = 100;
+    private static final int EMPRUNTS_PAR_LOCATAIRE = 50;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "conteneur";
+        int locataires = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        long avant = Mesures.memoireUtilisee();
+        int threadsAvant = Thread.activeCount();
+        long debut = System.nanoTime();
+        Object hote = "pipelines".equals(mode) ? pipelines(locataires) : conteneur(locataires);
+        long millis = (System.nanoTime() - debut) / 1_000_000;
+        long octets = Mesures.memoireUtilisee() - avant;
+
+        System.out.printf("Mode: %s, %d locataires chargés en %d ms, tas: %d Mo (%d Ko par locataire), threads: +%d%n",
+                mode, locataires, millis, octets / (1024 * 1024), octets / 1024 / locataires,
+                Thread.activeCount() - threadsAvant);
+        if (hote instanceof ConteneurBibliotheques conteneur) {
+            System.out.println(conteneur.metriques(conteneur.listerLocataires().get(0)).join());
+            conteneur.close();
+        }
+    }
+
+    private static ConteneurBibliotheques conteneur(int locataires) {
+        ConteneurBibliotheques conteneur = new ConteneurBibliotheques(locataires);
+        List<CompletableFuture<?>> commandes = new ArrayList<>();
+        for (int t = 0; t < locataires; t++) {
+            String id = "bibliotheque-" + t;
+            conteneur.ajouterLocataire(id);
+            commandes.add(conteneur.executer(id, LocatairesBenchmark::charger));
+        }
+        commandes.forEach(CompletableFuture::join);
+        return conteneur;
+    }
+
+    private static List<PipelineCommandes> pipelines(int locataires) {
+        List<PipelineCommandes> pipelines = new ArrayList<>(locataires);
+        List<CompletableFuture<?>> commandes = new ArrayList<>();
+        for (int t = 0; t < locataires; t++) {
+            PipelineCommandes pipeline = new PipelineCommandes(new BibliothequeService());
+            pipelines.add(pipeline);
+            for (int i = 0; i < LIVRES_PAR_LOCATAIRE; i++) {
+                pipeline.ajouterLivre(livre(i));
+            }
+            for (int i = 0; i < ADHERENTS_PAR_LOCATAIRE; i++) {
+                Adherent adherent = adherent(i);
+                CompletableFuture<?> inscription = pipeline.inscrireAdherent(adherent);
+                commandes.add(i < EMPRUNTS_PAR_LOCATAIRE
+                        ? pipeline.emprunterLivre(Mesures.isbn(i * 7 % LIVRES_PAR_LOCATAIRE), adherent.getNumeroCarte())
+                        : inscription);
+            }
+        }
+        commandes.forEach(CompletableFuture::join);
+        return pipelines;
+    }
+
+    // Fonds commun à toutes les bibliothèques municipales, quelques adhérents et emprunts
+    private static Void charger(BibliothequeService service) {
+        for (int i = 0; i < LIVRES_PAR_LOCATAIRE; i++) {
+            service.ajouterLivre(livre(i));
+        }
+        for (int i = 0; i < ADHERENTS_PAR_LOCATAIRE; i++) {
+            Adherent adherent = adherent(i);
+            service.inscrireAdherent(adherent);
+            if (i < EMPRUNTS_PAR_LOCATAIRE) {
+                service.emprunterLivre(Mesures.isbn(i * 7 % LIVRES_PAR_LOCATAIRE), adherent);
+            }
+        }
+        return null;
+    }
+
+    private static Livre livre(int i) {
+        Livre livre = new Livre(Mesures.isbn(i), "Titre " + i, "Auteur " + (i % 200), 2000);
+        livre.ajouterExemplaires(2);
+        return livre;
+    }
+
+    private static Adherent adherent(int i) {
+        return new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+    }
+}
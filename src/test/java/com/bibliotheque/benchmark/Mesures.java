@@ -0,0 +1,35 @@
+package com.bibliotheque.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+// Utilitaires communs aux benchmarks
+
+final class Mesures {
+
+    private Mesures() {
+    }
+
+    // Mémoire du tas utilisée après un passage du ramasse-miettes
+    static long memoireUtilisee() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Temps cumulé passé dans le ramasse-miettes depuis le démarrage, en millisecondes
+    static long tempsGcCumule() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    // ISBN synthétique unique pour l'indice donné
+    static String isbn(int indice) {
+        return String.format("978-%010d", indice);
+    }
+}
@@ -0,0 +1,85 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeServicePartitionne;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Mesure le débit d'emprunts/retours et de recherches en fonction du nombre de partitions
+// Lancement : gradle benchmark -Pclasse=PartitionsBenchmark -Parguments="1 2 4 8"
+// Le passage à l'échelle suppose au moins autant de coeurs que de partitions
+
+public class PartitionsBenchmark {
+
+    private static final int NOMBRE_LIVRES = 100_000;
+    private static final int NOMBRE_ADHERENTS = 100_000;
+    private static final int DUREE_SECONDES = 10;
+    private static final int THREADS_CLIENTS = 32;
+
+    public static void main(String[] args) throws Exception {
+        String[] configurations = args.length > 0 ? args : new String[] {"1", "2", "4", "8"};
+        for (String configuration : configurations) {
+            mesurer(Integer.parseInt(configuration));
+        }
+    }
+
+    private static void mesurer(int nombrePartitions) throws Exception {
+        try (BibliothequeServicePartitionne reseau = new BibliothequeServicePartitionne(nombrePartitions)) {
+            for (int i = 0; i < NOMBRE_LIVRES; i++) {
+                Livre livre = new Livre(Mesures.isbn(i), "Titre " + i, "Auteur " + (i % 5000), 2000);
+                livre.ajouterExemplaires(4);
+                reseau.ajouterLivre(livre);
+            }
+            List<String> cartes = new ArrayList<>();
+            for (int i = 0; i < NOMBRE_ADHERENTS; i++) {
+                Adherent adherent = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+                cartes.add(adherent.getNumeroCarte());
+                reseau.inscrireAdherent(adherent).join();
+            }
+
+            AtomicLong operations = new AtomicLong();
+            AtomicLong recherches = new AtomicLong();
+            AtomicLong refus = new AtomicLong();
+            long fin = System.nanoTime() + DUREE_SECONDES * 1_000_000_000L;
+            List<Thread> clients = new ArrayList<>();
+            for (int t = 0; t < THREADS_CLIENTS; t++) {
+                Thread client = new Thread(() -> {
+                    ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+                    while (System.nanoTime() < fin) {
+                        if (aleatoire.nextInt(100) == 0) {
+                            reseau.rechercherLivreParTitre("Titre " + aleatoire.nextInt(1000), 20).join();
+                            recherches.incrementAndGet();
+                            continue;
+                        }
+                        String isbn = Mesures.isbn(aleatoire.nextInt(NOMBRE_LIVRES));
+                        String carte = cartes.get(aleatoire.nextInt(NOMBRE_ADHERENTS));
+                        // Seuls les emprunts et retours aboutis comptent ; un refus (limite d'emprunts,
+                        // exemplaires épuisés) est compté à part
+                        boolean abouti = reseau.emprunterLivre(isbn, carte)
+                                .thenCompose(reseau::retournerLivre)
+                                .handle((ignore, e) -> e == null)
+                                .join();
+                        if (abouti) {
+                            operations.addAndGet(2);
+                        } else {
+                            refus.incrementAndGet();
+                        }
+                    }
+                });
+                clients.add(client);
+                client.start();
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+
+            System.out.printf("Partitions: %d, emprunts+retours: %d op/s, recherches: %d/s, refus: %d/s%n",
+                    nombrePartitions, operations.get() / DUREE_SECONDES, recherches.get() / DUREE_SECONDES,
+                    refus.get() / DUREE_SECONDES);
+        }
+    }
+}
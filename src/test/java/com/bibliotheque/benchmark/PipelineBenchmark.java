@@ -0,0 +1,92 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.PipelineCommandes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compare le débit d'emprunts/retours du pipeline à écrivain unique et d'un service protégé par un verrou
+// Lancement : gradle benchmark -Pclasse=PipelineBenchmark -Parguments="verrou 16" puis "pipeline 16"
+
+public class PipelineBenchmark {
+
+    private static final int NOMBRE_LIVRES = 10_000;
+    private static final int NOMBRE_ADHERENTS = 50_000;
+    private static final int DUREE_SECONDES = 10;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "pipeline";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        BibliothequeService service = new BibliothequeService();
+        PipelineCommandes pipeline = "pipeline".equals(mode) ? new PipelineCommandes(service) : null;
+
+        List<String> cartes = new ArrayList<>();
+        for (int i = 0; i < NOMBRE_LIVRES; i++) {
+            Livre livre = new Livre(Mesures.isbn(i), "Titre " + i, "Auteur " + i, 2000);
+            livre.ajouterExemplaires(4);
+            if (pipeline != null) {
+                pipeline.ajouterLivre(livre);
+            } else {
+                service.ajouterLivre(livre);
+            }
+        }
+        for (int i = 0; i < NOMBRE_ADHERENTS; i++) {
+            Adherent adherent = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+            cartes.add(adherent.getNumeroCarte());
+            if (pipeline != null) {
+                pipeline.inscrireAdherent(adherent).get();
+            } else {
+                service.inscrireAdherent(adherent);
+            }
+        }
+
+        AtomicLong operations = new AtomicLong();
+        long fin = System.nanoTime() + DUREE_SECONDES * 1_000_000_000L;
+        List<Thread> travailleurs = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread travailleur = new Thread(() -> {
+                ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+                while (System.nanoTime() < fin) {
+                    String isbn = Mesures.isbn(aleatoire.nextInt(NOMBRE_LIVRES));
+                    String carte = cartes.get(aleatoire.nextInt(NOMBRE_ADHERENTS));
+                    try {
+                        if (pipeline != null) {
+                            CompletableFuture<Emprunt> emprunt = pipeline.emprunterLivre(isbn, carte);
+                            pipeline.retournerLivre(emprunt.get()).get();
+                        } else {
+                            Emprunt emprunt;
+                            synchronized (service) {
+                                emprunt = service.emprunterLivre(isbn, carte);
+                            }
+                            synchronized (service) {
+                                service.retournerLivre(emprunt);
+                            }
+                        }
+                    } catch (Exception e) {
+                        // Emprunt refusé (livre indisponible) : compté comme une opération
+                    }
+                    operations.addAndGet(2);
+                }
+            });
+            travailleurs.add(travailleur);
+            travailleur.start();
+        }
+        for (Thread travailleur : travailleurs) {
+            travailleur.join();
+        }
+        if (pipeline != null) {
+            pipeline.close();
+        }
+
+        System.out.printf("Mode: %s, threads: %d, débit: %d opérations/s%n",
+                mode, threads, operations.get() / DUREE_SECONDES);
+    }
+}
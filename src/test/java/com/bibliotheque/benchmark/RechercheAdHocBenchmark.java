@@ -0,0 +1,48 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.Instantane;
+
+import java.util.function.Predicate;
+
+// Compare une recherche ad hoc séquentielle sur l'instantané au parcours parallèle de rechercherLivres
+// Lancement : gradle benchmark -Pclasse=RechercheAdHocBenchmark -Parguments="1000000" -Pjvm="-Xmx4g"
+
+public class RechercheAdHocBenchmark {
+
+    private static final int REPETITIONS = 20;
+
+    public static void main(String[] args) {
+        int nombreLivres = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        BibliothequeService service = new BibliothequeService();
+        for (int i = 0; i < nombreLivres; i++) {
+            Livre livre = new Livre(Mesures.isbn(i), (i % 7 == 0 ? "Tome " + i : "Titre sans numéro"),
+                    "Auteur " + (i % 5000), 2000);
+            livre.ajouterExemplaires(i % 6);
+            service.ajouterLivre(livre);
+        }
+        service.activerInstantanes();
+        Instantane instantane = service.instantane();
+        Predicate<Livre> critere = l -> l.getTitre().matches(".*\\d.*") && l.getNombreExemplaires() > 3;
+
+        for (int passe = 0; passe < 2; passe++) {
+            long debut = System.nanoTime();
+            long sequentiels = 0;
+            for (int r = 0; r < REPETITIONS; r++) {
+                sequentiels += instantane.livres().filter(critere).count();
+            }
+            long milieu = System.nanoTime();
+            long paralleles = 0;
+            for (int r = 0; r < REPETITIONS; r++) {
+                paralleles += service.rechercherLivres(critere).size();
+            }
+            long fin = System.nanoTime();
+
+            System.out.printf("%d livres, %d coeurs : séquentiel %.1f ms, parallèle %.1f ms par recherche (%d / %d résultats)%n",
+                    nombreLivres, Runtime.getRuntime().availableProcessors(),
+                    (milieu - debut) / 1e6 / REPETITIONS, (fin - milieu) / 1e6 / REPETITIONS,
+                    sequentiels / REPETITIONS, paralleles / REPETITIONS);
+        }
+    }
+}
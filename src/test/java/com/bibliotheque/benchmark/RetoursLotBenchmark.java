@@ -0,0 +1,80 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeServicePartitionne;
+import com.bibliotheque.service.RetoursEnLot;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Mesure le traitement d'une nuit de boîte de retour : lecture du fichier de scans puis retours en lot
+// Lancement : gradle benchmark -Pclasse=RetoursLotBenchmark -Parguments="50000 1 2 4 8"
+// Premier argument : nombre de scans ; suivants : nombres de partitions
+
+public class RetoursLotBenchmark {
+
+    private static final int NOMBRE_LIVRES = 100_000;
+    private static final int EMPRUNTS_PAR_ADHERENT = 5;
+    // Part des scans en double (exemplaire déposé puis rescanné)
+    private static final int POURCENT_DOUBLONS = 2;
+
+    public static void main(String[] args) throws Exception {
+        int scans = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        String[] configurations = args.length > 1
+                ? Arrays.copyOfRange(args, 1, args.length) : new String[] {"1", "2", "4", "8"};
+        for (String configuration : configurations) {
+            mesurer(scans, Integer.parseInt(configuration));
+        }
+    }
+
+    private static void mesurer(int scans, int nombrePartitions) throws Exception {
+        try (BibliothequeServicePartitionne reseau = new BibliothequeServicePartitionne(nombrePartitions)) {
+            for (int i = 0; i < NOMBRE_LIVRES; i++) {
+                Livre livre = new Livre(Mesures.isbn(i), "Titre " + i, "Auteur " + (i % 5000), 2000);
+                livre.ajouterExemplaires(4);
+                reseau.ajouterLivre(livre);
+            }
+            List<CompletableFuture<Emprunt>> emprunts = new ArrayList<>(scans);
+            for (int i = 0; i < scans / EMPRUNTS_PAR_ADHERENT + 1; i++) {
+                Adherent adherent = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+                reseau.inscrireAdherent(adherent).join();
+                for (int j = 0; j < EMPRUNTS_PAR_ADHERENT && emprunts.size() < scans; j++) {
+                    emprunts.add(reseau.emprunterLivre(Mesures.isbn((i * 7 + j * 13_001) % NOMBRE_LIVRES),
+                            adherent.getNumeroCarte()).exceptionally(e -> null));
+                }
+            }
+
+            List<String> lignes = new ArrayList<>(scans);
+            for (CompletableFuture<Emprunt> emprunt : emprunts) {
+                // Livre déjà épuisé : pas de scan pour cet emprunt
+                if (emprunt.join() != null) {
+                    lignes.add(String.valueOf(emprunt.join().getCodeBarreExemplaire()));
+                }
+            }
+            for (int i = 0, doublons = lignes.size() * POURCENT_DOUBLONS / 100; i < doublons; i++) {
+                lignes.add(lignes.get(i));
+            }
+            Collections.shuffle(lignes);
+            Path fichier = Files.createTempFile("boite-retour", ".txt");
+            try {
+                Files.write(fichier, lignes);
+
+                long debut = System.nanoTime();
+                RetoursEnLot.Bilan bilan = reseau.retournerLot(RetoursEnLot.lire(fichier)).join();
+                long millis = (System.nanoTime() - debut) / 1_000_000;
+
+                System.out.printf("Partitions: %d, %d scans traités en %d ms (lecture comprise), %s%n",
+                        nombrePartitions, lignes.size(), millis, bilan);
+            } finally {
+                Files.delete(fichier);
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.bibliotheque.benchmark;
+
+import com.bibliotheque.charge.HistogrammeLatences;
+import com.bibliotheque.serveur.Json;
+import com.bibliotheque.serveur.ServeurBibliotheque;
+import com.bibliotheque.service.BibliothequeService;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Test de charge du serveur HTTP : des milliers de bornes, chacune avec sa propre connexion
+// persistante et son thread virtuel, consultent le catalogue et empruntent avec un temps de pause
+// Serveur dans la même JVM (deux descripteurs par connexion) :
+//   gradle benchmark -Pclasse=ServeurBenchmark -Parguments="8000 30 1000"
+// Serveur séparé (gradle run --args="--serveur port=8080 concurrence=20000") :
+//   gradle benchmark -Pclasse=ServeurBenchmark -Parguments="15000 30 1000 localhost:8080"
+// Arguments : connexions, durée (s), pause moyenne entre deux requêtes (ms), hôte:port
+
+public class ServeurBenchmark {
+
+    private static final int NOMBRE_LIVRES = 10_000;
+    private static final int NOMBRE_ADHERENTS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        int connexions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int duree = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int pause = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        ServeurBibliotheque serveurLocal = null;
+        String hote = "localhost";
+        int port;
+        if (args.length > 3) {
+            hote = args[3].substring(0, args[3].indexOf(':'));
+            port = Integer.parseInt(args[3].substring(args[3].indexOf(':') + 1));
+        } else {
+            serveurLocal = new ServeurBibliotheque(new BibliothequeService(), 0, 20_000);
+            serveurLocal.demarrer();
+            port = serveurLocal.getPort();
+        }
+
+        List<String> cartes = preparer(hote, port);
+        System.out.printf("Catalogue de %d livres et %d adhérents chargé%n", NOMBRE_LIVRES, cartes.size());
+
+        HistogrammeLatences latences = new HistogrammeLatences();
+        AtomicLong reponses = new AtomicLong();
+        AtomicLong refus = new AtomicLong();
+        AtomicLong erreurs = new AtomicLong();
+        AtomicInteger ouvertes = new AtomicInteger();
+        AtomicInteger maxOuvertes = new AtomicInteger();
+
+        long debut = System.nanoTime();
+        long fin = debut + duree * 1_000_000_000L;
+        String hoteCible = hote;
+        try (ExecutorService bornes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connexions; i++) {
+                bornes.submit(() -> {
+                    ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+                    // Démarrages étalés sur la première pause
+                    dormir(aleatoire.nextInt(Math.max(1, pause)));
+                    while (System.nanoTime() < fin) {
+                        try (Connexion connexion = new Connexion(hoteCible, port)) {
+                            maxOuvertes.accumulateAndGet(ouvertes.incrementAndGet(), Math::max);
+                            while (System.nanoTime() < fin) {
+                                String isbn = Mesures.isbn(aleatoire.nextInt(NOMBRE_LIVRES));
+                                long t0 = System.nanoTime();
+                                int statut;
+                                if (aleatoire.nextInt(10) == 0) {
+                                    String carte = cartes.get(aleatoire.nextInt(cartes.size()));
+                                    Reponse emprunt = connexion.envoyer("POST", "/emprunts",
+                                            "{\"isbn\":\"" + isbn + "\",\"numeroCarte\":\"" + carte + "\"}");
+                                    statut = emprunt.statut;
+                                    if (statut == 201) {
+                                        Object id = Json.lireObjet(emprunt.corps).get("id");
+                                        statut = connexion.envoyer("POST", "/emprunts/" + id + "/retour", "").statut;
+                                    }
+                                } else {
+                                    statut = connexion.envoyer("GET", "/livres/" + isbn, null).statut;
+                                }
+                                long t1 = System.nanoTime();
+                                synchronized (latences) {
+                                    latences.enregistrer(t1 - t0);
+                                }
+                                reponses.incrementAndGet();
+                                if (statut == 503) {
+                                    refus.incrementAndGet();
+                                }
+                                dormir(aleatoire.nextInt(Math.max(1, 2 * pause)));
+                            }
+                        } catch (IOException e) {
+                            // Connexion refusée ou fermée par le serveur : la borne se reconnecte
+                            erreurs.incrementAndGet();
+                            dormir(100);
+                        } finally {
+                            ouvertes.decrementAndGet();
+                        }
+                    }
+                });
+            }
+            while (System.nanoTime() < fin) {
+                Thread.sleep(5000);
+                System.out.printf("  connexions ouvertes: %d, réponses: %d%n", ouvertes.get(), reponses.get());
+            }
+        }
+
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        System.out.printf("Bornes: %d, connexions simultanées max: %d, réponses: %d (%.0f/s), refus 503: %d, erreurs: %d%n",
+                connexions, maxOuvertes.get(), reponses.get(), reponses.get() / secondes, refus.get(), erreurs.get());
+        System.out.printf("Latence µs : p50 %.0f, p99 %.0f, p99.9 %.0f, max %.0f%n",
+                latences.centile(50) / 1000.0, latences.centile(99) / 1000.0,
+                latences.centile(99.9) / 1000.0, latences.getMaximum() / 1000.0);
+
+        if (serveurLocal != null) {
+            serveurLocal.close();
+        }
+    }
+
+    private static List<String> preparer(String hote, int port) throws IOException {
+        List<String> cartes = new ArrayList<>();
+        try (Connexion connexion = new Connexion(hote, port)) {
+            for (int i = 0; i < NOMBRE_LIVRES; i++) {
+                connexion.envoyer("POST", "/livres", "{\"isbn\":\"" + Mesures.isbn(i) + "\",\"titre\":\"Titre " + i
+                        + "\",\"auteur\":\"Auteur " + (i % 500) + "\",\"anneePublication\":2000}");
+            }
+            for (int i = 0; i < NOMBRE_ADHERENTS; i++) {
+                Reponse reponse = connexion.envoyer("POST", "/adherents",
+                        "{\"nom\":\"Nom" + i + "\",\"prenom\":\"Prenom\",\"email\":\"a" + i + "@email.com\"}");
+                cartes.add((String) Json.lireObjet(reponse.corps).get("numeroCarte"));
+            }
+        }
+        return cartes;
+    }
+
+    private static void dormir(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Connexion HTTP/1.1 persistante minimale : une requête à la fois, corps de longueur connue
+    private static final class Connexion implements AutoCloseable {
+        private final Socket socket;
+        private final InputStream entree;
+        private final OutputStream sortie;
+        private final String hote;
+
+        Connexion(String hote, int port) throws IOException {
+            this.hote = hote;
+            this.socket = new Socket(hote, port);
+            socket.setTcpNoDelay(true);
+            this.entree = new BufferedInputStream(socket.getInputStream());
+            this.sortie = socket.getOutputStream();
+        }
+
+        Reponse envoyer(String methode, String chemin, String corps) throws IOException {
+            byte[] octets = corps == null ? new byte[0] : corps.getBytes(StandardCharsets.UTF_8);
+            String entete = methode + " " + chemin + " HTTP/1.1\r\nHost: " + hote + "\r\n"
+                    + (corps == null ? "" : "Content-Type: application/json\r\nContent-Length: " + octets.length + "\r\n")
+                    + "\r\n";
+            // En-tête et corps en une seule écriture
+            ByteArrayOutputStream requete = new ByteArrayOutputStream(entete.length() + octets.length);
+            requete.writeBytes(entete.getBytes(StandardCharsets.US_ASCII));
+            requete.writeBytes(octets);
+            sortie.write(requete.toByteArray());
+            sortie.flush();
+
+            String ligneStatut = lireLigne();
+            int statut = Integer.parseInt(ligneStatut.substring(9, 12));
+            int longueur = 0;
+            String ligne;
+            while (!(ligne = lireLigne()).isEmpty()) {
+                if (ligne.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    longueur = Integer.parseInt(ligne.substring(15).trim());
+                }
+            }
+            return new Reponse(statut, new String(entree.readNBytes(longueur), StandardCharsets.UTF_8));
+        }
+
+        private String lireLigne() throws IOException {
+            ByteArrayOutputStream ligne = new ByteArrayOutputStream(64);
+            int c;
+            while ((c = entree.read()) != '\n') {
+                if (c < 0) {
+                    throw new IOException("Connexion fermée par le serveur");
+                }
+                if (c != '\r') {
+                    ligne.write(c);
+                }
+            }
+            return ligne.toString(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private static final class Reponse {
+        private final int statut;
+        private final String corps;
+
+        Reponse(int statut, String corps) {
+            this.statut = statut;
+            this.corps = corps;
+        }
+    }
+}
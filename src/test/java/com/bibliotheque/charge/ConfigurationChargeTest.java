@@ -0,0 +1,34 @@
+package com.bibliotheque.charge;
+
+import com.bibliotheque.charge.ConfigurationCharge.Operation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour ConfigurationCharge")
+class ConfigurationChargeTest {
+
+    @Test
+    @DisplayName("Les arguments cle=valeur doivent remplacer les valeurs par défaut")
+    void testLecture() {
+        ConfigurationCharge configuration = ConfigurationCharge.lire(new String[]{
+                "livres=5000", "threads=8", "cible=pipeline", "mix=emprunt:3,recherche:1"});
+
+        assertEquals(5000, configuration.getNombreLivres());
+        assertEquals(8, configuration.getThreads());
+        assertEquals("pipeline", configuration.getCible());
+        assertEquals(4, configuration.getPoidsTotal());
+        assertEquals(Operation.EMPRUNT, configuration.operation(2));
+        assertEquals(Operation.RECHERCHE, configuration.operation(3));
+    }
+
+    @Test
+    @DisplayName("Un paramètre inconnu ou mal formé doit lever une exception")
+    void testArgumentsInvalides() {
+        assertThrows(IllegalArgumentException.class, () -> ConfigurationCharge.lire(new String[]{"vitesse=3"}));
+        assertThrows(IllegalArgumentException.class, () -> ConfigurationCharge.lire(new String[]{"threads"}));
+        assertThrows(IllegalArgumentException.class, () -> ConfigurationCharge.lire(new String[]{"threads=0"}));
+        assertThrows(IllegalArgumentException.class, () -> ConfigurationCharge.lire(new String[]{"mix=emprunt:0"}));
+    }
+}
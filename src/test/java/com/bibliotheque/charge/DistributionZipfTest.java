@@ -0,0 +1,46 @@
+package com.bibliotheque.charge;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour DistributionZipf")
+class DistributionZipfTest {
+
+    @Test
+    @DisplayName("Le premier rang doit être tiré environ deux fois plus que le second (s = 1)")
+    void testRepartition() {
+        DistributionZipf zipf = new DistributionZipf(1000, 1.0);
+        Random aleatoire = new Random(7);
+        int[] tirages = new int[1000];
+        for (int i = 0; i < 200_000; i++) {
+            tirages[zipf.tirer(aleatoire)]++;
+        }
+
+        assertEquals(2.0, (double) tirages[0] / tirages[1], 0.15);
+        assertTrue(tirages[0] > 100 * tirages[999]);
+    }
+
+    @Test
+    @DisplayName("Avec un exposant nul, les tirages doivent être uniformes et rester dans les bornes")
+    void testUniforme() {
+        DistributionZipf zipf = new DistributionZipf(10, 0);
+        Random aleatoire = new Random(7);
+        int[] tirages = new int[10];
+        for (int i = 0; i < 100_000; i++) {
+            tirages[zipf.tirer(aleatoire)]++;
+        }
+        for (int tirage : tirages) {
+            assertEquals(10_000, tirage, 500);
+        }
+    }
+
+    @Test
+    @DisplayName("Un nombre de rangs nul doit lever une exception")
+    void testRangsInvalides() {
+        assertThrows(IllegalArgumentException.class, () -> new DistributionZipf(0, 1.0));
+    }
+}
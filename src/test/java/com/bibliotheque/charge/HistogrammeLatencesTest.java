@@ -0,0 +1,59 @@
+package com.bibliotheque.charge;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour HistogrammeLatences")
+class HistogrammeLatencesTest {
+
+    @Test
+    @DisplayName("Les centiles doivent être exacts à la précision de l'histogramme près")
+    void testCentiles() {
+        HistogrammeLatences histogramme = new HistogrammeLatences();
+        for (long i = 1; i <= 100_000; i++) {
+            histogramme.enregistrer(i * 1000);
+        }
+
+        assertEquals(100_000, histogramme.getNombre());
+        assertEquals(100_000_000, histogramme.getMaximum());
+        assertEquals(50_000_000, histogramme.centile(50), 50_000_000 * 0.02);
+        assertEquals(99_000_000, histogramme.centile(99), 99_000_000 * 0.02);
+        assertEquals(100_000_000, histogramme.centile(100));
+    }
+
+    @Test
+    @DisplayName("Chaque valeur doit tomber dans une case dont la borne supérieure la contient")
+    void testCases() {
+        for (long valeur : new long[]{0, 1, 63, 64, 65, 127, 128, 1_000_000, Long.MAX_VALUE / 2}) {
+            int indice = HistogrammeLatences.indice(valeur);
+            assertTrue(HistogrammeLatences.valeurMaximale(indice) >= valeur);
+            if (indice > 0) {
+                assertTrue(HistogrammeLatences.valeurMaximale(indice - 1) < valeur);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("La fusion doit additionner les mesures de deux histogrammes")
+    void testFusion() {
+        HistogrammeLatences premier = new HistogrammeLatences();
+        HistogrammeLatences second = new HistogrammeLatences();
+        premier.enregistrer(100);
+        second.enregistrer(5000);
+        second.enregistrer(5000);
+
+        premier.fusionner(second);
+
+        assertEquals(3, premier.getNombre());
+        assertEquals(5000, premier.getMaximum());
+        assertEquals(100, premier.centile(10));
+    }
+
+    @Test
+    @DisplayName("Un histogramme vide doit retourner 0")
+    void testVide() {
+        assertEquals(0, new HistogrammeLatences().centile(99));
+    }
+}
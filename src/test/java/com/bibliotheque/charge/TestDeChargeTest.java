@@ -0,0 +1,40 @@
+package com.bibliotheque.charge;
+
+import com.bibliotheque.charge.ConfigurationCharge.Operation;
+import com.bibliotheque.modele.Horloge;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour TestDeCharge")
+class TestDeChargeTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"verrou", "pipeline", "partitions"})
+    @DisplayName("Un test de charge court doit mesurer chaque opération du mix")
+    void testExecution(String cible) throws InterruptedException {
+        Horloge horloge = Horloge.parDefaut();
+        ConfigurationCharge configuration = ConfigurationCharge.lire(new String[]{
+                "livres=2000", "adherents=300", "auteurs=100", "threads=4",
+                "duree=1", "echauffement=0", "accelerer=3", "cible=" + cible});
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+
+        Map<Operation, HistogrammeLatences> latences =
+                new TestDeCharge(configuration).executer(new PrintStream(sortie, true));
+
+        for (Operation operation : Operation.values()) {
+            assertTrue(latences.get(operation).getNombre() > 0, operation.name());
+        }
+        assertTrue(sortie.toString().contains("p99"));
+        assertTrue(sortie.toString().contains("erreurs"));
+        // Une exception autre qu'un refus métier est un défaut de la cible
+        assertFalse(sortie.toString().contains("Première erreur inattendue"), sortie.toString());
+        assertSame(horloge, Horloge.parDefaut());
+    }
+}
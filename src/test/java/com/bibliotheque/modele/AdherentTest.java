@@ -4,6 +4,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("Tests unitaires pour la classe Adherent")
@@ -117,5 +119,14 @@ class AdherentTest {
         double fraisAttendus = 10 * 0.50; // 0.50€ par jour
         assertEquals(fraisAttendus, adherent.calculerFraisRetard(), 0.01);
     }
-}
 
+    @Test
+    @DisplayName("La date d'inscription doit venir de l'horloge fournie")
+    void testHorlogeFournie() {
+        LocalDate jour = LocalDate.of(2024, 9, 1);
+        Adherent inscrit = new Adherent("Martin", "Julie", "julie.martin@email.com", new HorlogeSimulee(jour));
+        assertEquals(jour, inscrit.getDateInscription());
+        assertThrows(IllegalArgumentException.class,
+                () -> new Adherent("Martin", "Julie", "julie.martin@email.com", (Horloge) null));
+    }
+}
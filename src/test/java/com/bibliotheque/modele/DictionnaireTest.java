@@ -0,0 +1,81 @@
+package com.bibliotheque.modele;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour la classe Dictionnaire")
+class DictionnaireTest {
+
+    private Dictionnaire dictionnaire;
+
+    @BeforeEach
+    void setUp() {
+        dictionnaire = new Dictionnaire();
+    }
+
+    @Test
+    @DisplayName("Une même chaîne doit toujours recevoir le même identifiant")
+    void testEncoderMemeChaine() {
+        int id1 = dictionnaire.encoder("Martin Fowler");
+        int id2 = dictionnaire.encoder(new String("Martin Fowler"));
+
+        assertEquals(id1, id2);
+        assertEquals(1, dictionnaire.taille());
+    }
+
+    @Test
+    @DisplayName("Décoder un identifiant doit retourner la chaîne partagée")
+    void testDecoder() {
+        int id = dictionnaire.encoder("Robert C. Martin");
+
+        assertEquals("Robert C. Martin", dictionnaire.decoder(id));
+        assertEquals("robert c. martin", dictionnaire.cleNormalisee(id));
+        assertSame(dictionnaire.decoder(id), dictionnaire.decoder(id));
+    }
+
+    @Test
+    @DisplayName("Des chaînes distinctes doivent recevoir des identifiants compacts")
+    void testIdentifiantsCompacts() {
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, dictionnaire.encoder("Auteur " + i));
+        }
+        assertEquals(1000, dictionnaire.taille());
+        assertEquals("Auteur 999", dictionnaire.decoder(999));
+    }
+
+    @Test
+    @DisplayName("La recherche doit ignorer la casse")
+    void testRechercher() {
+        int fowler = dictionnaire.encoder("Martin Fowler");
+        int martin = dictionnaire.encoder("Robert Martin");
+        dictionnaire.encoder("Kent Beck");
+
+        List<Integer> trouves = new ArrayList<>();
+        dictionnaire.rechercher("MARTIN", trouves::add);
+
+        assertEquals(List.of(fowler, martin), trouves);
+    }
+
+    @Test
+    @DisplayName("Un identifiant inconnu doit lever une exception")
+    void testDecoderIdentifiantInconnu() {
+        assertEquals(-1, dictionnaire.identifiant("Inconnu"));
+        assertThrows(IllegalArgumentException.class, () -> dictionnaire.decoder(0));
+    }
+
+    @Test
+    @DisplayName("Les livres d'un même auteur partagent son identifiant")
+    void testLivresPartagentAuteur() {
+        Livre livre1 = new Livre("978-1-1111-1111-1", "Refactoring", "Martin Fowler", 1999);
+        Livre livre2 = new Livre("978-2-2222-2222-2", "UML Distilled", new String("Martin Fowler"), 2003);
+
+        assertEquals(livre1.getIdAuteur(), livre2.getIdAuteur());
+        assertSame(livre1.getAuteur(), livre2.getAuteur());
+    }
+}
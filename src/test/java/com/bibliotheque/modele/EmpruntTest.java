@@ -129,5 +129,27 @@ class EmpruntTest {
         double fraisAttendus = 6 * 0.50; // 6 jours * 0.50€
         assertEquals(fraisAttendus, emprunt.calculerFraisRetard(), 0.01);
     }
-}
 
+    @Test
+    @DisplayName("Une copie figée ne doit ni partager le livre et l'adhérent, ni changer, ni être modifiable")
+    void testCopieFigee() {
+        emprunt.setDateRetourPrevue(LocalDate.now().minusDays(2));
+        Emprunt copie = new Emprunt(emprunt);
+
+        assertTrue(copie.estFige());
+        assertFalse(emprunt.estFige());
+        assertEquals(emprunt.getIdentifiant(), copie.getIdentifiant());
+        assertNotSame(livre, copie.getLivre());
+        assertNotSame(adherent, copie.getAdherent());
+        assertEquals(livre.getIsbn(), copie.getLivre().getIsbn());
+
+        assertEquals(2, copie.calculerJoursRetard());
+        assertEquals(Emprunt.StatutEmprunt.EN_COURS, copie.getStatut());
+        assertThrows(IllegalStateException.class, copie::retourner);
+        assertThrows(IllegalStateException.class, copie::prolonger);
+        assertThrows(IllegalStateException.class, copie::marquerRetardSignale);
+        assertThrows(IllegalArgumentException.class, () -> new Emprunt(emprunt,
+                new Livre("978-2-1234-5681-0", "Design Patterns", "Gang of Four", 1994), new Adherent(adherent)));
+        assertNotEquals(emprunt.getIdentifiant(), new Emprunt(livre, adherent).getIdentifiant());
+    }
+}
@@ -0,0 +1,17 @@
+package com.bibliotheque.modele;
+
+import java.time.LocalDate;
+
+// Accès aux setters de test d'Emprunt depuis les tests des autres packages
+
+public final class EmpruntsDeTest {
+
+    private EmpruntsDeTest() {
+    }
+
+    // Recule les dates d'un emprunt pour qu'il soit en retard du nombre de jours donné
+    public static void mettreEnRetard(Emprunt emprunt, int joursRetard) {
+        emprunt.setDateEmprunt(LocalDate.now().minusDays(14L + joursRetard));
+        emprunt.setDateRetourPrevue(LocalDate.now().minusDays(joursRetard));
+    }
+}
@@ -0,0 +1,97 @@
+package com.bibliotheque.modele;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour les horloges")
+class HorlogeTest {
+
+    private static final LocalDate DEPART = LocalDate.of(2024, 9, 1);
+
+    @AfterEach
+    void tearDown() {
+        Horloge.definirParDefaut(new HorlogeSysteme());
+    }
+
+    @Test
+    @DisplayName("L'horloge système doit donner la date du jour")
+    void testHorlogeSysteme() {
+        assertEquals(LocalDate.now(), new HorlogeSysteme().aujourdhui());
+    }
+
+    @Test
+    @DisplayName("L'horloge système doit changer de jour à minuit")
+    void testChangementDeJour() {
+        ZoneId zone = ZoneOffset.UTC;
+        Instant avantMinuit = DEPART.atTime(23, 59, 59).atZone(zone).toInstant();
+        HorlogeSysteme horloge = new HorlogeSysteme(Clock.fixed(avantMinuit, zone));
+        assertEquals(DEPART, horloge.aujourdhui());
+
+        HorlogeSysteme lendemain = new HorlogeSysteme(Clock.offset(Clock.fixed(avantMinuit, zone),
+                Duration.ofSeconds(2)));
+        assertEquals(DEPART.plusDays(1), lendemain.aujourdhui());
+    }
+
+    @Test
+    @DisplayName("L'heure courante doit suivre le fuseau horaire de l'horloge")
+    void testHeureCourante() {
+        ZoneId zone = ZoneId.of("Europe/Paris");
+        Instant apresMidi = DEPART.atTime(14, 30).atZone(zone).toInstant();
+        HorlogeSysteme horloge = new HorlogeSysteme(Clock.fixed(apresMidi, zone));
+
+        assertEquals(DEPART.toEpochDay() * 24 + 14, horloge.heureCourante());
+        assertEquals(DEPART.toEpochDay() * 24, new HorlogeSimulee(DEPART).heureCourante());
+    }
+
+    @Test
+    @DisplayName("L'horloge simulée doit avancer à la demande")
+    void testHorlogeSimulee() {
+        HorlogeSimulee horloge = new HorlogeSimulee(DEPART);
+        horloge.avancer(30);
+        assertEquals(DEPART.plusDays(30), horloge.aujourdhui());
+
+        horloge.fixer(DEPART);
+        assertEquals(DEPART, horloge.aujourdhui());
+        assertThrows(IllegalArgumentException.class, () -> horloge.avancer(-1));
+    }
+
+    @Test
+    @DisplayName("Un emprunt daté par une horloge simulée doit passer en retard avec le temps")
+    void testEmpruntEnTempsSimule() {
+        HorlogeSimulee horloge = new HorlogeSimulee(DEPART);
+        Livre livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        Emprunt emprunt = new Emprunt(livre, adherent, horloge);
+
+        assertEquals(DEPART, emprunt.getDateEmprunt());
+        horloge.avancer(14);
+        assertFalse(emprunt.estEnRetard());
+
+        horloge.avancer(3);
+        assertTrue(emprunt.estEnRetard());
+        assertEquals(3, emprunt.calculerJoursRetard());
+
+        emprunt.retourner();
+        assertEquals(DEPART.plusDays(17), emprunt.getDateRetourEffective());
+    }
+
+    @Test
+    @DisplayName("L'horloge par défaut doit dater les nouveaux adhérents")
+    void testHorlogeParDefaut() {
+        Horloge.definirParDefaut(new HorlogeSimulee(DEPART));
+
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        assertEquals(DEPART, adherent.getDateInscription());
+        assertThrows(IllegalArgumentException.class, () -> Horloge.definirParDefaut(null));
+    }
+}
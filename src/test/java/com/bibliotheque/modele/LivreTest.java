@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.time.LocalDate;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @DisplayName("Tests unitaires pour la classe Livre")
@@ -117,4 +119,15 @@ class LivreTest {
             livre.ajouterExemplaires(-1);
         });
     }
+
+    @Test
+    @DisplayName("L'année de publication doit être vérifiée avec l'horloge fournie")
+    void testHorlogeFournie() {
+        Horloge an2000 = new HorlogeSimulee(LocalDate.of(2000, 6, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008, an2000));
+        assertEquals(1999, new Livre("978-2-1234-5682-7", "Refactoring", "Martin Fowler", 1999, an2000).getAnneePublication());
+        assertThrows(IllegalArgumentException.class,
+                () -> new Livre("978-2-1234-5682-7", "Refactoring", "Martin Fowler", 1999, null));
+    }
 }
@@ -0,0 +1,65 @@
+package com.bibliotheque.modele;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour la classe Reservation")
+class ReservationTest {
+
+    private static final LocalDate DEPART = LocalDate.of(2024, 9, 1);
+
+    private Reservation reservation;
+
+    @BeforeEach
+    void setUp() {
+        Livre livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        reservation = new Reservation(livre, adherent, new HorlogeSimulee(DEPART));
+    }
+
+    @Test
+    @DisplayName("Une nouvelle réservation doit être en attente")
+    void testCreation() {
+        assertEquals(Reservation.StatutReservation.EN_ATTENTE, reservation.getStatut());
+        assertEquals(DEPART, reservation.getDateReservation());
+        assertNull(reservation.getDateLimiteRetrait());
+        assertTrue(reservation.estActive());
+    }
+
+    @Test
+    @DisplayName("Une réservation mise de côté peut être honorée une seule fois")
+    void testMiseDeCoteEtRetrait() {
+        reservation.mettreDeCote(DEPART.plusDays(3));
+        assertEquals(Reservation.StatutReservation.DISPONIBLE, reservation.getStatut());
+        assertEquals(DEPART.plusDays(3), reservation.getDateLimiteRetrait());
+
+        reservation.honorer();
+        assertEquals(Reservation.StatutReservation.HONOREE, reservation.getStatut());
+        assertFalse(reservation.estActive());
+        assertThrows(IllegalStateException.class, () -> reservation.honorer());
+        assertThrows(IllegalStateException.class, () -> reservation.annuler());
+    }
+
+    @Test
+    @DisplayName("Une réservation en attente ne peut ni expirer ni être honorée")
+    void testTransitionsInvalides() {
+        assertThrows(IllegalStateException.class, () -> reservation.expirer());
+        assertThrows(IllegalStateException.class, () -> reservation.honorer());
+
+        reservation.annuler();
+        assertEquals(Reservation.StatutReservation.ANNULEE, reservation.getStatut());
+    }
+
+    @Test
+    @DisplayName("La création d'une réservation sans livre doit lever une exception")
+    void testCreationSansLivre() {
+        Adherent adherent = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        assertThrows(IllegalArgumentException.class,
+                () -> new Reservation(null, adherent, new HorlogeSimulee(DEPART)));
+    }
+}
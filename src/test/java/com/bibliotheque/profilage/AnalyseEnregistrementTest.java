@@ -0,0 +1,143 @@
+package com.bibliotheque.profilage;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour AnalyseEnregistrement")
+class AnalyseEnregistrementTest {
+
+    @TempDir
+    Path dossier;
+
+    private BibliothequeService service;
+    private Livre livreJava;
+    private Livre livrePython;
+    private Adherent adherent;
+
+    @BeforeEach
+    void setUp() {
+        service = new BibliothequeService();
+        livreJava = new Livre("978-2-1234-5680-3", "Java Avancé", "Martin Dupont", 2020);
+        livreJava.ajouterExemplaires(1);
+        livrePython = new Livre("978-2-1234-5681-0", "Python Débutant", "Marie Durand", 2019);
+        adherent = new Adherent("Durand", "Pierre", "pierre.durand@email.com");
+        service.ajouterLivre(livreJava);
+        service.ajouterLivre(livrePython);
+        service.inscrireAdherent(adherent);
+    }
+
+    @Test
+    @DisplayName("Les opérations doivent être résumées par ISBN avec leurs motifs de refus")
+    void testOperations() throws IOException {
+        AnalyseEnregistrement analyse = enregistrer(true, () -> {
+            Emprunt premier = service.emprunterLivre(livreJava.getIsbn(), adherent.getNumeroCarte());
+            service.emprunterLivre(livreJava.getIsbn(), adherent.getNumeroCarte());
+            assertThrows(IllegalStateException.class,
+                    () -> service.emprunterLivre(livreJava.getIsbn(), adherent.getNumeroCarte()));
+            service.emprunterLivre(livrePython.getIsbn(), adherent.getNumeroCarte());
+            assertTrue(service.prolongerEmprunt(premier));
+            service.retournerLivre(premier);
+            assertThrows(IllegalStateException.class, () -> service.retournerLivre(premier));
+            assertFalse(service.prolongerEmprunt(premier));
+        });
+
+        assertEquals(4, analyse.nombre(EvenementsJfr.EMPRUNT));
+        assertEquals(2, analyse.nombre(EvenementsJfr.RETOUR));
+        assertEquals(2, analyse.nombre(EvenementsJfr.PROLONGATION));
+        assertEquals(Map.of("Le livre n'est pas disponible", 1L), analyse.motifsRefus(EvenementsJfr.EMPRUNT));
+        assertEquals(Map.of("L'emprunt est déjà rendu", 1L), analyse.motifsRefus(EvenementsJfr.RETOUR));
+        assertEquals(Map.of("Prolongation refusée", 1L), analyse.motifsRefus(EvenementsJfr.PROLONGATION));
+
+        List<AnalyseEnregistrement.Statistique> emprunts = analyse.plusCouteuses(EvenementsJfr.EMPRUNT, 10);
+        assertEquals(2, emprunts.size());
+        assertTrue(emprunts.get(0).getDureeTotale().compareTo(emprunts.get(1).getDureeTotale()) >= 0);
+        AnalyseEnregistrement.Statistique pourJava = emprunts.stream()
+                .filter(s -> s.getCle().equals(livreJava.getIsbn())).findFirst().orElseThrow();
+        assertEquals(3, pourJava.getNombre());
+        assertEquals(1, pourJava.getRefus());
+        assertTrue(pourJava.getDureeMaximale().compareTo(pourJava.getDureeTotale()) <= 0);
+        assertEquals(1, analyse.plusCouteuses(EvenementsJfr.EMPRUNT, 1).size());
+    }
+
+    @Test
+    @DisplayName("Les recherches doivent être résumées par critère et texte avec leur nombre de résultats")
+    void testRecherches() throws IOException {
+        service.activerInstantanes();
+        AnalyseEnregistrement analyse = enregistrer(true, () -> {
+            service.rechercherLivreParTitre("java");
+            service.rechercherLivreParTitre("java");
+            service.rechercherLivreParAuteur("Durand");
+            service.instantane().rechercherLivreParTitre("Débutant");
+        });
+
+        assertEquals(4, analyse.nombre(EvenementsJfr.RECHERCHE));
+        Map<String, AnalyseEnregistrement.Statistique> parCle = new HashMap<>();
+        analyse.plusCouteuses(EvenementsJfr.RECHERCHE, 10).forEach(s -> parCle.put(s.getCle(), s));
+        assertEquals(2, parCle.get("titre=java").getNombre());
+        assertEquals(2, parCle.get("titre=java").getResultats());
+        assertEquals(1, parCle.get("auteur=Durand").getResultats());
+        assertEquals(1, parCle.get("titre=Débutant").getResultats());
+        assertTrue(analyse.motifsRefus(EvenementsJfr.RECHERCHE).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Avec le profil livré, les opérations rapides ne doivent pas être enregistrées")
+    void testSeuilsDuProfil() throws IOException {
+        // Le premier emprunt charge les classes ; il serait lent indépendamment du service
+        service.retournerLivre(service.emprunterLivre(livrePython.getIsbn(), adherent.getNumeroCarte()));
+
+        AnalyseEnregistrement analyse = enregistrer(false, () -> {
+            for (int i = 0; i < 100; i++) {
+                service.retournerLivre(service.emprunterLivre(livrePython.getIsbn(), adherent.getNumeroCarte()));
+            }
+        });
+
+        assertEquals(0, analyse.nombre(EvenementsJfr.EMPRUNT));
+        assertEquals(0, analyse.nombre(EvenementsJfr.RETOUR));
+        assertTrue(analyse.plusCouteuses(EvenementsJfr.EMPRUNT, 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un événement inconnu ou un nombre de clés invalide doit être refusé")
+    void testParametresInvalides() throws IOException {
+        AnalyseEnregistrement analyse = enregistrer(true, () -> { });
+
+        assertThrows(IllegalArgumentException.class, () -> analyse.plusCouteuses(EvenementsJfr.EMPRUNT, 0));
+        assertThrows(IllegalArgumentException.class, () -> analyse.nombre("jdk.GarbageCollection"));
+        assertThrows(IllegalArgumentException.class, () -> analyse.motifsRefus("bibliotheque.Inconnu"));
+    }
+
+    // Enregistre les opérations avec le profil livré, seuils à zéro si demandé, puis analyse le fichier
+    private AnalyseEnregistrement enregistrer(boolean toutEnregistrer, Runnable operations) throws IOException {
+        Path fichier = dossier.resolve("bibliotheque.jfr");
+        try (Recording enregistrement = new Recording(EvenementsJfr.profil())) {
+            if (toutEnregistrer) {
+                for (String evenement : List.of(EvenementsJfr.EMPRUNT, EvenementsJfr.RETOUR,
+                        EvenementsJfr.PROLONGATION, EvenementsJfr.RECHERCHE)) {
+                    enregistrement.enable(evenement).withThreshold(Duration.ZERO);
+                }
+            }
+            enregistrement.start();
+            operations.run();
+            enregistrement.stop();
+            enregistrement.dump(fichier);
+        }
+        return AnalyseEnregistrement.lire(fichier);
+    }
+}
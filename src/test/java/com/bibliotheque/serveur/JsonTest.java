@@ -0,0 +1,61 @@
+package com.bibliotheque.serveur;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour Json")
+class JsonTest {
+
+    @Test
+    @DisplayName("Un objet écrit puis relu doit être identique")
+    void testAllerRetour() {
+        Map<String, Object> objet = new LinkedHashMap<>();
+        objet.put("titre", "L'Étranger \"édition\"\n");
+        objet.put("annee", 1942L);
+        objet.put("prix", 7.5);
+        objet.put("disponible", true);
+        objet.put("resume", null);
+        objet.put("tags", Arrays.asList("roman", 3L));
+
+        String json = Json.ecrire(objet);
+
+        assertEquals(objet, Json.lireObjet(json));
+    }
+
+    @Test
+    @DisplayName("Les espaces et les séquences d'échappement doivent être acceptés")
+    void testLecture() {
+        Map<String, Object> objet = Json.lireObjet(" { \"a\" : [ 1 , -2.5e1 ] , \"b\" : \"\\u00e9t\\u00e9\" } ");
+
+        assertEquals(List.of(1L, -25.0), objet.get("a"));
+        assertEquals("été", objet.get("b"));
+    }
+
+    @Test
+    @DisplayName("Un JSON mal formé doit lever une exception")
+    void testJsonInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> Json.lireObjet("{\"a\": 1"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lireObjet("{\"a\": 1} x"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lireObjet("[1, 2]"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lireObjet("{a: 1}"));
+    }
+
+    @Test
+    @DisplayName("L'imbrication doit être limitée pour ne pas épuiser la pile")
+    void testProfondeurMax() {
+        String limite = "[".repeat(Json.PROFONDEUR_MAX) + "]".repeat(Json.PROFONDEUR_MAX);
+        assertInstanceOf(List.class, Json.lire(limite));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Json.lire("[".repeat(Json.PROFONDEUR_MAX + 1) + "]".repeat(Json.PROFONDEUR_MAX + 1)));
+        assertTrue(e.getMessage().contains("imbrication"));
+        assertThrows(IllegalArgumentException.class, () -> Json.lire("{\"a\":".repeat(100_000)));
+    }
+}
@@ -0,0 +1,341 @@
+package com.bibliotheque.serveur;
+
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.ServiceSuiveur;
+import com.bibliotheque.stockage.CatalogueMemoire;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour ServeurBibliotheque")
+class ServeurBibliothequeTest {
+
+    // Réglages lus une seule fois, au premier serveur et au premier thread virtuel de la JVM (seul ce
+    // serveur en crée dans les tests). La requête lente de testControleAdmission bloque son thread
+    // porteur : avec un porteur par coeur, les autres requêtes attendraient derrière elle au lieu
+    // d'être refusées. maxReqTime l'abandonne ensuite, nodelay évite l'attente de Nagle.
+    private static final Map<String, String> OPTIONS_SERVEUR = Map.of(
+            "jdk.virtualThreadScheduler.parallelism", "16",
+            "sun.net.httpserver.maxReqTime", "30",
+            "sun.net.httpserver.nodelay", "true");
+
+    private ServeurBibliotheque serveur;
+    private HttpClient client;
+
+    @BeforeAll
+    static void configurerServeur() {
+        OPTIONS_SERVEUR.forEach(System::setProperty);
+    }
+
+    @AfterAll
+    static void restaurerProprietes() {
+        OPTIONS_SERVEUR.keySet().forEach(System::clearProperty);
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serveur = new ServeurBibliotheque(new BibliothequeService(), 0, 100);
+        serveur.demarrer();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        serveur.close();
+    }
+
+    @Test
+    @DisplayName("Ajouter un livre, inscrire un adhérent, emprunter puis rendre via l'API")
+    void testParcoursEmprunt() throws Exception {
+        HttpResponse<String> livre = envoyer("POST", "/livres",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"titre\": \"Clean Code\", \"auteur\": \"Robert C. Martin\", \"anneePublication\": 2008}");
+        assertEquals(201, livre.statusCode());
+
+        HttpResponse<String> adherent = envoyer("POST", "/adherents",
+                "{\"nom\": \"Eljalil\", \"prenom\": \"Mourad\", \"email\": \"mourad.eljalil@email.com\"}");
+        assertEquals(201, adherent.statusCode());
+        String carte = (String) Json.lireObjet(adherent.body()).get("numeroCarte");
+
+        HttpResponse<String> emprunt = envoyer("POST", "/emprunts",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"numeroCarte\": \"" + carte + "\"}");
+        assertEquals(201, emprunt.statusCode());
+        long id = (Long) Json.lireObjet(emprunt.body()).get("id");
+
+        assertEquals(0L, Json.lireObjet(envoyer("GET", "/livres/978-2-1234-5680-3", null).body())
+                .get("exemplairesDisponibles"));
+        assertEquals(1, ((List<?>) Json.lire(envoyer("GET", "/adherents/" + carte + "/emprunts", null).body())).size());
+        assertEquals(1, ((List<?>) Json.lire(envoyer("GET", "/livres?titre=clean%20code", null).body())).size());
+
+        HttpResponse<String> retour = envoyer("POST", "/emprunts/" + id + "/retour", "");
+        assertEquals(200, retour.statusCode());
+        assertEquals("RENDU", Json.lireObjet(retour.body()).get("statut"));
+        assertEquals(404, envoyer("POST", "/emprunts/" + id + "/retour", "").statusCode());
+
+        HttpResponse<String> aussi = envoyer("GET", "/livres/978-2-1234-5680-3/aussi-empruntes?nombre=3", null);
+        assertEquals(200, aussi.statusCode());
+        assertEquals(List.of(), Json.lire(aussi.body()));
+
+        List<?> populaires = (List<?>) Json.lire(envoyer("GET", "/populaires?jours=7", null).body());
+        assertEquals("978-2-1234-5680-3", ((Map<?, ?>) populaires.get(0)).get("isbn"));
+    }
+
+    @Test
+    @DisplayName("Les exemplaires d'un livre doivent être ajoutés, listés et retrouvés par code-barres")
+    void testExemplaires() throws Exception {
+        envoyer("POST", "/livres",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"titre\": \"Clean Code\", \"auteur\": \"Robert C. Martin\", \"anneePublication\": 2008}");
+        String carte = (String) Json.lireObjet(envoyer("POST", "/adherents",
+                "{\"nom\": \"Eljalil\", \"prenom\": \"Mourad\", \"email\": \"mourad.eljalil@email.com\"}").body()).get("numeroCarte");
+
+        HttpResponse<String> ajout = envoyer("POST", "/livres/978-2-1234-5680-3/exemplaires",
+                "{\"nombre\": 2, \"succursale\": 5}");
+        assertEquals(201, ajout.statusCode());
+        assertEquals(3, ((List<?>) Json.lire(ajout.body())).size());
+
+        long codeBarre = (Long) Json.lireObjet(envoyer("POST", "/emprunts",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"numeroCarte\": \"" + carte + "\"}").body()).get("codeBarreExemplaire");
+        Map<String, Object> exemplaire = Json.lireObjet(envoyer("GET", "/exemplaires/" + codeBarre, null).body());
+
+        assertEquals("EMPRUNTE", exemplaire.get("etat"));
+        assertEquals(5L, exemplaire.get("succursale"));
+        assertEquals(carte, exemplaire.get("numeroCarte"));
+        assertEquals(200, envoyer("GET", "/livres/978-2-1234-5680-3/exemplaires", null).statusCode());
+        assertEquals(404, envoyer("GET", "/exemplaires/1", null).statusCode());
+        assertEquals(404, envoyer("GET", "/livres/inconnu/exemplaires", null).statusCode());
+        assertEquals(400, envoyer("GET", "/exemplaires/abc", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Une réservation doit refléter l'état courant et son retrait créer un emprunt identifié")
+    void testParcoursReservation() throws Exception {
+        envoyer("POST", "/livres",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"titre\": \"Clean Code\", \"auteur\": \"Robert C. Martin\", \"anneePublication\": 2008}");
+        String premier = (String) Json.lireObjet(envoyer("POST", "/adherents",
+                "{\"nom\": \"Eljalil\", \"prenom\": \"Mourad\", \"email\": \"mourad.eljalil@email.com\"}").body()).get("numeroCarte");
+        String suivant = (String) Json.lireObjet(envoyer("POST", "/adherents",
+                "{\"nom\": \"Martin\", \"prenom\": \"Julie\", \"email\": \"julie.martin@email.com\"}").body()).get("numeroCarte");
+        long emprunt = (Long) Json.lireObjet(envoyer("POST", "/emprunts",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"numeroCarte\": \"" + premier + "\"}").body()).get("id");
+
+        HttpResponse<String> reservation = envoyer("POST", "/reservations",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"numeroCarte\": \"" + suivant + "\"}");
+        assertEquals(201, reservation.statusCode());
+        long id = (Long) Json.lireObjet(reservation.body()).get("id");
+        assertEquals("EN_ATTENTE", Json.lireObjet(envoyer("GET", "/reservations/" + id, null).body()).get("statut"));
+
+        assertEquals(200, envoyer("POST", "/emprunts/" + emprunt + "/retour", "").statusCode());
+        assertEquals("DISPONIBLE", Json.lireObjet(envoyer("GET", "/reservations/" + id, null).body()).get("statut"));
+
+        HttpResponse<String> retrait = envoyer("POST", "/reservations/" + id + "/retrait", "");
+        assertEquals(201, retrait.statusCode());
+        Object idRetrait = Json.lireObjet(retrait.body()).get("id");
+        List<?> emprunts = (List<?>) Json.lire(envoyer("GET", "/adherents/" + suivant + "/emprunts", null).body());
+        assertEquals(idRetrait, ((Map<?, ?>) emprunts.get(0)).get("id"));
+        assertEquals(404, envoyer("GET", "/reservations/" + id, null).statusCode());
+        assertEquals(200, envoyer("POST", "/emprunts/" + idRetrait + "/prolongation", "").statusCode());
+    }
+
+    @Test
+    @DisplayName("Une réservation non retirée doit expirer sans autre requête que des lectures")
+    void testExpirationPeriodique() throws Exception {
+        serveur.close();
+        HorlogeSimulee horloge = new HorlogeSimulee(LocalDate.of(2024, 9, 1));
+        serveur = new ServeurBibliotheque(new BibliothequeService(new CatalogueMemoire(), horloge), 0, 100,
+                Duration.ofMillis(20));
+        serveur.demarrer();
+        envoyer("POST", "/livres",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"titre\": \"Clean Code\", \"auteur\": \"Robert C. Martin\", \"anneePublication\": 2008}");
+        String premier = (String) Json.lireObjet(envoyer("POST", "/adherents",
+                "{\"nom\": \"Eljalil\", \"prenom\": \"Mourad\", \"email\": \"mourad.eljalil@email.com\"}").body()).get("numeroCarte");
+        String suivant = (String) Json.lireObjet(envoyer("POST", "/adherents",
+                "{\"nom\": \"Martin\", \"prenom\": \"Julie\", \"email\": \"julie.martin@email.com\"}").body()).get("numeroCarte");
+        long emprunt = (Long) Json.lireObjet(envoyer("POST", "/emprunts",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"numeroCarte\": \"" + premier + "\"}").body()).get("id");
+        assertEquals(201, envoyer("POST", "/reservations",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"numeroCarte\": \"" + suivant + "\"}").statusCode());
+        // L'exemplaire rendu est mis de côté pour la réservation
+        assertEquals(200, envoyer("POST", "/emprunts/" + emprunt + "/retour", "").statusCode());
+        assertEquals(0L, Json.lireObjet(envoyer("GET", "/livres/978-2-1234-5680-3", null).body()).get("exemplairesDisponibles"));
+
+        // Les lectures de livres passent par l'instantané et ne déclenchent pas l'expiration
+        horloge.avancer(30);
+        Object disponibles = null;
+        for (int essai = 0; essai < 250 && !Long.valueOf(1).equals(disponibles); essai++) {
+            disponibles = Json.lireObjet(envoyer("GET", "/livres/978-2-1234-5680-3", null).body()).get("exemplairesDisponibles");
+            if (!Long.valueOf(1).equals(disponibles)) {
+                Thread.sleep(20);
+            }
+        }
+        assertEquals(1L, disponibles);
+    }
+
+    @Test
+    @DisplayName("Le balayage des retards doit être déclenchable via l'API")
+    void testBalayageRetards() throws Exception {
+        serveur.close();
+        HorlogeSimulee horloge = new HorlogeSimulee(LocalDate.of(2024, 9, 1));
+        serveur = new ServeurBibliotheque(new BibliothequeService(new CatalogueMemoire(), horloge), 0, 100);
+        serveur.demarrer();
+        envoyer("POST", "/livres",
+                "{\"isbn\": \"978-2-1234-5680-3\", \"titre\": \"Clean Code\", \"auteur\": \"Robert C. Martin\", \"anneePublication\": 2008}");
+        String carte = (String) Json.lireObjet(envoyer("POST", "/adherents",
+                "{\"nom\": \"Eljalil\", \"prenom\": \"Mourad\", \"email\": \"mourad.eljalil@email.com\"}").body()).get("numeroCarte");
+        envoyer("POST", "/emprunts", "{\"isbn\": \"978-2-1234-5680-3\", \"numeroCarte\": \"" + carte + "\"}");
+
+        horloge.avancer(20);
+        HttpResponse<String> reponse = envoyer("POST", "/retards/balayage", "");
+        assertEquals(200, reponse.statusCode());
+        Map<String, Object> rapport = Json.lireObjet(reponse.body());
+        assertEquals(1L, rapport.get("empruntsEnRetard"));
+        assertEquals(1L, rapport.get("adherentsEnRetard"));
+        assertEquals(404, envoyer("POST", "/retards/autre", "").statusCode());
+    }
+
+    @Test
+    @DisplayName("Les erreurs doivent être traduites en codes HTTP")
+    void testErreurs() throws Exception {
+        assertEquals(404, envoyer("GET", "/livres/inconnu", null).statusCode());
+        assertEquals(404, envoyer("GET", "/inconnu", null).statusCode());
+        assertEquals(400, envoyer("POST", "/livres", "{\"isbn\": ").statusCode());
+        assertEquals(400, envoyer("POST", "/livres",
+                "{\"isbn\": \"X\", \"titre\": \"T\", \"auteur\": \"A\", \"anneePublication\": 1200}").statusCode());
+        assertEquals(409, envoyer("POST", "/emprunts", "{\"isbn\": \"X\", \"numeroCarte\": \"Y\"}").statusCode());
+    }
+
+    @Test
+    @DisplayName("L'annuaire doit être interrogeable par email et par nom, et refuser un email en double")
+    void testAnnuaireAdherents() throws Exception {
+        assertEquals(201, envoyer("POST", "/adherents",
+                "{\"nom\": \"Eljalil\", \"prenom\": \"Mourad\", \"email\": \"mourad.eljalil@email.com\"}").statusCode());
+        assertEquals(201, envoyer("POST", "/adherents",
+                "{\"nom\": \"Ndiaye\", \"prenom\": \"Charles\", \"email\": \"charles.ndiaye@email.com\"}").statusCode());
+        assertEquals(409, envoyer("POST", "/adherents",
+                "{\"nom\": \"Martin\", \"prenom\": \"Julie\", \"email\": \"Charles.Ndiaye@email.com\"}").statusCode());
+
+        List<?> parEmail = (List<?>) Json.lire(envoyer("GET", "/adherents?email=CHARLES.NDIAYE%40email.com", null).body());
+        assertEquals("Ndiaye", ((Map<?, ?>) parEmail.get(0)).get("nom"));
+        List<?> parNom = (List<?>) Json.lire(envoyer("GET", "/adherents?nom=mour%20elj&max=5", null).body());
+        assertEquals(1, parNom.size());
+        assertEquals("Eljalil", ((Map<?, ?>) parNom.get(0)).get("nom"));
+        assertEquals(400, envoyer("GET", "/adherents", null).statusCode());
+        assertEquals(400, envoyer("GET", "/adherents?nom=x&max=0", null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Au-delà de la limite de requêtes en cours, le serveur doit répondre 503")
+    void testControleAdmission() throws Exception {
+        serveur.close();
+        serveur = new ServeurBibliotheque(new BibliothequeService(), 0, 1);
+        serveur.demarrer();
+
+        // Une requête dont le corps n'arrive jamais occupe l'unique place
+        try (Socket lente = new Socket("localhost", serveur.getPort())) {
+            OutputStream sortie = lente.getOutputStream();
+            sortie.write(("POST /livres HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\n{")
+                    .getBytes(StandardCharsets.US_ASCII));
+            sortie.flush();
+
+            int statut = 0;
+            for (int essai = 0; essai < 100 && statut != 503; essai++) {
+                statut = envoyer("GET", "/statistiques", null).statusCode();
+                if (statut != 503) {
+                    Thread.sleep(20);
+                }
+            }
+            assertEquals(503, statut);
+            assertTrue(serveur.getRequetesRefusees() > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Un réplica doit servir les lectures du principal et refuser les modifications")
+    void testReplicaLectureSeule(@TempDir Path dossier) throws Exception {
+        Path journal = dossier.resolve("replication.log");
+        serveur.close();
+        BibliothequeService principal = new BibliothequeService();
+        principal.activerJournal(journal);
+        serveur = new ServeurBibliotheque(principal, 0, 100);
+        serveur.demarrer();
+
+        try (ServeurBibliotheque replica = new ServeurBibliotheque(new ServiceSuiveur(journal, 1), 0, 100)) {
+            replica.demarrer();
+            assertEquals(201, envoyer("POST", "/livres",
+                    "{\"isbn\": \"978-2-1234-5680-3\", \"titre\": \"Clean Code\", \"auteur\": \"Robert C. Martin\", \"anneePublication\": 2008}")
+                    .statusCode());
+
+            int statut = 0;
+            for (int essai = 0; essai < 250 && statut != 200; essai++) {
+                statut = envoyer(replica, "GET", "/livres/978-2-1234-5680-3", null).statusCode();
+                if (statut != 200) {
+                    Thread.sleep(20);
+                }
+            }
+            assertEquals(200, statut);
+            assertEquals(405, envoyer(replica, "POST", "/livres",
+                    "{\"isbn\": \"X\", \"titre\": \"T\", \"auteur\": \"A\", \"anneePublication\": 2000}").statusCode());
+            Map<String, Object> sante = Json.lireObjet(envoyer(replica, "GET", "/sante", null).body());
+            assertEquals(0L, sante.get("sequenceAppliquee"));
+            assertEquals(false, sante.get("replicationArretee"));
+            assertEquals(1L, Json.lireObjet(envoyer(replica, "GET", "/statistiques", null).body()).get("nombreLivres"));
+        }
+    }
+
+    @Test
+    @DisplayName("Un corps trop grand ou trop imbriqué doit être refusé, une erreur inattendue donner une 500")
+    void testCorpsHostilesEtErreurInterne() throws Exception {
+        String volumineux = "{\"titre\": \"" + "x".repeat(ServeurBibliotheque.TAILLE_CORPS_MAX) + "\"}";
+        assertEquals(413, envoyer("POST", "/livres", volumineux).statusCode());
+        HttpResponse<String> imbrique = envoyer("POST", "/adherents", "[".repeat(10_000));
+        assertEquals(400, imbrique.statusCode());
+        assertTrue(imbrique.body().contains("imbrication"));
+
+        // Catalogue défaillant : une exception hors des cas prévus ne doit pas couper la connexion
+        BibliothequeService defaillant = new BibliothequeService(new CatalogueMemoire() {
+            @Override
+            public void ajouter(Livre livre) {
+                throw new UnsupportedOperationException("catalogue en lecture seule");
+            }
+        });
+        try (ServeurBibliotheque cible = new ServeurBibliotheque(defaillant, 0, 10)) {
+            cible.demarrer();
+            HttpResponse<String> reponse = envoyer(cible, "POST", "/livres",
+                    "{\"isbn\": \"X\", \"titre\": \"T\", \"auteur\": \"A\", \"anneePublication\": 2000}");
+            assertEquals(500, reponse.statusCode());
+            assertEquals("Erreur interne du serveur", Json.lireObjet(reponse.body()).get("erreur"));
+        }
+    }
+
+    private HttpResponse<String> envoyer(String methode, String chemin, String corps) throws Exception {
+        return envoyer(serveur, methode, chemin, corps);
+    }
+
+    private HttpResponse<String> envoyer(ServeurBibliotheque cible, String methode, String chemin, String corps)
+            throws Exception {
+        HttpRequest.Builder requete = HttpRequest.newBuilder(URI.create("http://localhost:" + cible.getPort() + chemin));
+        requete.method(methode, corps == null ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(corps, StandardCharsets.UTF_8));
+        return client.send(requete.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+    }
+}
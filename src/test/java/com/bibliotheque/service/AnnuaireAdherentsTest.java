@@ -0,0 +1,113 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour la classe AnnuaireAdherents")
+class AnnuaireAdherentsTest {
+
+    private AnnuaireAdherents annuaire;
+    private Adherent mourad;
+    private Adherent charles;
+
+    @BeforeEach
+    void setUp() {
+        annuaire = new AnnuaireAdherents();
+        mourad = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        charles = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        annuaire.indexer(mourad, null);
+        annuaire.indexer(charles, null);
+    }
+
+    @Test
+    @DisplayName("La recherche par email doit ignorer la casse et les espaces")
+    void testRechercherParEmail() {
+        assertSame(mourad, annuaire.rechercherParEmail("mourad.eljalil@email.com"));
+        assertSame(charles, annuaire.rechercherParEmail("  Charles.Ndiaye@EMAIL.com "));
+        assertNull(annuaire.rechercherParEmail("inconnu@email.com"));
+        assertNull(annuaire.rechercherParEmail(null));
+    }
+
+    @Test
+    @DisplayName("Un email déjà inscrit par un autre adhérent doit être refusé sans modifier l'annuaire")
+    void testEmailUnique() {
+        Adherent doublon = new Adherent("Martin", "Julie", "MOURAD.ELJALIL@email.com");
+
+        assertThrows(IllegalStateException.class, () -> annuaire.indexer(doublon, null));
+        assertSame(mourad, annuaire.rechercherParEmail("mourad.eljalil@email.com"));
+        assertTrue(annuaire.rechercherParNom("martin", 10).isEmpty());
+        assertEquals(2, annuaire.taille());
+    }
+
+    @Test
+    @DisplayName("La recherche par nom doit trouver les débuts de nom et de prénom, sans casse ni accents")
+    void testRechercherParNom() {
+        Adherent eloise = new Adherent("Saint-Exupéry", "Éloïse", "eloise@email.com");
+        annuaire.indexer(eloise, null);
+
+        assertEquals(List.of(mourad), annuaire.rechercherParNom("elj", 10));
+        assertEquals(List.of(charles), annuaire.rechercherParNom("CHA", 10));
+        assertEquals(List.of(eloise), annuaire.rechercherParNom("exup", 10));
+        assertEquals(List.of(eloise), annuaire.rechercherParNom("éloi", 10));
+        assertEquals(List.of(eloise), annuaire.rechercherParNom("saint", 10));
+        assertTrue(annuaire.rechercherParNom("aljil", 10).isEmpty());
+        assertTrue(annuaire.rechercherParNom("  ", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Chaque mot de la recherche doit correspondre au nom ou au prénom")
+    void testRechercherPlusieursMots() {
+        Adherent homonyme = new Adherent("Ndiaye", "Awa", "awa.ndiaye@email.com");
+        annuaire.indexer(homonyme, null);
+
+        assertEquals(2, annuaire.rechercherParNom("ndiaye", 10).size());
+        assertEquals(List.of(charles), annuaire.rechercherParNom("nd ch", 10));
+        assertEquals(List.of(homonyme), annuaire.rechercherParNom("awa ndiaye", 10));
+        assertTrue(annuaire.rechercherParNom("ndiaye mourad", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un adhérent dont le nom et le prénom commencent pareil ne doit apparaître qu'une fois")
+    void testSansDoublon() {
+        Adherent martin = new Adherent("Martin", "Martine", "martine.martin@email.com");
+        annuaire.indexer(martin, null);
+
+        assertEquals(List.of(martin), annuaire.rechercherParNom("mart", 10));
+    }
+
+    @Test
+    @DisplayName("Le nombre de résultats doit être limité")
+    void testLimite() {
+        for (int i = 0; i < 50; i++) {
+            annuaire.indexer(new Adherent("Durand", "Prenom" + i, "durand" + i + "@email.com"), null);
+        }
+
+        assertEquals(50, annuaire.rechercherParNom("durand", 100).size());
+        assertEquals(5, annuaire.rechercherParNom("dur", 5).size());
+        assertThrows(IllegalArgumentException.class, () -> annuaire.rechercherParNom("dur", 0));
+    }
+
+    @Test
+    @DisplayName("Réinscrire une carte doit remplacer ses entrées dans les deux index")
+    void testRemplacer() {
+        Adherent nouveau = new Adherent(mourad.getNumeroCarte(), "Eljalil", "Mourad", "m.eljalil@email.com",
+                LocalDate.now());
+
+        annuaire.indexer(nouveau, mourad);
+
+        assertNull(annuaire.rechercherParEmail("mourad.eljalil@email.com"));
+        assertSame(nouveau, annuaire.rechercherParEmail("m.eljalil@email.com"));
+        assertEquals(List.of(nouveau), annuaire.rechercherParNom("eljalil", 10));
+        assertEquals(2, annuaire.taille());
+        // La même carte peut garder son email
+        annuaire.indexer(mourad, nouveau);
+        assertSame(mourad, annuaire.rechercherParEmail("mourad.eljalil@email.com"));
+    }
+}
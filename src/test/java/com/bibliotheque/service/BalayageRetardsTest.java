@@ -0,0 +1,97 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.EmpruntsDeTest;
+import com.bibliotheque.modele.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour BalayageRetards")
+class BalayageRetardsTest {
+
+    private BibliothequeService service;
+    private Adherent retardataire;
+    private Adherent ponctuel;
+
+    @BeforeEach
+    void setUp() {
+        service = new BibliothequeService();
+        retardataire = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        ponctuel = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        service.inscrireAdherent(retardataire);
+        service.inscrireAdherent(ponctuel);
+        for (int i = 0; i < 4; i++) {
+            service.ajouterLivre(new Livre("ISBN-" + i, "Livre " + i, "Auteur", 2020));
+        }
+    }
+
+    @Test
+    @DisplayName("Le balayage doit signaler les adhérents en retard et cumuler leurs frais")
+    void testBalayage() {
+        Emprunt retard1 = service.emprunterLivre("ISBN-0", retardataire.getNumeroCarte());
+        Emprunt retard2 = service.emprunterLivre("ISBN-1", retardataire.getNumeroCarte());
+        service.emprunterLivre("ISBN-2", ponctuel.getNumeroCarte());
+        EmpruntsDeTest.mettreEnRetard(retard1, 4);
+        EmpruntsDeTest.mettreEnRetard(retard2, 6);
+
+        BalayageRetards.Resultat resultat = new BalayageRetards().executer(service);
+
+        assertEquals(3, resultat.getNombreEmpruntsAnalyses());
+        assertEquals(2, resultat.getNombreEmpruntsEnRetard());
+        assertEquals(1, resultat.getNombreAdherentsEnRetard());
+        assertEquals(10 * 0.50, resultat.getFraisParAdherent().get(retardataire.getNumeroCarte()), 0.01);
+        assertEquals(10 * 0.50, resultat.getFraisTotaux(), 0.01);
+
+        assertTrue(retardataire.aDesRetards());
+        assertFalse(retardataire.peutEmprunter());
+        assertFalse(ponctuel.aDesRetards());
+        // Les jours de retard ne sont comptés qu'au retour
+        assertEquals(0, retardataire.getJoursRetard());
+    }
+
+    @Test
+    @DisplayName("Les emprunts rendus ne doivent pas être balayés")
+    void testEmpruntsRendusIgnores() {
+        Emprunt emprunt = service.emprunterLivre("ISBN-0", ponctuel.getNumeroCarte());
+        service.retournerLivre(emprunt);
+
+        BalayageRetards.Resultat resultat = new BalayageRetards().executer(service);
+
+        assertEquals(0, resultat.getNombreEmpruntsAnalyses());
+        assertEquals(0, resultat.getFraisTotaux(), 0.01);
+    }
+
+    @Test
+    @DisplayName("Le balayage parallèle doit donner le même résultat sur de nombreux emprunts")
+    void testBalayageParallele() {
+        BibliothequeService grand = new BibliothequeService();
+        List<Adherent> adherents = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            Adherent adherent = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+            adherents.add(adherent);
+            grand.inscrireAdherent(adherent);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            grand.ajouterLivre(new Livre("ISBN-" + i, "Livre " + i, "Auteur", 2020));
+            Emprunt emprunt = grand.emprunterLivre("ISBN-" + i, adherents.get(i % 4000).getNumeroCarte());
+            if (i % 2 == 0) {
+                EmpruntsDeTest.mettreEnRetard(emprunt, 1);
+            }
+        }
+
+        BalayageRetards.Resultat resultat = new BalayageRetards(new ForkJoinPool(4)).executer(grand);
+
+        assertEquals(20_000, resultat.getNombreEmpruntsAnalyses());
+        assertEquals(10_000, resultat.getNombreEmpruntsEnRetard());
+        assertEquals(2000, resultat.getNombreAdherentsEnRetard());
+        assertEquals(10_000 * 0.50, resultat.getFraisTotaux(), 0.01);
+    }
+}
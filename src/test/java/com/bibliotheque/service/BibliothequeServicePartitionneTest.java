@@ -0,0 +1,209 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour BibliothequeServicePartitionne")
+class BibliothequeServicePartitionneTest {
+
+    private BibliothequeServicePartitionne reseau;
+
+    @BeforeEach
+    void setUp() {
+        reseau = new BibliothequeServicePartitionne(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reseau.close();
+    }
+
+    @Test
+    @DisplayName("Emprunter et retourner un livre d'une autre partition que l'adhérent")
+    void testEmpruntEntrePartitions() {
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        reseau.inscrireAdherent(adherent).join();
+        for (int i = 0; i < 5; i++) {
+            reseau.ajouterLivre(new Livre("ISBN-" + i, "Livre " + i, "Auteur", 2020)).join();
+        }
+
+        List<Emprunt> emprunts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            emprunts.add(reseau.emprunterLivre("ISBN-" + i, adherent.getNumeroCarte()).join());
+        }
+
+        assertEquals(5, adherent.getNombreEmpruntsEnCours());
+        assertTrue(emprunts.get(0).estFige());
+        assertTrue(reseau.listerEmpruntsEnCours().join().stream().allMatch(Emprunt::estFige));
+        // La recherche rend une copie : les partitions des livres continuent de modifier l'original
+        Adherent copie = reseau.rechercherAdherent(adherent.getNumeroCarte()).join();
+        assertNotSame(adherent, copie);
+        assertEquals(5, copie.getNombreEmpruntsEnCours());
+        assertNull(reseau.rechercherAdherent("inconnu").join());
+        assertEquals(5, reseau.listerEmpruntsAdherent(adherent.getNumeroCarte()).join().size());
+        assertEquals(5, reseau.obtenirStatistiques().join().getNombreEmpruntsEnCours());
+
+        // Le sixième emprunt dépasse la limite, quelle que soit la partition du livre
+        reseau.ajouterLivre(new Livre("ISBN-5", "Livre 5", "Auteur", 2020)).join();
+        CompletionException erreur = assertThrows(CompletionException.class,
+                () -> reseau.emprunterLivre("ISBN-5", adherent.getNumeroCarte()).join());
+        assertTrue(erreur.getCause() instanceof IllegalStateException);
+
+        for (Emprunt emprunt : emprunts) {
+            reseau.retournerLivre(emprunt).join();
+        }
+        assertEquals(0, adherent.getNombreEmpruntsEnCours());
+        assertEquals(5, copie.getNombreEmpruntsEnCours());
+        assertEquals(1, reseau.rechercherLivreParIsbn("ISBN-0").join().getExemplairesDisponibles());
+    }
+
+    @Test
+    @DisplayName("La recherche doit fusionner les meilleurs résultats de toutes les partitions")
+    void testRechercheFusionnee() {
+        for (int i = 0; i < 100; i++) {
+            reseau.ajouterLivre(new Livre(String.format("ISBN-%03d", i),
+                    String.format("Java %03d", i), "Auteur " + i, 2020)).join();
+        }
+
+        List<Livre> resultats = reseau.rechercherLivreParTitre("java", 10).join();
+
+        assertEquals(10, resultats.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(String.format("Java %03d", i), resultats.get(i).getTitre());
+        }
+        assertEquals(100, reseau.obtenirStatistiques().join().getNombreLivres());
+        assertEquals(1, reseau.rechercherLivreParAuteur("auteur 42", 10).join().size());
+    }
+
+    @Test
+    @DisplayName("Emprunter avec un adhérent inconnu doit échouer")
+    void testAdherentInconnu() {
+        reseau.ajouterLivre(new Livre("ISBN-1", "Livre", "Auteur", 2020)).join();
+
+        assertThrows(CompletionException.class, () -> reseau.emprunterLivre("ISBN-1", "BIB-INCONNU").join());
+    }
+
+    @Test
+    @DisplayName("Le nombre de partitions doit être positif")
+    void testNombrePartitionsInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> new BibliothequeServicePartitionne(0));
+    }
+
+    @Test
+    @DisplayName("Le classement des livres les plus empruntés doit fusionner toutes les partitions")
+    void testLivresLesPlusEmpruntes() {
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        reseau.inscrireAdherent(adherent).join();
+        for (int i = 0; i < 4; i++) {
+            reseau.ajouterLivre(new Livre("ISBN-" + i, "Livre " + i, "Auteur", 2020)).join();
+        }
+        // ISBN-i est emprunté i + 1 fois
+        for (int i = 0; i < 4; i++) {
+            for (int fois = 0; fois <= i; fois++) {
+                Emprunt emprunt = reseau.emprunterLivre("ISBN-" + i, adherent.getNumeroCarte()).join();
+                reseau.retournerLivre(emprunt).join();
+            }
+        }
+
+        List<PopulariteEmprunts.Entree> classement = reseau.livresLesPlusEmpruntes(3, 7).join();
+
+        assertEquals(3, classement.size());
+        assertEquals("ISBN-3", classement.get(0).getIsbn());
+        assertEquals(4, classement.get(0).getNombreEmprunts());
+        assertEquals("ISBN-1", classement.get(2).getIsbn());
+    }
+
+    @Test
+    @DisplayName("Des réservations croisées entre deux partitions ne doivent pas bloquer leurs retours")
+    void testReservationsCroisees() throws Exception {
+        HorlogeSimulee horloge = new HorlogeSimulee(LocalDate.of(2024, 9, 1));
+        try (BibliothequeServicePartitionne deux = new BibliothequeServicePartitionne(2, horloge)) {
+            // A et HA sur une partition, B et HB sur l'autre
+            String a = isbnPartition(deux, "A-", 0);
+            String ha = isbnPartition(deux, "HA-", 0);
+            String b = isbnPartition(deux, "B-", 1);
+            String hb = isbnPartition(deux, "HB-", 1);
+            for (String isbn : List.of(a, ha, b, hb)) {
+                deux.ajouterLivre(new Livre(isbn, "Livre " + isbn, "Auteur", 2020)).join();
+            }
+            Adherent x = inscrire(deux, "X");
+            Adherent y = inscrire(deux, "Y");
+            Adherent lecteur = inscrire(deux, "Lecteur");
+
+            // Un exemplaire mis de côté sur chaque partition, dont l'expiration fera se rejoindre
+            // les deux retours : chacun est alors en cours sur sa partition quand l'autre avance
+            CountDownLatch expirations = new CountDownLatch(2);
+            for (String isbn : List.of(ha, hb)) {
+                Emprunt emprunt = deux.emprunterLivre(isbn, x.getNumeroCarte()).join();
+                deux.reserverLivre(isbn, lecteur.getNumeroCarte(), reservation -> {
+                    if (reservation.getStatut() == Reservation.StatutReservation.EXPIREE) {
+                        expirations.countDown();
+                        attendre(expirations);
+                    }
+                }).join();
+                deux.retournerLivre(emprunt).join();
+            }
+
+            Emprunt empruntX = deux.emprunterLivre(a, x.getNumeroCarte()).join();
+            Emprunt empruntY = deux.emprunterLivre(b, y.getNumeroCarte()).join();
+            // Chacun attend le livre de l'autre ; les réservations rendues sont figées, leur mise de côté notifiée
+            List<Reservation> misesDeCote = new CopyOnWriteArrayList<>();
+            deux.reserverLivre(b, x.getNumeroCarte(), misesDeCote::add).join();
+            deux.reserverLivre(a, y.getNumeroCarte(), misesDeCote::add).join();
+            horloge.avancer(BibliothequeService.DELAI_RETRAIT_JOURS + 1);
+
+            // Chaque retour attribue son exemplaire à l'emprunteur de l'autre livre
+            CompletableFuture<Void> retourX = deux.retournerLivre(empruntX);
+            CompletableFuture<Void> retourY = deux.retournerLivre(empruntY);
+            CompletableFuture.allOf(retourX, retourY).get(10, TimeUnit.SECONDS);
+
+            assertEquals(0, expirations.getCount());
+            assertEquals(2, misesDeCote.size());
+            for (Reservation reservation : misesDeCote) {
+                assertEquals(Reservation.StatutReservation.DISPONIBLE, reservation.getStatut());
+                deux.retirerReservation(reservation).join();
+            }
+            assertEquals(2, deux.listerEmpruntsEnCours().join().size());
+        }
+    }
+
+    private static String isbnPartition(BibliothequeServicePartitionne reseau, String prefixe, int numero) {
+        for (int i = 0; ; i++) {
+            if (reseau.numeroPartition(prefixe + i) == numero) {
+                return prefixe + i;
+            }
+        }
+    }
+
+    private static Adherent inscrire(BibliothequeServicePartitionne reseau, String nom) {
+        Adherent adherent = new Adherent(nom, "Prenom", nom.toLowerCase() + "@email.com");
+        reseau.inscrireAdherent(adherent).join();
+        return adherent;
+    }
+
+    private static void attendre(CountDownLatch verrou) {
+        try {
+            verrou.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour BibliothequeServiceReactif")
+class BibliothequeServiceReactifTest {
+
+    private BibliothequeService service;
+    private BibliothequeServiceReactif reactif;
+    private Adherent adherent;
+
+    @BeforeEach
+    void setUp() {
+        service = new BibliothequeService();
+        // Exécuteur synchrone : les signaux sont émis pendant subscribe et request
+        reactif = new BibliothequeServiceReactif(service, Runnable::run);
+        for (int i = 0; i < 10; i++) {
+            service.ajouterLivre(new Livre(String.format("978-%010d", i), "Titre " + i,
+                    i % 2 == 0 ? "Victor Hugo" : "Émile Zola", 1950 + i));
+        }
+        adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        service.inscrireAdherent(adherent);
+    }
+
+    @Test
+    @DisplayName("Seuls les éléments demandés doivent être émis")
+    void testContrePression() {
+        Abonne<Livre> abonne = new Abonne<>(0);
+        reactif.livres().subscribe(abonne);
+
+        assertNotNull(abonne.souscription);
+        assertTrue(abonne.recus.isEmpty());
+
+        abonne.souscription.request(3);
+        assertEquals(3, abonne.recus.size());
+        assertFalse(abonne.termine);
+
+        abonne.souscription.request(100);
+        assertEquals(10, abonne.recus.size());
+        assertTrue(abonne.termine);
+        assertNull(abonne.erreur);
+    }
+
+    @Test
+    @DisplayName("Les recherches doivent filtrer sans constituer de liste")
+    void testRecherches() {
+        Abonne<Livre> parAuteur = new Abonne<>(Long.MAX_VALUE);
+        reactif.livresParAuteur("hugo").subscribe(parAuteur);
+        Abonne<Livre> parTitre = new Abonne<>(Long.MAX_VALUE);
+        reactif.livresParTitre("titre 7").subscribe(parTitre);
+        Abonne<Livre> vide = new Abonne<>(Long.MAX_VALUE);
+        reactif.livresParTitre("  ").subscribe(vide);
+
+        assertEquals(5, parAuteur.recus.size());
+        assertEquals(1, parTitre.recus.size());
+        assertEquals("Titre 7", parTitre.recus.get(0).getTitre());
+        assertTrue(vide.recus.isEmpty());
+        assertTrue(vide.termine);
+    }
+
+    @Test
+    @DisplayName("Les emprunts en cours doivent refléter l'instantané pris à la première demande")
+    void testEmpruntsEnCours() {
+        Emprunt premier = service.emprunterLivre("978-0000000001", adherent.getNumeroCarte());
+        service.emprunterLivre("978-0000000002", adherent.getNumeroCarte());
+
+        Abonne<Emprunt> abonne = new Abonne<>(1);
+        reactif.empruntsEnCours().subscribe(abonne);
+        // Un retour pendant le parcours ne modifie pas l'instantané déjà pris
+        service.retournerLivre(premier);
+        abonne.souscription.request(10);
+
+        assertEquals(2, abonne.recus.size());
+        assertTrue(abonne.termine);
+
+        Abonne<Emprunt> apres = new Abonne<>(Long.MAX_VALUE);
+        reactif.empruntsEnCours().subscribe(apres);
+        assertEquals(1, apres.recus.size());
+
+        Abonne<Emprunt> parAdherent = new Abonne<>(Long.MAX_VALUE);
+        reactif.empruntsAdherent(adherent.getNumeroCarte()).subscribe(parAdherent);
+        assertEquals(2, parAdherent.recus.size());
+    }
+
+    @Test
+    @DisplayName("Une demande nulle ou négative doit terminer l'abonnement en erreur")
+    void testDemandeInvalide() {
+        Abonne<Livre> abonne = new Abonne<>(0);
+        reactif.livres().subscribe(abonne);
+
+        abonne.souscription.request(0);
+
+        assertInstanceOf(IllegalArgumentException.class, abonne.erreur);
+        abonne.souscription.request(5);
+        assertTrue(abonne.recus.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Après annulation, plus aucun élément ne doit être émis")
+    void testAnnulation() {
+        Abonne<Livre> abonne = new Abonne<>(0) {
+            @Override
+            public void onNext(Livre livre) {
+                super.onNext(livre);
+                if (recus.size() == 4) {
+                    souscription.cancel();
+                }
+            }
+        };
+        reactif.livres().subscribe(abonne);
+
+        abonne.souscription.request(Long.MAX_VALUE);
+
+        assertEquals(4, abonne.recus.size());
+        assertFalse(abonne.termine);
+        assertNull(abonne.erreur);
+    }
+
+    @Test
+    @DisplayName("Les signaux doivent arriver en série sur l'exécuteur, demande par demande")
+    void testAbonneAsynchrone() throws Exception {
+        PipelineCommandes pipeline = new PipelineCommandes(service);
+        try {
+            BibliothequeServiceReactif asynchrone = new BibliothequeServiceReactif(pipeline);
+            CountDownLatch fin = new CountDownLatch(1);
+            List<Livre> recus = new ArrayList<>();
+            asynchrone.livres().subscribe(new Flow.Subscriber<>() {
+                private Flow.Subscription souscription;
+
+                @Override
+                public void onSubscribe(Flow.Subscription souscription) {
+                    this.souscription = souscription;
+                    souscription.request(1);
+                }
+
+                @Override
+                public void onNext(Livre livre) {
+                    recus.add(livre);
+                    souscription.request(1);
+                }
+
+                @Override
+                public void onError(Throwable erreur) {
+                    fin.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    fin.countDown();
+                }
+            });
+
+            assertTrue(fin.await(5, TimeUnit.SECONDS));
+            assertEquals(10, recus.size());
+        } finally {
+            pipeline.close();
+        }
+    }
+
+    @Test
+    @DisplayName("La construction sur un service doit activer ses instantanés")
+    void testInstantanesActives() {
+        BibliothequeService autre = new BibliothequeService();
+        new BibliothequeServiceReactif(autre, Runnable::run);
+
+        assertNotNull(autre.instantane());
+        assertThrows(IllegalArgumentException.class, () -> new BibliothequeServiceReactif((BibliothequeService) null));
+        assertThrows(IllegalArgumentException.class, () -> new BibliothequeServiceReactif(service, null));
+    }
+
+    private static class Abonne<T> implements Flow.Subscriber<T> {
+        private final long demandeInitiale;
+        final List<T> recus = new ArrayList<>();
+        Flow.Subscription souscription;
+        boolean termine;
+        Throwable erreur;
+
+        Abonne(long demandeInitiale) {
+            this.demandeInitiale = demandeInitiale;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription souscription) {
+            this.souscription = souscription;
+            if (demandeInitiale > 0) {
+                souscription.request(demandeInitiale);
+            }
+        }
+
+        @Override
+        public void onNext(T element) {
+            recus.add(element);
+        }
+
+        @Override
+        public void onError(Throwable erreur) {
+            this.erreur = erreur;
+        }
+
+        @Override
+        public void onComplete() {
+            termine = true;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.stockage.CatalogueMemoire;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests des réservations de BibliothequeService")
+class BibliothequeServiceReservationsTest {
+
+    private static final LocalDate DEPART = LocalDate.of(2024, 9, 1);
+
+    private HorlogeSimulee horloge;
+    private BibliothequeService service;
+    private Livre livre;
+    private Adherent emprunteur;
+    private Adherent premier;
+    private Adherent second;
+    private Emprunt empruntInitial;
+
+    @BeforeEach
+    void setUp() {
+        horloge = new HorlogeSimulee(DEPART);
+        service = new BibliothequeService(new CatalogueMemoire(), horloge);
+        livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        emprunteur = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        premier = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        second = new Adherent("Martin", "Alice", "alice.martin@email.com");
+        service.ajouterLivre(livre);
+        service.inscrireAdherent(emprunteur);
+        service.inscrireAdherent(premier);
+        service.inscrireAdherent(second);
+        empruntInitial = service.emprunterLivre(livre.getIsbn(), emprunteur.getNumeroCarte());
+    }
+
+    @Test
+    @DisplayName("Au retour, l'exemplaire doit être mis de côté pour le premier de la file et l'abonné notifié")
+    void testAllocationAuRetour() {
+        List<Reservation> notifications = new ArrayList<>();
+        Reservation reservation = service.reserverLivre(livre.getIsbn(), premier.getNumeroCarte(), notifications::add);
+        service.reserverLivre(livre.getIsbn(), second.getNumeroCarte());
+
+        service.retournerLivre(empruntInitial);
+
+        assertEquals(Reservation.StatutReservation.DISPONIBLE, reservation.getStatut());
+        assertEquals(DEPART.plusDays(BibliothequeService.DELAI_RETRAIT_JOURS), reservation.getDateLimiteRetrait());
+        assertEquals(List.of(reservation), notifications);
+        assertEquals(0, livre.getExemplairesDisponibles());
+        assertEquals(1, service.listerReservations(livre.getIsbn()).size());
+        // L'exemplaire mis de côté n'est pas empruntable par un autre adhérent
+        assertThrows(IllegalStateException.class,
+                () -> service.emprunterLivre(livre.getIsbn(), second.getNumeroCarte()));
+
+        Emprunt emprunt = service.retirerReservation(reservation);
+
+        assertEquals(premier, emprunt.getAdherent());
+        assertEquals(Reservation.StatutReservation.HONOREE, reservation.getStatut());
+        assertEquals(0, livre.getExemplairesDisponibles());
+    }
+
+    @Test
+    @DisplayName("Un exemplaire non retiré à temps doit passer à l'adhérent suivant")
+    void testExpiration() {
+        List<Reservation> notifications = new ArrayList<>();
+        Reservation reservationPremier = service.reserverLivre(livre.getIsbn(), premier.getNumeroCarte(), notifications::add);
+        Reservation reservationSecond = service.reserverLivre(livre.getIsbn(), second.getNumeroCarte());
+        service.retournerLivre(empruntInitial);
+
+        horloge.avancer(BibliothequeService.DELAI_RETRAIT_JOURS);
+        service.expirerReservations();
+        assertEquals(Reservation.StatutReservation.DISPONIBLE, reservationPremier.getStatut());
+
+        horloge.avancer(1);
+        service.expirerReservations();
+
+        assertEquals(Reservation.StatutReservation.EXPIREE, reservationPremier.getStatut());
+        assertEquals(2, notifications.size());
+        assertEquals(Reservation.StatutReservation.DISPONIBLE, reservationSecond.getStatut());
+        assertThrows(IllegalStateException.class, () -> service.retirerReservation(reservationPremier));
+        assertEquals(second, service.retirerReservation(reservationSecond).getAdherent());
+    }
+
+    @Test
+    @DisplayName("Annuler une réservation mise de côté doit libérer l'exemplaire")
+    void testAnnulation() {
+        Reservation reservation = service.reserverLivre(livre.getIsbn(), premier.getNumeroCarte());
+        service.retournerLivre(empruntInitial);
+
+        service.annulerReservation(reservation);
+
+        assertEquals(Reservation.StatutReservation.ANNULEE, reservation.getStatut());
+        assertEquals(1, livre.getExemplairesDisponibles());
+        assertTrue(service.listerReservations(livre.getIsbn()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("L'exemplaire mis de côté doit être celui remis à l'adhérent au retrait")
+    void testExemplaireMisDeCote() {
+        Reservation reservation = service.reserverLivre(livre.getIsbn(), premier.getNumeroCarte());
+        long codeBarre = empruntInitial.getCodeBarreExemplaire();
+        service.retournerLivre(empruntInitial);
+
+        assertEquals(codeBarre, reservation.getCodeBarreExemplaire());
+        assertEquals(Exemplaires.Etat.MIS_DE_COTE, service.rechercherExemplaire(codeBarre).getEtat());
+
+        Emprunt emprunt = service.retirerReservation(reservation);
+
+        assertEquals(codeBarre, emprunt.getCodeBarreExemplaire());
+        assertEquals(premier.getNumeroCarte(), service.rechercherExemplaire(codeBarre).getNumeroCarte());
+    }
+
+    @Test
+    @DisplayName("Un adhérent qui ne peut pas emprunter doit céder sa place sans la perdre")
+    void testAdherentIneligible() {
+        Reservation reservationPremier = service.reserverLivre(livre.getIsbn(), premier.getNumeroCarte());
+        Reservation reservationSecond = service.reserverLivre(livre.getIsbn(), second.getNumeroCarte());
+        premier.desactiver();
+
+        service.retournerLivre(empruntInitial);
+
+        assertEquals(Reservation.StatutReservation.EN_ATTENTE, reservationPremier.getStatut());
+        assertEquals(Reservation.StatutReservation.DISPONIBLE, reservationSecond.getStatut());
+        assertEquals(List.of(reservationPremier), service.listerReservations(livre.getIsbn()));
+    }
+
+    @Test
+    @DisplayName("Réserver un livre disponible ou le réserver deux fois doit échouer")
+    void testReservationsInvalides() {
+        Livre disponible = new Livre("978-2-1234-5681-0", "Design Patterns", "Gang of Four", 1994);
+        service.ajouterLivre(disponible);
+        assertThrows(IllegalStateException.class,
+                () -> service.reserverLivre(disponible.getIsbn(), premier.getNumeroCarte()));
+
+        service.reserverLivre(livre.getIsbn(), premier.getNumeroCarte());
+        assertThrows(IllegalStateException.class,
+                () -> service.reserverLivre(livre.getIsbn(), premier.getNumeroCarte()));
+    }
+}
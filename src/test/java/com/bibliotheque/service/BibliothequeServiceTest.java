@@ -2,11 +2,14 @@ package com.bibliotheque.service;
 
 import com.bibliotheque.modele.Adherent;
 import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
 import com.bibliotheque.modele.Livre;
+import com.bibliotheque.stockage.CatalogueMemoire;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +48,30 @@ class BibliothequeServiceTest {
         assertEquals(adherent, adherentRecupere);
     }
 
+    @Test
+    @DisplayName("Inscrire un second adhérent avec le même email doit être refusé")
+    void testInscrireEmailDejaUtilise() {
+        service.inscrireAdherent(adherent);
+        Adherent doublon = new Adherent("Ndiaye", "Charles", "Mourad.Eljalil@email.com");
+
+        assertThrows(IllegalStateException.class, () -> service.inscrireAdherent(doublon));
+        assertNull(service.rechercherAdherent(doublon.getNumeroCarte()));
+        assertEquals(1, service.obtenirStatistiques().getNombreAdherents());
+    }
+
+    @Test
+    @DisplayName("Rechercher un adhérent par email ou par début de nom")
+    void testRechercherAdherentParEmailEtNom() {
+        Adherent charles = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        service.inscrireAdherent(adherent);
+        service.inscrireAdherent(charles);
+
+        assertEquals(adherent, service.rechercherAdherentParEmail("MOURAD.ELJALIL@email.com"));
+        assertNull(service.rechercherAdherentParEmail("inconnu@email.com"));
+        assertEquals(List.of(charles), service.rechercherAdherentsParNom("ndi", 10));
+        assertEquals(List.of(adherent), service.rechercherAdherentsParNom("mourad elj", 10));
+    }
+
     @Test
     @DisplayName("Emprunter un livre avec succès")
     void testEmprunterLivreSuccess() {
@@ -115,6 +142,20 @@ class BibliothequeServiceTest {
         assertEquals(Emprunt.StatutEmprunt.RENDU, emprunt.getStatut());
     }
 
+    @Test
+    @DisplayName("Un emprunt déjà rendu ne peut pas être rendu une seconde fois")
+    void testRetourEnDouble() {
+        service.ajouterLivre(livre);
+        service.inscrireAdherent(adherent);
+
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        service.retournerLivre(emprunt);
+
+        assertThrows(IllegalStateException.class, () -> service.retournerLivre(emprunt));
+        assertEquals(1, livre.getExemplairesDisponibles());
+        assertEquals(0, adherent.getNombreEmpruntsEnCours());
+    }
+
     @Test
     @DisplayName("Rechercher des livres par titre")
     void testRechercherLivreParTitre() {
@@ -147,6 +188,34 @@ class BibliothequeServiceTest {
         assertEquals(2, resultats.size());
     }
 
+    @Test
+    @DisplayName("Rechercher des livres par auteur sans tenir compte de la casse")
+    void testRechercherLivreParAuteurCasse() {
+        Livre livre1 = new Livre("978-1-1111-1111-1", "Book 1", "Martin Fowler", 2020);
+        Livre livre2 = new Livre("978-3-3333-3333-3", "Book 3", "Robert Martin", 2019);
+
+        service.ajouterLivre(livre1);
+        service.ajouterLivre(livre2);
+
+        List<Livre> resultats = service.rechercherLivreParAuteur("martin");
+        assertEquals(2, resultats.size());
+        assertTrue(resultats.contains(livre1));
+        assertTrue(resultats.contains(livre2));
+    }
+
+    @Test
+    @DisplayName("Remplacer un livre doit mettre à jour la recherche par auteur")
+    void testRemplacerLivreRechercheParAuteur() {
+        Livre ancien = new Livre("978-1-1111-1111-1", "Book 1", "Martin Fowler", 2020);
+        Livre nouveau = new Livre("978-1-1111-1111-1", "Book 1", "Kent Beck", 2020);
+
+        service.ajouterLivre(ancien);
+        service.ajouterLivre(nouveau);
+
+        assertTrue(service.rechercherLivreParAuteur("Fowler").isEmpty());
+        assertEquals(List.of(nouveau), service.rechercherLivreParAuteur("Beck"));
+    }
+
     @Test
     @DisplayName("Lister les emprunts d'un adhérent")
     void testListerEmpruntsAdherent() {
@@ -176,4 +245,80 @@ class BibliothequeServiceTest {
         assertEquals(1, stats.getNombreAdherents());
         assertEquals(1, stats.getNombreEmpruntsEnCours());
     }
+
+    @Test
+    @DisplayName("Chaque emprunt doit être compté dans le classement des livres les plus empruntés")
+    void testLivresLesPlusEmpruntes() {
+        service.ajouterLivre(livre);
+        service.inscrireAdherent(adherent);
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        service.retournerLivre(emprunt);
+        service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+
+        List<PopulariteEmprunts.Entree> classement = service.livresLesPlusEmpruntes(10, 7);
+
+        assertEquals(1, classement.size());
+        assertEquals(livre.getIsbn(), classement.get(0).getIsbn());
+        assertEquals(2, classement.get(0).getNombreEmprunts());
+    }
+
+    @Test
+    @DisplayName("Les livres empruntés par le même adhérent doivent être recommandés l'un pour l'autre")
+    void testLivresAussiEmpruntes() {
+        Livre autre = new Livre("978-0-13-235088-4", "The Clean Coder", "Robert C. Martin", 2011);
+        service.ajouterLivre(livre);
+        service.ajouterLivre(autre);
+        service.inscrireAdherent(adherent);
+        service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        service.emprunterLivre(autre.getIsbn(), adherent.getNumeroCarte());
+
+        List<RecommandationsEmprunts.Recommandation> recommandations = service.livresAussiEmpruntes(livre.getIsbn(), 5);
+
+        assertEquals(1, recommandations.size());
+        assertEquals(autre.getIsbn(), recommandations.get(0).getIsbn());
+        assertEquals(livre.getIsbn(), service.livresAussiEmpruntes(autre.getIsbn(), 5).get(0).getIsbn());
+    }
+
+    @Test
+    @DisplayName("Un emprunt doit désigner un exemplaire précis, libéré au retour")
+    void testExemplaires() {
+        service.ajouterLivre(livre);
+        service.inscrireAdherent(adherent);
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+
+        Exemplaires.Exemplaire exemplaire = service.rechercherExemplaire(emprunt.getCodeBarreExemplaire());
+        assertEquals(Exemplaires.Etat.EMPRUNTE, exemplaire.getEtat());
+        assertEquals(adherent.getNumeroCarte(), exemplaire.getNumeroCarte());
+
+        service.ajouterExemplaires(livre.getIsbn(), 2, 1);
+
+        assertEquals(2, livre.getExemplairesDisponibles());
+        assertEquals(3, service.listerExemplaires(livre.getIsbn()).size());
+        assertEquals(1, service.rechercherExemplaire(
+                service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte()).getCodeBarreExemplaire()).getSuccursale());
+
+        service.retournerLivre(emprunt);
+
+        assertEquals(Exemplaires.Etat.LIBRE, service.rechercherExemplaire(emprunt.getCodeBarreExemplaire()).getEtat());
+        assertThrows(IllegalArgumentException.class, () -> service.ajouterExemplaires(livre.getIsbn(), 0, 0));
+        assertThrows(IllegalStateException.class, () -> service.ajouterExemplaires("inconnu", 1, 0));
+    }
+
+    @Test
+    @DisplayName("Un retour en retard doit bloquer l'adhérent et lui compter ses jours de retard")
+    void testRetourEnRetard() {
+        HorlogeSimulee horloge = new HorlogeSimulee(LocalDate.of(2024, 9, 1));
+        service = new BibliothequeService(new CatalogueMemoire(), horloge);
+        service.ajouterLivre(livre);
+        service.inscrireAdherent(adherent);
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        horloge.avancer(17);
+
+        service.retournerLivre(emprunt);
+
+        assertTrue(adherent.aDesRetards());
+        assertEquals(3, adherent.getJoursRetard());
+        assertEquals(1.5, adherent.calculerFraisRetard(), 0.001);
+        assertFalse(adherent.peutEmprunter());
+    }
 }
@@ -0,0 +1,119 @@
+package com.bibliotheque.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour CartePersistante")
+class CartePersistanteTest {
+
+    @Test
+    @DisplayName("Un ajout ne doit pas modifier la carte d'origine")
+    void testImmuabilite() {
+        CartePersistante<String, Integer> vide = CartePersistante.vide();
+        CartePersistante<String, Integer> un = vide.avec("a", 1);
+        CartePersistante<String, Integer> deux = un.avec("a", 2);
+
+        assertNull(vide.get("a"));
+        assertEquals(1, un.get("a"));
+        assertEquals(2, deux.get("a"));
+        assertEquals(1, deux.taille());
+    }
+
+    @Test
+    @DisplayName("La carte doit contenir de nombreuses clés")
+    void testNombreusesCles() {
+        CartePersistante<Integer, Integer> carte = CartePersistante.vide();
+        for (int i = 0; i < 100_000; i++) {
+            carte = carte.avec(i, i * 2);
+        }
+
+        assertEquals(100_000, carte.taille());
+        for (int i = 0; i < 100_000; i += 7) {
+            assertEquals(i * 2, carte.get(i));
+        }
+        assertNull(carte.get(-1));
+
+        Set<Integer> valeurs = new HashSet<>();
+        carte.forEach(valeurs::add);
+        assertEquals(100_000, valeurs.size());
+    }
+
+    @Test
+    @DisplayName("Les clés dont le hachage est identique doivent coexister")
+    void testCollisions() {
+        // "Aa" et "BB" ont le même hashCode
+        CartePersistante<String, String> carte = CartePersistante.<String, String>vide()
+                .avec("Aa", "premier")
+                .avec("BB", "second");
+
+        assertEquals(2, carte.taille());
+        assertEquals("premier", carte.get("Aa"));
+        assertEquals("second", carte.get("BB"));
+        assertEquals("remplacé", carte.avec("BB", "remplacé").get("BB"));
+        assertEquals(2, carte.avec("BB", "remplacé").taille());
+    }
+
+    @Test
+    @DisplayName("Le découpage doit couvrir chaque entrée une fois, en parts d'une taille utile")
+    void testDecoupage() {
+        CartePersistante<Integer, Integer> carte = CartePersistante.vide();
+        for (int i = 0; i < 100_000; i++) {
+            carte = carte.avec(i, i);
+        }
+        Spliterator<Integer> racine = carte.spliterator();
+        assertTrue(racine.hasCharacteristics(Spliterator.SIZED));
+        assertEquals(100_000, racine.getExactSizeIfKnown());
+
+        List<Spliterator<Integer>> parts = new ArrayList<>();
+        decouper(racine, parts);
+
+        assertTrue(parts.size() >= 32, "parts: " + parts.size());
+        Set<Integer> valeurs = new HashSet<>();
+        long estimations = 0;
+        for (Spliterator<Integer> part : parts) {
+            assertFalse(part.hasCharacteristics(Spliterator.SIZED));
+            assertTrue(part.estimateSize() < 2048);
+            estimations += part.estimateSize();
+            part.forEachRemaining(valeur -> assertTrue(valeurs.add(valeur)));
+        }
+        assertEquals(100_000, valeurs.size());
+        assertEquals(100_000, estimations);
+        assertEquals(100_000, StreamSupport.stream(carte.spliterator(), true).filter(v -> v % 2 == 0).count() * 2);
+    }
+
+    @Test
+    @DisplayName("Une petite carte ou un parcours commencé ne doit pas être découpé")
+    void testDecoupageInutile() {
+        CartePersistante<String, String> carte = CartePersistante.<String, String>vide()
+                .avec("Aa", "premier")
+                .avec("BB", "second");
+        Spliterator<String> decoupage = carte.spliterator();
+
+        assertNull(decoupage.trySplit());
+        assertTrue(decoupage.tryAdvance(valeur -> { }));
+        assertNull(decoupage.trySplit());
+        assertTrue(decoupage.tryAdvance(valeur -> { }));
+        assertFalse(decoupage.tryAdvance(valeur -> { }));
+        assertFalse(CartePersistante.vide().spliterator().tryAdvance(valeur -> { }));
+    }
+
+    // Découpe récursivement jusqu'à ce qu'aucune part ne se découpe plus
+    private static <T> void decouper(Spliterator<T> decoupage, List<Spliterator<T>> parts) {
+        Spliterator<T> premiere = decoupage.trySplit();
+        if (premiere == null) {
+            parts.add(decoupage);
+            return;
+        }
+        decouper(premiere, parts);
+        decouper(decoupage, parts);
+    }
+}
@@ -0,0 +1,238 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour ConteneurBibliotheques")
+class ConteneurBibliothequesTest {
+
+    private HorlogeSimulee horloge;
+    private ConteneurBibliotheques conteneur;
+
+    @BeforeEach
+    void setUp() {
+        horloge = new HorlogeSimulee(LocalDate.of(2024, 9, 1));
+        // Un seul thread partagé : l'ordre d'exécution entre locataires est observable
+        conteneur = new ConteneurBibliotheques(100, 10L * 1024 * 1024, 1, 50, horloge);
+        conteneur.ajouterLocataire("lyon");
+        conteneur.ajouterLocataire("nantes");
+    }
+
+    @AfterEach
+    void tearDown() {
+        conteneur.close();
+    }
+
+    @Test
+    @DisplayName("Les données de deux locataires doivent rester isolées, même à ISBN égal")
+    void testIsolation() {
+        Livre livreLyon = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        Livre livreNantes = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        Adherent lecteur = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        conteneur.ajouterLivre("lyon", livreLyon).join();
+        conteneur.ajouterLivre("nantes", livreNantes).join();
+        conteneur.inscrireAdherent("lyon", lecteur).join();
+
+        Emprunt emprunt = conteneur.emprunterLivre("lyon", livreLyon.getIsbn(), lecteur.getNumeroCarte()).join();
+
+        // Le locataire garde sa propre copie : les objets de l'appelant ne bougent pas
+        assertEquals(1, livreLyon.getExemplairesDisponibles());
+        assertEquals(0, lecteur.getNombreEmpruntsEnCours());
+        assertEquals(0, conteneur.rechercherLivreParIsbn("lyon", livreLyon.getIsbn()).join().getExemplairesDisponibles());
+        // Les lectures rendent des copies, que le pool ne modifie plus
+        Livre copie = conteneur.rechercherLivreParIsbn("nantes", livreLyon.getIsbn()).join();
+        assertNotSame(livreNantes, copie);
+        assertEquals(1, copie.getExemplairesDisponibles());
+        assertTrue(emprunt.estFige());
+        assertEquals(1, conteneur.rechercherAdherent("lyon", lecteur.getNumeroCarte()).join().getNombreEmpruntsEnCours());
+        assertNull(conteneur.rechercherAdherent("nantes", lecteur.getNumeroCarte()).join());
+        CompletionException inconnu = assertThrows(CompletionException.class,
+                () -> conteneur.emprunterLivre("nantes", livreNantes.getIsbn(), lecteur.getNumeroCarte()).join());
+        assertInstanceOf(IllegalStateException.class, inconnu.getCause());
+        CompletionException etranger = assertThrows(CompletionException.class,
+                () -> conteneur.retournerLivre("nantes", emprunt).join());
+        assertEquals("L'emprunt n'appartient pas au locataire nantes", etranger.getCause().getMessage());
+        assertEquals(Emprunt.StatutEmprunt.EN_COURS, emprunt.getStatut());
+
+        conteneur.retournerLivre("lyon", emprunt).join();
+        assertEquals(1, conteneur.rechercherLivreParIsbn("lyon", livreLyon.getIsbn()).join().getExemplairesDisponibles());
+        assertEquals(0, conteneur.rechercherAdherent("lyon", lecteur.getNumeroCarte()).join().getNombreEmpruntsEnCours());
+        assertEquals(0, conteneur.obtenirStatistiques("lyon").join().getNombreEmpruntsEnCours());
+        assertEquals(0, conteneur.obtenirStatistiques("nantes").join().getNombreAdherents());
+    }
+
+    @Test
+    @DisplayName("Un locataire inconnu, en double ou au-delà de la capacité doit être refusé")
+    void testGestionLocataires() {
+        assertThrows(IllegalStateException.class, () -> conteneur.ajouterLocataire("lyon"));
+        assertThrows(IllegalStateException.class, () -> conteneur.rechercherLivreParIsbn("brest", "978-0"));
+        assertThrows(IllegalArgumentException.class, () -> conteneur.ajouterLocataire(" "));
+        assertEquals(List.of("lyon", "nantes"), conteneur.listerLocataires());
+
+        assertTrue(conteneur.retirerLocataire("nantes"));
+        assertFalse(conteneur.retirerLocataire("nantes"));
+        assertFalse(conteneur.contientLocataire("nantes"));
+
+        try (ConteneurBibliotheques petit = new ConteneurBibliotheques(1)) {
+            petit.ajouterLocataire("brest");
+            IllegalStateException plein = assertThrows(IllegalStateException.class, () -> petit.ajouterLocataire("caen"));
+            assertEquals("Nombre maximal de locataires atteint (1)", plein.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Au-delà de son quota de commandes en attente, un locataire doit être refusé sans gêner les autres")
+    void testQuotaCommandes() throws Exception {
+        CountDownLatch demarre = new CountDownLatch(1);
+        CountDownLatch bloque = new CountDownLatch(1);
+        conteneur.executer("lyon", service -> {
+            demarre.countDown();
+            return attendre(bloque);
+        });
+        // La commande bloquante n'est plus en attente une fois commencée
+        assertTrue(demarre.await(10, TimeUnit.SECONDS));
+        List<CompletableFuture<Livre>> acceptees = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            acceptees.add(conteneur.rechercherLivreParIsbn("lyon", "978-" + i));
+        }
+
+        CompletableFuture<Livre> refusee = conteneur.rechercherLivreParIsbn("lyon", "978-x");
+        CompletableFuture<Livre> autre = conteneur.rechercherLivreParIsbn("nantes", "978-x");
+        bloque.countDown();
+
+        CompletionException echec = assertThrows(CompletionException.class, refusee::join);
+        assertEquals("Trop de commandes en attente pour le locataire lyon", echec.getCause().getMessage());
+        assertNull(autre.join());
+        for (CompletableFuture<Livre> acceptee : acceptees) {
+            assertNull(acceptee.join());
+        }
+        ConteneurBibliotheques.MetriquesLocataire metriques = conteneur.metriques("lyon").join();
+        assertEquals(51, metriques.getCommandesExecutees());
+        assertEquals(1, metriques.getCommandesRefusees());
+        assertEquals(0, metriques.getCommandesEnAttente());
+    }
+
+    @Test
+    @DisplayName("Un locataire très actif ne doit pas retarder les autres au-delà d'un tour")
+    void testEquite() throws Exception {
+        CountDownLatch bloque = new CountDownLatch(1);
+        List<String> ordre = new ArrayList<>();
+        conteneur.executer("lyon", service -> attendre(bloque));
+        for (int i = 0; i < 40; i++) {
+            conteneur.executer("lyon", service -> ordre.add("lyon"));
+        }
+        CompletableFuture<Boolean> nantes = conteneur.executer("nantes", service -> ordre.add("nantes"));
+        bloque.countDown();
+        nantes.join();
+        conteneur.executer("lyon", service -> null).join();
+
+        // Le premier tour de lyon comprend la commande bloquante, puis COMMANDES_PAR_TOUR - 1 autres
+        assertEquals(ConteneurBibliotheques.COMMANDES_PAR_TOUR - 1, ordre.indexOf("nantes"));
+        assertEquals(41, ordre.size());
+    }
+
+    @Test
+    @DisplayName("Les commandes d'un locataire doivent s'exécuter en série, dans l'ordre d'envoi")
+    void testOrdreParLocataire() {
+        try (ConteneurBibliotheques partage = new ConteneurBibliotheques(10, 1024 * 1024, 4, 10_000, horloge)) {
+            partage.ajouterLocataire("lyon");
+            List<Integer> ordre = new ArrayList<>();
+            List<CompletableFuture<Boolean>> commandes = new ArrayList<>();
+            for (int i = 0; i < 5_000; i++) {
+                int numero = i;
+                commandes.add(partage.executer("lyon", service -> ordre.add(numero)));
+            }
+            commandes.forEach(CompletableFuture::join);
+
+            for (int i = 0; i < 5_000; i++) {
+                assertEquals(i, ordre.get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Le budget des caches doit être divisé entre les locataires et exposé dans leurs métriques")
+    void testQuotaCachesEtMetriques() {
+        conteneur.ajouterLivre("nantes", new Livre("978-2-1234-5681-0", "Design Patterns", "Gang of Four", 1994)).join();
+
+        List<ConteneurBibliotheques.MetriquesLocataire> metriques = conteneur.metriques().join();
+
+        assertEquals(List.of("lyon", "nantes"),
+                metriques.stream().map(ConteneurBibliotheques.MetriquesLocataire::getId).toList());
+        ConteneurBibliotheques.MetriquesLocataire nantes = metriques.get(1);
+        assertEquals(10L * 1024 * 1024 / 100, nantes.getQuotaCachesOctets());
+        // 104857 / 2 / (31 * 96) = 17 livres par jour ; 52428 / 64 dépasse 366 jours
+        assertEquals(17, nantes.getCapacitePopularite());
+        assertEquals(HistoriqueActivite.JOURS_CONSERVES_PAR_DEFAUT, nantes.getJoursHistorique());
+        assertEquals(1, nantes.getStatistiques().getNombreLivres());
+        assertEquals(1, nantes.getCommandesExecutees());
+        assertEquals(0, metriques.get(0).getCommandesExecutees());
+        assertTrue(nantes.toString().startsWith("Locataire nantes{Statistiques{livres=1"));
+
+        try (ConteneurBibliotheques serre = new ConteneurBibliotheques(1000, 1024 * 1024, 1, 10, horloge)) {
+            serre.ajouterLocataire("brest");
+            ConteneurBibliotheques.MetriquesLocataire brest = serre.metriques("brest").join();
+            assertEquals(ConteneurBibliotheques.CAPACITE_POPULARITE_MIN, brest.getCapacitePopularite());
+            assertEquals(ConteneurBibliotheques.JOURS_HISTORIQUE_MIN, brest.getJoursHistorique());
+        }
+    }
+
+    @Test
+    @DisplayName("Après la fermeture, les commandes acceptées doivent s'exécuter et les suivantes échouer")
+    void testFermeture() throws Exception {
+        CountDownLatch demarre = new CountDownLatch(1);
+        CountDownLatch bloque = new CountDownLatch(1);
+        conteneur.executer("lyon", service -> {
+            demarre.countDown();
+            return attendre(bloque);
+        });
+        assertTrue(demarre.await(10, TimeUnit.SECONDS));
+        // Plus d'un tour de commandes déjà acceptées, sous le quota de 50
+        List<CompletableFuture<Livre>> acceptees = new ArrayList<>();
+        for (int i = 0; i < ConteneurBibliotheques.COMMANDES_PAR_TOUR + 8; i++) {
+            acceptees.add(conteneur.rechercherLivreParIsbn("lyon", "978-" + i));
+        }
+
+        Thread fermeture = new Thread(conteneur::close);
+        fermeture.start();
+        // close() refuse les commandes avant d'attendre la fin du pool
+        while (fermeture.getState() != Thread.State.TIMED_WAITING && fermeture.isAlive()) {
+            Thread.onSpinWait();
+        }
+        CompletionException refusee = assertThrows(CompletionException.class,
+                () -> conteneur.rechercherLivreParIsbn("nantes", "978-x").join());
+        assertEquals("Le conteneur est fermé", refusee.getCause().getMessage());
+        assertThrows(CompletionException.class, () -> conteneur.metriques("lyon").join());
+        bloque.countDown();
+        fermeture.join();
+
+        for (CompletableFuture<Livre> acceptee : acceptees) {
+            assertNull(acceptee.join());
+        }
+    }
+
+    private static Void attendre(CountDownLatch verrou) {
+        try {
+            assertTrue(verrou.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,138 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour Exemplaires")
+class ExemplairesTest {
+
+    private Exemplaires exemplaires;
+    private Livre livre;
+    private Adherent adherent;
+
+    @BeforeEach
+    void setUp() {
+        exemplaires = new Exemplaires();
+        livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        livre.ajouterExemplaires(2);
+        adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+    }
+
+    @Test
+    @DisplayName("Le code-barres doit être formé des chiffres de l'ISBN et du rang de l'exemplaire")
+    void testCodeBarre() {
+        List<Exemplaires.Exemplaire> liste = exemplaires.lister(livre);
+
+        assertEquals(3, liste.size());
+        assertEquals(19782123456803_00001L, liste.get(0).getCodeBarre());
+        assertEquals(19782123456803_00003L, liste.get(2).getCodeBarre());
+        // Un titre jamais utilisé est décrit sans être suivi
+        assertNull(exemplaires.trouver(liste.get(0).getCodeBarre()));
+
+        long codeBarre = exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE);
+
+        assertTrue(liste.stream().anyMatch(e -> e.getCodeBarre() == codeBarre));
+        Exemplaires.Exemplaire exemplaire = exemplaires.trouver(codeBarre);
+        assertEquals(livre.getIsbn(), exemplaire.getIsbn());
+        assertEquals(Exemplaires.Etat.EMPRUNTE, exemplaire.getEtat());
+        assertEquals(Exemplaires.SUCCURSALE_PRINCIPALE, exemplaire.getSuccursale());
+        assertNull(exemplaires.trouver(19782123456803_00004L));
+        assertNull(exemplaires.trouver(Exemplaires.AUCUN));
+    }
+
+    @Test
+    @DisplayName("Les exemplaires libres doivent être pris puis rendus par la tête de liste")
+    void testListeDesLibres() {
+        long premier = exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE);
+        long deuxieme = exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE);
+        long troisieme = exemplaires.prendre(livre, Exemplaires.Etat.MIS_DE_COTE);
+
+        assertEquals(3, List.of(premier, deuxieme, troisieme).stream().distinct().count());
+        assertEquals(Exemplaires.AUCUN, exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE));
+        assertEquals(Exemplaires.Etat.MIS_DE_COTE, exemplaires.trouver(troisieme).getEtat());
+
+        exemplaires.liberer(deuxieme);
+
+        assertEquals(Exemplaires.Etat.LIBRE, exemplaires.trouver(deuxieme).getEtat());
+        assertEquals(deuxieme, exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE));
+
+        exemplaires.liberer(premier);
+
+        assertThrows(IllegalStateException.class, () -> exemplaires.liberer(premier));
+    }
+
+    @Test
+    @DisplayName("Un exemplaire attaché doit désigner son emprunteur et sa date de retour")
+    void testAttacher() {
+        HorlogeSimulee horloge = new HorlogeSimulee(LocalDate.of(2024, 3, 1));
+        long codeBarre = exemplaires.prendre(livre, Exemplaires.Etat.MIS_DE_COTE);
+        Emprunt emprunt = new Emprunt(livre, adherent, horloge, codeBarre);
+
+        exemplaires.attacher(codeBarre, emprunt);
+
+        Exemplaires.Exemplaire exemplaire = exemplaires.trouver(codeBarre);
+        assertEquals(Exemplaires.Etat.EMPRUNTE, exemplaire.getEtat());
+        assertEquals(adherent.getNumeroCarte(), exemplaire.getNumeroCarte());
+        assertEquals(LocalDate.of(2024, 3, 15), exemplaire.getDateRetourPrevue());
+
+        // La vue reprend la date enregistrée, pas celle de l'emprunt tant qu'elle n'est pas reportée
+        assertTrue(emprunt.prolonger());
+        assertEquals(LocalDate.of(2024, 3, 15), exemplaires.trouver(codeBarre).getDateRetourPrevue());
+        exemplaires.prolonger(codeBarre, emprunt.getDateRetourPrevue());
+        assertEquals(emprunt.getDateRetourPrevue(), exemplaires.trouver(codeBarre).getDateRetourPrevue());
+
+        exemplaires.liberer(codeBarre);
+
+        assertNull(exemplaires.trouver(codeBarre).getNumeroCarte());
+        assertNull(exemplaires.trouver(codeBarre).getDateRetourPrevue());
+    }
+
+    @Test
+    @DisplayName("Les exemplaires ajoutés doivent appartenir à leur succursale")
+    void testAjouterSuccursale() {
+        exemplaires.ajouter(livre, 2, 4);
+        livre.ajouterExemplaires(2);
+
+        List<Exemplaires.Exemplaire> liste = exemplaires.lister(livre);
+
+        assertEquals(5, liste.size());
+        assertEquals(Exemplaires.SUCCURSALE_PRINCIPALE, liste.get(2).getSuccursale());
+        assertEquals(4, liste.get(3).getSuccursale());
+        assertEquals(4, liste.get(4).getSuccursale());
+        // Les derniers ajoutés sont en tête de liste
+        assertEquals(4, exemplaires.trouver(exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE)).getSuccursale());
+        assertThrows(IllegalArgumentException.class,
+                () -> exemplaires.ajouter(livre, Exemplaires.MAX_EXEMPLAIRES_PAR_TITRE, 0));
+        assertEquals(5, exemplaires.lister(livre).size());
+    }
+
+    @Test
+    @DisplayName("Un ISBN non numérique doit recevoir un numéro de titre à sa première opération")
+    void testIsbnHorsNorme() {
+        Livre interne = new Livre("RES-001", "Manuel interne", "Bibliothèque", 2024);
+        Livre tiret = new Livre("9782123456803", "Clean Code sans tirets", "Robert C. Martin", 2008);
+
+        assertEquals(Exemplaires.AUCUN, exemplaires.lister(interne).get(0).getCodeBarre());
+
+        long codeInterne = exemplaires.prendre(interne, Exemplaires.Etat.EMPRUNTE);
+        long codeLivre = exemplaires.prendre(livre, Exemplaires.Etat.EMPRUNTE);
+        // Mêmes chiffres qu'un titre déjà suivi : numéroté à part
+        long codeTiret = exemplaires.prendre(tiret, Exemplaires.Etat.EMPRUNTE);
+
+        assertEquals("RES-001", exemplaires.trouver(codeInterne).getIsbn());
+        assertEquals(livre.getIsbn(), exemplaires.trouver(codeLivre).getIsbn());
+        assertEquals(tiret.getIsbn(), exemplaires.trouver(codeTiret).getIsbn());
+        assertEquals(codeInterne, exemplaires.lister(interne).get(0).getCodeBarre());
+        assertNotEquals(codeLivre / 100_000, codeTiret / 100_000);
+    }
+}
@@ -0,0 +1,165 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.serveur.Json;
+import com.bibliotheque.stockage.CatalogueDisque;
+import com.bibliotheque.stockage.CatalogueMemoire;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour Exportation")
+class ExportationTest {
+
+    private static final LocalDate DEBUT = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path dossier;
+
+    private BibliothequeService service;
+    private HorlogeSimulee horloge;
+    private Adherent adherent;
+    // Sortie de l'export en cours
+    private ByteArrayOutputStream sortie;
+
+    @BeforeEach
+    void setUp() {
+        horloge = new HorlogeSimulee(DEBUT);
+        service = new BibliothequeService(new CatalogueMemoire(), horloge);
+        service.activerInstantanes();
+        service.ajouterLivre(new Livre("978-2-07-036822-8", "Le Petit Prince", "Antoine de Saint-Exupéry", 1943));
+        service.ajouterLivre(new Livre("978-2-253-00612-5", "Guerre, paix et \"autres\" essais", "Léon Tolstoï", 1950));
+        adherent = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        service.inscrireAdherent(adherent);
+    }
+
+    @Test
+    @DisplayName("Le catalogue doit être exporté en CSV avec échappement et UTF-8")
+    void testCatalogueCsv() throws IOException {
+        String csv = exporter(new Exportation(), exportation -> exportation.exporterLivres(
+                service.instantane(), Exportation.Format.CSV, Channels.newChannel(sortie)));
+
+        List<String> lignes = List.of(csv.split("\n"));
+        assertEquals("isbn,titre,auteur,anneePublication,nombreExemplaires,exemplairesDisponibles", lignes.get(0));
+        assertEquals(3, lignes.size());
+        assertTrue(lignes.contains("978-2-07-036822-8,Le Petit Prince,Antoine de Saint-Exupéry,1943,1,1"));
+        assertTrue(lignes.contains("978-2-253-00612-5,\"Guerre, paix et \"\"autres\"\" essais\",Léon Tolstoï,1950,1,1"));
+    }
+
+    @Test
+    @DisplayName("Le JSON produit doit être un tableau valide, même avec un tout petit tampon")
+    void testCatalogueJsonPetitTampon() throws IOException {
+        String json = exporter(new Exportation(16), exportation -> exportation.exporterLivres(
+                service.instantane(), Exportation.Format.JSON, Channels.newChannel(sortie)));
+
+        List<?> livres = (List<?>) Json.lire(json);
+        assertEquals(2, livres.size());
+        boolean trouve = false;
+        for (Object element : livres) {
+            Map<?, ?> livre = (Map<?, ?>) element;
+            if (livre.get("isbn").equals("978-2-253-00612-5")) {
+                assertEquals("Guerre, paix et \"autres\" essais", livre.get("titre"));
+                assertEquals("Léon Tolstoï", livre.get("auteur"));
+                assertEquals(1950L, livre.get("anneePublication"));
+                trouve = true;
+            }
+        }
+        assertTrue(trouve);
+    }
+
+    @Test
+    @DisplayName("Les emprunts doivent être filtrés par période et par statut")
+    void testEmpruntsFiltres() throws IOException {
+        Emprunt ancien = service.emprunterLivre("978-2-07-036822-8", adherent.getNumeroCarte());
+        horloge.avancer(2);
+        service.retournerLivre(ancien);
+        horloge.avancer(10);
+        service.emprunterLivre("978-2-253-00612-5", adherent.getNumeroCarte());
+        Instantane instantane = service.instantane();
+        Exportation exportation = new Exportation();
+
+        String tous = exporter(exportation, e -> e.exporterEmprunts(instantane, Exportation.Format.CSV,
+                Channels.newChannel(sortie)));
+        String recents = exporter(exportation, e -> e.exporterEmprunts(instantane, Exportation.Format.CSV,
+                Channels.newChannel(sortie), DEBUT.plusDays(5), null, null));
+        String rendus = exporter(exportation, e -> e.exporterEmprunts(instantane, Exportation.Format.JSON,
+                Channels.newChannel(sortie), DEBUT, DEBUT.plusDays(30), EnumSet.of(Emprunt.StatutEmprunt.RENDU)));
+
+        assertEquals(3, tous.split("\n").length);
+        assertEquals(2, recents.split("\n").length);
+        assertTrue(recents.contains("978-2-253-00612-5"));
+        assertTrue(recents.contains(",2024-03-13,2024-03-27,,EN_COURS"));
+
+        List<?> json = (List<?>) Json.lire(rendus);
+        assertEquals(1, json.size());
+        Map<?, ?> rendu = (Map<?, ?>) json.get(0);
+        assertEquals("2024-03-01", rendu.get("dateEmprunt"));
+        assertEquals("2024-03-03", rendu.get("dateRetourEffective"));
+        assertEquals(adherent.getNumeroCarte(), rendu.get("numeroCarte"));
+        assertThrows(IllegalArgumentException.class, () -> exportation.exporterEmprunts(instantane,
+                Exportation.Format.CSV, Channels.newChannel(new ByteArrayOutputStream()), DEBUT, DEBUT.minusDays(1), null));
+    }
+
+    @Test
+    @DisplayName("L'export doit refléter l'instantané, même si le service est modifié ensuite")
+    void testExportPendantLesEcritures() throws IOException {
+        Instantane instantane = service.instantane();
+        service.ajouterLivre(new Livre("978-0-00-000000-0", "Ajouté après", "Auteur", 2001));
+
+        String csv = exporter(new Exportation(), e -> e.exporterLivres(instantane, Exportation.Format.CSV,
+                Channels.newChannel(sortie)));
+
+        assertFalse(csv.contains("Ajouté après"));
+        assertEquals(3, csv.split("\n").length);
+    }
+
+    @Test
+    @DisplayName("L'export des emprunts ne doit lire que l'instantané, pas le catalogue disque du service")
+    void testEmpruntsCatalogueDisque() throws IOException {
+        Instantane instantane;
+        try (CatalogueDisque catalogue = new CatalogueDisque(dossier.resolve("catalogue.db"))) {
+            BibliothequeService disque = new BibliothequeService(catalogue, horloge);
+            disque.activerInstantanes();
+            disque.ajouterLivre(new Livre("978-2-07-036822-8", "Le Petit Prince", "Antoine de Saint-Exupéry", 1943));
+            disque.inscrireAdherent(adherent);
+            disque.emprunterLivre("978-2-07-036822-8", adherent.getNumeroCarte());
+            instantane = disque.instantane();
+        }
+
+        // Le catalogue disque n'est pas copié dans l'instantané ; les livres des emprunts sont des copies en mémoire
+        assertTrue(instantane.emprunts().allMatch(emprunt -> emprunt.getLivre().getClass() == Livre.class));
+        assertFalse(instantane.contientLivres());
+        assertThrows(IllegalStateException.class, () -> new Exportation().exporterLivres(instantane,
+                Exportation.Format.CSV, Channels.newChannel(new ByteArrayOutputStream())));
+        String csv = exporter(new Exportation(), e -> e.exporterEmprunts(instantane, Exportation.Format.CSV,
+                Channels.newChannel(sortie)));
+
+        assertTrue(csv.contains("978-2-07-036822-8,Le Petit Prince," + adherent.getNumeroCarte() + ",2024-03-01"));
+    }
+
+    private String exporter(Exportation exportation, Export export) throws IOException {
+        sortie = new ByteArrayOutputStream();
+        export.executer(exportation);
+        return sortie.toString(StandardCharsets.UTF_8);
+    }
+
+    private interface Export {
+        void executer(Exportation exportation) throws IOException;
+    }
+}
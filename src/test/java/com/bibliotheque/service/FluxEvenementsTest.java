@@ -0,0 +1,173 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour FluxEvenements")
+class FluxEvenementsTest {
+
+    @Test
+    @DisplayName("Les événements doivent être lus par lots, dans l'ordre des séquences")
+    void testLectureParLots() {
+        FluxEvenements flux = new FluxEvenements(16);
+        FluxEvenements.Consommateur consommateur = flux.consommateur();
+        for (int i = 0; i < 5; i++) {
+            flux.publier(FluxEvenements.Type.EMPRUNT, "isbn-" + i, "carte-" + i, 100 + i);
+        }
+
+        List<FluxEvenements.Evenement> premier = consommateur.lire(3);
+        List<FluxEvenements.Evenement> second = consommateur.lire(10);
+
+        assertEquals(3, premier.size());
+        assertEquals(2, second.size());
+        assertEquals(0, premier.get(0).getSequence());
+        assertEquals("isbn-4", second.get(1).getIsbn());
+        assertEquals("carte-4", second.get(1).getNumeroCarte());
+        assertEquals(104, second.get(1).getHeure());
+        assertEquals(5, consommateur.getPosition());
+        assertEquals(0, consommateur.getRetard());
+        assertTrue(consommateur.lire(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Les consommateurs doivent être indépendants et pouvoir reprendre à une séquence")
+    void testConsommateursIndependants() {
+        FluxEvenements flux = new FluxEvenements(16);
+        FluxEvenements.Consommateur sms = flux.consommateur();
+        for (int i = 0; i < 6; i++) {
+            flux.publier(FluxEvenements.Type.RETOUR, "isbn-" + i, null, 0);
+        }
+        FluxEvenements.Consommateur tardif = flux.consommateur();
+
+        assertEquals(6, sms.lire(100).size());
+        assertTrue(tardif.lire(100).isEmpty());
+
+        FluxEvenements.Consommateur reprise = flux.consommateur(4);
+        assertEquals(2, reprise.getRetard());
+        assertEquals("isbn-4", reprise.lire(1).get(0).getIsbn());
+        assertThrows(IllegalArgumentException.class, () -> flux.consommateur(8));
+        assertThrows(IllegalArgumentException.class, () -> flux.consommateur(-1));
+    }
+
+    @Test
+    @DisplayName("Un consommateur distancé de plus d'un tour de tampon doit constater la perte")
+    void testConsommateurDistance() {
+        FluxEvenements flux = new FluxEvenements(4);
+        FluxEvenements.Consommateur lent = flux.consommateur();
+        for (int i = 0; i < 6; i++) {
+            flux.publier(FluxEvenements.Type.INSCRIPTION, null, "carte-" + i, 0);
+        }
+
+        assertThrows(IllegalStateException.class, () -> lent.lire(10));
+        assertEquals(2, flux.getPlusAncienneSequence());
+        assertThrows(IllegalStateException.class, () -> flux.consommateur(1));
+        List<FluxEvenements.Evenement> resynchronise = flux.consommateur(flux.getPlusAncienneSequence()).lire(10);
+        assertEquals(List.of(2L, 3L, 4L, 5L),
+                resynchronise.stream().map(FluxEvenements.Evenement::getSequence).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("La capacité doit être une puissance de 2")
+    void testCapaciteInvalide() {
+        assertThrows(IllegalArgumentException.class, () -> new FluxEvenements(0));
+        assertThrows(IllegalArgumentException.class, () -> new FluxEvenements(100));
+    }
+
+    @Test
+    @DisplayName("Un consommateur concurrent ne doit jamais voir d'événement incohérent")
+    void testProducteurEtConsommateurConcurrents() throws Exception {
+        FluxEvenements flux = new FluxEvenements(1024);
+        String[] isbns = new String[64];
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = "isbn-" + i;
+        }
+        int total = 500_000;
+        AtomicReference<String> erreur = new AtomicReference<>();
+        AtomicLong verifies = new AtomicLong();
+        FluxEvenements.Consommateur initial = flux.consommateur();
+        Thread lecteur = new Thread(() -> {
+            FluxEvenements.Consommateur consommateur = initial;
+            try {
+                while (consommateur.getPosition() < total) {
+                    try {
+                        long attendu = consommateur.getPosition();
+                        for (FluxEvenements.Evenement evenement : consommateur.attendre(256, 1, TimeUnit.SECONDS)) {
+                            long sequence = evenement.getSequence();
+                            if (sequence != attendu++ || evenement.getHeure() != sequence
+                                    || !evenement.getIsbn().equals(isbns[(int) (sequence % isbns.length)])) {
+                                erreur.set("Événement incohérent : " + evenement);
+                                return;
+                            }
+                            verifies.incrementAndGet();
+                        }
+                    } catch (IllegalStateException e) {
+                        // Distancé par le producteur : reprise au plus ancien événement disponible
+                        consommateur = reprendre(flux);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        lecteur.start();
+
+        for (int i = 0; i < total; i++) {
+            flux.publier(FluxEvenements.Type.EMPRUNT, isbns[i % isbns.length], null, i);
+            if (i % 512 == 0) {
+                // Laisse le lecteur avancer, y compris sur une machine à un seul coeur
+                Thread.yield();
+            }
+        }
+        lecteur.join(30_000);
+
+        assertNull(erreur.get());
+        assertTrue(verifies.get() > 0);
+        assertEquals(total - 1, flux.getDerniereSequence());
+    }
+
+    private static FluxEvenements.Consommateur reprendre(FluxEvenements flux) {
+        while (true) {
+            try {
+                return flux.consommateur(flux.getPlusAncienneSequence());
+            } catch (IllegalStateException e) {
+                // Écrasé entre la lecture de la position et la création : on réessaie
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Le service doit publier ajouts, inscriptions, emprunts, prolongations et retours")
+    void testEvenementsDuService() {
+        BibliothequeService service = new BibliothequeService();
+        FluxEvenements flux = service.activerFluxEvenements(64);
+        FluxEvenements.Consommateur consommateur = flux.consommateur();
+        Livre livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+
+        service.ajouterLivre(livre);
+        service.inscrireAdherent(adherent);
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        service.prolongerEmprunt(emprunt);
+        service.retournerLivre(emprunt);
+
+        List<FluxEvenements.Evenement> evenements = consommateur.lire(100);
+        assertEquals(List.of(FluxEvenements.Type.AJOUT_LIVRE, FluxEvenements.Type.INSCRIPTION,
+                        FluxEvenements.Type.EMPRUNT, FluxEvenements.Type.PROLONGATION, FluxEvenements.Type.RETOUR),
+                evenements.stream().map(FluxEvenements.Evenement::getType).collect(Collectors.toList()));
+        assertEquals(livre.getIsbn(), evenements.get(4).getIsbn());
+        assertEquals(adherent.getNumeroCarte(), evenements.get(4).getNumeroCarte());
+        assertSame(flux, service.fluxEvenements());
+        assertThrows(IllegalStateException.class, () -> new BibliothequeService().fluxEvenements());
+    }
+}
@@ -0,0 +1,95 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.HistoriqueActivite.Evenement;
+import com.bibliotheque.stockage.CatalogueMemoire;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour HistoriqueActivite")
+class HistoriqueActiviteTest {
+
+    private static final LocalDate DEPART = LocalDate.of(2024, 9, 1);
+
+    private HorlogeSimulee horloge;
+
+    @BeforeEach
+    void setUp() {
+        horloge = new HorlogeSimulee(DEPART);
+    }
+
+    @Test
+    @DisplayName("Les événements doivent être comptés par jour et agrégés sur une période")
+    void testCompteursJournaliers() {
+        HistoriqueActivite historique = new HistoriqueActivite(horloge);
+        historique.enregistrer(Evenement.EMPRUNT);
+        historique.enregistrer(Evenement.EMPRUNT);
+        horloge.avancer(2);
+        historique.enregistrer(Evenement.EMPRUNT);
+        historique.enregistrer(Evenement.RETOUR);
+
+        assertArrayEquals(new long[]{2, 0, 1}, historique.parJour(Evenement.EMPRUNT, DEPART, DEPART.plusDays(2)));
+        assertEquals(3, historique.total(Evenement.EMPRUNT, DEPART.minusDays(10), DEPART.plusDays(10)));
+        assertEquals(1, historique.total(Evenement.RETOUR, DEPART, DEPART.plusDays(2)));
+        assertEquals(0, historique.total(Evenement.INSCRIPTION, DEPART, DEPART.plusDays(2)));
+    }
+
+    @Test
+    @DisplayName("Seuls les jours de la durée de conservation doivent être conservés")
+    void testConservation() {
+        HistoriqueActivite historique = new HistoriqueActivite(horloge, 7, 24);
+        historique.enregistrer(Evenement.INSCRIPTION);
+        horloge.avancer(7);
+        historique.enregistrer(Evenement.INSCRIPTION);
+
+        assertEquals(1, historique.total(Evenement.INSCRIPTION, DEPART, DEPART.plusDays(7)));
+        assertThrows(IllegalArgumentException.class,
+                () -> historique.parJour(Evenement.INSCRIPTION, DEPART, DEPART.plusDays(7)));
+    }
+
+    @Test
+    @DisplayName("Les compteurs horaires doivent couvrir les dernières heures")
+    void testDernieresHeures() {
+        HistoriqueActivite historique = new HistoriqueActivite(horloge);
+        historique.enregistrer(Evenement.RETOUR);
+
+        long[] heures = historique.dernieresHeures(Evenement.RETOUR, 3);
+
+        assertArrayEquals(new long[]{0, 0, 1}, heures);
+        assertEquals(DEPART.atStartOfDay(), historique.heureCourante());
+        assertThrows(IllegalArgumentException.class,
+                () -> historique.dernieresHeures(Evenement.RETOUR, HistoriqueActivite.HEURES_CONSERVEES_PAR_DEFAUT + 1));
+    }
+
+    @Test
+    @DisplayName("Le service doit alimenter l'historique et ne compter qu'une fois chaque passage en retard")
+    void testAlimentationParLeService() {
+        BibliothequeService service = new BibliothequeService(new CatalogueMemoire(), horloge);
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        service.inscrireAdherent(adherent);
+        service.ajouterLivre(new Livre("ISBN-1", "Livre 1", "Auteur", 2020));
+        service.ajouterLivre(new Livre("ISBN-2", "Livre 2", "Auteur", 2020));
+
+        Emprunt emprunt = service.emprunterLivre("ISBN-1", adherent.getNumeroCarte());
+        service.retournerLivre(emprunt);
+        service.emprunterLivre("ISBN-2", adherent.getNumeroCarte());
+        horloge.avancer(17);
+        new BalayageRetards().executer(service);
+        new BalayageRetards().executer(service);
+
+        HistoriqueActivite historique = service.historique();
+        assertEquals(1, historique.total(Evenement.INSCRIPTION, DEPART, DEPART));
+        assertEquals(2, historique.total(Evenement.EMPRUNT, DEPART, DEPART));
+        assertEquals(1, historique.total(Evenement.RETOUR, DEPART, DEPART));
+        assertEquals(1, historique.total(Evenement.RETARD, DEPART, horloge.aujourdhui()));
+        assertEquals(1, historique.parJour(Evenement.RETARD, DEPART, horloge.aujourdhui())[17]);
+    }
+}
@@ -0,0 +1,209 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import com.bibliotheque.stockage.CatalogueDisque;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour les instantanés du service")
+class InstantaneTest {
+
+    @TempDir
+    Path dossier;
+
+    private BibliothequeService service;
+    private Livre livre;
+    private Adherent adherent;
+
+    @BeforeEach
+    void setUp() {
+        service = new BibliothequeService();
+        livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        service.ajouterLivre(livre);
+        service.inscrireAdherent(adherent);
+    }
+
+    @Test
+    @DisplayName("Les instantanés doivent être activés explicitement")
+    void testInstantanesNonActives() {
+        assertThrows(IllegalStateException.class, () -> service.instantane());
+    }
+
+    @Test
+    @DisplayName("L'activation doit reprendre l'état existant")
+    void testActivation() {
+        service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        service.activerInstantanes();
+
+        Instantane instantane = service.instantane();
+        assertEquals(0, instantane.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        assertEquals(1, instantane.obtenirStatistiques().getNombreEmpruntsEnCours());
+        assertEquals(1, instantane.listerEmpruntsAdherent(adherent.getNumeroCarte()).size());
+    }
+
+    @Test
+    @DisplayName("Un instantané conservé ne doit pas voir les écritures suivantes")
+    void testIsolation() {
+        service.activerInstantanes();
+        Instantane avant = service.instantane();
+
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        Instantane pendant = service.instantane();
+        service.retournerLivre(emprunt);
+        Instantane apres = service.instantane();
+
+        assertEquals(1, avant.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        assertEquals(0, avant.obtenirStatistiques().getNombreEmpruntsEnCours());
+
+        assertEquals(0, pendant.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        assertEquals(1, pendant.rechercherAdherent(adherent.getNumeroCarte()).getNombreEmpruntsEnCours());
+        assertEquals(1, pendant.listerEmpruntsEnCours().size());
+
+        assertEquals(1, apres.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        assertEquals(Emprunt.StatutEmprunt.RENDU, apres.listerEmpruntsAdherent(adherent.getNumeroCarte()).get(0).getStatut());
+        assertEquals(0, apres.obtenirStatistiques().getNombreEmpruntsEnCours());
+
+        assertTrue(avant.getVersion() < pendant.getVersion());
+        assertTrue(pendant.getVersion() < apres.getVersion());
+    }
+
+    @Test
+    @DisplayName("Les statistiques du service doivent être lues sur l'instantané")
+    void testStatistiquesSurInstantane() {
+        service.activerInstantanes();
+        service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+
+        BibliothequeService.Statistiques stats = service.obtenirStatistiques();
+        assertEquals(1, stats.getNombreLivres());
+        assertEquals(1, stats.getNombreAdherents());
+        assertEquals(1, stats.getNombreEmpruntsEnCours());
+    }
+
+    @Test
+    @DisplayName("Les recherches sur un instantané doivent fonctionner")
+    void testRecherches() {
+        service.activerInstantanes();
+        Instantane instantane = service.instantane();
+
+        assertEquals(1, instantane.rechercherLivreParTitre("clean").size());
+        assertEquals(1, instantane.rechercherLivreParAuteur("MARTIN").size());
+        assertTrue(instantane.rechercherLivreParTitre(" ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Les recherches ad hoc doivent évaluer le prédicat sur tout l'instantané")
+    void testRecherchesAdHoc() {
+        for (int i = 0; i < 5_000; i++) {
+            Livre autre = new Livre(String.format("978-%010d", i), (i % 10 == 0 ? "Tome " + i : "Volume"),
+                    "Auteur", 2000);
+            autre.ajouterExemplaires((i / 10) % 5);
+            service.ajouterLivre(autre);
+        }
+        service.activerInstantanes();
+        service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+
+        List<Livre> trouves = service.rechercherLivres(
+                l -> l.getTitre().matches(".*\\d.*") && l.getNombreExemplaires() > 3);
+
+        // Titres numérotés tous les 10 livres, dont deux sur cinq ont 4 ou 5 exemplaires
+        assertEquals(200, trouves.size());
+        assertTrue(trouves.stream().allMatch(l -> l.getNombreExemplaires() >= 4));
+        assertEquals(1, service.rechercherEmprunts(e -> e.getAdherent().getNumeroCarte()
+                .equals(adherent.getNumeroCarte())).size());
+        assertTrue(service.rechercherEmprunts(e -> e.getStatut() == Emprunt.StatutEmprunt.RENDU).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un emprunt de l'instantané doit être une copie figée refusée par les modifications")
+    void testEmpruntFige() {
+        service.activerInstantanes();
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte());
+        Emprunt copie = service.instantane().listerEmpruntsAdherent(adherent.getNumeroCarte()).get(0);
+
+        assertTrue(copie.estFige());
+        assertNotSame(livre, copie.getLivre());
+        assertNotSame(adherent, copie.getAdherent());
+        assertSame(service.instantane().rechercherLivreParIsbn(livre.getIsbn()), copie.getLivre());
+        assertThrows(IllegalStateException.class, () -> service.retournerLivre(copie));
+        assertThrows(IllegalStateException.class, () -> service.prolongerEmprunt(copie));
+        assertThrows(IllegalStateException.class, () -> service.signalerRetard(copie));
+        assertEquals(Emprunt.StatutEmprunt.EN_COURS, emprunt.getStatut());
+
+        service.retournerLivre(emprunt);
+
+        Instantane apres = service.instantane();
+        assertEquals(1, apres.listerEmpruntsAdherent(adherent.getNumeroCarte()).size());
+        assertEquals(0, apres.obtenirStatistiques().getNombreEmpruntsEnCours());
+        assertTrue(apres.listerEmpruntsEnCours().isEmpty());
+        assertEquals(1, apres.listerEmpruntsAdherent(adherent.getNumeroCarte()).get(0).getLivre()
+                .getExemplairesDisponibles());
+    }
+
+    @Test
+    @DisplayName("Une recherche parallèle sur un catalogue disque ne doit pas toucher ses pages pendant les écritures")
+    void testRechercheParalleleCatalogueDisque() throws IOException {
+        // Petit pool de pages : un accès concurrent au catalogue fausserait vite les épinglages
+        try (CatalogueDisque catalogue = new CatalogueDisque(dossier.resolve("catalogue.db"), 16);
+             PipelineCommandes pipeline = new PipelineCommandes(new BibliothequeService(catalogue))) {
+            List<Adherent> lecteurs = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Adherent lecteur = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+                lecteurs.add(lecteur);
+                pipeline.inscrireAdherent(lecteur);
+            }
+            for (int i = 0; i < 2_000; i++) {
+                Livre autre = new Livre(String.format("978-%010d", i), "Titre " + i, "Auteur " + (i % 50), 2000);
+                autre.ajouterExemplaires(2);
+                pipeline.ajouterLivre(autre);
+            }
+            for (int i = 0; i < 200; i++) {
+                pipeline.emprunterLivre(String.format("978-%010d", i * 7), lecteurs.get(i % 40).getNumeroCarte()).join();
+            }
+
+            // L'écrivain emprunte et rend pendant les recherches
+            CompletableFuture<Void> ecritures = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 500; i++) {
+                    String isbn = String.format("978-%010d", 1 + i % 1_000 * 2);
+                    Emprunt emprunt = pipeline.emprunterLivre(isbn, lecteurs.get(i % 40).getNumeroCarte())
+                            .exceptionally(e -> null).join();
+                    if (emprunt != null) {
+                        pipeline.retournerLivre(emprunt).join();
+                    }
+                }
+            });
+            for (int tour = 0; tour < 20; tour++) {
+                List<Emprunt> trouves = pipeline.rechercherEmprunts(e -> e.getLivre().getTitre().endsWith("7")
+                        && e.getLivre().getExemplairesDisponibles() >= 0);
+                assertTrue(trouves.stream().allMatch(e -> e.getLivre().getClass() == Livre.class));
+                assertTrue(trouves.stream().filter(e -> e.getStatut() == Emprunt.StatutEmprunt.EN_COURS)
+                        .count() >= 20);
+            }
+            ecritures.join();
+
+            assertEquals(200, pipeline.obtenirStatistiques().getNombreEmpruntsEnCours());
+            // Le catalogue n'est pas copié dans l'instantané : ses livres sont lus et copiés par l'écrivain
+            assertFalse(pipeline.instantane().contientLivres());
+            assertEquals(2_000, pipeline.obtenirStatistiques().getNombreLivres());
+            assertSame(Livre.class, pipeline.rechercherLivreParIsbn("978-0000000007").getClass());
+            assertEquals("Titre 7", pipeline.rechercherLivreParIsbn("978-0000000007").getTitre());
+            assertEquals(1, pipeline.rechercherLivreParTitre("titre 1999").size());
+            assertThrows(IllegalStateException.class, () -> pipeline.rechercherLivres(livre -> true));
+            for (int i = 0; i < 2_000; i += 97) {
+                assertEquals("Titre " + i, catalogue.trouver(String.format("978-%010d", i)).getTitre());
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.stockage.CatalogueMemoire;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour PipelineCommandes")
+class PipelineCommandesTest {
+
+    private PipelineCommandes pipeline;
+    private Livre livre;
+    private Adherent adherent;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new PipelineCommandes(new BibliothequeService());
+        livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+    }
+
+    @Test
+    @DisplayName("Les écritures doivent être visibles dès que leur future est complété")
+    void testLectureApresEcriture() throws Exception {
+        pipeline.ajouterLivre(livre).get();
+        pipeline.inscrireAdherent(adherent).get();
+
+        Emprunt emprunt = pipeline.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte()).get();
+
+        assertNotNull(emprunt);
+        assertEquals(0, pipeline.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        assertEquals(1, pipeline.rechercherAdherent(adherent.getNumeroCarte()).getNombreEmpruntsEnCours());
+        assertEquals(1, pipeline.listerEmpruntsEnCours().size());
+        assertEquals(1, pipeline.rechercherLivreParTitre("clean").size());
+        assertEquals(1, pipeline.rechercherLivreParAuteur("martin").size());
+
+        pipeline.retournerLivre(emprunt).get();
+
+        assertEquals(1, pipeline.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        assertEquals(0, pipeline.obtenirStatistiques().getNombreEmpruntsEnCours());
+    }
+
+    @Test
+    @DisplayName("Un lot de retours doit être appliqué en une commande et publié à sa fin")
+    void testRetournerLot() throws Exception {
+        pipeline.ajouterLivre(livre).get();
+        pipeline.inscrireAdherent(adherent).get();
+        Emprunt emprunt = pipeline.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte()).get();
+
+        RetoursEnLot.Bilan bilan = pipeline.retournerLot(RetoursEnLot.de(emprunt.getCodeBarreExemplaire())).get();
+
+        assertEquals(1, bilan.getNombreRetours());
+        assertEquals(1, pipeline.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        assertEquals(Exemplaires.Etat.LIBRE, pipeline.rechercherExemplaire(emprunt.getCodeBarreExemplaire()).getEtat());
+    }
+
+    @Test
+    @DisplayName("Les lectures doivent retourner des copies figées")
+    void testLecturesFigees() throws Exception {
+        pipeline.ajouterLivre(livre).get();
+
+        Livre publie = pipeline.rechercherLivreParIsbn(livre.getIsbn());
+        assertNotSame(livre, publie);
+        assertEquals(livre.getTitre(), publie.getTitre());
+    }
+
+    @Test
+    @DisplayName("L'annuaire doit retourner les copies figées des adhérents")
+    void testRechercherAdherentsFiges() throws Exception {
+        pipeline.inscrireAdherent(adherent).get();
+
+        Adherent parEmail = pipeline.rechercherAdherentParEmail("mourad.eljalil@email.com");
+        assertNotSame(adherent, parEmail);
+        assertEquals(adherent.getNumeroCarte(), parEmail.getNumeroCarte());
+        List<Adherent> parNom = pipeline.rechercherAdherentsParNom("eljalil", 10);
+        assertEquals(1, parNom.size());
+        assertNotSame(adherent, parNom.get(0));
+
+        Adherent doublon = new Adherent("Ndiaye", "Charles", "mourad.eljalil@email.com");
+        ExecutionException erreur = assertThrows(ExecutionException.class,
+                () -> pipeline.inscrireAdherent(doublon).get());
+        assertInstanceOf(IllegalStateException.class, erreur.getCause());
+    }
+
+    @Test
+    @DisplayName("Un emprunt refusé doit compléter le future en erreur")
+    void testEmpruntRefuse() throws Exception {
+        pipeline.inscrireAdherent(adherent).get();
+
+        CompletableFuture<Emprunt> resultat = pipeline.emprunterLivre("inconnu", adherent.getNumeroCarte());
+
+        ExecutionException erreur = assertThrows(ExecutionException.class, resultat::get);
+        assertTrue(erreur.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    @DisplayName("Prolonger un emprunt via le pipeline")
+    void testProlonger() throws Exception {
+        pipeline.ajouterLivre(livre).get();
+        pipeline.inscrireAdherent(adherent).get();
+        Emprunt emprunt = pipeline.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte()).get();
+
+        assertTrue(pipeline.prolongerEmprunt(emprunt).get());
+        assertEquals(emprunt.getDateEmprunt().plusDays(21),
+                pipeline.listerEmpruntsAdherent(adherent.getNumeroCarte()).get(0).getDateRetourPrevue());
+        assertEquals(emprunt.getDateEmprunt().plusDays(21),
+                pipeline.rechercherExemplaire(emprunt.getCodeBarreExemplaire()).getDateRetourPrevue());
+    }
+
+    @Test
+    @DisplayName("Des emprunts concurrents ne doivent jamais dépasser les exemplaires")
+    void testEmpruntsConcurrents() throws Exception {
+        livre.ajouterExemplaires(9);
+        pipeline.ajouterLivre(livre).get();
+        List<Adherent> adherents = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Adherent a = new Adherent("Nom" + i, "Prenom", "adherent" + i + "@email.com");
+            adherents.add(a);
+            pipeline.inscrireAdherent(a);
+        }
+
+        ExecutorService executeur = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> tentatives = new ArrayList<>();
+        for (Adherent a : adherents) {
+            tentatives.add(executeur.submit(() -> {
+                try {
+                    pipeline.emprunterLivre(livre.getIsbn(), a.getNumeroCarte()).get();
+                    return true;
+                } catch (ExecutionException e) {
+                    return false;
+                }
+            }));
+        }
+        int reussis = 0;
+        for (Future<Boolean> tentative : tentatives) {
+            if (tentative.get()) {
+                reussis++;
+            }
+        }
+        executeur.shutdown();
+
+        assertEquals(10, reussis);
+        assertEquals(0, pipeline.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+    }
+
+    @Test
+    @DisplayName("L'état existant du service doit être visible dès le démarrage")
+    void testServiceExistant() {
+        BibliothequeService service = new BibliothequeService();
+        service.ajouterLivre(livre);
+
+        try (PipelineCommandes autre = new PipelineCommandes(service)) {
+            assertEquals(livre.getTitre(), autre.rechercherLivreParIsbn(livre.getIsbn()).getTitre());
+        }
+    }
+
+    @Test
+    @DisplayName("Une commande soumise après la fermeture doit échouer")
+    void testCommandeApresFermeture() {
+        pipeline.close();
+
+        CompletableFuture<Void> resultat = pipeline.ajouterLivre(livre);
+        assertTrue(resultat.isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Un emprunt lu sur l'instantané doit pouvoir être prolongé et rendu via le pipeline")
+    void testRetourCopieInstantane() {
+        pipeline.ajouterLivre(livre).join();
+        pipeline.inscrireAdherent(adherent).join();
+        pipeline.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte()).join();
+        Emprunt copie = pipeline.listerEmpruntsAdherent(adherent.getNumeroCarte()).get(0);
+
+        assertTrue(pipeline.prolongerEmprunt(copie).join());
+        pipeline.retournerLivre(copie).join();
+
+        List<Emprunt> emprunts = pipeline.listerEmpruntsAdherent(adherent.getNumeroCarte());
+        assertEquals(1, emprunts.size());
+        assertEquals(Emprunt.StatutEmprunt.RENDU, emprunts.get(0).getStatut());
+        assertEquals(0, pipeline.obtenirStatistiques().getNombreEmpruntsEnCours());
+        assertTrue(pipeline.listerEmpruntsEnCours().isEmpty());
+        assertEquals(1, pipeline.rechercherLivreParIsbn(livre.getIsbn()).getExemplairesDisponibles());
+        ExecutionException rendu = assertThrows(ExecutionException.class, () -> pipeline.retournerLivre(copie).get());
+        assertEquals("L'emprunt est déjà rendu", rendu.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Les commandes doivent rendre des copies figées des emprunts et réservations")
+    void testCommandesRendentDesCopies() {
+        Adherent suivant = new Adherent("Martin", "Julie", "julie.martin@email.com");
+        pipeline.ajouterLivre(livre).join();
+        pipeline.inscrireAdherent(adherent).join();
+        pipeline.inscrireAdherent(suivant).join();
+        List<Reservation> notifications = new CopyOnWriteArrayList<>();
+
+        Emprunt emprunt = pipeline.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte()).join();
+        Reservation reservation = pipeline.reserverLivre(livre.getIsbn(), suivant.getNumeroCarte(),
+                notifications::add).join();
+        assertTrue(emprunt.estFige());
+        assertTrue(reservation.estFige());
+        assertThrows(IllegalStateException.class, reservation::annuler);
+
+        pipeline.retournerLivre(emprunt).join();
+        // La copie déjà rendue ne bouge pas ; la notification reçoit une copie de l'état mis de côté
+        assertEquals(Reservation.StatutReservation.EN_ATTENTE, reservation.getStatut());
+        assertEquals(1, notifications.size());
+        assertTrue(notifications.get(0).estFige());
+        assertEquals(Reservation.StatutReservation.DISPONIBLE, notifications.get(0).getStatut());
+
+        Emprunt retire = pipeline.retirerReservation(reservation).join();
+        assertTrue(retire.estFige());
+        assertEquals(suivant.getNumeroCarte(), retire.getAdherent().getNumeroCarte());
+        ExecutionException termine = assertThrows(ExecutionException.class,
+                () -> pipeline.annulerReservation(reservation).get());
+        assertEquals("Réservation active non trouvée", termine.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Une Error levée par une commande ne doit échouer que son future")
+    void testErreurCommande() throws Exception {
+        Livre piege = new Livre("978-2-1234-5681-0", "Design Patterns", "Gang of Four", 1994) {
+            @Override
+            public String getIsbn() {
+                throw new AssertionError("défaillance simulée");
+            }
+        };
+
+        ExecutionException echec = assertThrows(ExecutionException.class, () -> pipeline.ajouterLivre(piege).get());
+        assertInstanceOf(AssertionError.class, echec.getCause());
+
+        pipeline.ajouterLivre(livre).get();
+        assertNotNull(pipeline.rechercherLivreParIsbn(livre.getIsbn()));
+    }
+
+    @Test
+    @DisplayName("Le balayage des retards doit passer par l'écrivain et se voir dans l'instantané")
+    void testBalayageRetards() throws Exception {
+        pipeline.close();
+        HorlogeSimulee horloge = new HorlogeSimulee(LocalDate.of(2024, 9, 1));
+        pipeline = new PipelineCommandes(new BibliothequeService(new CatalogueMemoire(), horloge));
+        pipeline.ajouterLivre(livre).get();
+        pipeline.inscrireAdherent(adherent).get();
+        pipeline.emprunterLivre(livre.getIsbn(), adherent.getNumeroCarte()).get();
+
+        horloge.avancer(14 + 4);
+        BalayageRetards.Resultat resultat = pipeline.balayerRetards(new BalayageRetards()).get();
+
+        assertEquals(1, resultat.getNombreEmpruntsEnRetard());
+        assertEquals(4 * 0.50, resultat.getFraisParAdherent().get(adherent.getNumeroCarte()), 0.01);
+        assertTrue(pipeline.rechercherAdherent(adherent.getNumeroCarte()).aDesRetards());
+        assertThrows(IllegalArgumentException.class, () -> pipeline.balayerRetards(null));
+    }
+}
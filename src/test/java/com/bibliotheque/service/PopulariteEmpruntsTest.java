@@ -0,0 +1,120 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.HorlogeSimulee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour PopulariteEmprunts")
+class PopulariteEmpruntsTest {
+
+    private HorlogeSimulee horloge;
+
+    @BeforeEach
+    void setUp() {
+        horloge = new HorlogeSimulee(LocalDate.of(2024, 3, 1));
+    }
+
+    @Test
+    @DisplayName("Le classement doit trier les livres par nombre d'emprunts décroissant")
+    void testClassement() {
+        PopulariteEmprunts popularite = new PopulariteEmprunts(horloge);
+        enregistrer(popularite, "A", 3);
+        enregistrer(popularite, "B", 5);
+        enregistrer(popularite, "C", 1);
+
+        List<PopulariteEmprunts.Entree> classement = popularite.plusEmpruntes(2, 7);
+
+        assertEquals(2, classement.size());
+        assertEquals("B", classement.get(0).getIsbn());
+        assertEquals(5, classement.get(0).getNombreEmprunts());
+        assertEquals("A", classement.get(1).getIsbn());
+        assertEquals(0, classement.get(1).getErreurMaximale());
+    }
+
+    @Test
+    @DisplayName("Les emprunts sortis de la fenêtre ne doivent plus être comptés")
+    void testFenetreGlissante() {
+        PopulariteEmprunts popularite = new PopulariteEmprunts(horloge);
+        enregistrer(popularite, "A", 10);
+        horloge.avancer(5);
+        enregistrer(popularite, "B", 4);
+
+        assertEquals("A", popularite.plusEmpruntes(1, 7).get(0).getIsbn());
+        assertEquals("B", popularite.plusEmpruntes(1, 3).get(0).getIsbn());
+
+        horloge.avancer(3);
+        List<PopulariteEmprunts.Entree> semaine = popularite.plusEmpruntes(5, 7);
+        assertEquals(1, semaine.size());
+        assertEquals("B", semaine.get(0).getIsbn());
+
+        // Un mois plus tard, la case de l'anneau est recyclée
+        horloge.avancer(PopulariteEmprunts.FENETRE_MAX_JOURS);
+        enregistrer(popularite, "C", 1);
+        assertEquals(1, popularite.plusEmpruntes(5, PopulariteEmprunts.FENETRE_MAX_JOURS).size());
+    }
+
+    @Test
+    @DisplayName("Les livres très empruntés doivent être retrouvés malgré une capacité réduite")
+    void testCapaciteBornee() {
+        PopulariteEmprunts popularite = new PopulariteEmprunts(horloge, 50);
+        Random aleatoire = new Random(3);
+        for (int i = 0; i < 20_000; i++) {
+            enregistrer(popularite, "LIVRE-" + aleatoire.nextInt(5000), 1);
+            if (i % 10 == 0) {
+                enregistrer(popularite, "SUCCES-" + (i % 30 == 0 ? 1 : 2), 1);
+            }
+        }
+
+        List<PopulariteEmprunts.Entree> classement = popularite.plusEmpruntes(2, 1);
+
+        assertEquals("SUCCES-2", classement.get(0).getIsbn());
+        assertEquals("SUCCES-1", classement.get(1).getIsbn());
+        PopulariteEmprunts.Entree premier = classement.get(0);
+        assertTrue(premier.getNombreEmprunts() >= 1333);
+        assertTrue(premier.getNombreEmprunts() - premier.getErreurMaximale() <= 1333);
+    }
+
+    @Test
+    @DisplayName("Un livre absent du sommaire plein d'un jour ne doit pas être sous-estimé")
+    void testFusionSommairePlein() {
+        PopulariteEmprunts popularite = new PopulariteEmprunts(horloge, 2);
+        // Jour plein : Z évince X ou Y, dont les 10 emprunts ne sont plus suivis
+        enregistrer(popularite, "X", 10);
+        enregistrer(popularite, "Y", 10);
+        enregistrer(popularite, "Z", 1);
+        horloge.avancer(1);
+        enregistrer(popularite, "X", 3);
+        enregistrer(popularite, "Y", 3);
+
+        List<PopulariteEmprunts.Entree> classement = popularite.plusEmpruntes(3, 2);
+
+        assertEquals(3, classement.size());
+        for (PopulariteEmprunts.Entree entree : classement) {
+            long reel = "Z".equals(entree.getIsbn()) ? 1 : 13;
+            assertTrue(entree.getNombreEmprunts() >= reel, entree.toString());
+            assertTrue(entree.getNombreEmprunts() - entree.getErreurMaximale() <= reel, entree.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("Une fenêtre invalide doit lever une exception")
+    void testFenetreInvalide() {
+        PopulariteEmprunts popularite = new PopulariteEmprunts(horloge);
+        assertThrows(IllegalArgumentException.class, () -> popularite.plusEmpruntes(10, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> popularite.plusEmpruntes(10, PopulariteEmprunts.FENETRE_MAX_JOURS + 1));
+    }
+
+    private static void enregistrer(PopulariteEmprunts popularite, String isbn, int fois) {
+        for (int i = 0; i < fois; i++) {
+            popularite.enregistrer(isbn);
+        }
+    }
+}
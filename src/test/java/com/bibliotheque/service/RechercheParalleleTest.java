@@ -0,0 +1,89 @@
+package com.bibliotheque.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour RechercheParallele")
+class RechercheParalleleTest {
+
+    private CartePersistante<Integer, Integer> carte;
+
+    @BeforeEach
+    void setUp() {
+        carte = CartePersistante.vide();
+        for (int i = 0; i < 50_000; i++) {
+            carte = carte.avec(i, i);
+        }
+    }
+
+    @Test
+    @DisplayName("Le prédicat doit être évalué sur le pool dédié, sans le pool commun")
+    void testPoolDedie() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        List<Integer> resultats = RechercheParallele.filtrer(carte.spliterator(), valeur -> {
+            threads.add(Thread.currentThread().getName());
+            return valeur % 1000 == 0;
+        }, Duration.ofSeconds(10));
+
+        assertEquals(50, resultats.size());
+        assertFalse(threads.isEmpty());
+        assertTrue(threads.stream().allMatch(nom -> nom.startsWith("bibliotheque-recherche-")), threads.toString());
+    }
+
+    @Test
+    @DisplayName("Un parcours qui dépasse son budget doit être abandonné")
+    void testBudgetDepasse() throws InterruptedException {
+        AtomicLong evaluations = new AtomicLong();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> RechercheParallele.filtrer(carte.spliterator(), valeur -> {
+                    evaluations.incrementAndGet();
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException interruption) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return true;
+                }, Duration.ofMillis(100)));
+
+        assertEquals("Recherche interrompue : budget de 100 ms dépassé", e.getMessage());
+        Thread.sleep(50);
+        long apresAbandon = evaluations.get();
+        Thread.sleep(100);
+        assertEquals(apresAbandon, evaluations.get());
+        assertTrue(apresAbandon < 50_000);
+    }
+
+    @Test
+    @DisplayName("Une exception du prédicat doit parvenir telle quelle à l'appelant")
+    void testExceptionDuPredicat() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> RechercheParallele.filtrer(carte.spliterator(), valeur -> {
+                    if (valeur == 42) {
+                        throw new IllegalArgumentException("Valeur refusée");
+                    }
+                    return false;
+                }, Duration.ofSeconds(10)));
+
+        assertEquals("Valeur refusée", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Un critère null ou un budget nul doit être refusé")
+    void testParametresInvalides() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RechercheParallele.filtrer(carte.spliterator(), null, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> RechercheParallele.filtrer(carte.spliterator(), valeur -> true, Duration.ZERO));
+    }
+}
@@ -0,0 +1,114 @@
+package com.bibliotheque.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour RecommandationsEmprunts")
+class RecommandationsEmpruntsTest {
+
+    @Test
+    @DisplayName("Les livres empruntés par les mêmes adhérents doivent être classés par emprunts communs")
+    void testClassement() {
+        RecommandationsEmprunts recommandations = new RecommandationsEmprunts();
+        emprunter(recommandations, "carte-1", "A", "B", "C");
+        emprunter(recommandations, "carte-2", "A", "B");
+        emprunter(recommandations, "carte-3", "B", "A", "D");
+
+        List<RecommandationsEmprunts.Recommandation> pourA = recommandations.aussiEmpruntes("A", 10);
+
+        assertEquals(List.of("B", "C", "D"), isbns(pourA));
+        assertEquals(3, pourA.get(0).getNombreEmpruntsCommuns());
+        assertEquals(0, pourA.get(0).getErreurMaximale());
+        assertEquals(List.of("B"), isbns(recommandations.aussiEmpruntes("A", 1)));
+        assertEquals(List.of("B", "A"), isbns(recommandations.aussiEmpruntes("D", 10)));
+        assertTrue(recommandations.aussiEmpruntes("Z", 10).isEmpty());
+        assertTrue(recommandations.aussiEmpruntes(null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Seuls les derniers emprunts d'un adhérent doivent être associés au nouvel emprunt")
+    void testEmpruntsRecents() {
+        RecommandationsEmprunts recommandations = new RecommandationsEmprunts(2, 8);
+        emprunter(recommandations, "carte-1", "A", "B", "C", "D");
+
+        assertEquals(List.of("C", "B"), isbns(recommandations.aussiEmpruntes("D", 10)));
+        assertEquals(List.of("B", "C"), isbns(recommandations.aussiEmpruntes("A", 10)));
+    }
+
+    @Test
+    @DisplayName("Réemprunter un livre récent ne doit pas renforcer ses liens une seconde fois")
+    void testReemprunt() {
+        RecommandationsEmprunts recommandations = new RecommandationsEmprunts();
+        emprunter(recommandations, "carte-1", "A", "B", "A", "B");
+
+        assertEquals(1, recommandations.aussiEmpruntes("A", 10).get(0).getNombreEmpruntsCommuns());
+    }
+
+    @Test
+    @DisplayName("Une liste pleine doit élaguer les liens faibles sans perdre les liens forts")
+    void testElagage() {
+        RecommandationsEmprunts recommandations = new RecommandationsEmprunts(1, 4);
+        Random aleatoire = new Random(7);
+        // Chaque lecteur de A emprunte ensuite F une fois sur deux, sinon un livre rare
+        for (int i = 0; i < 2000; i++) {
+            String suivant = i % 2 == 0 ? "F" : "rare-" + aleatoire.nextInt(500);
+            emprunter(recommandations, "carte-" + i, "A", suivant);
+        }
+
+        List<RecommandationsEmprunts.Recommandation> pourA = recommandations.aussiEmpruntes("A", 10);
+        assertTrue(pourA.size() <= 4);
+        assertEquals("F", pourA.get(0).getIsbn());
+        RecommandationsEmprunts.Recommandation f = pourA.get(0);
+        // Le compte réel (1000) est encadré par le compte élagué et son erreur
+        assertTrue(f.getNombreEmpruntsCommuns() <= 1000);
+        assertTrue(f.getNombreEmpruntsCommuns() + f.getErreurMaximale() >= 1000);
+        assertTrue(f.getErreurMaximale() > 0);
+        // Misra-Gries : au plus une baisse pour capacite + 1 emprunts communs
+        assertTrue(f.getErreurMaximale() <= 2000 / 5);
+    }
+
+    @Test
+    @DisplayName("Un nouveau voisin arrivant dans une liste pleine doit être écarté par la baisse des comptes")
+    void testNouveauVoisinEcarte() {
+        RecommandationsEmprunts recommandations = new RecommandationsEmprunts(1, 2);
+        emprunter(recommandations, "carte-1", "A", "B");
+        emprunter(recommandations, "carte-2", "A", "C");
+
+        // D fait baisser B et C à zéro, sans prendre leur place
+        emprunter(recommandations, "carte-3", "A", "D");
+        assertTrue(recommandations.aussiEmpruntes("A", 10).isEmpty());
+
+        emprunter(recommandations, "carte-4", "A", "D");
+        List<RecommandationsEmprunts.Recommandation> pourA = recommandations.aussiEmpruntes("A", 10);
+        assertEquals(1, pourA.size());
+        assertEquals("D", pourA.get(0).getIsbn());
+        assertEquals(1, pourA.get(0).getErreurMaximale());
+    }
+
+    @Test
+    @DisplayName("Les paramètres invalides doivent être refusés")
+    void testParametresInvalides() {
+        assertThrows(IllegalArgumentException.class, () -> new RecommandationsEmprunts(0, 8));
+        assertThrows(IllegalArgumentException.class, () -> new RecommandationsEmprunts(8, 0));
+    }
+
+    private static void emprunter(RecommandationsEmprunts recommandations, String carte, String... isbns) {
+        for (String isbn : isbns) {
+            recommandations.enregistrer(carte, isbn);
+        }
+    }
+
+    private static List<String> isbns(List<RecommandationsEmprunts.Recommandation> recommandations) {
+        List<String> isbns = new ArrayList<>();
+        for (RecommandationsEmprunts.Recommandation recommandation : recommandations) {
+            isbns.add(recommandation.getIsbn());
+        }
+        return isbns;
+    }
+}
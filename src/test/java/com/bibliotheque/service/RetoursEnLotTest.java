@@ -0,0 +1,178 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.stockage.CatalogueMemoire;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour RetoursEnLot")
+class RetoursEnLotTest {
+
+    @TempDir
+    Path dossier;
+
+    private HorlogeSimulee horloge;
+    private BibliothequeService service;
+    private Livre livre;
+    private Livre autre;
+    private Adherent lecteur;
+    private Adherent retardataire;
+
+    @BeforeEach
+    void setUp() {
+        horloge = new HorlogeSimulee(LocalDate.of(2024, 9, 1));
+        service = new BibliothequeService(new CatalogueMemoire(), horloge);
+        livre = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        livre.ajouterExemplaires(2);
+        autre = new Livre("978-2-1234-5681-0", "Design Patterns", "Gang of Four", 1994);
+        lecteur = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        retardataire = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        service.ajouterLivre(livre);
+        service.ajouterLivre(autre);
+        service.inscrireAdherent(lecteur);
+        service.inscrireAdherent(retardataire);
+    }
+
+    @Test
+    @DisplayName("La lecture doit ignorer commentaires, lignes vides et champs annexes, et compter doublons et illisibles")
+    void testLecture() throws IOException {
+        RetoursEnLot lot = RetoursEnLot.lire(new BufferedReader(new StringReader(
+                "# boîte 2, nuit du 1er septembre\n"
+                        + "1978212345680300001;2024-09-01T22:14\n"
+                        + "\n"
+                        + "  1978212345680300002  \n"
+                        + "1978212345680300001\n"
+                        + "illisible\n")));
+
+        assertEquals(2, lot.getNombreExemplaires());
+        RetoursEnLot.Bilan bilan = service.retournerLot(lot);
+        assertEquals(4, bilan.getNombreScans());
+        assertEquals(1, bilan.getNombreDoublons());
+        assertEquals("illisible", bilan.getRejets().get(0).getScan());
+        assertEquals("Code-barres illisible (ligne 6)", bilan.getRejets().get(0).getMotif());
+    }
+
+    @Test
+    @DisplayName("Les exemplaires scannés doivent être rendus et les retards ajoutés aux adhérents")
+    void testRetoursEtRetards() throws IOException {
+        Emprunt premier = service.emprunterLivre(livre.getIsbn(), lecteur.getNumeroCarte());
+        Emprunt second = service.emprunterLivre(livre.getIsbn(), retardataire.getNumeroCarte());
+        horloge.avancer(10);
+        Emprunt recent = service.emprunterLivre(autre.getIsbn(), lecteur.getNumeroCarte());
+        horloge.avancer(9);
+        Path fichier = dossier.resolve("boite.txt");
+        Files.write(fichier, List.of(
+                String.valueOf(second.getCodeBarreExemplaire()),
+                String.valueOf(recent.getCodeBarreExemplaire()),
+                String.valueOf(premier.getCodeBarreExemplaire()),
+                String.valueOf(second.getCodeBarreExemplaire()),
+                "19782123456810" + "99999"));
+
+        RetoursEnLot.Bilan bilan = service.retournerLot(RetoursEnLot.lire(fichier));
+
+        assertEquals(3, bilan.getNombreRetours());
+        assertEquals(1, bilan.getNombreDoublons());
+        assertEquals(Map.of(lecteur.getNumeroCarte(), 5, retardataire.getNumeroCarte(), 5), bilan.getJoursRetard());
+        assertEquals(5.0, bilan.getFraisRetard(), 0.001);
+        assertEquals(1, bilan.getRejets().size());
+        assertEquals(RetoursEnLot.INCONNU, bilan.getRejets().get(0).getMotif());
+        assertEquals(Emprunt.StatutEmprunt.RENDU, premier.getStatut());
+        assertEquals(Emprunt.StatutEmprunt.RENDU, recent.getStatut());
+        assertEquals(3, livre.getExemplairesDisponibles());
+        assertEquals(0, lecteur.getNombreEmpruntsEnCours());
+        assertTrue(retardataire.aDesRetards());
+        assertEquals(2.5, retardataire.calculerFraisRetard(), 0.001);
+        assertEquals(Exemplaires.Etat.LIBRE, service.rechercherExemplaire(second.getCodeBarreExemplaire()).getEtat());
+    }
+
+    @Test
+    @DisplayName("Un lot rejoué ne doit rien rendre deux fois et doit servir les réservations")
+    void testLotRejoueEtReservation() {
+        Emprunt emprunt = service.emprunterLivre(autre.getIsbn(), lecteur.getNumeroCarte());
+        Reservation reservation = service.reserverLivre(autre.getIsbn(), retardataire.getNumeroCarte());
+        RetoursEnLot lot = RetoursEnLot.de(emprunt.getCodeBarreExemplaire(), 0);
+
+        RetoursEnLot.Bilan premier = service.retournerLot(lot);
+        RetoursEnLot.Bilan second = service.retournerLot(lot);
+
+        assertEquals(1, premier.getNombreRetours());
+        assertEquals(Reservation.StatutReservation.DISPONIBLE, reservation.getStatut());
+        assertEquals(emprunt.getCodeBarreExemplaire(), reservation.getCodeBarreExemplaire());
+        assertEquals(0, second.getNombreRetours());
+        assertEquals(List.of("Code-barres illisible", RetoursEnLot.INCONNU),
+                second.getRejets().stream().map(RetoursEnLot.Rejet::getMotif).toList());
+        assertTrue(premier.getJoursRetard().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Le bilan imprimé doit résumer le lot, les retardataires et les rejets")
+    void testImprimer() {
+        Emprunt emprunt = service.emprunterLivre(livre.getIsbn(), retardataire.getNumeroCarte());
+        horloge.avancer(16);
+        RetoursEnLot.Bilan bilan = service.retournerLot(RetoursEnLot.de(emprunt.getCodeBarreExemplaire(), 42));
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+
+        bilan.imprimer(new PrintStream(sortie, true, StandardCharsets.UTF_8));
+
+        String texte = sortie.toString(StandardCharsets.UTF_8);
+        assertTrue(texte.startsWith("2 scans, 1 retours, 0 doublons, 1 rejets"));
+        assertTrue(texte.contains("retard " + retardataire.getNumeroCarte() + " : 2 jours"));
+        assertTrue(texte.contains("rejet 42 : " + RetoursEnLot.INCONNU));
+    }
+
+    @Test
+    @DisplayName("Sur une façade partitionnée, chaque partition doit rendre les exemplaires de ses livres")
+    void testPartitions() {
+        try (BibliothequeServicePartitionne reseau = new BibliothequeServicePartitionne(4)) {
+            List<Adherent> adherents = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Adherent adherent = new Adherent("Nom" + i, "Prenom", "a" + i + "@email.com");
+                adherents.add(adherent);
+                reseau.inscrireAdherent(adherent).join();
+            }
+            long[] codesBarres = new long[12];
+            for (int i = 0; i < 12; i++) {
+                String isbn = String.format("978-%010d", i);
+                reseau.ajouterLivre(new Livre(isbn, "Titre " + i, "Auteur", 2000)).join();
+                Emprunt emprunt = reseau.emprunterLivre(isbn, adherents.get(i % 3).getNumeroCarte()).join();
+                codesBarres[i] = emprunt.getCodeBarreExemplaire();
+            }
+
+            RetoursEnLot.Bilan bilan = reseau.retournerLot(RetoursEnLot.de(codesBarres)).join();
+
+            assertEquals(12, bilan.getNombreRetours());
+            assertTrue(bilan.getRejets().isEmpty());
+            // La façade rend des copies figées : l'état après le lot se relit sur les partitions
+            for (Adherent adherent : adherents) {
+                assertEquals(0, adherent.getNombreEmpruntsEnCours());
+                List<Emprunt> emprunts = reseau.listerEmpruntsAdherent(adherent.getNumeroCarte()).join();
+                assertEquals(4, emprunts.size());
+                for (Emprunt emprunt : emprunts) {
+                    assertEquals(Emprunt.StatutEmprunt.RENDU, emprunt.getStatut());
+                }
+            }
+            assertEquals(0, reseau.listerEmpruntsEnCours().join().size());
+        }
+    }
+}
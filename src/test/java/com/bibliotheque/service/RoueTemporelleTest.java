@@ -0,0 +1,58 @@
+package com.bibliotheque.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour RoueTemporelle")
+class RoueTemporelleTest {
+
+    @Test
+    @DisplayName("Les éléments doivent être remis le jour de leur échéance, pas avant")
+    void testEcheances() {
+        RoueTemporelle<String> roue = new RoueTemporelle<>(8, 100);
+        roue.planifier("a", 102);
+        roue.planifier("b", 103);
+        List<String> echus = new ArrayList<>();
+
+        roue.avancer(101, echus::add);
+        assertTrue(echus.isEmpty());
+
+        roue.avancer(102, echus::add);
+        assertEquals(List.of("a"), echus);
+        assertEquals(1, roue.taille());
+    }
+
+    @Test
+    @DisplayName("Une échéance au-delà d'un tour de roue doit attendre le bon passage")
+    void testEcheanceLointaine() {
+        RoueTemporelle<String> roue = new RoueTemporelle<>(4, 0);
+        roue.planifier("lointain", 9);
+        List<String> echus = new ArrayList<>();
+
+        roue.avancer(5, echus::add);
+        assertTrue(echus.isEmpty());
+
+        roue.avancer(9, echus::add);
+        assertEquals(List.of("lointain"), echus);
+    }
+
+    @Test
+    @DisplayName("Un saut de plusieurs tours doit remettre toutes les échéances passées")
+    void testSautDeDate() {
+        RoueTemporelle<Integer> roue = new RoueTemporelle<>(4, 0);
+        for (int jour = 1; jour <= 20; jour++) {
+            roue.planifier(jour, jour);
+        }
+        List<Integer> echus = new ArrayList<>();
+
+        roue.avancer(100, echus::add);
+
+        assertEquals(20, echus.size());
+        assertEquals(0, roue.taille());
+    }
+}
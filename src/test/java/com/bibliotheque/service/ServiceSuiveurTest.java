@@ -0,0 +1,227 @@
+package com.bibliotheque.service;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.HorlogeSimulee;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.modele.Reservation;
+import com.bibliotheque.stockage.CatalogueMemoire;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour ServiceSuiveur")
+class ServiceSuiveurTest {
+
+    private static final String ISBN_PRINCE = "978-2-07-036822-8";
+    private static final String ISBN_ETRANGER = "978-2-07-036002-4";
+
+    @TempDir
+    Path dossier;
+
+    private Path fichier;
+    private HorlogeSimulee horloge;
+    private BibliothequeService principal;
+    private JournalReplication journal;
+    private ServiceSuiveur suiveur;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fichier = dossier.resolve("replication.log");
+        horloge = new HorlogeSimulee(LocalDate.of(2024, 3, 1));
+        principal = new BibliothequeService(new CatalogueMemoire(), horloge);
+        principal.activerInstantanes();
+        journal = principal.activerJournal(fichier);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (suiveur != null) {
+            suiveur.close();
+        }
+        journal.close();
+    }
+
+    @Test
+    @DisplayName("Le réplica doit reproduire livres, adhérents et emprunts du principal")
+    void testReplicationEmprunts() throws Exception {
+        Livre prince = new Livre(ISBN_PRINCE, "Le Petit Prince", "Antoine de Saint-Exupéry", 1943);
+        prince.ajouterExemplaires(2);
+        principal.ajouterLivre(prince);
+        principal.ajouterLivre(new Livre(ISBN_ETRANGER, "L'Étranger", "Albert Camus", 1942));
+        Adherent adherent = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        principal.inscrireAdherent(adherent);
+
+        Emprunt rendu = principal.emprunterLivre(ISBN_PRINCE, adherent.getNumeroCarte());
+        horloge.avancer(2);
+        Emprunt enCours = principal.emprunterLivre(ISBN_ETRANGER, adherent);
+        principal.retournerLivre(rendu);
+        assertTrue(principal.prolongerEmprunt(enCours));
+        suiveur = demarrerSuiveur();
+
+        Adherent replique = suiveur.rechercherAdherent(adherent.getNumeroCarte());
+        assertEquals("charles.ndiaye@email.com", replique.getEmail());
+        assertEquals(adherent.getDateInscription(), replique.getDateInscription());
+        assertEquals(3, suiveur.rechercherLivreParIsbn(ISBN_PRINCE).getExemplairesDisponibles());
+        assertEquals(0, suiveur.rechercherLivreParIsbn(ISBN_ETRANGER).getExemplairesDisponibles());
+        assertEquals(1, suiveur.rechercherLivreParAuteur("camus").size());
+
+        Emprunt empruntReplique = suiveur.listerEmpruntsEnCours().get(0);
+        assertEquals(enCours.getDateEmprunt(), empruntReplique.getDateEmprunt());
+        assertEquals(enCours.getDateRetourPrevue(), empruntReplique.getDateRetourPrevue());
+        assertEquals(2, suiveur.listerEmpruntsAdherent(adherent.getNumeroCarte()).size());
+        assertEquals(principal.obtenirStatistiques().toString(), suiveur.obtenirStatistiques().toString());
+        assertEquals(2, suiveur.livresLesPlusEmpruntes(10, 7).size());
+        assertEquals(0, suiveur.getRetardOctets());
+        assertEquals(0, suiveur.getRetardMillis());
+    }
+
+    @Test
+    @DisplayName("Le réplica doit suivre les mêmes exemplaires que le principal")
+    void testReplicationExemplaires() throws Exception {
+        principal.ajouterLivre(new Livre(ISBN_PRINCE, "Le Petit Prince", "Antoine de Saint-Exupéry", 1943));
+        Adherent adherent = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        principal.inscrireAdherent(adherent);
+        principal.ajouterExemplaires(ISBN_PRINCE, 2, 3);
+        Emprunt premier = principal.emprunterLivre(ISBN_PRINCE, adherent.getNumeroCarte());
+        Emprunt second = principal.emprunterLivre(ISBN_PRINCE, adherent.getNumeroCarte());
+        principal.retournerLivre(premier);
+        suiveur = demarrerSuiveur();
+
+        assertEquals(principal.listerExemplaires(ISBN_PRINCE).toString(),
+                suiveur.listerExemplaires(ISBN_PRINCE).toString());
+        Exemplaires.Exemplaire exemplaire = suiveur.rechercherExemplaire(second.getCodeBarreExemplaire());
+        assertEquals(Exemplaires.Etat.EMPRUNTE, exemplaire.getEtat());
+        assertEquals(3, exemplaire.getSuccursale());
+        assertEquals(Exemplaires.Etat.LIBRE, suiveur.rechercherExemplaire(premier.getCodeBarreExemplaire()).getEtat());
+    }
+
+    @Test
+    @DisplayName("Réservations, retraits, annulations, expirations et retards doivent être rejoués")
+    void testReplicationReservations() throws Exception {
+        principal.ajouterLivre(new Livre(ISBN_PRINCE, "Le Petit Prince", "Antoine de Saint-Exupéry", 1943));
+        principal.ajouterLivre(new Livre(ISBN_ETRANGER, "L'Étranger", "Albert Camus", 1942));
+        Adherent lecteur = new Adherent("Ndiaye", "Charles", "charles.ndiaye@email.com");
+        Adherent attente = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        Adherent absent = new Adherent("Martin", "Julie", "julie.martin@email.com");
+        principal.inscrireAdherent(lecteur);
+        principal.inscrireAdherent(attente);
+        principal.inscrireAdherent(absent);
+
+        // Le Petit Prince : réservé, mis de côté au retour puis retiré
+        Emprunt premier = principal.emprunterLivre(ISBN_PRINCE, lecteur.getNumeroCarte());
+        Reservation retiree = principal.reserverLivre(ISBN_PRINCE, attente.getNumeroCarte());
+        principal.retournerLivre(premier);
+        principal.retirerReservation(retiree);
+
+        // L'Étranger : une réservation annulée, une autre expirée faute de retrait
+        Emprunt second = principal.emprunterLivre(ISBN_ETRANGER, lecteur.getNumeroCarte());
+        principal.annulerReservation(principal.reserverLivre(ISBN_ETRANGER, attente.getNumeroCarte()));
+        principal.reserverLivre(ISBN_ETRANGER, absent.getNumeroCarte());
+        principal.retournerLivre(second);
+        horloge.avancer(BibliothequeService.DELAI_RETRAIT_JOURS + 1);
+        principal.expirerReservations();
+
+        principal.signalerRetard(principal.listerEmpruntsEnCours().get(0));
+        suiveur = demarrerSuiveur();
+
+        assertEquals(0, suiveur.rechercherLivreParIsbn(ISBN_PRINCE).getExemplairesDisponibles());
+        assertEquals(1, suiveur.rechercherLivreParIsbn(ISBN_ETRANGER).getExemplairesDisponibles());
+        assertEquals(attente.getNumeroCarte(),
+                suiveur.listerEmpruntsEnCours().get(0).getAdherent().getNumeroCarte());
+        assertTrue(suiveur.rechercherAdherent(attente.getNumeroCarte()).aDesRetards());
+        assertFalse(suiveur.rechercherAdherent(lecteur.getNumeroCarte()).aDesRetards());
+        assertEquals(principal.obtenirStatistiques().toString(), suiveur.obtenirStatistiques().toString());
+        assertNull(suiveur.getErreur());
+    }
+
+    @Test
+    @DisplayName("Un réplica démarré avant le journal doit suivre les écritures au fil de l'eau")
+    void testSuiviContinu() throws Exception {
+        journal.close();
+        Files.delete(fichier);
+        suiveur = new ServiceSuiveur(fichier, 1);
+        Thread.sleep(20);
+        assertEquals(-1, suiveur.getSequenceAppliquee());
+
+        principal = new BibliothequeService(new CatalogueMemoire(), horloge);
+        journal = principal.activerJournal(fichier);
+        for (int i = 0; i < 2000; i++) {
+            principal.ajouterLivre(new Livre("978-0-00-" + i, "Titre " + i, "Auteur " + (i % 10), 1950 + i % 70));
+            if (i % 100 == 99) {
+                journal.vider();
+            }
+        }
+        journal.vider();
+
+        assertTrue(suiveur.attendreSequence(journal.getDerniereSequence(), 10, TimeUnit.SECONDS));
+        assertEquals(1999, suiveur.getSequenceAppliquee());
+        assertEquals(2000, suiveur.obtenirStatistiques().getNombreLivres());
+        assertEquals(200, suiveur.rechercherLivreParAuteur("Auteur 3").size());
+    }
+
+    @Test
+    @DisplayName("Plusieurs réplicas peuvent suivre le même journal")
+    void testPlusieursReplicas() throws Exception {
+        principal.ajouterLivre(new Livre(ISBN_PRINCE, "Le Petit Prince", "Antoine de Saint-Exupéry", 1943));
+        journal.vider();
+
+        try (ServiceSuiveur autre = new ServiceSuiveur(fichier, 1)) {
+            suiveur = demarrerSuiveur();
+            assertTrue(autre.attendreSequence(0, 5, TimeUnit.SECONDS));
+            assertNotNull(autre.rechercherLivreParIsbn(ISBN_PRINCE));
+            assertNotNull(suiveur.rechercherLivreParIsbn(ISBN_PRINCE));
+        }
+    }
+
+    @Test
+    @DisplayName("Le retard doit compter les enregistrements écrits mais pas encore appliqués")
+    void testRetardEtErreur() throws Exception {
+        principal.ajouterLivre(new Livre(ISBN_PRINCE, "Le Petit Prince", "Antoine de Saint-Exupéry", 1943));
+        journal.vider();
+        suiveur = demarrerSuiveur();
+        assertEquals(0, suiveur.getRetardOctets());
+
+        // Un journal repris de zéro par un autre principal ne peut pas être suivi
+        journal.close();
+        journal = new BibliothequeService(new CatalogueMemoire(), horloge).activerJournal(fichier);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (suiveur.getErreur() == null) {
+                Thread.sleep(1);
+            }
+        });
+        assertInstanceOf(IllegalStateException.class, suiveur.getErreur());
+        assertFalse(suiveur.attendreSequence(5, 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Le journal ne peut être activé qu'une fois, sur un service vide")
+    void testActivationJournal() throws IOException {
+        assertThrows(IllegalStateException.class, () -> principal.activerJournal(dossier.resolve("autre.log")));
+
+        BibliothequeService occupe = new BibliothequeService(new CatalogueMemoire(), horloge);
+        occupe.ajouterLivre(new Livre(ISBN_PRINCE, "Le Petit Prince", "Antoine de Saint-Exupéry", 1943));
+        assertThrows(IllegalStateException.class, () -> occupe.activerJournal(dossier.resolve("autre.log")));
+        assertThrows(IllegalArgumentException.class, () -> new ServiceSuiveur(null));
+        assertThrows(IllegalArgumentException.class, () -> new ServiceSuiveur(fichier, 0));
+    }
+
+    // Vide le journal et démarre un réplica à jour
+    private ServiceSuiveur demarrerSuiveur() throws InterruptedException {
+        journal.vider();
+        ServiceSuiveur replica = new ServiceSuiveur(fichier, 1);
+        assertTrue(replica.attendreSequence(journal.getDerniereSequence(), 5, TimeUnit.SECONDS));
+        return replica;
+    }
+}
@@ -0,0 +1,216 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Dictionnaire;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour la classe CatalogueDisque")
+class CatalogueDisqueTest {
+
+    @TempDir
+    Path dossier;
+
+    private Path fichier;
+    private CatalogueDisque catalogue;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fichier = dossier.resolve("catalogue.db");
+        // Petites pages et petit pool : l'arbre a plusieurs niveaux et les pages sont évincées dès quelques livres
+        catalogue = new CatalogueDisque(fichier, 512, 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogue.close();
+    }
+
+    @Test
+    @DisplayName("Un livre ajouté doit être retrouvé par son ISBN")
+    void testAjouterEtTrouver() {
+        catalogue.ajouter(new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008));
+
+        Livre livre = catalogue.trouver("978-2-1234-5680-3");
+        assertNotNull(livre);
+        assertEquals("978-2-1234-5680-3", livre.getIsbn());
+        assertEquals("Clean Code", livre.getTitre());
+        assertEquals("Robert C. Martin", livre.getAuteur());
+        assertEquals(2008, livre.getAnneePublication());
+        assertEquals(1, livre.getExemplairesDisponibles());
+        assertNull(catalogue.trouver("978-0-0000-0000-0"));
+    }
+
+    @Test
+    @DisplayName("Le catalogue doit supporter bien plus de livres que le pool ne contient de pages")
+    void testNombreuxLivres() {
+        for (int i = 0; i < 5000; i++) {
+            // Ordre d'insertion mélangé pour scinder des pages au milieu de l'arbre
+            int n = (i * 7919) % 5000;
+            catalogue.ajouter(new Livre(isbn(n), "Titre " + n, "Auteur " + (n % 10), 2000));
+        }
+
+        assertEquals(5000, catalogue.taille());
+        for (int i = 0; i < 5000; i += 97) {
+            assertEquals("Titre " + i, catalogue.trouver(isbn(i)).getTitre());
+        }
+
+        int total = 0;
+        String precedent = "";
+        for (Livre livre : catalogue) {
+            assertTrue(livre.getIsbn().compareTo(precedent) > 0);
+            precedent = livre.getIsbn();
+            total++;
+        }
+        assertEquals(5000, total);
+        assertEquals(500, catalogue.trouverParAuteur(catalogue.trouver(isbn(3)).getIdAuteur()).size());
+        assertTrue(catalogue.getPagesLues() > 0);
+        assertTrue(catalogue.getPagesEcrites() > 0);
+    }
+
+    @Test
+    @DisplayName("Le parcours d'une plage ne doit retourner que les ISBN de la plage, dans l'ordre")
+    void testParcoursPlage() {
+        for (int i = 0; i < 1000; i++) {
+            catalogue.ajouter(new Livre(isbn(i), "Titre " + i, "Auteur", 2000));
+        }
+
+        List<String> isbns = new ArrayList<>();
+        catalogue.parcourir(isbn(250), isbn(260)).forEachRemaining(livre -> isbns.add(livre.getIsbn()));
+        assertEquals(10, isbns.size());
+        assertEquals(isbn(250), isbns.get(0));
+        assertEquals(isbn(259), isbns.get(9));
+        assertFalse(catalogue.parcourir(isbn(2000), null).hasNext());
+    }
+
+    @Test
+    @DisplayName("Emprunter une vue doit modifier la page sur place, même après éviction")
+    void testEmprunterSurPlace() {
+        Livre original = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        original.ajouterExemplaires(1);
+        catalogue.ajouter(original);
+        Livre vue = catalogue.trouver("978-2-1234-5680-3");
+
+        assertTrue(vue.emprunter());
+        // Les insertions évincent la page et déplacent le livre dans l'arbre
+        for (int i = 0; i < 2000; i++) {
+            catalogue.ajouter(new Livre(isbn(i), "Titre " + i, "Auteur", 2000));
+        }
+        assertEquals(1, catalogue.trouver("978-2-1234-5680-3").getExemplairesDisponibles());
+        assertEquals(1, vue.getExemplairesDisponibles());
+
+        assertTrue(vue.retourner());
+        assertFalse(catalogue.trouver("978-2-1234-5680-3").retourner());
+        assertEquals(2, catalogue.trouver("978-2-1234-5680-3").getExemplairesDisponibles());
+    }
+
+    @Test
+    @DisplayName("Deux vues du même livre doivent être égales")
+    void testEgaliteDesVues() {
+        catalogue.ajouter(new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008));
+
+        assertEquals(catalogue.trouver("978-2-1234-5680-3"), catalogue.trouver("978-2-1234-5680-3"));
+    }
+
+    @Test
+    @DisplayName("Remplacer un livre doit mettre à jour l'index par auteur")
+    void testRemplacerLivre() {
+        Livre ancien = new Livre("978-1-1111-1111-1", "Refactoring", "Martin Fowler", 1999);
+        Livre autre = new Livre("978-2-2222-2222-2", "UML Distilled", "Martin Fowler", 2003);
+        Livre nouveau = new Livre("978-1-1111-1111-1", "Test-Driven Development by Example", "Kent Beck", 2002);
+
+        catalogue.ajouter(ancien);
+        catalogue.ajouter(autre);
+        catalogue.ajouter(nouveau);
+
+        assertEquals(2, catalogue.taille());
+        assertEquals("Test-Driven Development by Example", catalogue.trouver("978-1-1111-1111-1").getTitre());
+
+        List<String> titresFowler = new ArrayList<>();
+        catalogue.trouverParAuteur(ancien.getIdAuteur()).forEach(l -> titresFowler.add(l.getTitre()));
+        assertEquals(List.of("UML Distilled"), titresFowler);
+        assertEquals(1, catalogue.trouverParAuteur(nouveau.getIdAuteur()).size());
+    }
+
+    @Test
+    @DisplayName("Un livre trop grand pour une page doit lever une exception")
+    void testLivreTropVolumineux() {
+        Livre livre = new Livre("978-1-1111-1111-1", "x".repeat(200), "Auteur", 2000);
+
+        assertThrows(IllegalArgumentException.class, () -> catalogue.ajouter(livre));
+        assertEquals(0, catalogue.taille());
+    }
+
+    @Test
+    @DisplayName("Le catalogue rouvert doit retrouver livres, disponibilités et index par auteur")
+    void testReouverture() throws IOException {
+        for (int i = 0; i < 3000; i++) {
+            catalogue.ajouter(new Livre(isbn(i), "Titre " + i, "Auteur rouvert " + (i % 3), 2000));
+        }
+        catalogue.trouver(isbn(42)).emprunter();
+        catalogue.close();
+
+        // Rouvrir et chercher par auteur ne doit pas alimenter le dictionnaire partagé
+        int auteursConnus = Dictionnaire.AUTEURS.taille();
+        catalogue = new CatalogueDisque(fichier, 16);
+        assertEquals(3000, catalogue.taille());
+        assertEquals(0, catalogue.trouver(isbn(42)).getExemplairesDisponibles());
+        assertEquals("Titre 2999", catalogue.trouver(isbn(2999)).getTitre());
+
+        BibliothequeService service = new BibliothequeService(catalogue);
+        assertEquals(1000, service.rechercherLivreParAuteur("auteur rouvert 1").size());
+        assertEquals(3000, service.rechercherLivreParAuteur("ROUVERT").size());
+        assertEquals(auteursConnus, Dictionnaire.AUTEURS.taille());
+        assertThrows(IllegalStateException.class, () -> new CatalogueDisque(Files.writeString(
+                dossier.resolve("autre.db"), "pas un catalogue du tout"), 16));
+    }
+
+    @Test
+    @DisplayName("Modifier le catalogue pendant un parcours doit être détecté")
+    void testModificationPendantParcours() {
+        catalogue.ajouter(new Livre(isbn(1), "Titre", "Auteur", 2000));
+        catalogue.ajouter(new Livre(isbn(2), "Titre", "Auteur", 2000));
+        Iterator<Livre> livres = catalogue.iterator();
+        livres.next();
+
+        catalogue.ajouter(new Livre(isbn(3), "Titre", "Auteur", 2000));
+        assertThrows(ConcurrentModificationException.class, livres::next);
+    }
+
+    @Test
+    @DisplayName("Le service doit fonctionner avec le catalogue sur disque")
+    void testServiceDisque() {
+        BibliothequeService service = new BibliothequeService(catalogue);
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        service.ajouterLivre(new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008));
+        service.inscrireAdherent(adherent);
+
+        Emprunt emprunt = service.emprunterLivre("978-2-1234-5680-3", adherent.getNumeroCarte());
+        assertEquals(0, service.rechercherLivreParIsbn("978-2-1234-5680-3").getExemplairesDisponibles());
+        assertEquals(1, service.rechercherLivreParTitre("clean").size());
+        assertEquals(1, service.rechercherLivreParAuteur("Martin").size());
+
+        service.retournerLivre(emprunt);
+        assertEquals(1, service.rechercherLivreParIsbn("978-2-1234-5680-3").getExemplairesDisponibles());
+    }
+
+    private static String isbn(int indice) {
+        return String.format("978-%010d", indice);
+    }
+}
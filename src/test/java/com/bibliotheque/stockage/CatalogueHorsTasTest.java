@@ -0,0 +1,129 @@
+package com.bibliotheque.stockage;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour la classe CatalogueHorsTas")
+class CatalogueHorsTasTest {
+
+    private CatalogueHorsTas catalogue;
+
+    @BeforeEach
+    void setUp() {
+        // Petits segments pour traverser plusieurs segments dès quelques livres
+        catalogue = new CatalogueHorsTas(4, 64);
+    }
+
+    @Test
+    @DisplayName("Un livre ajouté doit être retrouvé par son ISBN")
+    void testAjouterEtTrouver() {
+        catalogue.ajouter(new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008));
+
+        Livre livre = catalogue.trouver("978-2-1234-5680-3");
+        assertNotNull(livre);
+        assertEquals("978-2-1234-5680-3", livre.getIsbn());
+        assertEquals("Clean Code", livre.getTitre());
+        assertEquals("Robert C. Martin", livre.getAuteur());
+        assertEquals(2008, livre.getAnneePublication());
+        assertEquals(1, livre.getExemplairesDisponibles());
+        assertNull(catalogue.trouver("978-0-0000-0000-0"));
+    }
+
+    @Test
+    @DisplayName("Le catalogue doit supporter de nombreux livres sur plusieurs segments")
+    void testNombreuxLivres() {
+        for (int i = 0; i < 5000; i++) {
+            catalogue.ajouter(new Livre("ISBN-" + i, "Titre " + i, "Auteur " + (i % 10), 2000));
+        }
+
+        assertEquals(5000, catalogue.taille());
+        for (int i = 0; i < 5000; i += 97) {
+            assertEquals("Titre " + i, catalogue.trouver("ISBN-" + i).getTitre());
+        }
+
+        int total = 0;
+        for (Livre livre : catalogue) {
+            assertNotNull(livre.getIsbn());
+            total++;
+        }
+        assertEquals(5000, total);
+    }
+
+    @Test
+    @DisplayName("Emprunter une vue doit modifier l'enregistrement sur place")
+    void testEmprunterSurPlace() {
+        Livre original = new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008);
+        original.ajouterExemplaires(1);
+        catalogue.ajouter(original);
+
+        assertTrue(catalogue.trouver("978-2-1234-5680-3").emprunter());
+        assertEquals(1, catalogue.trouver("978-2-1234-5680-3").getExemplairesDisponibles());
+
+        assertTrue(catalogue.trouver("978-2-1234-5680-3").retourner());
+        assertFalse(catalogue.trouver("978-2-1234-5680-3").retourner());
+        assertEquals(2, catalogue.trouver("978-2-1234-5680-3").getExemplairesDisponibles());
+    }
+
+    @Test
+    @DisplayName("Deux vues du même livre doivent être égales")
+    void testEgaliteDesVues() {
+        catalogue.ajouter(new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008));
+
+        assertEquals(catalogue.trouver("978-2-1234-5680-3"), catalogue.trouver("978-2-1234-5680-3"));
+    }
+
+    @Test
+    @DisplayName("Remplacer un livre doit mettre à jour l'index par auteur")
+    void testRemplacerLivre() {
+        Livre ancien = new Livre("978-1-1111-1111-1", "Refactoring", "Martin Fowler", 1999);
+        Livre autre = new Livre("978-2-2222-2222-2", "UML Distilled", "Martin Fowler", 2003);
+        Livre nouveau = new Livre("978-1-1111-1111-1", "TDD by Example", "Kent Beck", 2002);
+
+        catalogue.ajouter(ancien);
+        catalogue.ajouter(autre);
+        catalogue.ajouter(nouveau);
+
+        assertEquals(2, catalogue.taille());
+        assertEquals("TDD by Example", catalogue.trouver("978-1-1111-1111-1").getTitre());
+
+        List<String> titresFowler = new ArrayList<>();
+        catalogue.trouverParAuteur(ancien.getIdAuteur()).forEach(l -> titresFowler.add(l.getTitre()));
+        assertEquals(List.of("UML Distilled"), titresFowler);
+        assertEquals(1, catalogue.trouverParAuteur(nouveau.getIdAuteur()).size());
+    }
+
+    @Test
+    @DisplayName("Une chaîne plus grande qu'un segment doit lever une exception")
+    void testChaineTropLongue() {
+        Livre livre = new Livre("978-1-1111-1111-1", "x".repeat(100), "Auteur", 2000);
+
+        assertThrows(IllegalArgumentException.class, () -> catalogue.ajouter(livre));
+    }
+
+    @Test
+    @DisplayName("Le service doit fonctionner avec le catalogue hors tas")
+    void testServiceHorsTas() {
+        BibliothequeService service = new BibliothequeService(catalogue);
+        Adherent adherent = new Adherent("Eljalil", "Mourad", "mourad.eljalil@email.com");
+        service.ajouterLivre(new Livre("978-2-1234-5680-3", "Clean Code", "Robert C. Martin", 2008));
+        service.inscrireAdherent(adherent);
+
+        Emprunt emprunt = service.emprunterLivre("978-2-1234-5680-3", adherent.getNumeroCarte());
+        assertEquals(0, service.rechercherLivreParIsbn("978-2-1234-5680-3").getExemplairesDisponibles());
+        assertEquals(1, service.rechercherLivreParTitre("clean").size());
+        assertEquals(1, service.rechercherLivreParAuteur("Martin").size());
+
+        service.retournerLivre(emprunt);
+        assertEquals(1, service.rechercherLivreParIsbn("978-2-1234-5680-3").getExemplairesDisponibles());
+    }
+}
@@ -0,0 +1,334 @@
+package com.bibliotheque.stress;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Harnais de stress : de nombreux threads empruntent, rendent et prolongent sur quelques livres
+// et adhérents très sollicités, par tours successifs.
+//
+// Pendant un tour, chaque thread enregistre ses appels (paramètres, résultat, début et fin) et
+// un observateur relit sans cesse livres et adhérents pour vérifier
+// 0 <= exemplairesDisponibles <= nombreExemplaires et nombreEmpruntsEnCours <= MAX_EMPRUNTS.
+// À la fin du tour, l'historique doit être linéarisable par rapport au ModeleSequentiel, et
+// l'état du service au repos doit être celui du modèle : disponibilités, emprunts en cours
+// par adhérent, et un exemplaire sorti pour chaque emprunt ouvert.
+//
+// Toute violation lève une AssertionError qui décrit le tour fautif.
+
+final class HarnaisConcurrence {
+
+    // Adherent.MAX_EMPRUNTS
+    static final int MAX_EMPRUNTS = 5;
+    // Emprunts rendus gardés comme candidats, pour provoquer des retours en double
+    private static final int RENDUS_GARDES = 4;
+
+    private final ServiceTeste cible;
+    private final int threads;
+    private final int appelsParThread;
+    private final int exemplaires;
+    private final List<String> isbns = new ArrayList<>();
+    private final List<String> cartes = new ArrayList<>();
+    private final Map<String, Integer> indicesLivres = new HashMap<>();
+    private final Map<String, Integer> indicesAdherents = new HashMap<>();
+    private final ModeleSequentiel modele;
+    private final VerificateurLinearisabilite verificateur;
+    private final Random aleatoire;
+
+    // État du modèle entre deux tours
+    private final int[] disponibles;
+    private final int[] empruntsEnCours;
+    private final Map<Emprunt, Integer> statuts = new IdentityHashMap<>();
+    private final List<Emprunt> rendus = new ArrayList<>();
+
+    private long tours;
+    private long appels;
+    private long refus;
+    private long observations;
+
+    HarnaisConcurrence(ServiceTeste cible, int threads, int appelsParThread, int livres, int exemplaires,
+                       int adherents, long graine) {
+        if (threads * appelsParThread > VerificateurLinearisabilite.MAX_OPERATIONS) {
+            throw new IllegalArgumentException("Au plus " + VerificateurLinearisabilite.MAX_OPERATIONS
+                    + " appels par tour");
+        }
+        this.cible = cible;
+        this.threads = threads;
+        this.appelsParThread = appelsParThread;
+        this.exemplaires = exemplaires;
+        this.modele = new ModeleSequentiel(livres, adherents, MAX_EMPRUNTS);
+        this.verificateur = new VerificateurLinearisabilite(modele);
+        this.aleatoire = new Random(graine);
+        this.disponibles = new int[livres];
+        this.empruntsEnCours = new int[adherents];
+
+        for (int i = 0; i < livres; i++) {
+            String isbn = String.format("978-9-%08d", i);
+            Livre livre = new Livre(isbn, "Livre disputé " + i, "Auteur " + i, 2000);
+            livre.ajouterExemplaires(exemplaires - 1);
+            cible.ajouterLivre(livre);
+            isbns.add(isbn);
+            indicesLivres.put(isbn, i);
+            disponibles[i] = exemplaires;
+        }
+        for (int i = 0; i < adherents; i++) {
+            Adherent adherent = new Adherent("Stress", "Adherent" + i, "stress" + i + "@email.com");
+            cible.inscrireAdherent(adherent);
+            cartes.add(adherent.getNumeroCarte());
+            indicesAdherents.put(adherent.getNumeroCarte(), i);
+        }
+    }
+
+    // Enchaîne les tours pendant la durée donnée et retourne leur bilan
+    String executer(Duration duree) throws InterruptedException {
+        long fin = System.nanoTime() + duree.toNanos();
+        do {
+            tour();
+        } while (System.nanoTime() < fin);
+        return String.format("%d tours, %d appels (%d refus), %d observations", tours, appels, refus, observations);
+    }
+
+    private void tour() throws InterruptedException {
+        List<Emprunt> candidats = Collections.synchronizedList(new ArrayList<>(statuts.keySet()));
+        candidats.addAll(rendus);
+        List<List<Appel>> historiques = new ArrayList<>();
+        AtomicReference<Throwable> erreur = new AtomicReference<>();
+        AtomicBoolean enCours = new AtomicBoolean(true);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> travailleurs = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            List<Appel> historique = new ArrayList<>(appelsParThread);
+            historiques.add(historique);
+            long graine = aleatoire.nextLong();
+            travailleurs.add(new Thread(() -> {
+                try {
+                    depart.await();
+                    travailler(new Random(graine), candidats, historique);
+                } catch (Throwable e) {
+                    erreur.compareAndSet(null, e);
+                }
+            }, "stress-" + t));
+        }
+        Thread observateur = new Thread(() -> {
+            try {
+                observer(enCours);
+            } catch (Throwable e) {
+                erreur.compareAndSet(null, e);
+            }
+        }, "stress-observateur");
+
+        for (Thread travailleur : travailleurs) {
+            travailleur.start();
+        }
+        observateur.start();
+        depart.countDown();
+        for (Thread travailleur : travailleurs) {
+            travailleur.join();
+        }
+        enCours.set(false);
+        observateur.join();
+        if (erreur.get() != null) {
+            throw new AssertionError("Erreur inattendue pendant le tour " + tours, erreur.get());
+        }
+
+        verifierHistorique(historiques);
+        verifierRepos();
+        tours++;
+    }
+
+    private void travailler(Random aleatoire, List<Emprunt> candidats, List<Appel> historique) {
+        for (int i = 0; i < appelsParThread; i++) {
+            Emprunt vise = null;
+            int choix = aleatoire.nextInt(100);
+            synchronized (candidats) {
+                if (choix >= 50 && !candidats.isEmpty()) {
+                    vise = candidats.get(aleatoire.nextInt(candidats.size()));
+                }
+            }
+            if (vise == null) {
+                int livre = aleatoire.nextInt(isbns.size());
+                int adherent = aleatoire.nextInt(cartes.size());
+                long debut = System.nanoTime();
+                Emprunt emprunt = null;
+                try {
+                    emprunt = cible.emprunter(isbns.get(livre), cartes.get(adherent));
+                } catch (IllegalStateException e) {
+                    // Refus métier : aucun exemplaire ou adhérent au maximum
+                }
+                historique.add(new Appel(Operation.Type.EMPRUNT, livre, adherent, emprunt, emprunt != null,
+                        debut, System.nanoTime()));
+                if (emprunt != null) {
+                    if (!emprunt.getLivre().getIsbn().equals(isbns.get(livre))
+                            || !emprunt.getAdherent().getNumeroCarte().equals(cartes.get(adherent))) {
+                        throw new AssertionError("Emprunt accordé pour un autre livre ou un autre adhérent: " + emprunt);
+                    }
+                    candidats.add(emprunt);
+                }
+            } else {
+                Operation.Type type = choix < 85 ? Operation.Type.RETOUR : Operation.Type.PROLONGATION;
+                int livre = indicesLivres.get(vise.getLivre().getIsbn());
+                int adherent = indicesAdherents.get(vise.getAdherent().getNumeroCarte());
+                long debut = System.nanoTime();
+                boolean succes;
+                if (type == Operation.Type.RETOUR) {
+                    try {
+                        cible.retourner(vise);
+                        succes = true;
+                    } catch (IllegalStateException e) {
+                        succes = false;
+                    }
+                } else {
+                    succes = cible.prolonger(vise);
+                }
+                historique.add(new Appel(type, livre, adherent, vise, succes, debut, System.nanoTime()));
+            }
+        }
+    }
+
+    // Relit les livres et adhérents pendant le tour : aucun état intermédiaire ne doit être visible
+    private void observer(AtomicBoolean enCours) {
+        Random aleatoire = new Random();
+        do {
+            String isbn = isbns.get(aleatoire.nextInt(isbns.size()));
+            Livre livre = cible.livre(isbn);
+            if (livre.getExemplairesDisponibles() < 0 || livre.getExemplairesDisponibles() > livre.getNombreExemplaires()) {
+                throw new AssertionError("Disponibilités incohérentes pour " + isbn + ": "
+                        + livre.getExemplairesDisponibles() + "/" + livre.getNombreExemplaires());
+            }
+            String carte = cartes.get(aleatoire.nextInt(cartes.size()));
+            int empruntes = cible.adherent(carte).getNombreEmpruntsEnCours();
+            if (empruntes < 0 || empruntes > MAX_EMPRUNTS) {
+                throw new AssertionError("Emprunts en cours incohérents pour " + carte + ": " + empruntes);
+            }
+            observations++;
+            Thread.yield();
+        } while (enCours.get());
+    }
+
+    private void verifierHistorique(List<List<Appel>> historiques) {
+        // Numérotation locale des emprunts du tour ; un emprunt inconnu du modèle est créé pendant le tour
+        Map<Emprunt, Integer> locaux = new IdentityHashMap<>();
+        List<Emprunt> references = new ArrayList<>();
+        for (List<Appel> historique : historiques) {
+            for (Appel appel : historique) {
+                if (appel.emprunt != null && !locaux.containsKey(appel.emprunt)) {
+                    locaux.put(appel.emprunt, references.size());
+                    references.add(appel.emprunt);
+                }
+            }
+        }
+
+        int[] etat = modele.etatInitial(exemplaires, references.size());
+        int base = disponibles.length + empruntsEnCours.length;
+        System.arraycopy(disponibles, 0, etat, 0, disponibles.length);
+        System.arraycopy(empruntsEnCours, 0, etat, disponibles.length, empruntsEnCours.length);
+        for (int i = 0; i < references.size(); i++) {
+            Emprunt emprunt = references.get(i);
+            etat[base + i] = statuts.containsKey(emprunt) ? statuts.get(emprunt)
+                    : rendus.contains(emprunt) ? ModeleSequentiel.RENDU : ModeleSequentiel.NON_CREE;
+        }
+
+        List<Operation> operations = new ArrayList<>();
+        for (List<Appel> historique : historiques) {
+            for (Appel appel : historique) {
+                int emprunt = appel.emprunt != null ? locaux.get(appel.emprunt) : -1;
+                operations.add(new Operation(appel.type, appel.livre, appel.adherent, emprunt, appel.succes,
+                        appel.debut, appel.fin));
+                appels++;
+                if (!appel.succes) {
+                    refus++;
+                }
+            }
+        }
+
+        List<Operation> linearisation = verificateur.lineariser(operations, etat);
+        if (linearisation == null) {
+            StringBuilder description = new StringBuilder("Historique non linéarisable au tour " + tours + " :");
+            operations.sort((a, b) -> Long.compare(a.debut, b.debut));
+            for (Operation operation : operations) {
+                description.append(System.lineSeparator()).append("  ").append(operation);
+            }
+            throw new AssertionError(description.toString());
+        }
+
+        int[] apres = verificateur.etatFinal(linearisation, etat);
+        System.arraycopy(apres, 0, disponibles, 0, disponibles.length);
+        System.arraycopy(apres, disponibles.length, empruntsEnCours, 0, empruntsEnCours.length);
+        for (int i = 0; i < references.size(); i++) {
+            Emprunt emprunt = references.get(i);
+            if (modele.statut(apres, i) == ModeleSequentiel.OUVERT) {
+                statuts.put(emprunt, ModeleSequentiel.OUVERT);
+            } else if (modele.statut(apres, i) == ModeleSequentiel.RENDU && !rendus.contains(emprunt)) {
+                statuts.remove(emprunt);
+                rendus.add(emprunt);
+            }
+        }
+        while (rendus.size() > RENDUS_GARDES) {
+            rendus.remove(0);
+        }
+    }
+
+    // Au repos, le service doit être exactement dans l'état du modèle
+    private void verifierRepos() {
+        int[] sortis = new int[isbns.size()];
+        int[] parAdherent = new int[cartes.size()];
+        for (String[] ouvert : cible.empruntsOuverts()) {
+            sortis[indicesLivres.get(ouvert[0])]++;
+            parAdherent[indicesAdherents.get(ouvert[1])]++;
+        }
+        for (int i = 0; i < isbns.size(); i++) {
+            Livre livre = cible.livre(isbns.get(i));
+            verifier(livre.getExemplairesDisponibles() == disponibles[i], "Livre " + isbns.get(i) + " : "
+                    + livre.getExemplairesDisponibles() + " disponibles, " + disponibles[i] + " attendus");
+            verifier(livre.getNombreExemplaires() - livre.getExemplairesDisponibles() == sortis[i], "Livre "
+                    + isbns.get(i) + " : " + sortis[i] + " emprunts ouverts pour "
+                    + (livre.getNombreExemplaires() - livre.getExemplairesDisponibles()) + " exemplaires sortis");
+        }
+        for (int i = 0; i < cartes.size(); i++) {
+            int empruntes = cible.adherent(cartes.get(i)).getNombreEmpruntsEnCours();
+            verifier(empruntes == empruntsEnCours[i] && empruntes == parAdherent[i], "Adhérent " + cartes.get(i)
+                    + " : " + empruntes + " emprunts en cours, " + empruntsEnCours[i] + " attendus, "
+                    + parAdherent[i] + " ouverts");
+        }
+    }
+
+    private void verifier(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError("Au repos après le tour " + tours + " : " + message);
+        }
+    }
+
+    // Un appel tel qu'observé par un thread
+    private static final class Appel {
+        final Operation.Type type;
+        final int livre;
+        final int adherent;
+        final Emprunt emprunt;
+        final boolean succes;
+        final long debut;
+        final long fin;
+
+        Appel(Operation.Type type, int livre, int adherent, Emprunt emprunt, boolean succes, long debut, long fin) {
+            this.type = type;
+            this.livre = livre;
+            this.adherent = adherent;
+            this.emprunt = emprunt;
+            this.succes = succes;
+            this.debut = debut;
+            this.fin = fin;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.bibliotheque.stress;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour HarnaisConcurrence")
+class HarnaisConcurrenceTest {
+
+    @Test
+    @DisplayName("Un court stress du pipeline doit passer toutes les vérifications")
+    void testPipeline() throws InterruptedException {
+        try (ServiceTeste cible = ServiceTeste.creer("pipeline")) {
+            HarnaisConcurrence harnais = new HarnaisConcurrence(cible, 4, 8, 3, 2, 2, 42);
+
+            String bilan = harnais.executer(Duration.ofMillis(500));
+            assertTrue(bilan.contains("tours"));
+        }
+    }
+
+    @Test
+    @DisplayName("Une façade qui accorde une prolongation sur un emprunt rendu doit être détectée")
+    void testFacadeFautive() {
+        try (ServiceTeste cible = new ProlongationToujoursAccordee()) {
+            HarnaisConcurrence harnais = new HarnaisConcurrence(cible, 4, 8, 3, 2, 2, 42);
+
+            AssertionError erreur = assertThrows(AssertionError.class, () -> harnais.executer(Duration.ofSeconds(30)));
+            assertTrue(erreur.getMessage().contains("non linéarisable"));
+        }
+    }
+
+    @Test
+    @DisplayName("Un tour limité à 63 appels doit être exigé")
+    void testTourTropLong() {
+        try (ServiceTeste cible = ServiceTeste.creer("verrou")) {
+            assertThrows(IllegalArgumentException.class, () -> new HarnaisConcurrence(cible, 8, 8, 1, 1, 1, 42));
+        }
+    }
+
+    // Délègue au service verrouillé, mais prétend prolonger même un emprunt rendu
+    private static final class ProlongationToujoursAccordee implements ServiceTeste {
+        private final ServiceTeste service = ServiceTeste.creer("verrou");
+
+        public void ajouterLivre(Livre livre) {
+            service.ajouterLivre(livre);
+        }
+
+        public void inscrireAdherent(Adherent adherent) {
+            service.inscrireAdherent(adherent);
+        }
+
+        public Emprunt emprunter(String isbn, String numeroCarte) {
+            return service.emprunter(isbn, numeroCarte);
+        }
+
+        public void retourner(Emprunt emprunt) {
+            service.retourner(emprunt);
+        }
+
+        public boolean prolonger(Emprunt emprunt) {
+            service.prolonger(emprunt);
+            return true;
+        }
+
+        public Livre livre(String isbn) {
+            return service.livre(isbn);
+        }
+
+        public Adherent adherent(String numeroCarte) {
+            return service.adherent(numeroCarte);
+        }
+
+        public List<String[]> empruntsOuverts() {
+            return service.empruntsOuverts();
+        }
+    }
+}
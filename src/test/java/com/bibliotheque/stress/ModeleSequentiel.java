@@ -0,0 +1,83 @@
+package com.bibliotheque.stress;
+
+// Spécification séquentielle des emprunts, retours et prolongations.
+// L'état est un tableau d'entiers : exemplaires disponibles par livre, emprunts en cours par
+// adhérent, puis statut de chaque emprunt. Sans avance de l'horloge, un adhérent n'est refusé
+// que s'il a atteint MAX_EMPRUNTS et un emprunt ouvert peut toujours être prolongé.
+
+final class ModeleSequentiel {
+
+    static final int NON_CREE = 0;
+    static final int OUVERT = 1;
+    static final int RENDU = 2;
+
+    final int nombreLivres;
+    final int nombreAdherents;
+    final int maxEmprunts;
+
+    ModeleSequentiel(int nombreLivres, int nombreAdherents, int maxEmprunts) {
+        this.nombreLivres = nombreLivres;
+        this.nombreAdherents = nombreAdherents;
+        this.maxEmprunts = maxEmprunts;
+    }
+
+    int[] etatInitial(int exemplairesParLivre, int nombreEmprunts) {
+        int[] etat = new int[nombreLivres + nombreAdherents + nombreEmprunts];
+        for (int livre = 0; livre < nombreLivres; livre++) {
+            etat[livre] = exemplairesParLivre;
+        }
+        return etat;
+    }
+
+    int disponibles(int[] etat, int livre) {
+        return etat[livre];
+    }
+
+    int empruntsEnCours(int[] etat, int adherent) {
+        return etat[nombreLivres + adherent];
+    }
+
+    int statut(int[] etat, int emprunt) {
+        return etat[nombreLivres + nombreAdherents + emprunt];
+    }
+
+    // Applique l'opération si le résultat observé est possible dans cet état : retourne le
+    // nouvel état (éventuellement le même tableau), ou null si le résultat est impossible.
+    int[] appliquer(int[] etat, Operation operation) {
+        int disponibles = etat[operation.livre];
+        int indiceAdherent = nombreLivres + operation.adherent;
+        int indiceEmprunt = nombreLivres + nombreAdherents + operation.emprunt;
+        switch (operation.type) {
+            case EMPRUNT:
+                boolean possible = disponibles > 0 && etat[indiceAdherent] < maxEmprunts;
+                if (!operation.succes) {
+                    return possible ? null : etat;
+                }
+                if (!possible || etat[indiceEmprunt] != NON_CREE) {
+                    return null;
+                }
+                int[] apresEmprunt = etat.clone();
+                apresEmprunt[operation.livre]--;
+                apresEmprunt[indiceAdherent]++;
+                apresEmprunt[indiceEmprunt] = OUVERT;
+                return apresEmprunt;
+            case RETOUR:
+                if (!operation.succes) {
+                    return etat[indiceEmprunt] == RENDU ? etat : null;
+                }
+                if (etat[indiceEmprunt] != OUVERT) {
+                    return null;
+                }
+                int[] apresRetour = etat.clone();
+                apresRetour[operation.livre]++;
+                apresRetour[indiceAdherent]--;
+                apresRetour[indiceEmprunt] = RENDU;
+                return apresRetour;
+            case PROLONGATION:
+                int attendu = operation.succes ? OUVERT : RENDU;
+                return etat[indiceEmprunt] == attendu ? etat : null;
+            default:
+                throw new IllegalArgumentException("Opération inconnue: " + operation.type);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.bibliotheque.stress;
+
+// Une opération de l'historique : ce qui a été demandé, ce qui a été observé, et quand.
+// debut est pris juste avant l'appel, fin juste après la réponse (System.nanoTime()).
+
+final class Operation {
+
+    enum Type { EMPRUNT, RETOUR, PROLONGATION }
+
+    final Type type;
+    final int livre;
+    final int adherent;
+    // Indice de l'emprunt créé (EMPRUNT réussi) ou visé (RETOUR, PROLONGATION), -1 sinon
+    final int emprunt;
+    // Emprunt accordé, retour accepté, prolongation accordée
+    final boolean succes;
+    final long debut;
+    final long fin;
+
+    Operation(Type type, int livre, int adherent, int emprunt, boolean succes, long debut, long fin) {
+        this.type = type;
+        this.livre = livre;
+        this.adherent = adherent;
+        this.emprunt = emprunt;
+        this.succes = succes;
+        this.debut = debut;
+        this.fin = fin;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(livre %d, adhérent %d, emprunt %d) -> %s [%d, %d]",
+                type, livre, adherent, emprunt, succes ? "succès" : "refus", debut, fin);
+    }
+}
@@ -0,0 +1,203 @@
+package com.bibliotheque.stress;
+
+import com.bibliotheque.modele.Adherent;
+import com.bibliotheque.modele.Emprunt;
+import com.bibliotheque.modele.Livre;
+import com.bibliotheque.service.BibliothequeService;
+import com.bibliotheque.service.BibliothequeServicePartitionne;
+import com.bibliotheque.service.PipelineCommandes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+// Façade concurrente soumise au harnais. Un refus métier est signalé par une
+// IllegalStateException ; toute autre exception est une erreur du système testé.
+// Les lectures retournent des copies que le harnais peut lire sans verrou.
+
+interface ServiceTeste extends AutoCloseable {
+
+    void ajouterLivre(Livre livre);
+
+    void inscrireAdherent(Adherent adherent);
+
+    Emprunt emprunter(String isbn, String numeroCarte);
+
+    void retourner(Emprunt emprunt);
+
+    boolean prolonger(Emprunt emprunt);
+
+    Livre livre(String isbn);
+
+    Adherent adherent(String numeroCarte);
+
+    // Emprunts non rendus, sous la forme (ISBN, numéro de carte)
+    List<String[]> empruntsOuverts();
+
+    @Override
+    default void close() {
+    }
+
+    static ServiceTeste creer(String nom) {
+        switch (nom) {
+            case "verrou":
+                return new Verrou();
+            case "pipeline":
+                return new Pipeline();
+            case "partitions":
+                return new Partitions(4);
+            default:
+                throw new IllegalArgumentException("Cible inconnue: " + nom);
+        }
+    }
+
+    // Service protégé par un verrou global
+    final class Verrou implements ServiceTeste {
+        private final BibliothequeService service = new BibliothequeService();
+
+        public synchronized void ajouterLivre(Livre livre) {
+            service.ajouterLivre(livre);
+        }
+
+        public synchronized void inscrireAdherent(Adherent adherent) {
+            service.inscrireAdherent(adherent);
+        }
+
+        public synchronized Emprunt emprunter(String isbn, String numeroCarte) {
+            return service.emprunterLivre(isbn, numeroCarte);
+        }
+
+        public synchronized void retourner(Emprunt emprunt) {
+            service.retournerLivre(emprunt);
+        }
+
+        public synchronized boolean prolonger(Emprunt emprunt) {
+            return service.prolongerEmprunt(emprunt);
+        }
+
+        public synchronized Livre livre(String isbn) {
+            return new Livre(service.rechercherLivreParIsbn(isbn));
+        }
+
+        public synchronized Adherent adherent(String numeroCarte) {
+            return new Adherent(service.rechercherAdherent(numeroCarte));
+        }
+
+        public synchronized List<String[]> empruntsOuverts() {
+            return ouverts(service.listerEmpruntsEnCours());
+        }
+    }
+
+    // Écrivain unique, lectures sur instantanés
+    final class Pipeline implements ServiceTeste {
+        private final PipelineCommandes pipeline = new PipelineCommandes(new BibliothequeService());
+
+        public void ajouterLivre(Livre livre) {
+            attendre(pipeline.ajouterLivre(livre));
+        }
+
+        public void inscrireAdherent(Adherent adherent) {
+            attendre(pipeline.inscrireAdherent(adherent));
+        }
+
+        public Emprunt emprunter(String isbn, String numeroCarte) {
+            return attendre(pipeline.emprunterLivre(isbn, numeroCarte));
+        }
+
+        public void retourner(Emprunt emprunt) {
+            attendre(pipeline.retournerLivre(emprunt));
+        }
+
+        public boolean prolonger(Emprunt emprunt) {
+            return attendre(pipeline.prolongerEmprunt(emprunt));
+        }
+
+        public Livre livre(String isbn) {
+            return pipeline.rechercherLivreParIsbn(isbn);
+        }
+
+        public Adherent adherent(String numeroCarte) {
+            return pipeline.rechercherAdherent(numeroCarte);
+        }
+
+        public List<String[]> empruntsOuverts() {
+            return ouverts(pipeline.listerEmpruntsEnCours());
+        }
+
+        public void close() {
+            pipeline.close();
+        }
+    }
+
+    // Livres et adhérents répartis entre partitions, adhérent verrouillé pendant un emprunt
+    final class Partitions implements ServiceTeste {
+        private final BibliothequeServicePartitionne reseau;
+
+        Partitions(int partitions) {
+            this.reseau = new BibliothequeServicePartitionne(partitions);
+        }
+
+        public void ajouterLivre(Livre livre) {
+            attendre(reseau.ajouterLivre(livre));
+        }
+
+        public void inscrireAdherent(Adherent adherent) {
+            attendre(reseau.inscrireAdherent(adherent));
+        }
+
+        public Emprunt emprunter(String isbn, String numeroCarte) {
+            return attendre(reseau.emprunterLivre(isbn, numeroCarte));
+        }
+
+        public void retourner(Emprunt emprunt) {
+            attendre(reseau.retournerLivre(emprunt));
+        }
+
+        public boolean prolonger(Emprunt emprunt) {
+            return attendre(reseau.prolongerEmprunt(emprunt));
+        }
+
+        public Livre livre(String isbn) {
+            // Seul le thread de la partition modifie le livre, et chaque compteur se lit d'un bloc
+            return new Livre(attendre(reseau.rechercherLivreParIsbn(isbn)));
+        }
+
+        public Adherent adherent(String numeroCarte) {
+            // Copie lue sous le verrou de l'adhérent, que modifient les partitions des livres
+            return attendre(reseau.rechercherAdherent(numeroCarte));
+        }
+
+        public List<String[]> empruntsOuverts() {
+            return attendre(reseau.listerEmpruntsEnCours().thenApply(ServiceTeste::ouverts));
+        }
+
+        public void close() {
+            reseau.close();
+        }
+    }
+
+    private static List<String[]> ouverts(List<Emprunt> emprunts) {
+        List<String[]> ouverts = new ArrayList<>(emprunts.size());
+        for (Emprunt emprunt : emprunts) {
+            ouverts.add(new String[]{emprunt.getLivre().getIsbn(), emprunt.getAdherent().getNumeroCarte()});
+        }
+        return ouverts;
+    }
+
+    // Attend un future et restitue l'exception métier d'origine
+    private static <T> T attendre(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente interrompue", e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bibliotheque.stress;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+
+// Stress des façades concurrentes, hors de la suite habituelle :
+//   gradle stress -Pduree=60
+// La durée (en secondes) s'applique à chaque façade.
+
+@Tag("stress")
+@DisplayName("Stress concurrent et linéarisabilité des façades du service")
+class StressConcurrenceTest {
+
+    private static final Duration DUREE = Duration.ofSeconds(Long.getLong("stress.duree", 10));
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"verrou", "pipeline", "partitions"})
+    @DisplayName("Emprunts, retours et prolongations concurrents sur des livres et adhérents disputés")
+    void testStress(String nom) throws InterruptedException {
+        try (ServiceTeste cible = ServiceTeste.creer(nom)) {
+            // 4 livres à 3 exemplaires pour 2 adhérents : les deux limites sont souvent atteintes
+            HarnaisConcurrence harnais = new HarnaisConcurrence(cible, 6, 8, 4, 3, 2, System.nanoTime());
+            System.out.println(nom + " : " + harnais.executer(DUREE));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.bibliotheque.stress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Vérifie qu'un historique concurrent est linéarisable (algorithme de Wing et Gong, avec la
+// mémorisation de Lowe) : chercher un ordre total des opérations qui respecte le temps réel
+// (une opération terminée avant qu'une autre commence la précède) et dans lequel chaque
+// résultat observé est celui du modèle séquentiel.
+//
+// À chaque étape, seules les opérations commencées avant la première fin des opérations
+// restantes peuvent passer en tête. Les couples (opérations placées, état) déjà explorés sont
+// mémorisés : la recherche reste rapide sur des historiques de quelques dizaines d'opérations.
+
+final class VerificateurLinearisabilite {
+
+    static final int MAX_OPERATIONS = 63;
+
+    private final ModeleSequentiel modele;
+
+    VerificateurLinearisabilite(ModeleSequentiel modele) {
+        this.modele = modele;
+    }
+
+    // Un ordre de linéarisation de l'historique à partir de l'état initial, ou null s'il n'en existe pas
+    List<Operation> lineariser(List<Operation> historique, int[] etatInitial) {
+        if (historique.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("Historique limité à " + MAX_OPERATIONS + " opérations");
+        }
+        Operation[] operations = historique.toArray(new Operation[0]);
+        int[] ordre = new int[operations.length];
+        Recherche recherche = new Recherche(operations, ordre);
+        if (!recherche.chercher(0L, 0, etatInitial)) {
+            return null;
+        }
+        List<Operation> linearisation = new ArrayList<>(operations.length);
+        for (int indice : ordre) {
+            linearisation.add(operations[indice]);
+        }
+        return linearisation;
+    }
+
+    // État du modèle après application d'un ordre de linéarisation
+    int[] etatFinal(List<Operation> linearisation, int[] etatInitial) {
+        int[] etat = etatInitial;
+        for (Operation operation : linearisation) {
+            etat = modele.appliquer(etat, operation);
+        }
+        return etat;
+    }
+
+    private final class Recherche {
+        private final Operation[] operations;
+        private final int[] ordre;
+        private final long toutes;
+        private final Set<Cle> explorees = new HashSet<>();
+
+        Recherche(Operation[] operations, int[] ordre) {
+            this.operations = operations;
+            this.ordre = ordre;
+            this.toutes = (1L << operations.length) - 1;
+        }
+
+        boolean chercher(long placees, int profondeur, int[] etat) {
+            if (placees == toutes) {
+                return true;
+            }
+            if (!explorees.add(new Cle(placees, etat))) {
+                return false;
+            }
+            long premiereFin = Long.MAX_VALUE;
+            for (int i = 0; i < operations.length; i++) {
+                if ((placees & (1L << i)) == 0) {
+                    premiereFin = Math.min(premiereFin, operations[i].fin);
+                }
+            }
+            for (int i = 0; i < operations.length; i++) {
+                if ((placees & (1L << i)) != 0 || operations[i].debut > premiereFin) {
+                    continue;
+                }
+                int[] suivant = modele.appliquer(etat, operations[i]);
+                if (suivant != null) {
+                    ordre[profondeur] = i;
+                    if (chercher(placees | (1L << i), profondeur + 1, suivant)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Cle {
+        private final long placees;
+        private final int[] etat;
+        private final int hachage;
+
+        Cle(long placees, int[] etat) {
+            this.placees = placees;
+            this.etat = etat;
+            this.hachage = Long.hashCode(placees) * 31 + Arrays.hashCode(etat);
+        }
+
+        @Override
+        public boolean equals(Object autre) {
+            if (!(autre instanceof Cle)) {
+                return false;
+            }
+            Cle cle = (Cle) autre;
+            return cle.placees == placees && Arrays.equals(cle.etat, etat);
+        }
+
+        @Override
+        public int hashCode() {
+            return hachage;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.bibliotheque.stress;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Tests unitaires pour VerificateurLinearisabilite")
+class VerificateurLinearisabiliteTest {
+
+    // Un livre à un exemplaire, deux adhérents
+    private final ModeleSequentiel modele = new ModeleSequentiel(1, 2, 5);
+    private final VerificateurLinearisabilite verificateur = new VerificateurLinearisabilite(modele);
+
+    @Test
+    @DisplayName("Deux emprunts concurrents du dernier exemplaire : un seul peut réussir")
+    void testEmpruntsConcurrents() {
+        Operation premier = new Operation(Operation.Type.EMPRUNT, 0, 0, 0, true, 0, 10);
+        Operation refuse = new Operation(Operation.Type.EMPRUNT, 0, 1, -1, false, 1, 9);
+        Operation second = new Operation(Operation.Type.EMPRUNT, 0, 1, 1, true, 1, 9);
+
+        // Le refus se place après l'emprunt réussi, bien qu'il se termine avant lui
+        List<Operation> ordre = verificateur.lineariser(List.of(refuse, premier), modele.etatInitial(1, 1));
+        assertEquals(List.of(premier, refuse), ordre);
+        assertNull(verificateur.lineariser(List.of(premier, second), modele.etatInitial(1, 2)));
+    }
+
+    @Test
+    @DisplayName("Un refus observé après la fin d'un retour n'est pas linéarisable")
+    void testLectureObsolete() {
+        Operation emprunt = new Operation(Operation.Type.EMPRUNT, 0, 0, 0, true, 0, 1);
+        Operation retour = new Operation(Operation.Type.RETOUR, 0, 0, 0, true, 2, 3);
+        Operation refusApres = new Operation(Operation.Type.EMPRUNT, 0, 1, -1, false, 4, 5);
+        Operation refusPendant = new Operation(Operation.Type.EMPRUNT, 0, 1, -1, false, 2, 5);
+
+        assertNull(verificateur.lineariser(List.of(emprunt, retour, refusApres), modele.etatInitial(1, 1)));
+        assertNotNull(verificateur.lineariser(List.of(emprunt, retour, refusPendant), modele.etatInitial(1, 1)));
+    }
+
+    @Test
+    @DisplayName("Un emprunt ne peut être rendu qu'une fois")
+    void testRetourEnDouble() {
+        Operation emprunt = new Operation(Operation.Type.EMPRUNT, 0, 0, 0, true, 0, 1);
+        Operation retour = new Operation(Operation.Type.RETOUR, 0, 0, 0, true, 2, 5);
+        Operation retourRefuse = new Operation(Operation.Type.RETOUR, 0, 0, 0, false, 3, 4);
+        Operation retourAccepte = new Operation(Operation.Type.RETOUR, 0, 0, 0, true, 3, 4);
+        Operation prolongation = new Operation(Operation.Type.PROLONGATION, 0, 0, 0, false, 6, 7);
+
+        List<Operation> ordre = verificateur.lineariser(List.of(emprunt, retour, retourRefuse, prolongation),
+                modele.etatInitial(1, 1));
+        assertNotNull(ordre);
+        int[] etat = verificateur.etatFinal(ordre, modele.etatInitial(1, 1));
+        assertEquals(1, modele.disponibles(etat, 0));
+        assertEquals(0, modele.empruntsEnCours(etat, 0));
+        assertEquals(ModeleSequentiel.RENDU, modele.statut(etat, 0));
+        assertNull(verificateur.lineariser(List.of(emprunt, retour, retourAccepte), modele.etatInitial(1, 1)));
+    }
+
+    @Test
+    @DisplayName("Un adhérent au maximum d'emprunts doit être refusé")
+    void testMaximumEmprunts() {
+        ModeleSequentiel petit = new ModeleSequentiel(1, 1, 1);
+        VerificateurLinearisabilite verificateurPetit = new VerificateurLinearisabilite(petit);
+        int[] etat = petit.etatInitial(2, 2);
+        Operation premier = new Operation(Operation.Type.EMPRUNT, 0, 0, 0, true, 0, 1);
+        Operation second = new Operation(Operation.Type.EMPRUNT, 0, 0, 1, true, 2, 3);
+        Operation refuse = new Operation(Operation.Type.EMPRUNT, 0, 0, -1, false, 2, 3);
+
+        assertNull(verificateurPetit.lineariser(List.of(premier, second), etat));
+        assertNotNull(verificateurPetit.lineariser(List.of(premier, refuse), etat));
+    }
+}